@@ -16,15 +16,22 @@
 
 package org.gradle.internal.classloader;
 
+import org.gradle.api.Nullable;
 import org.gradle.internal.classpath.ClassPath;
+import org.gradle.internal.classpath.ClassPathIndex;
 import org.gradle.util.CollectionUtils;
 
+import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
 
 public class MutableURLClassLoader extends URLClassLoader implements ClassLoaderHierarchy {
+    private volatile ClassPathIndex index;
+
     public MutableURLClassLoader(ClassLoader parent, URL... urls) {
         super(urls, parent);
     }
@@ -37,6 +44,14 @@ public class MutableURLClassLoader extends URLClassLoader implements ClassLoader
         super(classPath.getAsURLArray(), parent);
     }
 
+    /**
+     * @param index Used to tell that a class or resource is not present on the given classpath, without searching the classpath. Discarded when a URL is added to this loader.
+     */
+    public MutableURLClassLoader(ClassLoader parent, ClassPath classPath, @Nullable ClassPathIndex index) {
+        super(classPath.getAsURLArray(), parent);
+        this.index = index;
+    }
+
     public MutableURLClassLoader(ClassLoader parent, Spec spec) {
         this(parent, spec.classpath);
     }
@@ -47,8 +62,36 @@ public class MutableURLClassLoader extends URLClassLoader implements ClassLoader
         visitor.visitParent(getParent());
     }
 
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        ClassPathIndex index = this.index;
+        if (index != null && !index.mayContainClass(name)) {
+            throw new ClassNotFoundException(name);
+        }
+        return super.findClass(name);
+    }
+
+    @Override
+    public URL findResource(String name) {
+        ClassPathIndex index = this.index;
+        if (index != null && !index.mayContainResource(name)) {
+            return null;
+        }
+        return super.findResource(name);
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException {
+        ClassPathIndex index = this.index;
+        if (index != null && !index.mayContainResource(name)) {
+            return Collections.enumeration(Collections.<URL>emptyList());
+        }
+        return super.findResources(name);
+    }
+
     @Override
     public void addURL(URL url) {
+        index = null;
         super.addURL(url);
     }
 
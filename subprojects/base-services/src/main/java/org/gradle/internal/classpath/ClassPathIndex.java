@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.classpath;
+
+import java.util.Set;
+
+/**
+ * The directories that contain the entries of a classpath. Used to tell that a class or resource is not present on the classpath, without searching each entry of the classpath.
+ */
+public class ClassPathIndex {
+    private final Set<String> directories;
+
+    ClassPathIndex(Set<String> directories) {
+        this.directories = directories;
+    }
+
+    /**
+     * Returns false when the given class is not present on the classpath. Returns true when the class may be present.
+     */
+    public boolean mayContainClass(String className) {
+        int pos = className.lastIndexOf('.');
+        return directories.contains(pos < 0 ? "" : className.substring(0, pos).replace('.', '/'));
+    }
+
+    /**
+     * Returns false when the given resource is not present on the classpath. Returns true when the resource may be present.
+     */
+    public boolean mayContainResource(String name) {
+        if (name.startsWith("/")) {
+            return true;
+        }
+        int pos = name.lastIndexOf('/');
+        return directories.contains(pos < 0 ? "" : name.substring(0, pos));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.classpath;
+
+import org.gradle.api.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Creates {@link ClassPathIndex} instances for classpaths made up of jars. The directories of each jar are read once, and reused while the length and timestamp
+ * of the jar are unchanged.
+ */
+public class ClassPathIndexer {
+    private final ConcurrentMap<File, JarDirectories> jars = new ConcurrentHashMap<File, JarDirectories>();
+
+    /**
+     * Returns the index for the given classpath, or null when the classpath cannot be indexed. This is the case when the classpath contains directories or
+     * missing files, or jars that cannot be read or that add other entries to the classpath using the {@code Class-Path} manifest attribute.
+     */
+    @Nullable
+    public ClassPathIndex index(ClassPath classPath) {
+        Set<String> directories = new HashSet<String>();
+        for (File file : classPath.getAsFiles()) {
+            if (!file.isFile()) {
+                return null;
+            }
+            Set<String> jarDirectories = directoriesOf(file);
+            if (jarDirectories == null) {
+                return null;
+            }
+            directories.addAll(jarDirectories);
+        }
+        return new ClassPathIndex(directories);
+    }
+
+    @Nullable
+    private Set<String> directoriesOf(File jar) {
+        long length = jar.length();
+        long lastModified = jar.lastModified();
+        JarDirectories cached = jars.get(jar);
+        if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+            return cached.directories;
+        }
+        Set<String> directories = readDirectories(jar);
+        jars.put(jar, new JarDirectories(length, lastModified, directories));
+        return directories;
+    }
+
+    @Nullable
+    private static Set<String> readDirectories(File jar) {
+        try {
+            JarFile jarFile = new JarFile(jar, false);
+            try {
+                Manifest manifest = jarFile.getManifest();
+                if (manifest != null && manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH) != null) {
+                    return null;
+                }
+                Set<String> directories = new HashSet<String>();
+                directories.add("");
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    String name = entries.nextElement().getName();
+                    // Include the ancestors of each directory, so that lookups of the directories themselves are not missed
+                    for (int pos = name.lastIndexOf('/'); pos > 0; pos = name.lastIndexOf('/')) {
+                        name = name.substring(0, pos);
+                        if (!directories.add(name)) {
+                            break;
+                        }
+                    }
+                }
+                return directories;
+            } finally {
+                jarFile.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static class JarDirectories {
+        private final long length;
+        private final long lastModified;
+        private final Set<String> directories;
+
+        JarDirectories(long length, long lastModified, @Nullable Set<String> directories) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.directories = directories;
+        }
+    }
+}
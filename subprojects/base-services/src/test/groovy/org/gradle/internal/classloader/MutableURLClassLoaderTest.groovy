@@ -16,6 +16,8 @@
 
 package org.gradle.internal.classloader
 
+import org.gradle.internal.classpath.ClassPathIndex
+import org.gradle.internal.classpath.DefaultClassPath
 import spock.lang.Specification
 
 class MutableURLClassLoaderTest extends Specification {
@@ -36,4 +38,37 @@ class MutableURLClassLoaderTest extends Specification {
         1 * visitor.visitParent(parent)
         0 * visitor._
     }
+
+    def "does not search classpath for class or resource that is not present in index"() {
+        def index = Mock(ClassPathIndex)
+        def cl = new MutableURLClassLoader(null, new DefaultClassPath(new File("a.jar")), index)
+
+        when:
+        cl.findClass("org.gradle.Missing")
+
+        then:
+        thrown(ClassNotFoundException)
+        1 * index.mayContainClass("org.gradle.Missing") >> false
+
+        when:
+        def resource = cl.findResource("org/gradle/missing.txt")
+        def resources = cl.findResources("org/gradle/missing.txt")
+
+        then:
+        resource == null
+        !resources.hasMoreElements()
+        2 * index.mayContainResource("org/gradle/missing.txt") >> false
+    }
+
+    def "discards index when url is added"() {
+        def index = Mock(ClassPathIndex)
+        def cl = new MutableURLClassLoader(null, new DefaultClassPath(new File("a.jar")), index)
+
+        when:
+        cl.addURL(new File("b.jar").toURI().toURL())
+        cl.findResource("org/gradle/missing.txt")
+
+        then:
+        0 * index._
+    }
 }
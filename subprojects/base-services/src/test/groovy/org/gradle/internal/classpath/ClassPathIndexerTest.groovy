@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.classpath
+
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.jar.Attributes
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
+import java.util.jar.Manifest
+
+class ClassPathIndexerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir
+    def indexer = new ClassPathIndexer()
+
+    def "indexes directories of the jars on the classpath"() {
+        def jar1 = jar("a.jar", "org/gradle/A.class", "org/gradle/internal/B.class", "a.properties")
+        def jar2 = jar("b.jar", "com/other/C.class", "META-INF/services/com.other.Service")
+
+        when:
+        def index = indexer.index(new DefaultClassPath(jar1, jar2))
+
+        then:
+        index.mayContainClass("org.gradle.A")
+        index.mayContainClass("org.gradle.internal.Missing")
+        index.mayContainClass("com.other.C")
+        !index.mayContainClass("org.gradle.missing.A")
+        !index.mayContainClass("com.Missing")
+        index.mayContainResource("a.properties")
+        index.mayContainResource("META-INF/services/com.other.Service")
+        index.mayContainResource("org/gradle/")
+        index.mayContainResource("org/")
+        !index.mayContainResource("META-INF/missing/resource")
+        !index.mayContainResource("missing/")
+    }
+
+    def "does not index classpath containing a directory or missing file"() {
+        def jar = jar("a.jar", "org/gradle/A.class")
+
+        expect:
+        indexer.index(new DefaultClassPath(jar, tmpDir.createDir("classes"))) == null
+        indexer.index(new DefaultClassPath(jar, tmpDir.file("missing.jar"))) == null
+    }
+
+    def "does not index classpath containing a jar that adds to the classpath"() {
+        def manifest = new Manifest()
+        manifest.mainAttributes.put(Attributes.Name.MANIFEST_VERSION, "1.0")
+        manifest.mainAttributes.put(Attributes.Name.CLASS_PATH, "other.jar")
+        def jar = jar("a.jar", manifest, "org/gradle/A.class")
+
+        expect:
+        indexer.index(new DefaultClassPath(jar)) == null
+    }
+
+    def "does not index classpath containing a file that is not a jar"() {
+        def file = tmpDir.file("a.jar").createFile()
+
+        expect:
+        indexer.index(new DefaultClassPath(file)) == null
+    }
+
+    def "reindexes jar when it changes"() {
+        def jar = jar("a.jar", "org/gradle/A.class")
+
+        when:
+        def index = indexer.index(new DefaultClassPath(jar))
+
+        then:
+        !index.mayContainClass("com.other.C")
+
+        when:
+        jar("a.jar", "org/gradle/A.class", "com/other/C.class")
+        jar.lastModified = jar.lastModified() - 2000
+        index = indexer.index(new DefaultClassPath(jar))
+
+        then:
+        index.mayContainClass("com.other.C")
+    }
+
+    private TestFile jar(String name, String... entries) {
+        return jar(name, new Manifest(), entries)
+    }
+
+    private TestFile jar(String name, Manifest manifest, String... entries) {
+        def jar = tmpDir.file(name)
+        def outstr = new JarOutputStream(new FileOutputStream(jar), manifest)
+        try {
+            entries.each {
+                outstr.putNextEntry(new JarEntry(it))
+                outstr.closeEntry()
+            }
+        } finally {
+            outstr.close()
+        }
+        return jar
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.hash.Hasher;
+import org.gradle.cache.CacheAccess;
+import org.gradle.internal.Factory;
+
+import java.io.File;
+
+/**
+ * A wrapper around a {@link Hasher} that releases the cache lock while the file content is hashed, so that other threads can use the cache meanwhile.
+ */
+public class CacheLockReleasingHasher implements Hasher {
+    private final Hasher delegate;
+    private final CacheAccess cacheAccess;
+
+    public CacheLockReleasingHasher(Hasher delegate, CacheAccess cacheAccess) {
+        this.delegate = delegate;
+        this.cacheAccess = cacheAccess;
+    }
+
+    public byte[] hash(final File file) {
+        return cacheAccess.longRunningOperation(String.format("Hash %s", file), new Factory<byte[]>() {
+            public byte[] create() {
+                return delegate.hash(file);
+            }
+        });
+    }
+}
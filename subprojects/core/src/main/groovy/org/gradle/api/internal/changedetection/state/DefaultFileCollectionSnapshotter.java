@@ -17,6 +17,7 @@
 package org.gradle.api.internal.changedetection.state;
 
 import com.google.common.collect.Lists;
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
@@ -24,6 +25,11 @@ import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.file.FileTreeInternal;
 import org.gradle.api.internal.file.collections.DefaultFileCollectionResolveContext;
 import org.gradle.api.internal.file.collections.SimpleFileCollection;
+import org.gradle.internal.Factory;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
 import org.gradle.internal.serialize.SerializerRegistry;
 import org.gradle.util.ChangeListener;
 import org.gradle.util.NoOpChangeListener;
@@ -31,16 +37,28 @@ import org.gradle.util.NoOpChangeListener;
 import java.io.File;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshotter {
+    public static final String PARALLEL_SNAPSHOTTING_TOGGLE = "org.gradle.parallel.snapshotting";
+
     private final FileSnapshotter snapshotter;
     private TaskArtifactStateCacheAccess cacheAccess;
     private final StringInterner stringInterner;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner) {
+        this(snapshotter, cacheAccess, stringInterner, null);
+    }
+
+    /**
+     * When a {@link BuildOperationProcessor} is given, files are hashed by its workers while the file collection is still being visited.
+     */
+    public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.snapshotter = snapshotter;
         this.cacheAccess = cacheAccess;
         this.stringInterner = stringInterner;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     public void registerSerializers(SerializerRegistry<FileCollectionSnapshot> registry) {
@@ -52,10 +70,22 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
     }
 
     public FileCollectionSnapshot snapshot(final FileCollection input) {
+        if (buildOperationProcessor != null) {
+            return snapshotInParallel(input);
+        }
+
         final List<FileVisitDetails> allFileVisitDetails = Lists.newLinkedList();
         final List<File> missingFiles = Lists.newArrayList();
 
-        visitFiles(input, allFileVisitDetails, missingFiles);
+        visitFiles(input, new FileDetailsVisitor() {
+            public void visit(FileVisitDetails fileDetails) {
+                allFileVisitDetails.add(fileDetails);
+            }
+
+            public void visitMissing(File file) {
+                missingFiles.add(file);
+            }
+        });
 
         if (allFileVisitDetails.isEmpty() && missingFiles.isEmpty()) {
             return new FileCollectionSnapshotImpl(Collections.<String, IncrementalFileSnapshot>emptyMap());
@@ -87,7 +117,53 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         return new FileCollectionSnapshotImpl(snapshots);
     }
 
-    protected void visitFiles(FileCollection input, final List<FileVisitDetails> allFileVisitDetails, final List<File> missingFiles) {
+    /**
+     * Hands each visited file to the build operation workers as soon as it is visited, rather than collecting the whole collection first.
+     * Directories and missing files need no hashing and are recorded on the visiting thread. Each worker only holds the cache lock while
+     * looking up or storing a hash, so the file snapshotter should release the lock while hashing (see {@link CacheLockReleasingHasher}).
+     */
+    private FileCollectionSnapshot snapshotInParallel(FileCollection input) {
+        final Map<String, IncrementalFileSnapshot> snapshots = new HashMap<String, IncrementalFileSnapshot>();
+        final Map<String, IncrementalFileSnapshot> fileSnapshots = new ConcurrentHashMap<String, IncrementalFileSnapshot>();
+        final Set<String> visitedFiles = new HashSet<String>();
+        final List<File> missingFiles = Lists.newArrayList();
+        final BuildOperationQueue<SnapshotFileOperation> queue = buildOperationProcessor.newQueue(new SnapshotFileWorker(fileSnapshots), null);
+
+        visitFiles(input, new FileDetailsVisitor() {
+            public void visit(FileVisitDetails fileDetails) {
+                String absolutePath = stringInterner.intern(fileDetails.getFile().getAbsolutePath());
+                if (!visitedFiles.add(absolutePath)) {
+                    return;
+                }
+                if (fileDetails.isDirectory()) {
+                    snapshots.put(absolutePath, DirSnapshot.getInstance());
+                } else {
+                    queue.add(new SnapshotFileOperation(absolutePath, fileDetails));
+                }
+            }
+
+            public void visitMissing(File file) {
+                missingFiles.add(file);
+            }
+        });
+        queue.waitForCompletion();
+
+        for (File missingFile : missingFiles) {
+            final String absolutePath = stringInterner.intern(missingFile.getAbsolutePath());
+            if (visitedFiles.add(absolutePath)) {
+                snapshots.put(absolutePath, MissingFileSnapshot.getInstance());
+            }
+        }
+
+        if (snapshots.isEmpty() && fileSnapshots.isEmpty()) {
+            return new FileCollectionSnapshotImpl(Collections.<String, IncrementalFileSnapshot>emptyMap());
+        }
+
+        snapshots.putAll(fileSnapshots);
+        return new FileCollectionSnapshotImpl(snapshots);
+    }
+
+    protected void visitFiles(FileCollection input, final FileDetailsVisitor visitor) {
         DefaultFileCollectionResolveContext context = new DefaultFileCollectionResolveContext();
         context.add(input);
         List<FileTreeInternal> fileTrees = context.resolveAsFileTrees();
@@ -96,17 +172,58 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
             fileTree.visitTreeOrBackingFile(new FileVisitor() {
                 @Override
                 public void visitDir(FileVisitDetails dirDetails) {
-                    allFileVisitDetails.add(dirDetails);
+                    visitor.visit(dirDetails);
                 }
 
                 @Override
                 public void visitFile(FileVisitDetails fileDetails) {
-                    allFileVisitDetails.add(fileDetails);
+                    visitor.visit(fileDetails);
                 }
             });
         }
     }
 
+    protected interface FileDetailsVisitor {
+        void visit(FileVisitDetails fileDetails);
+
+        void visitMissing(File file);
+    }
+
+    private static class SnapshotFileOperation implements BuildOperation {
+        private final String absolutePath;
+        private final FileVisitDetails fileDetails;
+
+        SnapshotFileOperation(String absolutePath, FileVisitDetails fileDetails) {
+            this.absolutePath = absolutePath;
+            this.fileDetails = fileDetails;
+        }
+
+        public String getDescription() {
+            return "snapshot " + absolutePath;
+        }
+    }
+
+    private class SnapshotFileWorker implements BuildOperationWorker<SnapshotFileOperation> {
+        private final Map<String, IncrementalFileSnapshot> fileSnapshots;
+
+        SnapshotFileWorker(Map<String, IncrementalFileSnapshot> fileSnapshots) {
+            this.fileSnapshots = fileSnapshots;
+        }
+
+        public String getDisplayName() {
+            return "file snapshotter";
+        }
+
+        public void execute(final SnapshotFileOperation operation) {
+            FileSnapshot fileSnapshot = cacheAccess.useCache("Create file snapshot", new Factory<FileSnapshot>() {
+                public FileSnapshot create() {
+                    return snapshotter.snapshot(operation.fileDetails);
+                }
+            });
+            fileSnapshots.put(operation.absolutePath, new FileHashSnapshot(fileSnapshot.getHash()));
+        }
+    }
+
     interface IncrementalFileSnapshot {
         boolean isUpToDate(IncrementalFileSnapshot snapshot);
     }
@@ -166,18 +283,129 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         }
     }
 
+    /**
+     * Stores the entries of the snapshot in parallel arrays sorted by path, rather than as a map with an object per file. The hashes of all
+     * files are packed into a single array, with the hash of the entry at index {@code i} stored between {@code hashOffsets[i]} and
+     * {@code hashOffsets[i + 1]}. Directories and missing files have an empty hash.
+     */
     static class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
-        final Map<String, IncrementalFileSnapshot> snapshots;
+        static final byte DIR = 1;
+        static final byte MISSING = 2;
+        static final byte FILE = 3;
+
+        final String[] paths;
+        final byte[] kinds;
+        final int[] hashOffsets;
+        final byte[] hashes;
 
         public FileCollectionSnapshotImpl(Map<String, IncrementalFileSnapshot> snapshots) {
-            this.snapshots = snapshots;
+            paths = snapshots.keySet().toArray(new String[snapshots.size()]);
+            Arrays.sort(paths);
+            kinds = new byte[paths.length];
+            hashOffsets = new int[paths.length + 1];
+            int hashesLength = 0;
+            for (IncrementalFileSnapshot snapshot : snapshots.values()) {
+                if (snapshot instanceof FileHashSnapshot) {
+                    hashesLength += ((FileHashSnapshot) snapshot).hash.length;
+                }
+            }
+            hashes = new byte[hashesLength];
+            int offset = 0;
+            for (int i = 0; i < paths.length; i++) {
+                IncrementalFileSnapshot snapshot = snapshots.get(paths[i]);
+                hashOffsets[i] = offset;
+                if (snapshot instanceof FileHashSnapshot) {
+                    byte[] hash = ((FileHashSnapshot) snapshot).hash;
+                    System.arraycopy(hash, 0, hashes, offset, hash.length);
+                    offset += hash.length;
+                    kinds[i] = FILE;
+                } else if (snapshot instanceof DirSnapshot) {
+                    kinds[i] = DIR;
+                } else {
+                    kinds[i] = MISSING;
+                }
+            }
+            hashOffsets[paths.length] = offset;
+        }
+
+        private FileCollectionSnapshotImpl(String[] paths, byte[] kinds, int[] hashOffsets, byte[] hashes) {
+            this.paths = paths;
+            this.kinds = kinds;
+            this.hashOffsets = hashOffsets;
+            this.hashes = hashes;
+        }
+
+        int size() {
+            return paths.length;
+        }
+
+        /**
+         * Creates a map containing the entries of this snapshot.
+         */
+        Map<String, IncrementalFileSnapshot> getSnapshots() {
+            Map<String, IncrementalFileSnapshot> snapshots = new HashMap<String, IncrementalFileSnapshot>(paths.length);
+            for (int i = 0; i < paths.length; i++) {
+                snapshots.put(paths[i], toSnapshot(i));
+            }
+            return snapshots;
+        }
+
+        private IncrementalFileSnapshot toSnapshot(int index) {
+            switch (kinds[index]) {
+                case DIR:
+                    return DirSnapshot.getInstance();
+                case MISSING:
+                    return MissingFileSnapshot.getInstance();
+                default:
+                    return new FileHashSnapshot(getHash(index));
+            }
+        }
+
+        private byte[] getHash(int index) {
+            int offset = hashOffsets[index];
+            byte[] hash = new byte[hashOffsets[index + 1] - offset];
+            System.arraycopy(hashes, offset, hash, 0, hash.length);
+            return hash;
+        }
+
+        private boolean isUpToDate(int index, FileCollectionSnapshotImpl other, int otherIndex) {
+            if (kinds[index] != other.kinds[otherIndex]) {
+                return false;
+            }
+            int offset = hashOffsets[index];
+            int length = hashOffsets[index + 1] - offset;
+            int otherOffset = other.hashOffsets[otherIndex];
+            if (length != other.hashOffsets[otherIndex + 1] - otherOffset) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (hashes[offset + i] != other.hashes[otherOffset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the index of the first entry at or after {@code fromIndex} whose path is not less than the given path.
+         */
+        private int seek(int fromIndex, String path) {
+            int index = fromIndex;
+            while (index < paths.length && paths[index].compareTo(path) < 0) {
+                index++;
+            }
+            return index;
+        }
+
+        private boolean hasPathAt(int index, String path) {
+            return index < paths.length && paths[index].equals(path);
         }
 
         public FileCollection getFiles() {
             List<File> files = new ArrayList<File>();
-            for (Map.Entry<String, IncrementalFileSnapshot> entry : snapshots.entrySet()) {
-                if (entry.getValue() instanceof FileHashSnapshot) {
-                    files.add(new File(entry.getKey()));
+            for (int i = 0; i < paths.length; i++) {
+                if (kinds[i] == FILE) {
+                    files.add(new File(paths[i]));
                 }
             }
             return new SimpleFileCollection(files);
@@ -185,9 +413,9 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
 
         public FileCollection getAllFiles() {
             List<File> files = Lists.newArrayList();
-            for (Map.Entry<String, IncrementalFileSnapshot> entry : snapshots.entrySet()) {
-                if (!(entry.getValue() instanceof DirSnapshot)) {
-                    files.add(new File(entry.getKey()));
+            for (int i = 0; i < paths.length; i++) {
+                if (kinds[i] != DIR) {
+                    files.add(new File(paths[i]));
                 }
             }
             return new SimpleFileCollection(files);
@@ -196,9 +424,9 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         public FilesSnapshotSet getSnapshot() {
             return new FilesSnapshotSet() {
                 public FileSnapshot findSnapshot(File file) {
-                    IncrementalFileSnapshot s = snapshots.get(file.getAbsolutePath());
-                    if (s instanceof FileSnapshot) {
-                        return (FileSnapshot) s;
+                    int index = Arrays.binarySearch(paths, file.getAbsolutePath());
+                    if (index >= 0 && kinds[index] == FILE) {
+                        return new FileHashSnapshot(getHash(index));
                     }
                     return null;
                 }
@@ -206,35 +434,34 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         }
 
         public ChangeIterator<String> iterateChangesSince(FileCollectionSnapshot oldSnapshot) {
-            FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
-            final Map<String, IncrementalFileSnapshot> otherSnapshots = new HashMap<String, IncrementalFileSnapshot>(other.snapshots);
-            final Iterator<String> currentFiles = snapshots.keySet().iterator();
+            final FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
 
             return new ChangeIterator<String>() {
-                private Iterator<String> removedFiles;
+                private int current;
+                private int otherCurrent;
+                private int removed;
+                private int removedCurrent;
 
                 public boolean next(ChangeListener<String> listener) {
-                    while (currentFiles.hasNext()) {
-                        String currentFile = currentFiles.next();
-                        IncrementalFileSnapshot otherFile = otherSnapshots.remove(currentFile);
-
-                        if (otherFile == null) {
-                            listener.added(currentFile);
+                    while (current < paths.length) {
+                        int index = current++;
+                        otherCurrent = other.seek(otherCurrent, paths[index]);
+                        if (!other.hasPathAt(otherCurrent, paths[index])) {
+                            listener.added(paths[index]);
                             return true;
-                        } else if (!snapshots.get(currentFile).isUpToDate(otherFile)) {
-                            listener.changed(currentFile);
+                        } else if (!isUpToDate(index, other, otherCurrent++)) {
+                            listener.changed(paths[index]);
                             return true;
                         }
                     }
 
-                    // Create a single iterator to use for all of the removed files
-                    if (removedFiles == null) {
-                        removedFiles = otherSnapshots.keySet().iterator();
-                    }
-
-                    if (removedFiles.hasNext()) {
-                        listener.removed(removedFiles.next());
-                        return true;
+                    while (removed < other.paths.length) {
+                        int otherIndex = removed++;
+                        removedCurrent = seek(removedCurrent, other.paths[otherIndex]);
+                        if (!hasPathAt(removedCurrent, other.paths[otherIndex])) {
+                            listener.removed(other.paths[otherIndex]);
+                            return true;
+                        }
                     }
 
                     return false;
@@ -251,28 +478,147 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
 
                 public FileCollectionSnapshot applyTo(FileCollectionSnapshot snapshot, final ChangeListener<Merge> listener) {
                     FileCollectionSnapshotImpl target = (FileCollectionSnapshotImpl) snapshot;
-                    final Map<String, IncrementalFileSnapshot> newSnapshots = new HashMap<String, IncrementalFileSnapshot>(target.snapshots);
-                    diff(snapshots, other.snapshots, new MapMergeChangeListener<String, IncrementalFileSnapshot>(listener, newSnapshots));
-                    return new FileCollectionSnapshotImpl(newSnapshots);
+                    boolean[] updates = new boolean[paths.length];
+                    boolean[] removals = new boolean[other.paths.length];
+                    diff(other, listener, updates, removals);
+                    return merge(target, updates, other, removals);
                 }
             };
         }
 
-        private void diff(Map<String, IncrementalFileSnapshot> snapshots, Map<String, IncrementalFileSnapshot> oldSnapshots,
-                          ChangeListener<Map.Entry<String, IncrementalFileSnapshot>> listener) {
-            Map<String, IncrementalFileSnapshot> otherSnapshots = new HashMap<String, IncrementalFileSnapshot>(oldSnapshots);
-            for (Map.Entry<String, IncrementalFileSnapshot> entry : snapshots.entrySet()) {
-                IncrementalFileSnapshot otherFile = otherSnapshots.remove(entry.getKey());
-                if (otherFile == null) {
-                    listener.added(entry);
-                } else if (!entry.getValue().isUpToDate(otherFile)) {
-                    listener.changed(entry);
+        /**
+         * Notifies the listener of each change since the given snapshot, and records which of the changes were not ignored.
+         */
+        private void diff(FileCollectionSnapshotImpl other, ChangeListener<Merge> listener, boolean[] updates, boolean[] removals) {
+            int otherIndex = 0;
+            for (int index = 0; index < paths.length; index++) {
+                otherIndex = other.seek(otherIndex, paths[index]);
+                if (!other.hasPathAt(otherIndex, paths[index])) {
+                    MapMergeChangeListener.DefaultMerge merge = new MapMergeChangeListener.DefaultMerge();
+                    listener.added(merge);
+                    updates[index] = !merge.isIgnore();
+                } else if (!isUpToDate(index, other, otherIndex++)) {
+                    MapMergeChangeListener.DefaultMerge merge = new MapMergeChangeListener.DefaultMerge();
+                    listener.changed(merge);
+                    updates[index] = !merge.isIgnore();
+                }
+            }
+            int index = 0;
+            for (otherIndex = 0; otherIndex < other.paths.length; otherIndex++) {
+                index = seek(index, other.paths[otherIndex]);
+                if (!hasPathAt(index, other.paths[otherIndex])) {
+                    MapMergeChangeListener.DefaultMerge merge = new MapMergeChangeListener.DefaultMerge();
+                    listener.removed(merge);
+                    removals[otherIndex] = !merge.isIgnore();
+                }
+            }
+        }
+
+        /**
+         * Creates a copy of the target snapshot, with the entries of this snapshot marked as updated added or replaced, and the entries of
+         * the old snapshot marked as removed taken away. All three snapshots are sorted, so this is a single pass over each of them.
+         */
+        private FileCollectionSnapshotImpl merge(FileCollectionSnapshotImpl target, boolean[] updates, FileCollectionSnapshotImpl old, boolean[] removals) {
+            Builder builder = new Builder(target.paths.length + paths.length);
+            int targetIndex = 0;
+            int index = nextUpdate(updates, 0);
+            int removedIndex = 0;
+            while (targetIndex < target.paths.length || index < paths.length) {
+                int comparison;
+                if (targetIndex == target.paths.length) {
+                    comparison = 1;
+                } else if (index == paths.length) {
+                    comparison = -1;
+                } else {
+                    comparison = target.paths[targetIndex].compareTo(paths[index]);
+                }
+
+                if (comparison >= 0) {
+                    builder.add(this, index);
+                    index = nextUpdate(updates, index + 1);
+                    if (comparison == 0) {
+                        targetIndex++;
+                    }
+                } else {
+                    String path = target.paths[targetIndex];
+                    removedIndex = old.seek(removedIndex, path);
+                    if (!old.hasPathAt(removedIndex, path) || !removals[removedIndex]) {
+                        builder.add(target, targetIndex);
+                    }
+                    targetIndex++;
                 }
             }
-            for (Map.Entry<String, IncrementalFileSnapshot> entry : otherSnapshots.entrySet()) {
-                listener.removed(entry);
+            return builder.build();
+        }
+
+        private static int nextUpdate(boolean[] updates, int fromIndex) {
+            int index = fromIndex;
+            while (index < updates.length && !updates[index]) {
+                index++;
             }
+            return index;
         }
 
+        /**
+         * Assembles a snapshot entry by entry. Entries are expected to be added in path order, but are sorted when they are not.
+         */
+        static class Builder {
+            private String[] paths;
+            private byte[] kinds;
+            private int[] hashOffsets;
+            private byte[] hashes;
+            private int count;
+            private boolean sorted = true;
+
+            Builder(int expectedSize) {
+                paths = new String[expectedSize];
+                kinds = new byte[expectedSize];
+                hashOffsets = new int[expectedSize + 1];
+                hashes = new byte[expectedSize * 16];
+            }
+
+            void add(String path, byte kind, byte[] hash, int offset, int length) {
+                if (count == paths.length) {
+                    int capacity = Math.max(16, count * 2);
+                    paths = copyOf(paths, new String[capacity], count);
+                    kinds = copyOf(kinds, new byte[capacity], count);
+                    hashOffsets = copyOf(hashOffsets, new int[capacity + 1], count + 1);
+                }
+                int hashOffset = hashOffsets[count];
+                if (hashOffset + length > hashes.length) {
+                    hashes = copyOf(hashes, new byte[Math.max(hashes.length * 2, hashOffset + length)], hashOffset);
+                }
+                if (count > 0 && sorted && paths[count - 1].compareTo(path) >= 0) {
+                    sorted = false;
+                }
+                paths[count] = path;
+                kinds[count] = kind;
+                System.arraycopy(hash, offset, hashes, hashOffset, length);
+                count++;
+                hashOffsets[count] = hashOffset + length;
+            }
+
+            void add(FileCollectionSnapshotImpl source, int index) {
+                int offset = source.hashOffsets[index];
+                add(source.paths[index], source.kinds[index], source.hashes, offset, source.hashOffsets[index + 1] - offset);
+            }
+
+            FileCollectionSnapshotImpl build() {
+                FileCollectionSnapshotImpl snapshot = new FileCollectionSnapshotImpl(
+                    copyOf(paths, new String[count], count),
+                    copyOf(kinds, new byte[count], count),
+                    copyOf(hashOffsets, new int[count + 1], count + 1),
+                    copyOf(hashes, new byte[hashOffsets[count]], hashOffsets[count]));
+                if (sorted) {
+                    return snapshot;
+                }
+                return new FileCollectionSnapshotImpl(snapshot.getSnapshots());
+            }
+
+            private static <T> T copyOf(T source, T target, int length) {
+                System.arraycopy(source, 0, target, 0, length);
+                return target;
+            }
+        }
     }
 }
@@ -21,9 +21,6 @@ import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.Serializer;
 
-import java.util.HashMap;
-import java.util.Map;
-
 class DefaultFileSnapshotterSerializer implements Serializer<DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl> {
     private final StringInterner stringInterner;
 
@@ -32,42 +29,36 @@ class DefaultFileSnapshotterSerializer implements Serializer<DefaultFileCollecti
     }
 
     public DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl read(Decoder decoder) throws Exception {
-        Map<String, DefaultFileCollectionSnapshotter.IncrementalFileSnapshot> snapshots = new HashMap<String, DefaultFileCollectionSnapshotter.IncrementalFileSnapshot>();
-        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl snapshot = new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(snapshots);
         int snapshotsCount = decoder.readSmallInt();
+        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.Builder builder = new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.Builder(snapshotsCount);
+        byte[] hash = new byte[Byte.MAX_VALUE];
         for (int i = 0; i < snapshotsCount; i++) {
             String key = stringInterner.intern(decoder.readString());
             byte fileSnapshotKind = decoder.readByte();
-            if (fileSnapshotKind == 1) {
-                snapshots.put(key, DefaultFileCollectionSnapshotter.DirSnapshot.getInstance());
-            } else if (fileSnapshotKind == 2) {
-                snapshots.put(key, DefaultFileCollectionSnapshotter.MissingFileSnapshot.getInstance());
-            } else if (fileSnapshotKind == 3) {
+            if (fileSnapshotKind == DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.DIR || fileSnapshotKind == DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.MISSING) {
+                builder.add(key, fileSnapshotKind, hash, 0, 0);
+            } else if (fileSnapshotKind == DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.FILE) {
                 byte hashSize = decoder.readByte();
-                byte[] hash = new byte[hashSize];
-                decoder.readBytes(hash);
-                snapshots.put(key, new DefaultFileCollectionSnapshotter.FileHashSnapshot(hash));
+                decoder.readBytes(hash, 0, hashSize);
+                builder.add(key, fileSnapshotKind, hash, 0, hashSize);
             } else {
                 throw new RuntimeException("Unable to read serialized file collection snapshot. Unrecognized value found in the data stream.");
             }
         }
-        return snapshot;
+        return builder.build();
     }
 
     public void write(Encoder encoder, DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl value) throws Exception {
-        encoder.writeSmallInt(value.snapshots.size());
-        for (String key : value.snapshots.keySet()) {
-            encoder.writeString(key);
-            DefaultFileCollectionSnapshotter.IncrementalFileSnapshot incrementalFileSnapshot = value.snapshots.get(key);
-            if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.DirSnapshot) {
-                encoder.writeByte((byte) 1);
-            } else if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot) {
-                encoder.writeByte((byte) 2);
-            } else if (incrementalFileSnapshot instanceof DefaultFileCollectionSnapshotter.FileHashSnapshot) {
-                encoder.writeByte((byte) 3);
-                byte[] hash = ((DefaultFileCollectionSnapshotter.FileHashSnapshot) incrementalFileSnapshot).hash;
-                encoder.writeByte((byte) hash.length);
-                encoder.writeBytes(hash);
+        encoder.writeSmallInt(value.size());
+        for (int i = 0; i < value.size(); i++) {
+            encoder.writeString(value.paths[i]);
+            byte kind = value.kinds[i];
+            encoder.writeByte(kind);
+            if (kind == DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.FILE) {
+                int offset = value.hashOffsets[i];
+                int hashSize = value.hashOffsets[i + 1] - offset;
+                encoder.writeByte((byte) hashSize);
+                encoder.writeBytes(value.hashes, offset, hashSize);
             }
         }
     }
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
+import org.gradle.api.internal.hash.HashingStrategy;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.PersistentCache;
@@ -26,6 +27,7 @@ import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.Serializer;
 
 import java.io.Closeable;
+import java.util.Collections;
 
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
@@ -34,9 +36,17 @@ public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCac
     private final PersistentCache cache;
 
     public DefaultTaskArtifactStateCacheAccess(Gradle gradle, CacheRepository cacheRepository, CacheDecorator decorator) {
+        this(gradle, cacheRepository, decorator, HashingStrategy.MD5);
+    }
+
+    /**
+     * The hashing strategy is recorded with the cache, so that file hashes and snapshots created using different strategies are never mixed.
+     */
+    public DefaultTaskArtifactStateCacheAccess(Gradle gradle, CacheRepository cacheRepository, CacheDecorator decorator, HashingStrategy hashingStrategy) {
         this.inMemoryDecorator = decorator;
         cache = cacheRepository
                 .cache(gradle, "taskArtifacts")
+                .withProperties(Collections.singletonMap("hashing", hashingStrategy.getId()))
                 .withDisplayName("task history cache")
                 .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
                 .open();
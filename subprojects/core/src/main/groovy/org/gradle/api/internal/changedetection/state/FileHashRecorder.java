@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.OutputStream;
+
+/**
+ * Records the hashes of files as they are written, so that the files do not need to be read again when the outputs of the task that wrote them are snapshotted.
+ */
+public interface FileHashRecorder {
+    /**
+     * Opens the given file for writing. The hash of the content written to the returned stream is recorded for the file when the stream is closed.
+     */
+    OutputStream openForWrite(File file) throws FileNotFoundException;
+
+    /**
+     * Records the hash of the given file, which has just been written without going through {@link #openForWrite(File)}, for example using a channel transfer.
+     * The file is hashed straight away, while its content is likely to still be cached by the operating system.
+     */
+    void recordWritten(File file);
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+/**
+ * A point-in-time view of the usage of one of the named caches held by {@link InMemoryTaskArtifactCache}.
+ */
+public class InMemoryCacheStatistics {
+    private final String cacheName;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long entryCount;
+    private final long retainedSize;
+
+    public InMemoryCacheStatistics(String cacheName, long hitCount, long missCount, long evictionCount, long entryCount, long retainedSize) {
+        this.cacheName = cacheName;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.entryCount = entryCount;
+        this.retainedSize = retainedSize;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the estimated number of bytes retained by the entries of this cache.
+     */
+    public long getRetainedSize() {
+        return retainedSize;
+    }
+
+    /**
+     * Returns the activity that happened since the given earlier statistics were taken. The entry count and retained size are not relative.
+     */
+    public InMemoryCacheStatistics minus(InMemoryCacheStatistics earlier) {
+        return new InMemoryCacheStatistics(cacheName, hitCount - earlier.hitCount, missCount - earlier.missCount, evictionCount - earlier.evictionCount, entryCount, retainedSize);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{hitCount=%d, missCount=%d, evictionCount=%d, entryCount=%d, retainedSize=%d}", cacheName, hitCount, missCount, evictionCount, entryCount, retainedSize);
+    }
+}
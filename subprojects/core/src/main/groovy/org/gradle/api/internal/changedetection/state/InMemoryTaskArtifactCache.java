@@ -27,23 +27,27 @@ import org.gradle.cache.internal.MultiProcessSafePersistentIndexedCache;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Keeps the entries of the task artifact caches in memory, so they can be reused across builds run by the same process.
+ *
+ * <p>All named caches share a single memory budget, proportional to the max heap size. Entries are weighed by their estimated retained size,
+ * so a cache holding a few very large file snapshots competes fairly with a cache holding many small file hashes.</p>
+ *
+ * <p>The number of entries and the retained size of each named cache are counted as entries are added and removed, so that the statistics can be
+ * queried without visiting the entries.</p>
+ */
 public class InMemoryTaskArtifactCache implements CacheDecorator {
     private final static Logger LOG = Logging.getLogger(InMemoryTaskArtifactCache.class);
     private final static Object NULL = new Object();
-    private static final Map<String, Integer> CACHE_CAPS = new CacheCapSizer().calculateCaps();
+    private static final int EVICTION_LOG_INTERVAL = 1000;
 
     static class CacheCapSizer {
-        private static final Map<String, Integer> DEFAULT_CAP_SIZES = new HashMap<String, Integer>();
-
-        static {
-            DEFAULT_CAP_SIZES.put("fileSnapshots", 10000);
-            DEFAULT_CAP_SIZES.put("taskArtifacts", 2000);
-            DEFAULT_CAP_SIZES.put("outputFileStates", 3000);
-            DEFAULT_CAP_SIZES.put("fileHashes", 400000);
-            DEFAULT_CAP_SIZES.put("compilationState", 1000);
-        }
+        private static final int DEFAULT_MAX_WEIGHT_MB = 200;
 
         final HeapProportionalSizer sizer;
 
@@ -55,52 +59,72 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
             this(0);
         }
 
-        public Map<String, Integer> calculateCaps() {
-            Map<String, Integer> capSizes = new HashMap<String, Integer>();
-            for (Map.Entry<String, Integer> entry : DEFAULT_CAP_SIZES.entrySet()) {
-                capSizes.put(entry.getKey(), sizer.scaleValue(entry.getValue(), 100));
-            }
-            return capSizes;
+        /**
+         * Calculates the total number of bytes that all in-memory caches may retain.
+         */
+        public long calculateMaxWeight() {
+            return (long) sizer.scaleValue(DEFAULT_MAX_WEIGHT_MB, 10) * 1024 * 1024;
         }
     }
 
-
     private final Object lock = new Object();
-    private final Cache<String, Cache<Object, Object>> cache = CacheBuilder.newBuilder()
-            .maximumSize(CACHE_CAPS.size() * 2) //X2 to factor in a child build (for example buildSrc)
-            .build();
-
+    private final long maxWeight;
+    private final RetainedSizeWeigher weigher = new RetainedSizeWeigher();
+    private final Cache<CacheEntryKey, Object> data;
+    private final Map<String, CachePartition> partitions = new HashMap<String, CachePartition>();
+    private final Map<String, CacheCounters> counters = new HashMap<String, CacheCounters>();
     private final Map<String, FileLock.State> states = new HashMap<String, FileLock.State>();
 
+    public InMemoryTaskArtifactCache() {
+        this(new CacheCapSizer().calculateMaxWeight());
+    }
+
+    InMemoryTaskArtifactCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+        LoggingEvictionListener evictionListener = new LoggingEvictionListener("task artifacts", maxWeight, EVICTION_LOG_INTERVAL);
+        this.data = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher(weigher)
+                .recordStats()
+                .removalListener(new StatisticsRecordingRemovalListener(evictionListener))
+                .build();
+        evictionListener.setCache(data);
+        LOG.info("Creating In-memory cache of task artifacts: MaxWeight{{}}", maxWeight);
+    }
+
     public <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(final String cacheId, String cacheName, final MultiProcessSafePersistentIndexedCache<K, V> original) {
-        final Cache<Object, Object> data = loadData(cacheId, cacheName);
+        final CachePartition partition = loadPartition(cacheId, cacheName);
 
         return new MultiProcessSafePersistentIndexedCache<K, V>() {
             public void close() {
-                original.close();
+                try {
+                    original.close();
+                } finally {
+                    releasePartition(partition);
+                }
             }
 
             public V get(K key) {
                 assert key instanceof String || key instanceof Long || key instanceof File : "Unsupported key type: " + key;
-                Object value = data.getIfPresent(key);
-                if (value == NULL) {
-                    return null;
-                }
+                CacheEntryKey entryKey = new CacheEntryKey(partition, key);
+                Object value = data.getIfPresent(entryKey);
                 if (value != null) {
-                    return (V) value;
+                    partition.counters.hits.incrementAndGet();
+                    return value == NULL ? null : (V) value;
                 }
+                partition.counters.misses.incrementAndGet();
                 V out = original.get(key);
-                data.put(key, out == null ? NULL : out);
+                store(entryKey, out == null ? NULL : out);
                 return out;
             }
 
             public void put(K key, V value) {
                 original.put(key, value);
-                data.put(key, value);
+                store(new CacheEntryKey(partition, key), value);
             }
 
             public void remove(K key) {
-                data.put(key, NULL);
+                store(new CacheEntryKey(partition, key), NULL);
                 original.remove(key);
             }
 
@@ -113,7 +137,7 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
 
                 if (outOfDate) {
                     LOG.info("Invalidating in-memory cache of {}", cacheId);
-                    data.invalidateAll();
+                    invalidate(partition);
                 }
             }
 
@@ -125,23 +149,239 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
         };
     }
 
-    private Cache<Object, Object> loadData(String cacheId, String cacheName) {
-        Cache<Object, Object> theData;
+    /**
+     * Returns the statistics of each named cache, keyed by cache name.
+     */
+    public Map<String, InMemoryCacheStatistics> getStatistics() {
+        Map<String, InMemoryCacheStatistics> statistics = new TreeMap<String, InMemoryCacheStatistics>();
+        synchronized (lock) {
+            for (CacheCounters cacheCounters : counters.values()) {
+                statistics.put(cacheCounters.cacheName, new InMemoryCacheStatistics(cacheCounters.cacheName, cacheCounters.hits.get(), cacheCounters.misses.get(), cacheCounters.evictions.get(),
+                        cacheCounters.entries.get(), cacheCounters.retainedSize.get()));
+            }
+        }
+        return statistics;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    private void store(CacheEntryKey key, Object value) {
+        data.put(key, value);
+        key.partition.added(weigher.weigh(key, value));
+    }
+
+    private void invalidate(CachePartition partition) {
+        Iterator<CacheEntryKey> keys = data.asMap().keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().partition == partition) {
+                keys.remove();
+            }
+        }
+    }
+
+    private CachePartition loadPartition(String cacheId, String cacheName) {
+        synchronized (lock) {
+            CachePartition partition = partitions.get(cacheId);
+            if (partition != null) {
+                LOG.info("In-memory cache of {}: {}", cacheId, data.stats());
+                partition.users++;
+                return partition;
+            }
+            discardUnusedPartitions();
+            CacheCounters cacheCounters = counters.get(cacheName);
+            if (cacheCounters == null) {
+                cacheCounters = new CacheCounters(cacheName);
+                counters.put(cacheName, cacheCounters);
+            }
+            partition = new CachePartition(cacheId, cacheCounters);
+            partition.users++;
+            partitions.put(cacheId, partition);
+            return partition;
+        }
+    }
+
+    private void releasePartition(CachePartition partition) {
         synchronized (lock) {
-            theData = this.cache.getIfPresent(cacheId);
-            if (theData != null) {
-                LOG.info("In-memory cache of {}: Size{{}}, {}", cacheId, theData.size() , theData.stats());
-            } else {
-                Integer maxSize = CACHE_CAPS.get(cacheName);
-                assert maxSize != null : "Unknown cache.";
-                LOG.info("Creating In-memory cache of {}: MaxSize{{}}", cacheId, maxSize);
-                LoggingEvictionListener evictionListener = new LoggingEvictionListener(cacheId, maxSize);
-                theData = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().removalListener(evictionListener).build();
-                evictionListener.setCache(theData);
-                this.cache.put(cacheId, theData);
+            partition.users--;
+        }
+    }
+
+    /**
+     * Forgets the backing caches that are not open and no longer have any entries, for example the caches of builds that are no longer run by this process.
+     */
+    private void discardUnusedPartitions() {
+        Iterator<CachePartition> iterator = partitions.values().iterator();
+        while (iterator.hasNext()) {
+            CachePartition partition = iterator.next();
+            if (partition.users == 0 && partition.entries.get() == 0) {
+                iterator.remove();
+                states.remove(partition.cacheId);
+            }
+        }
+    }
+
+    private static class CacheCounters {
+        final String cacheName;
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+        final AtomicLong entries = new AtomicLong();
+        final AtomicLong retainedSize = new AtomicLong();
+
+        private CacheCounters(String cacheName) {
+            this.cacheName = cacheName;
+        }
+    }
+
+    /**
+     * The entries of a single backing cache. Compared by identity.
+     */
+    private static class CachePartition {
+        final String cacheId;
+        final CacheCounters counters;
+        final AtomicLong entries = new AtomicLong();
+        // Guarded by the lock of the enclosing cache
+        int users;
+
+        private CachePartition(String cacheId, CacheCounters counters) {
+            this.cacheId = cacheId;
+            this.counters = counters;
+        }
+
+        void added(long size) {
+            entries.incrementAndGet();
+            counters.entries.incrementAndGet();
+            counters.retainedSize.addAndGet(size);
+        }
+
+        void removed(long size) {
+            entries.decrementAndGet();
+            counters.entries.decrementAndGet();
+            counters.retainedSize.addAndGet(-size);
+        }
+
+        @Override
+        public String toString() {
+            return cacheId;
+        }
+    }
+
+    private static class CacheEntryKey {
+        final CachePartition partition;
+        final Object key;
+
+        private CacheEntryKey(CachePartition partition, Object key) {
+            this.partition = partition;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || o.getClass() != getClass()) {
+                return false;
+            }
+            CacheEntryKey other = (CacheEntryKey) o;
+            return partition == other.partition && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * partition.hashCode() + key.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return partition + ":" + key;
+        }
+    }
+
+    /**
+     * Estimates the number of bytes retained by a cache entry. The estimates assume a 64 bit JVM with compressed references, and only need to be
+     * good enough to keep the relative cost of the entries right.
+     */
+    static class RetainedSizeWeigher implements Weigher<Object, Object> {
+        private static final int OBJECT_HEADER = 16;
+        private static final int REFERENCE = 4;
+        private static final int ENTRY_OVERHEAD = 64;
+        private static final int UNKNOWN_VALUE = 512;
+
+        public int weigh(Object key, Object value) {
+            Object rawKey = key instanceof CacheEntryKey ? ((CacheEntryKey) key).key : key;
+            long size = ENTRY_OVERHEAD + estimate(rawKey) + estimate(value);
+            return (int) Math.min(size, Integer.MAX_VALUE);
+        }
+
+        static long estimate(Object value) {
+            if (value == null || value == NULL) {
+                return 0;
+            }
+            if (value instanceof String) {
+                return stringSize((String) value);
+            }
+            if (value instanceof Long) {
+                return OBJECT_HEADER + 8;
+            }
+            if (value instanceof File) {
+                return OBJECT_HEADER + REFERENCE + 4 + stringSize(((File) value).getPath());
+            }
+            if (value instanceof CachingFileSnapshotter.FileInfo) {
+                return OBJECT_HEADER + REFERENCE + 16 + arraySize(((CachingFileSnapshotter.FileInfo) value).getHash().length);
+            }
+            if (value instanceof DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl) {
+                DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl snapshot = (DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl) value;
+                long size = OBJECT_HEADER + 4 * REFERENCE
+                        + arraySize(snapshot.paths.length * REFERENCE)
+                        + arraySize(snapshot.kinds.length)
+                        + arraySize(snapshot.hashOffsets.length * 4)
+                        + arraySize(snapshot.hashes.length);
+                for (String path : snapshot.paths) {
+                    size += stringSize(path);
+                }
+                return size;
+            }
+            if (value instanceof OutputFilesCollectionSnapshotter.OutputFilesSnapshot) {
+                OutputFilesCollectionSnapshotter.OutputFilesSnapshot snapshot = (OutputFilesCollectionSnapshotter.OutputFilesSnapshot) value;
+                long size = OBJECT_HEADER + 2 * REFERENCE + estimate(snapshot.filesSnapshot);
+                for (Map.Entry<String, Long> entry : snapshot.rootFileIds.entrySet()) {
+                    size += ENTRY_OVERHEAD + stringSize(entry.getKey()) + estimate(entry.getValue());
+                }
+                return size;
+            }
+            return UNKNOWN_VALUE;
+        }
+
+        private static long stringSize(String value) {
+            return OBJECT_HEADER + REFERENCE + 4 + arraySize(value.length() * 2);
+        }
+
+        private static long arraySize(long length) {
+            return OBJECT_HEADER + length;
+        }
+    }
+
+    private class StatisticsRecordingRemovalListener implements RemovalListener<CacheEntryKey, Object> {
+        private final RemovalListener<Object, Object> delegate;
+
+        private StatisticsRecordingRemovalListener(RemovalListener<Object, Object> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onRemoval(RemovalNotification<CacheEntryKey, Object> notification) {
+            CacheEntryKey key = notification.getKey();
+            if (key != null) {
+                key.partition.removed(weigher.weigh(key, notification.getValue()));
+                if (notification.getCause() == RemovalCause.SIZE) {
+                    key.partition.counters.evictions.incrementAndGet();
+                }
             }
+            delegate.onRemoval((RemovalNotification) notification);
         }
-        return theData;
     }
 
     private static class LoggingEvictionListener implements RemovalListener<Object, Object> {
@@ -149,17 +389,17 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
         private static final String EVICTION_MITIGATION_MESSAGE = "\nPerformance may suffer from in-memory cache misses. Increase max heap size of Gradle build process to reduce cache misses.";
         volatile int evictionCounter;
         private final String cacheId;
-        private Cache<Object, Object> cache;
-        private final int maxSize;
+        private Cache<?, ?> cache;
+        private final long maxWeight;
         private final int logInterval;
 
-        private LoggingEvictionListener(String cacheId, int maxSize) {
+        private LoggingEvictionListener(String cacheId, long maxWeight, int logInterval) {
             this.cacheId = cacheId;
-            this.maxSize = maxSize;
-            this.logInterval = maxSize / 10;
+            this.maxWeight = maxWeight;
+            this.logInterval = logInterval;
         }
 
-        public void setCache(Cache<Object, Object> cache) {
+        public void setCache(Cache<?, ?> cache) {
             this.cache = cache;
         }
 
@@ -167,7 +407,7 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
         public void onRemoval(RemovalNotification<Object, Object> notification) {
             if (notification.getCause() == RemovalCause.SIZE) {
                 if (evictionCounter % logInterval == 0) {
-                    logger.log(LogLevel.INFO, "Cache entries evicted. In-memory cache of {}: Size{{}} MaxSize{{}}, {} {}", cacheId, cache.size(), maxSize, cache.stats(), EVICTION_MITIGATION_MESSAGE);
+                    logger.log(LogLevel.INFO, "Cache entries evicted. In-memory cache of {}: Size{{}} MaxWeight{{}}, {} {}", cacheId, cache.size(), maxWeight, cache.stats(), EVICTION_MITIGATION_MESSAGE);
                 }
                 evictionCounter++;
             }
@@ -16,32 +16,36 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileCollection;
-import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.file.DefaultFileVisitDetails;
 import org.gradle.api.internal.file.collections.ListBackedFileSet;
 import org.gradle.api.internal.file.collections.MinimalFileSet;
+import org.gradle.internal.operations.BuildOperationProcessor;
 
 import java.io.File;
-import java.util.List;
 
 public class MinimalFileSetSnapshotter extends DefaultFileCollectionSnapshotter {
     public MinimalFileSetSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner) {
         super(snapshotter, cacheAccess, stringInterner);
     }
 
+    public MinimalFileSetSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, @Nullable BuildOperationProcessor buildOperationProcessor) {
+        super(snapshotter, cacheAccess, stringInterner, buildOperationProcessor);
+    }
+
     @Override
-    protected void visitFiles(FileCollection input, final List<FileVisitDetails> allFileVisitDetails, final List<File> missingFiles) {
-        visitFiles(new ListBackedFileSet(input.getFiles()), allFileVisitDetails, missingFiles);
+    protected void visitFiles(FileCollection input, FileDetailsVisitor visitor) {
+        visitFiles(new ListBackedFileSet(input.getFiles()), visitor);
     }
 
-    private void visitFiles(MinimalFileSet input, final List<FileVisitDetails> allFileVisitDetails, final List<File> missingFiles) {
+    private void visitFiles(MinimalFileSet input, FileDetailsVisitor visitor) {
         for (File file : input.getFiles()) {
             if (file.exists()) {
-                allFileVisitDetails.add(new DefaultFileVisitDetails(file));
+                visitor.visit(new DefaultFileVisitDetails(file));
             } else {
-                missingFiles.add(file);
+                visitor.visitMissing(file);
             }
         }
     }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.hash.Hasher;
+import org.gradle.api.internal.hash.HashingOutputStream;
+import org.gradle.api.internal.hash.HashingStrategy;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link Hasher} that uses the hashes recorded while files were written, falling back to hashing the file content for files that were not recorded or have changed since.
+ * A recorded hash is used at most once, as the result is expected to be cached by the caller.
+ */
+public class RecordingFileHasher implements Hasher, FileHashRecorder {
+    private final Hasher delegate;
+    private final HashingStrategy hashingStrategy;
+    private final Hasher contentHasher;
+    private final ConcurrentMap<String, RecordedHash> recordedHashes = new ConcurrentHashMap<String, RecordedHash>();
+
+    public RecordingFileHasher(Hasher delegate, HashingStrategy hashingStrategy) {
+        this.delegate = delegate;
+        this.hashingStrategy = hashingStrategy;
+        this.contentHasher = hashingStrategy.createHasher();
+    }
+
+    public byte[] hash(File file) {
+        RecordedHash recordedHash = recordedHashes.remove(file.getAbsolutePath());
+        if (recordedHash != null && recordedHash.length == file.length() && recordedHash.timestamp == file.lastModified()) {
+            return recordedHash.hash;
+        }
+        return delegate.hash(file);
+    }
+
+    public OutputStream openForWrite(final File file) throws FileNotFoundException {
+        final String absolutePath = file.getAbsolutePath();
+        // Forget any earlier content of the file
+        recordedHashes.remove(absolutePath);
+        final HashingOutputStream outputStream = hashingStrategy.createHashingOutputStream(new FileOutputStream(file));
+        return new OutputStream() {
+            private boolean closed;
+
+            @Override
+            public void write(int b) throws IOException {
+                outputStream.write(b);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                outputStream.write(bytes, offset, length);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                outputStream.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                outputStream.close();
+                recordedHashes.put(absolutePath, new RecordedHash(outputStream.getHash(), file.length(), file.lastModified()));
+            }
+        };
+    }
+
+    public void recordWritten(File file) {
+        String absolutePath = file.getAbsolutePath();
+        recordedHashes.remove(absolutePath);
+        byte[] hash = contentHasher.hash(file);
+        recordedHashes.put(absolutePath, new RecordedHash(hash, file.length(), file.lastModified()));
+    }
+
+    private static class RecordedHash {
+        private final byte[] hash;
+        private final long length;
+        private final long timestamp;
+
+        private RecordedHash(byte[] hash, long length, long timestamp) {
+            this.hash = hash;
+            this.length = length;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -17,8 +17,10 @@ package org.gradle.api.internal.file;
 
 import org.apache.commons.io.IOUtils;
 import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.internal.changedetection.state.FileHashRecorder;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.util.GFileUtils;
@@ -65,13 +67,28 @@ public abstract class AbstractFileTreeElement implements FileTreeElement {
     }
 
     public boolean copyTo(File target) {
+        return doCopyTo(target, null);
+    }
+
+    /**
+     * Copies this element to the given target, writing the content of a file through the given recorder so that its hash is recorded.
+     */
+    public boolean copyTo(File target, FileHashRecorder fileHashRecorder) {
+        return doCopyTo(target, fileHashRecorder);
+    }
+
+    private boolean doCopyTo(File target, @Nullable FileHashRecorder fileHashRecorder) {
         validateTimeStamps();
         try {
             if (isDirectory()) {
                 GFileUtils.mkdirs(target);
             } else {
                 GFileUtils.mkdirs(target.getParentFile());
-                copyFile(target);
+                if (fileHashRecorder != null) {
+                    recordFile(target, fileHashRecorder);
+                } else {
+                    copyFile(target);
+                }
             }
             chmod.chmod(target, getMode());
             return true;
@@ -87,7 +104,7 @@ public abstract class AbstractFileTreeElement implements FileTreeElement {
         }
     }
 
-    private void copyFile(File target) throws IOException {
+    protected void copyFile(File target) throws IOException {
         FileOutputStream outputStream = new FileOutputStream(target);
         try {
             copyTo(outputStream);
@@ -96,6 +113,15 @@ public abstract class AbstractFileTreeElement implements FileTreeElement {
         }
     }
 
+    private void recordFile(File target, FileHashRecorder fileHashRecorder) throws IOException {
+        OutputStream outputStream = fileHashRecorder.openForWrite(target);
+        try {
+            copyTo(outputStream);
+        } finally {
+            outputStream.close();
+        }
+    }
+
     public int getMode() {
         return isDirectory()
             ? FileSystem.DEFAULT_DIR_MODE
@@ -21,7 +21,9 @@ import org.gradle.api.file.ContentFilterable;
 import org.gradle.api.file.DuplicatesStrategy;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.changedetection.state.FileHashRecorder;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
+import org.gradle.api.internal.file.DefaultFileTreeElement;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
 
 import java.io.*;
@@ -47,6 +49,10 @@ public class DefaultFileCopyDetails extends AbstractFileTreeElement implements F
         return specResolver.getIncludeEmptyDirs();
     }
 
+    public boolean isUnfilteredRegularFile() {
+        return !filterChain.hasFilters() && fileDetails instanceof DefaultFileTreeElement && !fileDetails.isDirectory();
+    }
+
     public String getDisplayName() {
         return fileDetails.toString();
     }
@@ -107,6 +113,17 @@ public class DefaultFileCopyDetails extends AbstractFileTreeElement implements F
         }
     }
 
+    @Override
+    public boolean copyTo(File target, FileHashRecorder fileHashRecorder) {
+        if (isUnfilteredRegularFile()) {
+            // Let the file be copied using a channel transfer, and hash the result afterwards
+            boolean copied = copyTo(target);
+            fileHashRecorder.recordWritten(target);
+            return copied;
+        }
+        return super.copyTo(target, fileHashRecorder);
+    }
+
     private void adaptPermissions(File target) {
         int specMode = getMode();
         getChmod().chmod(target, specMode);
@@ -15,36 +15,140 @@
  */
 package org.gradle.api.internal.file.copy;
 
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.changedetection.state.FileHashRecorder;
 import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.tasks.SimpleWorkResult;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
+import org.gradle.util.GFileUtils;
 
 import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
 
 public class FileCopyAction implements CopyAction {
+    public static final String PARALLEL_COPY_TOGGLE = "org.gradle.parallel.copy";
 
     private final FileResolver fileResolver;
+    private final FileHashRecorder fileHashRecorder;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public FileCopyAction(FileResolver fileResolver) {
+        this(fileResolver, null, null);
+    }
+
+    /**
+     * Creates an action that reports the hash of each file it writes to the given recorder.
+     *
+     * @param buildOperationProcessor when not null, regular files that are copied without filtering are written by the build operation workers.
+     */
+    public FileCopyAction(FileResolver fileResolver, @Nullable FileHashRecorder fileHashRecorder, @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.fileResolver = fileResolver;
+        this.fileHashRecorder = fileHashRecorder;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     public WorkResult execute(CopyActionProcessingStream stream) {
+        if (buildOperationProcessor != null) {
+            ParallelFileCopyDetailsInternalAction action = new ParallelFileCopyDetailsInternalAction();
+            try {
+                stream.process(action);
+            } finally {
+                action.waitForPendingCopies();
+            }
+            return new SimpleWorkResult(action.didWork);
+        }
         FileCopyDetailsInternalAction action = new FileCopyDetailsInternalAction();
         stream.process(action);
         return new SimpleWorkResult(action.didWork);
     }
 
+    private boolean copy(FileCopyDetailsInternal details, File target) {
+        if (fileHashRecorder == null) {
+            return details.copyTo(target);
+        }
+        return details.copyTo(target, fileHashRecorder);
+    }
+
     private class FileCopyDetailsInternalAction implements CopyActionProcessingStreamAction {
         private boolean didWork;
 
         public void processFile(FileCopyDetailsInternal details) {
             File target = fileResolver.resolve(details.getRelativePath().getPathString());
-            boolean copied = details.copyTo(target);
+            boolean copied = copy(details, target);
             if (copied) {
                 didWork = true;
             }
         }
     }
+
+    /**
+     * Hands the copying of unfiltered regular files to the build operation workers, and copies everything else on the visiting thread.
+     * Directories, including the parent directory of each queued file, are created on the visiting thread in visit order. When a file is
+     * written more than once, the copies queued so far are completed first, so that the last visited file still wins.
+     */
+    private class ParallelFileCopyDetailsInternalAction implements CopyActionProcessingStreamAction {
+        private final Set<File> queuedTargets = new HashSet<File>();
+        private BuildOperationQueue<CopyFileOperation> queue;
+        private boolean didWork;
+
+        public void processFile(FileCopyDetailsInternal details) {
+            File target = fileResolver.resolve(details.getRelativePath().getPathString());
+            if (queuedTargets.contains(target)) {
+                waitForPendingCopies();
+            }
+            if (details.isUnfilteredRegularFile()) {
+                GFileUtils.mkdirs(target.getParentFile());
+                if (queue == null) {
+                    queue = buildOperationProcessor.newQueue(new CopyFileWorker(), null);
+                }
+                queue.add(new CopyFileOperation(details, target));
+                queuedTargets.add(target);
+                didWork = true;
+            } else if (copy(details, target)) {
+                didWork = true;
+            }
+        }
+
+        void waitForPendingCopies() {
+            if (queue == null) {
+                return;
+            }
+            try {
+                queue.waitForCompletion();
+            } finally {
+                queue = null;
+                queuedTargets.clear();
+            }
+        }
+    }
+
+    private static class CopyFileOperation implements BuildOperation {
+        private final FileCopyDetailsInternal details;
+        private final File target;
+
+        CopyFileOperation(FileCopyDetailsInternal details, File target) {
+            this.details = details;
+            this.target = target;
+        }
+
+        public String getDescription() {
+            return "copy " + target;
+        }
+    }
+
+    private class CopyFileWorker implements BuildOperationWorker<CopyFileOperation> {
+        public String getDisplayName() {
+            return "file copier";
+        }
+
+        public void execute(CopyFileOperation operation) {
+            copy(operation.details, operation.target);
+        }
+    }
 }
@@ -17,9 +17,22 @@
 package org.gradle.api.internal.file.copy;
 
 import org.gradle.api.file.FileCopyDetails;
+import org.gradle.api.internal.changedetection.state.FileHashRecorder;
+
+import java.io.File;
 
 public interface FileCopyDetailsInternal extends FileCopyDetails {
 
     boolean isIncludeEmptyDirs();
 
+    /**
+     * Returns true when the content of this file is copied unchanged from a regular file, so that it can be copied on any thread and after the visit has finished.
+     */
+    boolean isUnfilteredRegularFile();
+
+    /**
+     * Copies this file to the given target, as {@link #copyTo(File)} does, and records the hash of the content written with the given recorder.
+     */
+    boolean copyTo(File target, FileHashRecorder fileHashRecorder);
+
 }
@@ -117,6 +117,10 @@ public class NormalizingCopyActionDecorator implements CopyAction {
             return includeEmptyDirs;
         }
 
+        public boolean isUnfilteredRegularFile() {
+            return false;
+        }
+
         @Override
         public String getDisplayName() {
             return path.toString();
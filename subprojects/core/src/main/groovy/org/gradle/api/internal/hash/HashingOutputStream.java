@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that hashes the bytes written to it, using a {@link HashingStrategy}.
+ */
+public class HashingOutputStream extends FilterOutputStream {
+    private final HashingStrategy strategy;
+    private final com.google.common.hash.Hasher hasher;
+
+    HashingOutputStream(HashingStrategy strategy, OutputStream delegate) {
+        super(delegate);
+        this.strategy = strategy;
+        this.hasher = strategy.getHashFunction().newHasher();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        hasher.putByte((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+        hasher.putBytes(bytes, offset, length);
+    }
+
+    /**
+     * Returns the hash of the bytes written so far. Can only be called once.
+     */
+    public byte[] getHash() {
+        return strategy.toFileHash(hasher.hash().asBytes());
+    }
+}
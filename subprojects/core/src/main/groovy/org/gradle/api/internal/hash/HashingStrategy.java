@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.gradle.internal.hash.HashValue;
+
+import java.io.OutputStream;
+
+/**
+ * The available strategies for hashing the content of files.
+ */
+public enum HashingStrategy {
+    MD5("md5") {
+        public Hasher createHasher() {
+            return new DefaultHasher();
+        }
+
+        @Override
+        HashFunction getHashFunction() {
+            return Hashing.md5();
+        }
+
+        @Override
+        byte[] toFileHash(byte[] digest) {
+            // DefaultHasher goes through HashValue, which drops leading zeros
+            return new HashValue(digest).asByteArray();
+        }
+    },
+    MURMUR3("murmur3") {
+        public Hasher createHasher() {
+            return new Murmur3Hasher();
+        }
+
+        @Override
+        HashFunction getHashFunction() {
+            return Hashing.murmur3_128();
+        }
+    };
+
+    public static final String HASHING_STRATEGY_PROPERTY = "org.gradle.hashing";
+
+    private final String id;
+
+    HashingStrategy(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns a stable identifier for this strategy, which can be used to keep hashes created by different strategies apart.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public abstract Hasher createHasher();
+
+    abstract HashFunction getHashFunction();
+
+    byte[] toFileHash(byte[] digest) {
+        return digest;
+    }
+
+    /**
+     * Creates a stream that hashes the bytes written through it. The resulting hash is the same as the one {@link #createHasher()} produces for a file with that content.
+     */
+    public HashingOutputStream createHashingOutputStream(OutputStream delegate) {
+        return new HashingOutputStream(this, delegate);
+    }
+
+    public static HashingStrategy forId(String id) {
+        for (HashingStrategy strategy : values()) {
+            if (strategy.id.equalsIgnoreCase(id)) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown hashing strategy '%s'.", id));
+    }
+
+    /**
+     * Returns the strategy selected using the {@value #HASHING_STRATEGY_PROPERTY} system property, defaulting to {@link #MD5}.
+     */
+    public static HashingStrategy fromSystemProperties() {
+        String id = System.getProperty(HASHING_STRATEGY_PROPERTY);
+        return id == null ? MD5 : forId(id);
+    }
+}
@@ -67,6 +67,11 @@ public class DefaultScriptHandler implements ScriptHandler, ScriptHandlerInterna
         return new DefaultClassPath(classpathConfiguration.getFiles());
     }
 
+    @Override
+    public boolean hasScriptClassPathDependencies() {
+        return classpathConfiguration != null && !classpathConfiguration.getDependencies().isEmpty();
+    }
+
     public DependencyHandler getDependencies() {
         defineConfiguration();
         if (dependencyHandler == null) {
@@ -23,4 +23,9 @@ public interface ScriptHandlerInternal extends ScriptHandler {
     void addScriptClassPathDependency(Object notation);
 
     ClassPath getScriptClassPath();
+
+    /**
+     * Returns true if class path dependencies have been declared for the script, without resolving them.
+     */
+    boolean hasScriptClassPathDependencies();
 }
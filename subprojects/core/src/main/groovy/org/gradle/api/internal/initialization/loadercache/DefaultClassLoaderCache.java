@@ -25,18 +25,29 @@ import org.gradle.api.Nullable;
 import org.gradle.internal.classloader.FilteringClassLoader;
 import org.gradle.internal.classloader.MutableURLClassLoader;
 import org.gradle.internal.classpath.ClassPath;
+import org.gradle.internal.classpath.ClassPathIndexer;
 
 import java.util.Map;
 
 public class DefaultClassLoaderCache implements ClassLoaderCache {
+    public static final String CLASSPATH_INDEX_TOGGLE = "org.gradle.classloader.index";
 
     private final Object lock = new Object();
     private final Map<ClassLoaderId, CachedClassLoader> byId = Maps.newHashMap();
     private final Map<ClassLoaderSpec, CachedClassLoader> bySpec = Maps.newHashMap();
     private final ClassPathSnapshotter snapshotter;
+    private final ClassPathIndexer classPathIndexer;
 
     public DefaultClassLoaderCache(ClassPathSnapshotter snapshotter) {
+        this(snapshotter, null);
+    }
+
+    /**
+     * @param classPathIndexer Used to index the classpath of each class loader, so that classes and resources that are not present are found without searching the classpath. Class loaders are not indexed when null.
+     */
+    public DefaultClassLoaderCache(ClassPathSnapshotter snapshotter, @Nullable ClassPathIndexer classPathIndexer) {
         this.snapshotter = snapshotter;
+        this.classPathIndexer = classPathIndexer;
     }
 
     public ClassLoader get(ClassLoaderId id, ClassPath classPath, ClassLoader parent, @Nullable FilteringClassLoader.Spec filterSpec) {
@@ -79,7 +90,7 @@ public class DefaultClassLoaderCache implements ClassLoaderCache {
                 parentCachedLoader = getAndRetainLoader(classPath, spec.unfiltered(), id);
                 classLoader = new FilteringClassLoader(parentCachedLoader.classLoader, spec.filterSpec);
             } else {
-                classLoader = new MutableURLClassLoader(spec.parent, classPath);
+                classLoader = new MutableURLClassLoader(spec.parent, classPath, classPathIndexer == null ? null : classPathIndexer.index(classPath));
             }
             cachedLoader = new CachedClassLoader(classLoader, spec, parentCachedLoader);
             bySpec.put(spec, cachedLoader);
@@ -33,7 +33,8 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
     private final Map<String, Object> plugins = new LinkedHashMap<String, Object>();
     private final DefaultConvention.ExtensionsDynamicObject extensionsDynamicObject = new ExtensionsDynamicObject();
     private final ExtensionsStorage extensionsStorage = new ExtensionsStorage();
-    private final ExtraPropertiesExtension extraProperties = new DefaultExtraPropertiesExtension();
+    private final DefaultExtraPropertiesExtension extraProperties = new DefaultExtraPropertiesExtension();
+    private final List<Runnable> mutateActions = new ArrayList<Runnable>();
     private final Instantiator instantiator;
 
     /**
@@ -98,6 +99,7 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
         if (extension instanceof Class) {
             create(name, (Class<?>) extension);
         } else {
+            assertMutable();
             extensionsStorage.add(name, extension);
         }
     }
@@ -129,9 +131,21 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
     }
 
     public <T> void configure(Class<T> type, Action<? super T> action) {
+        assertMutable();
         extensionsStorage.configureExtension(type, action);
     }
 
+    public void beforeChange(Runnable action) {
+        mutateActions.add(action);
+        extraProperties.beforeChange(action);
+    }
+
+    private void assertMutable() {
+        for (Runnable action : mutateActions) {
+            action.run();
+        }
+    }
+
     public Map<String, Object> getAsMap() {
         return extensionsStorage.getAsMap();
     }
@@ -204,6 +218,7 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
 
         public Object invokeMethod(String name, Object... args) {
             if (extensionsStorage.isConfigureExtensionMethod(name, args)) {
+                assertMutable();
                 return extensionsStorage.configureExtension(name, args);
             }
             for (Object object : plugins.values()) {
@@ -22,12 +22,15 @@ import groovy.lang.MissingPropertyException;
 import groovy.lang.ReadOnlyPropertyException;
 import org.gradle.api.plugins.ExtraPropertiesExtension;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class DefaultExtraPropertiesExtension extends GroovyObjectSupport implements ExtraPropertiesExtension {
 
     Map<String, Object> storage = new HashMap<String, Object>();
+    private final List<Runnable> mutateActions = new ArrayList<Runnable>();
 
     public boolean has(String name) {
         return storage.containsKey(name);
@@ -42,9 +45,19 @@ public class DefaultExtraPropertiesExtension extends GroovyObjectSupport impleme
     }
 
     public void set(String name, Object value) {
+        for (Runnable action : mutateActions) {
+            action.run();
+        }
         storage.put(name, value);
     }
 
+    /**
+     * Adds an action which is executed before a property is set. Any exception thrown by the action will veto the change.
+     */
+    public void beforeChange(Runnable action) {
+        mutateActions.add(action);
+    }
+
     public Object getProperty(String name) {
         if (name.equals("properties")) {
             return getProperties();
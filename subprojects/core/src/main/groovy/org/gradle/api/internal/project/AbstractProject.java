@@ -184,6 +184,10 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
         }
         extensibleDynamicObject.addObject(taskContainer.getTasksAsDynamicObject(), ExtensibleDynamicObject.Location.AfterConvention);
 
+        Runnable changeGuard = ProjectConfigurationGuard.changeGuardFor(this);
+        taskContainer.beforeChange(changeGuard);
+        ((ExtensionContainerInternal) extensibleDynamicObject.getConvention()).beforeChange(changeGuard);
+
         evaluationListener.add(gradle.getProjectEvaluationBroadcaster());
 
         populateModelRegistry(services.get(ModelRegistry.class));
@@ -325,6 +329,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public void setDescription(String description) {
+        assertCanChange();
         this.description = description;
     }
 
@@ -338,6 +343,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public void setGroup(Object group) {
+        assertCanChange();
         this.group = group;
     }
 
@@ -346,6 +352,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public void setVersion(Object version) {
+        assertCanChange();
         this.version = version;
     }
 
@@ -354,6 +361,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public void setStatus(Object status) {
+        assertCanChange();
         this.status = status;
     }
 
@@ -366,6 +374,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public void setDefaultTasks(List<String> defaultTasks) {
+        assertCanChange();
         this.defaultTasks = defaultTasks;
     }
 
@@ -512,6 +521,9 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public AbstractProject evaluate() {
+        if (!state.getExecuted()) {
+            assertCanChange();
+        }
         getProjectEvaluator().evaluate(this, state);
         state.rethrowFailure();
         return this;
@@ -532,6 +544,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public void defaultTasks(String... defaultTasks) {
+        assertCanChange();
         if (defaultTasks == null) {
             throw new InvalidUserDataException("Default tasks must not be null!");
         }
@@ -557,6 +570,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public void setBuildDir(Object path) {
+        assertCanChange();
         buildDir = path;
     }
 
@@ -583,6 +597,10 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
         return projectToEvaluate.evaluate();
     }
 
+    private void assertCanChange() {
+        ProjectConfigurationGuard.assertCanChange(this);
+    }
+
     public String toString() {
         StringBuilder builder = new StringBuilder();
         if (parent == null) {
@@ -718,18 +736,22 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public void beforeEvaluate(Action<? super Project> action) {
+        assertCanChange();
         evaluationListener.add("beforeEvaluate", action);
     }
 
     public void afterEvaluate(Action<? super Project> action) {
+        assertCanChange();
         evaluationListener.add("afterEvaluate", action);
     }
 
     public void beforeEvaluate(Closure closure) {
+        assertCanChange();
         evaluationListener.add(new ClosureBackedMethodInvocationDispatch("beforeEvaluate", closure));
     }
 
     public void afterEvaluate(Closure closure) {
+        assertCanChange();
         evaluationListener.add(new ClosureBackedMethodInvocationDispatch("afterEvaluate", closure));
     }
 
@@ -758,6 +780,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public void setProperty(String name, Object value) {
+        assertCanChange();
         extensibleDynamicObject.setProperty(name, value);
     }
 
@@ -859,18 +882,22 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public void configurations(Closure configureClosure) {
+        assertCanChange();
         ((Configurable<?>) getConfigurations()).configure(configureClosure);
     }
 
     public void repositories(Closure configureClosure) {
+        assertCanChange();
         ConfigureUtil.configure(configureClosure, getRepositories());
     }
 
     public void dependencies(Closure configureClosure) {
+        assertCanChange();
         ConfigureUtil.configure(configureClosure, getDependencies());
     }
 
     public void artifacts(Closure configureClosure) {
+        assertCanChange();
         ConfigureUtil.configure(configureClosure, getArtifacts());
     }
 
@@ -879,6 +906,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public Task task(String task) {
+        assertCanChange();
         return taskContainer.create(task);
     }
 
@@ -887,6 +915,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public Task task(String task, Closure configureClosure) {
+        assertCanChange();
         return taskContainer.create(task).configure(configureClosure);
     }
 
@@ -895,6 +924,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public Task task(Map options, String task) {
+        assertCanChange();
         return taskContainer.create(addMaps(options, singletonMap(Task.TASK_NAME, task)));
     }
 
@@ -903,6 +933,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public Task task(Map options, String task, Closure configureClosure) {
+        assertCanChange();
         return taskContainer.create(addMaps(options, singletonMap(Task.TASK_NAME, task))).configure(configureClosure);
     }
 
@@ -930,6 +961,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
 
     @Override
     protected DefaultObjectConfigurationAction createObjectConfigurationAction() {
+        assertCanChange();
         return new DefaultObjectConfigurationAction(getFileResolver(), getScriptPluginFactory(), getScriptHandlerFactory(), getBaseClassLoaderScope(), this);
     }
 
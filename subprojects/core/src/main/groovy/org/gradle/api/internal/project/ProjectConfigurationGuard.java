@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project;
+
+import org.gradle.api.InvalidUserCodeException;
+import org.gradle.api.Project;
+
+/**
+ * Detects changes made to a project by the configuration of another project, when projects are configured in parallel.
+ *
+ * <p>While a project is configured by a thread, that thread may only change the project itself or its child projects. Parent projects have already been configured,
+ * and any other project may be configured concurrently by another thread. Such a change fails immediately, rather than leading to unpredictable results.</p>
+ */
+public class ProjectConfigurationGuard {
+    private static final ThreadLocal<ProjectInternal> CONFIGURING = new ThreadLocal<ProjectInternal>();
+
+    /**
+     * Runs the given action, which configures the given project, checking any changes made to other projects by the action.
+     */
+    public static void configure(ProjectInternal project, Runnable action) {
+        ProjectInternal previous = CONFIGURING.get();
+        CONFIGURING.set(project);
+        try {
+            action.run();
+        } finally {
+            CONFIGURING.set(previous);
+        }
+    }
+
+    /**
+     * Returns an action that fails when the given project cannot be changed by the current thread. Used to guard the containers of the project.
+     */
+    public static Runnable changeGuardFor(final ProjectInternal project) {
+        return new Runnable() {
+            public void run() {
+                assertCanChange(project);
+            }
+        };
+    }
+
+    /**
+     * Fails when the given project cannot be changed by the current thread.
+     */
+    public static void assertCanChange(ProjectInternal project) {
+        ProjectInternal configuring = CONFIGURING.get();
+        if (configuring == null) {
+            return;
+        }
+        for (Project candidate = project; candidate != null; candidate = candidate.getParent()) {
+            if (candidate == configuring) {
+                return;
+            }
+        }
+        throw new InvalidUserCodeException(String.format("Cannot change %s while configuring %s, as projects are configured in parallel. "
+            + "A project can only change itself and its child projects when configured in parallel.", project, configuring));
+    }
+}
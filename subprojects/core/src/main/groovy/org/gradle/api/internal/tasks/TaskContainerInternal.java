@@ -33,6 +33,11 @@ public interface TaskContainerInternal extends TaskContainer, TaskResolver, Poly
 
     DynamicObject getTasksAsDynamicObject();
 
+    /**
+     * Adds an action which is executed before this container is changed. Any exception thrown by the action vetoes the change.
+     */
+    void beforeChange(Runnable action);
+
     <T extends TaskInternal> void addPlaceholderAction(String placeholderName, Class<T> type, Action<? super T> configure);
 
     /**
@@ -19,14 +19,17 @@ import groovy.lang.Closure;
 import org.gradle.api.Action;
 import org.gradle.api.file.*;
 import org.gradle.api.internal.ConventionTask;
+import org.gradle.api.internal.changedetection.state.FileHashRecorder;
 import org.gradle.api.internal.file.FileLookup;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.copy.*;
 import org.gradle.api.specs.Spec;
 import org.gradle.internal.nativeplatform.filesystem.FileSystem;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.internal.reflect.Instantiator;
 
 import javax.inject.Inject;
+import java.io.File;
 import java.io.FilterReader;
 import java.util.Map;
 import java.util.Set;
@@ -73,6 +76,11 @@ public abstract class AbstractCopyTask extends ConventionTask implements CopySpe
         throw new UnsupportedOperationException();
     }
 
+    FileCopyAction createFileCopyAction(File destinationDir) {
+        BuildOperationProcessor buildOperationProcessor = Boolean.getBoolean(FileCopyAction.PARALLEL_COPY_TOGGLE) ? getServices().get(BuildOperationProcessor.class) : null;
+        return new FileCopyAction(getFileLookup().getFileResolver(destinationDir), getServices().get(FileHashRecorder.class), buildOperationProcessor);
+    }
+
     @TaskAction
     protected void copy() {
         Instantiator instantiator = getInstantiator();
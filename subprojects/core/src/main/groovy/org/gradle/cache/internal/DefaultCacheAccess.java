@@ -21,6 +21,7 @@ import org.gradle.api.logging.Logging;
 import org.gradle.cache.CacheOpenException;
 import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.cache.internal.btree.MappedFileBlockStore;
 import org.gradle.cache.internal.cacheops.CacheAccessOperationsStack;
 import org.gradle.cache.internal.filelock.LockOptions;
 import org.gradle.internal.Factories;
@@ -41,6 +42,15 @@ import static org.gradle.cache.internal.FileLockManager.LockMode.Shared;
 
 @ThreadSafe
 public class DefaultCacheAccess implements CacheCoordinator {
+    /**
+     * When set, indexed caches access their backing files through memory mapped regions.
+     */
+    public static final String MAPPED_CACHE_FILES_TOGGLE = "org.gradle.cache.mappedfiles";
+
+    /**
+     * When set, updates to indexed caches are buffered in memory and written to the cache files when the file lock is released.
+     */
+    public static final String WRITE_BEHIND_TOGGLE = "org.gradle.cache.writebehind";
 
     private final static Logger LOG = Logging.getLogger(DefaultCacheAccess.class);
 
@@ -321,7 +331,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
             }
         };
 
-        MultiProcessSafePersistentIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafePersistentIndexedCache<K, V>(indexedCacheFactory, fileAccess);
+        MultiProcessSafePersistentIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafePersistentIndexedCache<K, V>(indexedCacheFactory, fileAccess, Boolean.getBoolean(WRITE_BEHIND_TOGGLE));
         CacheDecorator decorator = parameters.getCacheDecorator();
         indexedCache = decorator == null ? indexedCache : decorator.decorate(cacheFile.getAbsolutePath(), parameters.getCacheName(), indexedCache);
 
@@ -339,6 +349,9 @@ public class DefaultCacheAccess implements CacheCoordinator {
     }
 
     <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        if (Boolean.getBoolean(MAPPED_CACHE_FILES_TOGGLE)) {
+            return new BTreePersistentIndexedCache<K, V>(cacheFile, new MappedFileBlockStore(cacheFile), keySerializer, valueSerializer);
+        }
         return new BTreePersistentIndexedCache<K, V>(cacheFile, keySerializer, valueSerializer);
     }
 
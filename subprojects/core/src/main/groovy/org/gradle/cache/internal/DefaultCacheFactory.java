@@ -29,8 +29,15 @@ import java.util.*;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Opens caches, and shares an open cache between the clients of a directory.
+ *
+ * <p>A cache is opened and initialized while its directory is locked, so that caches in different directories can be initialized concurrently.
+ * The state of the factory itself is guarded by a separate lock. A directory lock is always acquired before this lock.</p>
+ */
 public class DefaultCacheFactory implements CacheFactory, Closeable {
     private final Map<File, DirCacheReference> dirCaches = new HashMap<File, DirCacheReference>();
+    private final Map<File, DirLock> dirLocks = new HashMap<File, DirLock>();
     private final FileLockManager lockManager;
     private final Lock lock = new ReentrantLock();
 
@@ -45,20 +52,25 @@ public class DefaultCacheFactory implements CacheFactory, Closeable {
     }
 
     public PersistentCache open(File cacheDir, String displayName, CacheValidator cacheValidator, Map<String, ?> properties, LockOptions lockOptions, Action<? super PersistentCache> initializer) throws CacheOpenException {
-        lock.lock();
+        File canonicalDir = GFileUtils.canonicalise(cacheDir);
+        DirLock dirLock = lockDir(canonicalDir);
         try {
-            return doOpen(cacheDir, displayName, cacheValidator, properties, lockOptions, initializer);
+            return doOpen(canonicalDir, displayName, cacheValidator, properties, lockOptions, initializer);
         } finally {
-            lock.unlock();
+            unlockDir(dirLock);
         }
     }
 
     public PersistentCache openStore(File storeDir, String displayName, LockOptions lockOptions, Action<? super PersistentCache> initializer) throws CacheOpenException {
-        lock.lock();
+        if (initializer != null) {
+            throw new UnsupportedOperationException("Initializer actions are not currently supported by the directory store implementation.");
+        }
+        File canonicalDir = GFileUtils.canonicalise(storeDir);
+        DirLock dirLock = lockDir(canonicalDir);
         try {
-            return doOpenStore(storeDir, displayName, lockOptions, initializer);
+            return doOpenStore(canonicalDir, displayName, lockOptions);
         } finally {
-            lock.unlock();
+            unlockDir(dirLock);
         }
     }
 
@@ -72,47 +84,103 @@ public class DefaultCacheFactory implements CacheFactory, Closeable {
         }
     }
 
-    private PersistentCache doOpen(File cacheDir, String displayName, CacheValidator validator, Map<String, ?> properties, LockOptions lockOptions, Action<? super PersistentCache> action) {
-        File canonicalDir = GFileUtils.canonicalise(cacheDir);
-        DirCacheReference dirCacheReference = dirCaches.get(canonicalDir);
+    private PersistentCache doOpen(File canonicalDir, String displayName, CacheValidator validator, Map<String, ?> properties, LockOptions lockOptions, Action<? super PersistentCache> action) {
+        DirCacheReference dirCacheReference = getReference(canonicalDir);
         if (dirCacheReference == null) {
             ReferencablePersistentCache cache = new DefaultPersistentDirectoryCache(canonicalDir, displayName, validator, properties, lockOptions, action, lockManager);
             cache.open();
-            dirCacheReference = new DirCacheReference(cache, properties, lockOptions);
-            dirCaches.put(canonicalDir, dirCacheReference);
-        } else {
-            if (!lockOptions.equals(dirCacheReference.lockOptions)) {
-                throw new IllegalStateException(String.format("Cache '%s' is already open with different options.", cacheDir));
-            }
-            if (!properties.equals(dirCacheReference.properties)) {
-                throw new IllegalStateException(String.format("Cache '%s' is already open with different state.", cacheDir));
-            }
+            return addReference(canonicalDir, new DirCacheReference(canonicalDir, cache, properties, lockOptions));
+        }
+        if (!lockOptions.equals(dirCacheReference.lockOptions)) {
+            throw new IllegalStateException(String.format("Cache '%s' is already open with different options.", canonicalDir));
         }
-        return new ReferenceTrackingCache(dirCacheReference);
+        if (!properties.equals(dirCacheReference.properties)) {
+            throw new IllegalStateException(String.format("Cache '%s' is already open with different state.", canonicalDir));
+        }
+        return addReference(canonicalDir, dirCacheReference);
     }
 
-    private PersistentCache doOpenStore(File storeDir, String displayName, LockOptions lockOptions, Action<? super PersistentCache> initializer) throws CacheOpenException {
-        if (initializer != null) {
-            throw new UnsupportedOperationException("Initializer actions are not currently supported by the directory store implementation.");
-        }
-        File canonicalDir = GFileUtils.canonicalise(storeDir);
-        DirCacheReference dirCacheReference = dirCaches.get(canonicalDir);
+    private PersistentCache doOpenStore(File canonicalDir, String displayName, LockOptions lockOptions) throws CacheOpenException {
+        DirCacheReference dirCacheReference = getReference(canonicalDir);
         if (dirCacheReference == null) {
             ReferencablePersistentCache cache = new DefaultPersistentDirectoryStore(canonicalDir, displayName, lockOptions, lockManager);
             cache.open();
-            dirCacheReference = new DirCacheReference(cache, Collections.<String, Object>emptyMap(), lockOptions);
+            dirCacheReference = new DirCacheReference(canonicalDir, cache, Collections.<String, Object>emptyMap(), lockOptions);
+        }
+        return addReference(canonicalDir, dirCacheReference);
+    }
+
+    private DirCacheReference getReference(File canonicalDir) {
+        lock.lock();
+        try {
+            return dirCaches.get(canonicalDir);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PersistentCache addReference(File canonicalDir, DirCacheReference dirCacheReference) {
+        lock.lock();
+        try {
             dirCaches.put(canonicalDir, dirCacheReference);
+            return new ReferenceTrackingCache(dirCacheReference);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private DirLock lockDir(File canonicalDir) {
+        DirLock dirLock;
+        lock.lock();
+        try {
+            dirLock = dirLocks.get(canonicalDir);
+            if (dirLock == null) {
+                dirLock = new DirLock(canonicalDir);
+                dirLocks.put(canonicalDir, dirLock);
+            }
+            dirLock.users++;
+        } finally {
+            lock.unlock();
+        }
+        dirLock.lock.lock();
+        return dirLock;
+    }
+
+    private void unlockDir(DirLock dirLock) {
+        dirLock.lock.unlock();
+        lock.lock();
+        try {
+            dirLock.users--;
+            if (dirLock.users == 0) {
+                dirLocks.remove(dirLock.dir);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The lock for a directory, which is discarded once no thread uses the directory.
+     */
+    private static class DirLock {
+        private final File dir;
+        private final Lock lock = new ReentrantLock();
+        private int users;
+
+        DirLock(File dir) {
+            this.dir = dir;
         }
-        return new ReferenceTrackingCache(dirCacheReference);
     }
 
     private class DirCacheReference implements Closeable {
+        private final File dir;
         private final Map<String, ?> properties;
         private final LockOptions lockOptions;
         private final ReferencablePersistentCache cache;
         private final Set<ReferenceTrackingCache> references = new HashSet<ReferenceTrackingCache>();
 
-        public DirCacheReference(ReferencablePersistentCache cache, Map<String, ?> properties, LockOptions lockOptions) {
+        public DirCacheReference(File dir, ReferencablePersistentCache cache, Map<String, ?> properties, LockOptions lockOptions) {
+            this.dir = dir;
             this.cache = cache;
             this.properties = properties;
             this.lockOptions = lockOptions;
@@ -124,13 +192,19 @@ public class DefaultCacheFactory implements CacheFactory, Closeable {
         }
 
         public void release(ReferenceTrackingCache cache) {
-            lock.lock();
+            // Hold the directory lock, so that the cache is not closed while it is being opened again
+            DirLock dirLock = lockDir(dir);
             try {
-                if (references.remove(cache) && references.isEmpty()) {
-                    close();
+                lock.lock();
+                try {
+                    if (references.remove(cache) && references.isEmpty()) {
+                        close();
+                    }
+                } finally {
+                    lock.unlock();
                 }
             } finally {
-                lock.unlock();
+                unlockDir(dirLock);
             }
         }
 
@@ -17,19 +17,42 @@ package org.gradle.cache.internal;
 
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.internal.Cast;
 import org.gradle.internal.Factory;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements MultiProcessSafePersistentIndexedCache<K, V> {
+    static final int MAX_PENDING_WRITES = 10000;
+    private static final Object REMOVED = new Object();
     private final FileAccess fileAccess;
     private final Factory<BTreePersistentIndexedCache<K, V>> factory;
+    private final boolean writeBehind;
+    private final Map<K, Object> pendingWrites = new LinkedHashMap<K, Object>();
     private BTreePersistentIndexedCache<K, V> cache;
 
     public DefaultMultiProcessSafePersistentIndexedCache(Factory<BTreePersistentIndexedCache<K, V>> factory, FileAccess fileAccess) {
+        this(factory, fileAccess, false);
+    }
+
+    /**
+     * @param writeBehind when true, puts and removes are buffered in memory and applied to the backing cache in a single write when this cache is closed,
+     * which happens when the file lock is released. Gets are served from the buffer where possible.
+     */
+    public DefaultMultiProcessSafePersistentIndexedCache(Factory<BTreePersistentIndexedCache<K, V>> factory, FileAccess fileAccess, boolean writeBehind) {
         this.factory = factory;
         this.fileAccess = fileAccess;
+        this.writeBehind = writeBehind;
     }
 
     public V get(final K key) {
+        if (writeBehind) {
+            Object pending = pendingWrites.get(key);
+            if (pending != null) {
+                return pending == REMOVED ? null : Cast.<V>uncheckedCast(pending);
+            }
+        }
         final PersistentIndexedCache<K, V> cache = getCache();
         try {
             return fileAccess.readFile(new Factory<V>() {
@@ -43,6 +66,10 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
     }
 
     public void put(final K key, final V value) {
+        if (writeBehind) {
+            addPendingWrite(key, value);
+            return;
+        }
         final PersistentIndexedCache<K, V> cache = getCache();
         // Use writeFile because the cache can internally recover from datafile
         // corruption, so we don't care at this level if it's corrupt
@@ -54,6 +81,10 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
     }
 
     public void remove(final K key) {
+        if (writeBehind) {
+            addPendingWrite(key, REMOVED);
+            return;
+        }
         final PersistentIndexedCache<K, V> cache = getCache();
         // Use writeFile because the cache can internally recover from datafile
         // corruption, so we don't care at this level if it's corrupt
@@ -71,6 +102,47 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
     }
 
     public void close() {
+        try {
+            flushPendingWrites();
+        } finally {
+            closeCache();
+        }
+    }
+
+    private void addPendingWrite(K key, Object value) {
+        // Remove first, so that the entry moves to the end of the write order
+        pendingWrites.remove(key);
+        pendingWrites.put(key, value);
+        if (pendingWrites.size() >= MAX_PENDING_WRITES) {
+            flushPendingWrites();
+        }
+    }
+
+    private void flushPendingWrites() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+        final PersistentIndexedCache<K, V> cache = getCache();
+        try {
+            // Use writeFile because the cache can internally recover from datafile
+            // corruption, so we don't care at this level if it's corrupt
+            fileAccess.writeFile(new Runnable() {
+                public void run() {
+                    for (Map.Entry<K, Object> entry : pendingWrites.entrySet()) {
+                        if (entry.getValue() == REMOVED) {
+                            cache.remove(entry.getKey());
+                        } else {
+                            cache.put(entry.getKey(), Cast.<V>uncheckedCast(entry.getValue()));
+                        }
+                    }
+                }
+            });
+        } finally {
+            pendingWrites.clear();
+        }
+    }
+
+    private void closeCache() {
         if (cache != null) {
             try {
                 fileAccess.writeFile(new Runnable() {
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import org.gradle.api.UncheckedIOException;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link BlockStore} that accesses the backing file through a set of memory mapped regions, rather than seeking and reading through a {@link RandomAccessFile}.
+ * The file is grown a region at a time, and blocks are read and written directly from and to the mapped regions. Uses the same on-disk format as {@link FileBackedBlockStore}.
+ */
+public class MappedFileBlockStore implements BlockStore {
+    static final int DEFAULT_REGION_SIZE = 1024 * 1024;
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        // Java 9 and later provide Unsafe.invokeCleaner(), earlier versions expose the cleaner of the buffer itself
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method method = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = method;
+        } catch (Exception e) {
+            // Not available
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final File cacheFile;
+    private final int regionSize;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private long nextBlock;
+    private Factory factory;
+    private long currentFileSize;
+    private long capacity;
+
+    public MappedFileBlockStore(File cacheFile) {
+        this(cacheFile, DEFAULT_REGION_SIZE);
+    }
+
+    MappedFileBlockStore(File cacheFile, int regionSize) {
+        this.cacheFile = cacheFile;
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache '%s'", cacheFile);
+    }
+
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            file = new RandomAccessFile(cacheFile, "rw");
+            channel = file.getChannel();
+            currentFileSize = file.length();
+            capacity = currentFileSize;
+            nextBlock = currentFileSize;
+            if (currentFileSize == 0) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() {
+        unmapRegions();
+        try {
+            // Trim the unused tail of the last region
+            if (capacity > currentFileSize) {
+                file.setLength(currentFileSize);
+            }
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void clear() {
+        unmapRegions();
+        try {
+            file.setLength(0);
+            currentFileSize = 0;
+            capacity = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nextBlock = 0;
+    }
+
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    public void flush() {
+    }
+
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(new BlockPointer(0), payloadType);
+    }
+
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    /**
+     * Grows the file, in whole regions, so that it contains at least the given number of bytes.
+     */
+    private void ensureCapacity(long size) throws IOException {
+        if (size <= capacity) {
+            return;
+        }
+        long newCapacity = ((size + regionSize - 1) / regionSize) * regionSize;
+        file.setLength(newCapacity);
+        // The last mapped region may have been mapped before it was full size
+        int lastRegion = (int) (capacity / regionSize);
+        if (lastRegion < regions.size() && regions.get(lastRegion) != null) {
+            unmap(regions.set(lastRegion, null));
+        }
+        capacity = newCapacity;
+    }
+
+    private MappedByteBuffer region(int index) throws IOException {
+        while (regions.size() <= index) {
+            regions.add(null);
+        }
+        MappedByteBuffer region = regions.get(index);
+        if (region == null) {
+            long start = (long) index * regionSize;
+            long size = Math.min(regionSize, capacity - start);
+            region = channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+            regions.set(index, region);
+        }
+        return region;
+    }
+
+    private void unmapRegions() {
+        for (MappedByteBuffer region : regions) {
+            if (region != null) {
+                unmap(region);
+            }
+        }
+        regions.clear();
+    }
+
+    /**
+     * Releases a mapped region straight away, rather than when the buffer is garbage collected. The file cannot be truncated on some platforms while any part of it is mapped.
+     * The region must not be used after this method has been called.
+     */
+    private static void unmap(MappedByteBuffer region) {
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, region);
+                return;
+            }
+            Method cleanerMethod = region.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(region);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Exception e) {
+            // Not supported by this JVM, the region is released when it is garbage collected
+        }
+    }
+
+    private void readRegions(long pos, byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            int offsetInRegion = (int) (pos % regionSize);
+            int chunk = Math.min(length, regionSize - offsetInRegion);
+            ByteBuffer buffer = region((int) (pos / regionSize)).duplicate();
+            buffer.position(offsetInRegion);
+            buffer.get(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+            pos += chunk;
+        }
+    }
+
+    private void writeRegions(long pos, byte[] bytes, int offset, int length) throws IOException {
+        ensureCapacity(pos + length);
+        while (length > 0) {
+            int offsetInRegion = (int) (pos % regionSize);
+            int chunk = Math.min(length, regionSize - offsetInRegion);
+            ByteBuffer buffer = region((int) (pos / regionSize)).duplicate();
+            buffer.position(offsetInRegion);
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+            pos += chunk;
+        }
+    }
+
+    private class BlockOutputStream extends ByteArrayOutputStream {
+        BlockOutputStream(int size) {
+            super(size);
+        }
+
+        void copyToRegions(long pos) throws IOException {
+            writeRegions(pos, buf, 0, count);
+        }
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 2 + INT_SIZE;
+        private static final int TAIL_SIZE = LONG_SIZE;
+        static final int BLOCK_MARKER = 0xCC;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = new BlockPointer(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+            BlockPayload payload = getPayload();
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+            ensureCapacity(finalSize);
+
+            // Serialize the whole block, then copy it into the mapped regions in one go
+            BlockOutputStream blockOutputStream = new BlockOutputStream(HEADER_SIZE + payloadSize + TAIL_SIZE);
+            DataOutputStream outputStream = new DataOutputStream(blockOutputStream);
+
+            // Write header
+            outputStream.writeByte(BLOCK_MARKER);
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+
+            // Write body
+            payload.write(outputStream);
+
+            // Write count
+            outputStream.writeLong(blockOutputStream.size());
+            outputStream.close();
+            blockOutputStream.copyToRegions(pos);
+
+            if (currentFileSize < finalSize) {
+                currentFileSize = finalSize;
+            }
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            if (pos + HEADER_SIZE >= currentFileSize) {
+                throw blockCorruptedException();
+            }
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte[] header = new byte[HEADER_SIZE];
+            readRegions(pos, header, 0, HEADER_SIZE);
+            ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+            if (headerBuffer.get() != (byte) BLOCK_MARKER) {
+                throw blockCorruptedException();
+            }
+            if (headerBuffer.get() != (byte) payload.getType()) {
+                throw blockCorruptedException();
+            }
+            payloadSize = headerBuffer.getInt();
+            if (payloadSize < 0 || pos + HEADER_SIZE + TAIL_SIZE + payloadSize > currentFileSize) {
+                throw blockCorruptedException();
+            }
+
+            // Read body and count
+            byte[] body = new byte[payloadSize + TAIL_SIZE];
+            readRegions(pos + HEADER_SIZE, body, 0, body.length);
+            ByteArrayInputStream bodyInputStream = new ByteArrayInputStream(body);
+            DataInputStream inputStream = new DataInputStream(bodyInputStream);
+            try {
+                payload.read(inputStream);
+
+                // Verify count
+                long actualCount = HEADER_SIZE + body.length - bodyInputStream.available();
+                long count = inputStream.readLong();
+                if (actualCount != count) {
+                    throw blockCorruptedException();
+                }
+            } catch (EOFException e) {
+                throw blockCorruptedException();
+            }
+        }
+
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MappedFileBlockStore.this));
+        }
+    }
+}
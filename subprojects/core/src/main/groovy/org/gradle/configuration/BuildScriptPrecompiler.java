@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.BuildAdapter;
+import org.gradle.api.Project;
+import org.gradle.api.initialization.Settings;
+import org.gradle.api.internal.SettingsInternal;
+import org.gradle.api.internal.initialization.ClassLoaderScope;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.UriScriptSource;
+import org.gradle.groovy.scripts.internal.FileCacheBackedScriptClassCompiler;
+import org.gradle.internal.Actions;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
+import org.gradle.internal.operations.MultipleBuildOperationFailures;
+import org.gradle.model.dsl.internal.transform.ClosureCreationInterceptingVerifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles the build scripts of the projects of a build into the script cache in parallel, before the projects are configured.
+ *
+ * <p>Scripts are compiled against the class loader of the root project's base scope, which is the only project class loader available at this point.
+ * The compiled classes are cached together with a hash of this class path, so they are only used when the project turns out to compile its script
+ * against the same class path. Any other script, and any script that fails to compile here, is compiled as usual when its project is configured.</p>
+ *
+ * <p>To avoid compiling scripts that would not be used, only scripts of projects where neither the project nor any of its parents has a
+ * {@code buildscript {}} or {@code plugins {}} block are compiled here. Init and settings scripts can add to the class path of any project, for
+ * example using {@code allprojects { buildscript { ... } }}, so no scripts are compiled here when any of these scripts refers to {@code buildscript}.
+ * The precompiler needs to be registered as a build listener to see the settings script.</p>
+ */
+public class BuildScriptPrecompiler extends BuildAdapter {
+    public static final String PARALLEL_SCRIPT_COMPILATION_TOGGLE = "org.gradle.parallel.scriptcompile";
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildScriptPrecompiler.class);
+    private static final Pattern PLUGINS_BLOCK = Pattern.compile("\\bplugins\\s*\\{");
+
+    private final FileCacheBackedScriptClassCompiler scriptClassCompiler;
+    private final CompileOperationFactory compileOperationFactory;
+    private final BuildOperationProcessor buildOperationProcessor;
+    private boolean settingsMayDefineClassPath;
+
+    public BuildScriptPrecompiler(FileCacheBackedScriptClassCompiler scriptClassCompiler, CompileOperationFactory compileOperationFactory, BuildOperationProcessor buildOperationProcessor) {
+        this.scriptClassCompiler = scriptClassCompiler;
+        this.compileOperationFactory = compileOperationFactory;
+        this.buildOperationProcessor = buildOperationProcessor;
+    }
+
+    @Override
+    public void settingsEvaluated(Settings settings) {
+        settingsMayDefineClassPath = refersToBuildscript(((SettingsInternal) settings).getSettingsScript());
+    }
+
+    public void precompile(ProjectInternal rootProject) {
+        ClassLoaderScope baseScope = rootProject.getBaseClassLoaderScope();
+        if (!baseScope.isLocked()) {
+            return;
+        }
+        if (settingsMayDefineClassPath || initScriptsMayDefineClassPath(rootProject.getGradle().getStartParameter().getAllInitScripts())) {
+            LOGGER.debug("Not compiling build scripts ahead of configuration, as the init or settings scripts may add to the build script class path.");
+            return;
+        }
+        BuildOperationQueue<PrecompileBuildScript> queue = buildOperationProcessor.newQueue(new PrecompileWorker(), null);
+        addProject(rootProject, baseScope.getExportClassLoader(), queue);
+        try {
+            queue.waitForCompletion();
+        } catch (MultipleBuildOperationFailures e) {
+            // Reported when the failed scripts are compiled again during configuration
+            LOGGER.debug("Could not compile build scripts ahead of configuration.", e);
+        }
+    }
+
+    private void addProject(ProjectInternal project, ClassLoader classLoader, BuildOperationQueue<PrecompileBuildScript> queue) {
+        ScriptSource source = project.getBuildScriptSource();
+        if (mayDefineClassPath(source)) {
+            // The script, and those of all child projects, may be compiled against additional classes
+            return;
+        }
+        queue.add(new PrecompileBuildScript(source, new ProjectScriptTarget(project), classLoader));
+        for (Project child : project.getChildProjects().values()) {
+            addProject((ProjectInternal) child, classLoader, queue);
+        }
+    }
+
+    private boolean mayDefineClassPath(ScriptSource source) {
+        String text = source.getResource().getText();
+        return text != null && (text.contains("buildscript") || PLUGINS_BLOCK.matcher(text).find());
+    }
+
+    private boolean initScriptsMayDefineClassPath(Iterable<File> initScripts) {
+        for (File initScript : initScripts) {
+            if (initScript.isFile() && refersToBuildscript(new UriScriptSource("initialization script", initScript))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean refersToBuildscript(ScriptSource source) {
+        String text = source.getResource().getText();
+        return text != null && text.contains("buildscript");
+    }
+
+    private static class PrecompileBuildScript implements BuildOperation {
+        private final ScriptSource source;
+        private final ScriptTarget target;
+        private final ClassLoader classLoader;
+
+        PrecompileBuildScript(ScriptSource source, ScriptTarget target, ClassLoader classLoader) {
+            this.source = source;
+            this.target = target;
+            this.classLoader = classLoader;
+        }
+
+        public String getDescription() {
+            return String.format("Compile %s", source.getDisplayName());
+        }
+    }
+
+    private class PrecompileWorker implements BuildOperationWorker<PrecompileBuildScript> {
+        public String getDisplayName() {
+            return "build script compiler";
+        }
+
+        public void execute(PrecompileBuildScript operation) {
+            ScriptSource source = operation.source;
+            ScriptTarget target = operation.target;
+            scriptClassCompiler.precompile(source, operation.classLoader, compileOperationFactory.getPluginRequestsCompileOperation(source, target), target.getScriptClass(), Actions.doNothing());
+            scriptClassCompiler.precompile(source, operation.classLoader, compileOperationFactory.getScriptCompileOperation(source, target), target.getScriptClass(), ClosureCreationInterceptingVerifier.INSTANCE);
+        }
+    }
+}
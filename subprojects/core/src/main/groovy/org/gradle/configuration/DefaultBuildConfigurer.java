@@ -16,15 +16,25 @@
 package org.gradle.configuration;
 
 import org.gradle.StartParameter;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.execution.ProjectConfigurer;
 import org.gradle.util.SingleMessageLogger;
 
 public class DefaultBuildConfigurer implements BuildConfigurer {
     private final ProjectConfigurer projectConfigurer;
+    private final BuildScriptPrecompiler buildScriptPrecompiler;
 
     public DefaultBuildConfigurer(ProjectConfigurer projectConfigurer) {
+        this(projectConfigurer, null);
+    }
+
+    /**
+     * @param buildScriptPrecompiler Used to compile the build scripts of all projects before they are configured. Scripts are compiled as each project is configured when null.
+     */
+    public DefaultBuildConfigurer(ProjectConfigurer projectConfigurer, @Nullable BuildScriptPrecompiler buildScriptPrecompiler) {
         this.projectConfigurer = projectConfigurer;
+        this.buildScriptPrecompiler = buildScriptPrecompiler;
     }
 
     public void configure(GradleInternal gradle) {
@@ -32,6 +42,9 @@ public class DefaultBuildConfigurer implements BuildConfigurer {
         if (gradle.getStartParameter().isConfigureOnDemand()) {
             projectConfigurer.configure(gradle.getRootProject());
         } else {
+            if (buildScriptPrecompiler != null) {
+                buildScriptPrecompiler.precompile(gradle.getRootProject());
+            }
             projectConfigurer.configureHierarchy(gradle.getRootProject());
         }
     }
@@ -17,15 +17,37 @@
 package org.gradle.execution;
 
 import org.gradle.api.BuildCancelledException;
+import org.gradle.api.Nullable;
 import org.gradle.api.Project;
+import org.gradle.api.internal.project.ProjectConfigurationGuard;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
+import org.gradle.internal.operations.MultipleBuildOperationFailures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class TaskPathProjectEvaluator implements ProjectConfigurer {
+    public static final String PARALLEL_CONFIGURATION_TOGGLE = "org.gradle.parallel.configure";
+
     private final BuildCancellationToken cancellationToken;
+    private final BuildOperationProcessor configurationProcessor;
 
     public TaskPathProjectEvaluator(BuildCancellationToken cancellationToken) {
+        this(cancellationToken, null);
+    }
+
+    /**
+     * @param configurationProcessor Used to configure the child projects of a project in parallel, once the project itself has been configured. Projects are configured one at a time when null.
+     */
+    public TaskPathProjectEvaluator(BuildCancellationToken cancellationToken, @Nullable BuildOperationProcessor configurationProcessor) {
         this.cancellationToken = cancellationToken;
+        this.configurationProcessor = configurationProcessor;
     }
 
     public void configure(ProjectInternal project) {
@@ -40,6 +62,10 @@ public class TaskPathProjectEvaluator implements ProjectConfigurer {
             throw new BuildCancelledException();
         }
         project.evaluate();
+        if (configurationProcessor != null) {
+            configureInParallel(childrenOf(Collections.singletonList(project)));
+            return;
+        }
         for (Project sub : project.getSubprojects()) {
             if (cancellationToken.isCancellationRequested()) {
                 throw new BuildCancelledException();
@@ -47,4 +73,63 @@ public class TaskPathProjectEvaluator implements ProjectConfigurer {
             ((ProjectInternal) sub).evaluate();
         }
     }
-}
\ No newline at end of file
+
+    private void configureInParallel(List<ProjectInternal> projects) {
+        // Configure one level of the hierarchy at a time, so that a project is always configured after its parent
+        while (!projects.isEmpty()) {
+            BuildOperationQueue<ConfigureProject> queue = configurationProcessor.newQueue(new ConfigureProjectWorker(), null);
+            for (ProjectInternal project : projects) {
+                queue.add(new ConfigureProject(project));
+            }
+            try {
+                queue.waitForCompletion();
+            } catch (MultipleBuildOperationFailures e) {
+                if (e.getCauses().size() == 1 && e.getCauses().get(0) instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCauses().get(0);
+                }
+                throw e;
+            }
+            projects = childrenOf(projects);
+        }
+    }
+
+    private static List<ProjectInternal> childrenOf(List<ProjectInternal> projects) {
+        List<ProjectInternal> children = new ArrayList<ProjectInternal>();
+        for (ProjectInternal project : projects) {
+            for (Project child : project.getChildProjects().values()) {
+                children.add((ProjectInternal) child);
+            }
+        }
+        return children;
+    }
+
+    private static class ConfigureProject implements BuildOperation {
+        private final ProjectInternal project;
+
+        ConfigureProject(ProjectInternal project) {
+            this.project = project;
+        }
+
+        public String getDescription() {
+            return String.format("Configure %s", project);
+        }
+    }
+
+    private class ConfigureProjectWorker implements BuildOperationWorker<ConfigureProject> {
+        public String getDisplayName() {
+            return "project configurer";
+        }
+
+        public void execute(ConfigureProject operation) {
+            if (cancellationToken.isCancellationRequested()) {
+                throw new BuildCancelledException();
+            }
+            final ProjectInternal project = operation.project;
+            ProjectConfigurationGuard.configure(project, new Runnable() {
+                public void run() {
+                    project.evaluate();
+                }
+            });
+        }
+    }
+}
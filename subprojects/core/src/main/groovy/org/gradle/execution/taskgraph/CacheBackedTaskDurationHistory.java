@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Task;
+import org.gradle.api.execution.internal.InternalTaskExecutionListener;
+import org.gradle.api.execution.internal.TaskOperationInternal;
+import org.gradle.api.internal.changedetection.state.TaskArtifactStateCacheAccess;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.progress.OperationResult;
+import org.gradle.internal.progress.OperationStartEvent;
+import org.gradle.internal.serialize.LongSerializer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records the duration of each task execution that did work in the task artifact cache, keyed by task path.
+ */
+public class CacheBackedTaskDurationHistory implements TaskDurationHistory, InternalTaskExecutionListener {
+    private final TaskArtifactStateCacheAccess cacheAccess;
+    private final PersistentIndexedCache<String, Long> durations;
+
+    public CacheBackedTaskDurationHistory(TaskArtifactStateCacheAccess cacheAccess) {
+        this.cacheAccess = cacheAccess;
+        this.durations = cacheAccess.createCache("taskDurations", String.class, new LongSerializer());
+    }
+
+    public Map<Task, Long> getPreviousDurations(final Collection<? extends Task> tasks) {
+        return cacheAccess.useCache("Load previous task durations", new Factory<Map<Task, Long>>() {
+            public Map<Task, Long> create() {
+                Map<Task, Long> result = new HashMap<Task, Long>();
+                for (Task task : tasks) {
+                    Long duration = durations.get(task.getPath());
+                    if (duration != null) {
+                        result.put(task, duration);
+                    }
+                }
+                return result;
+            }
+        });
+    }
+
+    public void beforeExecute(TaskOperationInternal taskOperation, OperationStartEvent startEvent) {
+    }
+
+    public void afterExecute(TaskOperationInternal taskOperation, OperationResult result) {
+        if (result.getFailure() != null) {
+            // The duration of a failed execution says little about the next one
+            return;
+        }
+        TaskStateInternal state = taskOperation.getTask().getState();
+        if (state.getSkipped() || !state.getDidWork()) {
+            // Skipped and up-to-date executions take next to no time, and would hide the duration of the last real execution
+            return;
+        }
+        final String taskPath = taskOperation.getTask().getPath();
+        final long duration = result.getEndTime() - result.getStartTime();
+        cacheAccess.useCache("Record task duration", new Runnable() {
+            public void run() {
+                durations.put(taskPath, duration);
+            }
+        });
+    }
+}
@@ -40,7 +40,6 @@ import org.gradle.internal.graph.DirectedGraphRenderer;
 import org.gradle.internal.graph.GraphNodeRenderer;
 import org.gradle.logging.StyledTextOutput;
 import org.gradle.util.CollectionUtils;
-import org.gradle.util.TextUtil;
 
 import java.io.File;
 import java.io.IOException;
@@ -57,6 +56,7 @@ import java.util.concurrent.locks.ReentrantLock;
 public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
     public static final String INTRA_PROJECT_TOGGLE = "org.gradle.parallel.intra";
+    public static final String CRITICAL_PATH_TOGGLE = "org.gradle.parallel.criticalpath";
 
     private final static Logger LOGGER = Logging.getLogger(DefaultTaskExecutionPlan.class);
 
@@ -66,7 +66,14 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Set<TaskInfo> entryTasks = new LinkedHashSet<TaskInfo>();
     private final TaskDependencyGraph graph = new TaskDependencyGraph();
     private final LinkedHashMap<Task, TaskInfo> executionPlan = new LinkedHashMap<Task, TaskInfo>();
-    private final List<TaskInfo> executionQueue = new LinkedList<TaskInfo>();
+    // Tasks in the plan that have not been handed out yet, and the subset of those that are ready to be handed out
+    private final Set<TaskInfo> queuedTasks = Sets.newIdentityHashSet();
+    private final NavigableSet<TaskInfo> readyTasks = new TreeSet<TaskInfo>(new ReadyTaskComparator());
+    private final Map<TaskInfo, Integer> planPositions = Maps.newIdentityHashMap();
+    private final Multimap<TaskInfo, TaskInfo> waitingTasks = ArrayListMultimap.create();
+    private final Map<TaskInfo, Integer> incompleteDependencyCounts = Maps.newIdentityHashMap();
+    private int queuedIncompleteTasks;
+    private int incompleteTasks;
     private final List<Throwable> failures = new ArrayList<Throwable>();
     private Spec<? super Task> filter = Specs.satisfyAll();
 
@@ -75,23 +82,41 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Multiset<String> projectsWithRunningTasks = HashMultiset.create();
     private final Multiset<String> projectsWithRunningNonParallelizableTasks = HashMultiset.create();
     private final Set<TaskInternal> runningTasks = Sets.newIdentityHashSet();
+    private final NavigableMap<String, TaskInternal> runningTaskOutputPaths = new TreeMap<String, TaskInternal>();
     private final Map<Task, Set<String>> canonicalizedOutputCache = Maps.newIdentityHashMap();
     private final Map<Task, Boolean> isParallelSafeCache = Maps.newIdentityHashMap();
+    private final Map<TaskInfo, Long> remainingDurations = Maps.newIdentityHashMap();
     private boolean tasksCancelled;
 
     private final boolean intraProjectParallelization;
+    private final TaskDurationHistory durationHistory;
 
-    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+    /**
+     * @param durationHistory when not null, ready tasks are handed out longest remaining path first, rather than in plan order.
+     */
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization, @Nullable TaskDurationHistory durationHistory) {
         this.cancellationToken = cancellationToken;
         this.intraProjectParallelization = intraProjectParallelization;
+        this.durationHistory = durationHistory;
 
         if (intraProjectParallelization) {
             LOGGER.info("intra project task parallelization is enabled");
         }
+        if (durationHistory != null) {
+            LOGGER.info("critical path task ordering is enabled");
+        }
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+        this(cancellationToken, intraProjectParallelization, null);
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, @Nullable TaskDurationHistory durationHistory) {
+        this(cancellationToken, Boolean.getBoolean(INTRA_PROJECT_TOGGLE), durationHistory);
     }
 
     public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken) {
-        this(cancellationToken, Boolean.getBoolean(INTRA_PROJECT_TOGGLE));
+        this(cancellationToken, (TaskDurationHistory) null);
     }
 
     public void addToTaskGraph(Collection<? extends Task> tasks) {
@@ -305,8 +330,107 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 }
             }
         }
-        executionQueue.clear();
-        executionQueue.addAll(executionPlan.values());
+        if (durationHistory != null) {
+            calculateRemainingDurations();
+        }
+        initializeReadyTasks();
+    }
+
+    /**
+     * Counts the incomplete dependencies of each task in the plan, so that tasks can be moved to the ready set as their dependencies complete,
+     * rather than rescanning the whole plan each time a task is requested.
+     */
+    private void initializeReadyTasks() {
+        queuedTasks.clear();
+        readyTasks.clear();
+        planPositions.clear();
+        waitingTasks.clear();
+        incompleteDependencyCounts.clear();
+        queuedIncompleteTasks = 0;
+        incompleteTasks = 0;
+
+        for (TaskInfo taskInfo : executionPlan.values()) {
+            planPositions.put(taskInfo, planPositions.size());
+            queuedTasks.add(taskInfo);
+        }
+        for (TaskInfo taskInfo : executionPlan.values()) {
+            int incompleteDependencies = 0;
+            for (TaskInfo dependency : Iterables.concat(taskInfo.getMustSuccessors(), taskInfo.getDependencySuccessors())) {
+                waitingTasks.put(dependency, taskInfo);
+                if (!dependency.isComplete()) {
+                    incompleteDependencies++;
+                }
+            }
+            incompleteDependencyCounts.put(taskInfo, incompleteDependencies);
+            if (!taskInfo.isComplete()) {
+                queuedIncompleteTasks++;
+                incompleteTasks++;
+            }
+            if (incompleteDependencies == 0 && taskInfo.isReady()) {
+                readyTasks.add(taskInfo);
+            }
+        }
+    }
+
+    private void dequeue(TaskInfo taskInfo) {
+        if (queuedTasks.remove(taskInfo)) {
+            readyTasks.remove(taskInfo);
+            queuedIncompleteTasks--;
+        }
+    }
+
+    private void taskBecameComplete(TaskInfo taskInfo) {
+        incompleteTasks--;
+        for (TaskInfo waitingTask : waitingTasks.get(taskInfo)) {
+            int incompleteDependencies = incompleteDependencyCounts.get(waitingTask) - 1;
+            incompleteDependencyCounts.put(waitingTask, incompleteDependencies);
+            if (incompleteDependencies == 0 && waitingTask.isReady() && queuedTasks.contains(waitingTask)) {
+                readyTasks.add(waitingTask);
+            }
+        }
+    }
+
+    private void taskBecameIncomplete(TaskInfo taskInfo) {
+        incompleteTasks++;
+        if (queuedTasks.contains(taskInfo)) {
+            queuedIncompleteTasks++;
+        }
+        for (TaskInfo waitingTask : waitingTasks.get(taskInfo)) {
+            incompleteDependencyCounts.put(waitingTask, incompleteDependencyCounts.get(waitingTask) + 1);
+            readyTasks.remove(waitingTask);
+        }
+    }
+
+    /**
+     * Calculates, for each task in the plan, the duration of the longest chain of dependent tasks that starts with it. Tasks without
+     * a previous duration are assumed to take as long as the average task.
+     */
+    private void calculateRemainingDurations() {
+        Map<Task, Long> previousDurations = durationHistory.getPreviousDurations(executionPlan.keySet());
+        long defaultDuration = 1;
+        if (!previousDurations.isEmpty()) {
+            long total = 0;
+            for (Long duration : previousDurations.values()) {
+                total += duration;
+            }
+            defaultDuration = Math.max(1, total / previousDurations.size());
+        }
+
+        remainingDurations.clear();
+        List<TaskInfo> tasks = new ArrayList<TaskInfo>(executionPlan.values());
+        // Dependents always come later in the plan, so walk it backwards
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            TaskInfo taskInfo = tasks.get(i);
+            long longestDependentPath = 0;
+            for (TaskInfo dependent : taskInfo.getDependencyPredecessors()) {
+                Long dependentPath = remainingDurations.get(dependent);
+                if (dependentPath != null && dependentPath > longestDependentPath) {
+                    longestDependentPath = dependentPath;
+                }
+            }
+            Long duration = previousDurations.get(taskInfo.getTask());
+            remainingDurations.put(taskInfo, (duration == null ? defaultDuration : duration) + longestDependentPath);
+        }
     }
 
     private void maybeRemoveProcessedShouldRunAfterEdge(Stack<GraphEdge> walkedShouldRunAfterEdges, TaskInfo taskNode) {
@@ -427,13 +551,21 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             graph.clear();
             entryTasks.clear();
             executionPlan.clear();
-            executionQueue.clear();
+            queuedTasks.clear();
+            readyTasks.clear();
+            planPositions.clear();
+            waitingTasks.clear();
+            incompleteDependencyCounts.clear();
+            queuedIncompleteTasks = 0;
+            incompleteTasks = 0;
             failures.clear();
             projectsWithRunningTasks.clear();
             projectsWithRunningNonParallelizableTasks.clear();
             canonicalizedOutputCache.clear();
             isParallelSafeCache.clear();
+            remainingDurations.clear();
             runningTasks.clear();
+            runningTaskOutputPaths.clear();
         } finally {
             lock.unlock();
         }
@@ -460,21 +592,16 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                         tasksCancelled = true;
                     }
                 }
+                if (queuedIncompleteTasks == 0) {
+                    return null;
+                }
                 TaskInfo nextMatching = null;
-                boolean allTasksComplete = true;
-                Iterator<TaskInfo> iterator = executionQueue.iterator();
-                while (iterator.hasNext()) {
-                    TaskInfo taskInfo = iterator.next();
-                    allTasksComplete = allTasksComplete && taskInfo.isComplete();
-                    if (taskInfo.isReady() && taskInfo.allDependenciesComplete() && canRunWithWithCurrentlyExecutedTasks(taskInfo)) {
+                for (TaskInfo taskInfo : readyTasks) {
+                    if (canRunWithWithCurrentlyExecutedTasks(taskInfo)) {
                         nextMatching = taskInfo;
-                        iterator.remove();
                         break;
                     }
                 }
-                if (allTasksComplete) {
-                    return null;
-                }
                 if (nextMatching == null) {
                     try {
                         condition.await();
@@ -482,12 +609,14 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                         throw new RuntimeException(e);
                     }
                 } else {
+                    dequeue(nextMatching);
                     if (nextMatching.allDependenciesSuccessful()) {
                         nextMatching.startExecution();
                         recordTaskStarted(nextMatching);
                         return nextMatching;
                     } else {
                         nextMatching.skipExecution();
+                        taskBecameComplete(nextMatching);
                         condition.signalAll();
                     }
                 }
@@ -548,37 +677,32 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             return null;
         }
 
+        String separator = StandardSystemProperty.FILE_SEPARATOR.value();
         for (String candidateTaskOutputPath : canonicalizedOutputPaths(candidateTask)) {
-            for (TaskInternal runningTask : runningTasks) {
-                for (String runningTaskOutputPath : canonicalizedOutputPaths(runningTask)) {
-                    if (pathsOverlap(candidateTaskOutputPath, runningTaskOutputPath)) {
-                        return Pair.of(runningTask, TextUtil.shorterOf(candidateTaskOutputPath, runningTaskOutputPath));
-                    }
+            // The same path, or a path inside the candidate output
+            TaskInternal runningTask = runningTaskOutputPaths.get(candidateTaskOutputPath);
+            if (runningTask != null) {
+                return Pair.of(runningTask, candidateTaskOutputPath);
+            }
+            Map.Entry<String, TaskInternal> nested = runningTaskOutputPaths.ceilingEntry(candidateTaskOutputPath + separator);
+            if (nested != null && nested.getKey().startsWith(candidateTaskOutputPath + separator)) {
+                return Pair.of(nested.getValue(), candidateTaskOutputPath);
+            }
+            // A path that contains the candidate output
+            int separatorIndex = candidateTaskOutputPath.lastIndexOf(separator);
+            while (separatorIndex > 0) {
+                String parentPath = candidateTaskOutputPath.substring(0, separatorIndex);
+                runningTask = runningTaskOutputPaths.get(parentPath);
+                if (runningTask != null) {
+                    return Pair.of(runningTask, parentPath);
                 }
+                separatorIndex = candidateTaskOutputPath.lastIndexOf(separator, separatorIndex - 1);
             }
         }
 
         return null;
     }
 
-
-    private boolean pathsOverlap(String firstPath, String secondPath) {
-        if (firstPath.equals(secondPath)) {
-            return true;
-        }
-
-        String shorter;
-        String longer;
-        if (firstPath.length() > secondPath.length()) {
-            shorter = secondPath;
-            longer = firstPath;
-        } else {
-            shorter = firstPath;
-            longer = secondPath;
-        }
-        return longer.startsWith(shorter + StandardSystemProperty.FILE_SEPARATOR.value());
-    }
-
     boolean isParallelizable(TaskInternal task) {
         if (intraProjectParallelization) {
             Boolean safe = isParallelSafeCache.get(task);
@@ -613,6 +737,9 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
         projectsWithRunningTasks.add(projectPath);
         runningTasks.add(task);
+        for (String outputPath : canonicalizedOutputPaths(task)) {
+            runningTaskOutputPaths.put(outputPath, task);
+        }
     }
 
     private void recordTaskCompleted(TaskInfo taskInfo) {
@@ -622,6 +749,11 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             projectsWithRunningNonParallelizableTasks.remove(projectPath);
         }
         projectsWithRunningTasks.remove(projectPath);
+        for (String outputPath : canonicalizedOutputPaths(task)) {
+            if (runningTaskOutputPaths.get(outputPath) == task) {
+                runningTaskOutputPaths.remove(outputPath);
+            }
+        }
         canonicalizedOutputCache.remove(task);
         isParallelSafeCache.remove(task);
         runningTasks.remove(task);
@@ -636,6 +768,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             }
 
             taskInfo.finishExecution();
+            taskBecameComplete(taskInfo);
             recordTaskCompleted(taskInfo);
             condition.signalAll();
         } finally {
@@ -662,7 +795,15 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             enforceWithDependencies(dependencyNode, enforcedTasks);
         }
         if (node.isMustNotRun() || node.isRequired()) {
+            boolean wasComplete = node.isComplete();
             node.enforceRun();
+            if (wasComplete) {
+                taskBecameIncomplete(node);
+            }
+            Integer incompleteDependencies = incompleteDependencyCounts.get(node);
+            if (incompleteDependencies != null && incompleteDependencies == 0 && queuedTasks.contains(node)) {
+                readyTasks.add(node);
+            }
         }
     }
 
@@ -691,7 +832,9 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         boolean aborted = false;
         for (TaskInfo taskInfo : executionPlan.values()) {
             if (taskInfo.isRequired()) {
+                dequeue(taskInfo);
                 taskInfo.skipExecution();
+                taskBecameComplete(taskInfo);
                 aborted = true;
             }
         }
@@ -730,12 +873,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     }
 
     private boolean allTasksComplete() {
-        for (TaskInfo taskInfo : executionPlan.values()) {
-            if (!taskInfo.isComplete()) {
-                return false;
-            }
-        }
-        return true;
+        return incompleteTasks == 0;
     }
 
     private static class GraphEdge {
@@ -758,6 +896,22 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
+    /**
+     * Orders ready tasks by the longest remaining path, when known, and then by their position in the plan.
+     */
+    private class ReadyTaskComparator implements Comparator<TaskInfo> {
+        public int compare(TaskInfo left, TaskInfo right) {
+            if (!remainingDurations.isEmpty()) {
+                long leftDuration = remainingDurations.get(left);
+                long rightDuration = remainingDurations.get(right);
+                if (leftDuration != rightDuration) {
+                    return leftDuration > rightDuration ? -1 : 1;
+                }
+            }
+            return planPositions.get(left) - planPositions.get(right);
+        }
+    }
+
     private static class RethrowingFailureHandler implements TaskFailureHandler {
         public void onTaskFailure(Task task) {
             task.getState().rethrowFailure();
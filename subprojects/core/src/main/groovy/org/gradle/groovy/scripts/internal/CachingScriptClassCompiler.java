@@ -26,7 +26,7 @@ import org.gradle.internal.Cast;
 import java.util.Map;
 
 public class CachingScriptClassCompiler implements ScriptClassCompiler {
-    private final Map<Key, CompiledScript<?, ?>> cachedCompiledScripts = Maps.newHashMap();
+    private final Map<Key, CompiledScript<?, ?>> cachedCompiledScripts = Maps.newConcurrentMap();
     private final ScriptClassCompiler scriptClassCompiler;
 
     public CachingScriptClassCompiler(ScriptClassCompiler scriptClassCompiler) {
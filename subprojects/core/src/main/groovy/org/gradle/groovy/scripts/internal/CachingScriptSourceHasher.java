@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal;
+
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.cache.internal.CacheDecorator;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.internal.Factory;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the hash of each script file, and whether it is empty, along with the length and timestamp of the file. The script text is read only when the
+ * length or timestamp of the file has changed. The details of any other script are calculated from its text.
+ *
+ * <p>The cache is locked on demand, once for each script file used by the build. The details are then kept for the rest of the build, while the file is
+ * unchanged, so that checking whether a script is empty and looking up its hash do not lock the cache again.</p>
+ */
+public class CachingScriptSourceHasher implements ScriptSourceHasher, Closeable {
+    private final PersistentCache cache;
+    private final PersistentIndexedCache<String, ScriptDetails> scripts;
+    private final StringInterner stringInterner;
+    private final Map<String, ScriptDetails> usedByBuild = new ConcurrentHashMap<String, ScriptDetails>();
+
+    /**
+     * @param cache The cache to keep the script details in. Closed when this hasher is closed.
+     * @param decorator Used to keep the script details in memory between builds.
+     */
+    public CachingScriptSourceHasher(PersistentCache cache, CacheDecorator decorator, StringInterner stringInterner) {
+        this.cache = cache;
+        this.scripts = cache.createCache(new PersistentIndexedCacheParameters<String, ScriptDetails>("scripts", String.class, new ScriptDetailsSerializer()).cacheDecorator(decorator));
+        this.stringInterner = stringInterner;
+    }
+
+    public String hash(ScriptSource source) {
+        File file = source.getResource().getFile();
+        if (file == null || !file.isFile()) {
+            return HashUtil.createCompactMD5(source.getResource().getText());
+        }
+        return getDetails(source, file).hash;
+    }
+
+    public boolean isEmpty(ScriptSource source) {
+        File file = source.getResource().getFile();
+        if (file == null || !file.isFile()) {
+            return isEmpty(source.getResource().getText());
+        }
+        return getDetails(source, file).empty;
+    }
+
+    private ScriptDetails getDetails(final ScriptSource source, File file) {
+        final String absolutePath = file.getAbsolutePath();
+        final long length = file.length();
+        final long timestamp = file.lastModified();
+        ScriptDetails details = usedByBuild.get(absolutePath);
+        if (details != null && details.isFor(length, timestamp)) {
+            return details;
+        }
+        details = cache.useCache(String.format("hash %s", source.getDisplayName()), new Factory<ScriptDetails>() {
+            public ScriptDetails create() {
+                ScriptDetails details = scripts.get(absolutePath);
+                if (details != null && details.isFor(length, timestamp)) {
+                    return details;
+                }
+                String text = source.getResource().getText();
+                details = new ScriptDetails(HashUtil.createCompactMD5(text), isEmpty(text), length, timestamp);
+                scripts.put(stringInterner.intern(absolutePath), details);
+                return details;
+            }
+        });
+        usedByBuild.put(absolutePath, details);
+        return details;
+    }
+
+    private static boolean isEmpty(String text) {
+        return text.matches("\\s*");
+    }
+
+    public void close() {
+        cache.close();
+    }
+
+    static class ScriptDetails {
+        private final String hash;
+        private final boolean empty;
+        private final long length;
+        private final long timestamp;
+
+        ScriptDetails(String hash, boolean empty, long length, long timestamp) {
+            this.hash = hash;
+            this.empty = empty;
+            this.length = length;
+            this.timestamp = timestamp;
+        }
+
+        boolean isFor(long length, long timestamp) {
+            return this.length == length && this.timestamp == timestamp;
+        }
+    }
+
+    static class ScriptDetailsSerializer implements Serializer<ScriptDetails> {
+        public ScriptDetails read(Decoder decoder) throws Exception {
+            String hash = decoder.readString();
+            boolean empty = decoder.readBoolean();
+            long length = decoder.readLong();
+            long timestamp = decoder.readLong();
+            return new ScriptDetails(hash, empty, length, timestamp);
+        }
+
+        public void write(Encoder encoder, ScriptDetails value) throws Exception {
+            encoder.writeString(value.hash);
+            encoder.writeBoolean(value.empty);
+            encoder.writeLong(value.length);
+            encoder.writeLong(value.timestamp);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal;
+
+import groovy.lang.Script;
+import org.codehaus.groovy.ast.ClassNode;
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.initialization.loadercache.ClassLoaderId;
+import org.gradle.groovy.scripts.ScriptSource;
+
+/**
+ * Reuses the compiled scripts used by earlier builds in the same daemon, when the script source, the class loader and the DSL are unchanged.
+ * The file cache of a reused script is still opened for each build, so that it remains locked while the script classes are in use.
+ */
+public class CrossBuildCachingScriptClassCompiler implements ScriptClassCompiler {
+    private final FileCacheBackedScriptClassCompiler scriptClassCompiler;
+    private final CrossBuildInMemoryScriptClassCache crossBuildCache;
+    private final ScriptSourceHasher scriptSourceHasher;
+
+    /**
+     * @param crossBuildCache The compiled scripts of earlier builds. Each script is compiled by the given compiler when null.
+     */
+    public CrossBuildCachingScriptClassCompiler(FileCacheBackedScriptClassCompiler scriptClassCompiler, @Nullable CrossBuildInMemoryScriptClassCache crossBuildCache, ScriptSourceHasher scriptSourceHasher) {
+        this.scriptClassCompiler = scriptClassCompiler;
+        this.crossBuildCache = crossBuildCache;
+        this.scriptSourceHasher = scriptSourceHasher;
+    }
+
+    @Override
+    public <T extends Script, M> CompiledScript<T, M> compile(ScriptSource source, ClassLoader classLoader, ClassLoaderId classLoaderId, CompileOperation<M> operation, Class<T> scriptBaseClass, Action<? super ClassNode> verifier) {
+        if (crossBuildCache == null) {
+            return scriptClassCompiler.compile(source, classLoader, classLoaderId, operation, scriptBaseClass, verifier);
+        }
+        String sourceHash = scriptSourceHasher.hash(source);
+        CompiledScript<T, M> compiledScript = crossBuildCache.get(sourceHash, source.getClassName(), classLoader, operation.getId());
+        if (compiledScript != null) {
+            scriptClassCompiler.useCompiledScript(source, classLoader, operation, scriptBaseClass, verifier);
+            return compiledScript;
+        }
+        compiledScript = scriptClassCompiler.compile(source, classLoader, classLoaderId, operation, scriptBaseClass, verifier);
+        crossBuildCache.put(sourceHash, source.getClassName(), classLoader, operation.getId(), compiledScript);
+        return compiledScript;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import groovy.lang.Script;
+import org.gradle.api.Nullable;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.initialization.BuildCompletionListener;
+import org.gradle.internal.Cast;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the compiled scripts used by builds for the lifetime of the daemon, so that later builds can reuse the loaded script classes rather than
+ * define and verify them again. A compiled script is keyed by the hash of the script source, the class loader of the scope the script is compiled against
+ * and the id of the DSL. The number of entries is bounded, and entries are only softly referenced so they can be discarded when memory is low.
+ *
+ * <p>The cache must not keep the class loaders of scopes that are no longer used alive. The keys only weakly reference the class loaders, and as the
+ * script classes themselves reference their class loader, the entries that were not used by any of the last few root builds are discarded at the end of
+ * a root build. Nested builds, such as the buildSrc build or those run by a {@code GradleBuild} task, count as part of the root build that runs them.</p>
+ */
+public class CrossBuildInMemoryScriptClassCache implements BuildCompletionListener {
+
+    public final static String TOGGLE_PROPERTY = "org.gradle.scripts.memorycache.crossbuild";
+    public final static String MAX_ENTRIES_PROPERTY = "org.gradle.scripts.memorycache.maxentries";
+    public final static int DEFAULT_MAX_ENTRIES = 1000;
+    public final static String RETAINED_BUILDS_PROPERTY = "org.gradle.scripts.memorycache.retainedbuilds";
+    public final static int DEFAULT_RETAINED_BUILDS = 3;
+
+    private final static Logger LOG = Logging.getLogger(CrossBuildInMemoryScriptClassCache.class);
+
+    private final Cache<Key, Entry> compiledScripts;
+    private final int retainedBuilds;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile int builds;
+
+    /**
+     * @param retainedBuilds The number of root builds a compiled script is kept for after it was last used.
+     */
+    public CrossBuildInMemoryScriptClassCache(int maxEntries, int retainedBuilds) {
+        this.compiledScripts = CacheBuilder.newBuilder().maximumSize(maxEntries).softValues().recordStats().build();
+        this.retainedBuilds = retainedBuilds;
+    }
+
+    @Nullable
+    <T extends Script, M> CompiledScript<T, M> get(String sourceHash, String className, ClassLoader classLoader, String dslId) {
+        Entry entry = compiledScripts.getIfPresent(new Key(sourceHash, className, classLoader, dslId));
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        entry.lastUsedBuild = builds;
+        return Cast.uncheckedCast(entry.compiledScript);
+    }
+
+    void put(String sourceHash, String className, ClassLoader classLoader, String dslId, CompiledScript<?, ?> compiledScript) {
+        compiledScripts.put(new Key(sourceHash, className, classLoader, dslId), new Entry(compiledScript, builds));
+    }
+
+    /**
+     * Called when a root build has completed. Discards the compiled scripts that were not used by the last few root builds.
+     */
+    public synchronized void completed() {
+        Iterator<Map.Entry<Key, Entry>> entries = compiledScripts.asMap().entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Key, Entry> entry = entries.next();
+            if (entry.getKey().classLoader.get() == null || builds - entry.getValue().lastUsedBuild >= retainedBuilds) {
+                entries.remove();
+            }
+        }
+        builds++;
+        long buildHits = hits.getAndSet(0);
+        long buildMisses = misses.getAndSet(0);
+        CacheStats stats = compiledScripts.stats();
+        LOG.debug("Cross-build in-memory script class cache reused {} of {} compiled scripts in this build. After {} builds: hits: {}, misses: {}, entries: {}, evicted: {}.",
+                buildHits, buildHits + buildMisses, builds, stats.hitCount(), stats.missCount(), compiledScripts.size(), stats.evictionCount());
+    }
+
+    private static class Entry {
+        private final CompiledScript<?, ?> compiledScript;
+        private volatile int lastUsedBuild;
+
+        Entry(CompiledScript<?, ?> compiledScript, int lastUsedBuild) {
+            this.compiledScript = compiledScript;
+            this.lastUsedBuild = lastUsedBuild;
+        }
+    }
+
+    private static class Key {
+        private final String sourceHash;
+        private final String className;
+        private final WeakReference<ClassLoader> classLoader;
+        private final int classLoaderHashCode;
+        private final String dslId;
+
+        Key(String sourceHash, String className, ClassLoader classLoader, String dslId) {
+            this.sourceHash = sourceHash;
+            this.className = className;
+            this.classLoader = new WeakReference<ClassLoader>(classLoader);
+            this.classLoaderHashCode = System.identityHashCode(classLoader);
+            this.dslId = dslId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Key key = (Key) o;
+
+            ClassLoader classLoader = this.classLoader.get();
+            return classLoader != null
+                    && classLoader == key.classLoader.get()
+                    && sourceHash.equals(key.sourceHash)
+                    && className.equals(key.className)
+                    && dslId.equals(key.dslId);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = sourceHash.hashCode();
+            result = 31 * result + className.hashCode();
+            result = 31 * result + classLoaderHashCode;
+            result = 31 * result + dslId.hashCode();
+            return result;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.gradle.cache.CacheRepository;
 import org.gradle.cache.CacheValidator;
 import org.gradle.cache.PersistentCache;
 import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.internal.classloader.ClassLoaderVisitor;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.hash.HashUtil;
 import org.gradle.logging.ProgressLogger;
@@ -30,8 +31,11 @@ import org.gradle.logging.ProgressLoggerFactory;
 
 import java.io.Closeable;
 import java.io.File;
+import java.net.URL;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * A {@link ScriptClassCompiler} which compiles scripts to a cache directory, and loads them from there.
@@ -41,40 +45,85 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
     private final ProgressLoggerFactory progressLoggerFactory;
     private final CacheRepository cacheRepository;
     private final CacheValidator validator;
+    private final ScriptSourceHasher scriptSourceHasher;
     private final CompositeStoppable caches = new CompositeStoppable();
+    private final Map<ClassLoader, String> classPathHashes = Collections.synchronizedMap(new WeakHashMap<ClassLoader, String>());
 
     public FileCacheBackedScriptClassCompiler(CacheRepository cacheRepository, CacheValidator validator, ScriptCompilationHandler scriptCompilationHandler,
-                                              ProgressLoggerFactory progressLoggerFactory) {
+                                              ProgressLoggerFactory progressLoggerFactory, ScriptSourceHasher scriptSourceHasher) {
         this.cacheRepository = cacheRepository;
         this.validator = validator;
         this.scriptCompilationHandler = scriptCompilationHandler;
         this.progressLoggerFactory = progressLoggerFactory;
+        this.scriptSourceHasher = scriptSourceHasher;
     }
 
     @Override
     public <T extends Script, M> CompiledScript<T, M> compile(final ScriptSource source, final ClassLoader classLoader, final ClassLoaderId classLoaderId, CompileOperation<M> operation, final Class<T> scriptBaseClass,
                                                               Action<? super ClassNode> verifier) {
+        PersistentCache cache = useCache(source, classLoader, operation, scriptBaseClass, verifier);
+
+        final File classesDir = classesDir(cache);
+        final File metadataDir = metadataDir(cache);
+
+        return scriptCompilationHandler.loadFromDir(source, classLoader, classesDir, metadataDir, operation, scriptBaseClass, classLoaderId);
+    }
+
+    /**
+     * Opens the cache of a script whose classes have already been loaded by an earlier build, compiling the script into the cache again if required.
+     * The cache stays open, and so locked, until this compiler is closed, so that the remaining classes of the script can still be loaded from it.
+     */
+    public <T extends Script, M> void useCompiledScript(ScriptSource source, ClassLoader classLoader, CompileOperation<M> operation, Class<T> scriptBaseClass, Action<? super ClassNode> verifier) {
+        useCache(source, classLoader, operation, scriptBaseClass, verifier);
+    }
+
+    private <T extends Script, M> PersistentCache useCache(ScriptSource source, ClassLoader classLoader, CompileOperation<M> operation, Class<T> scriptBaseClass, Action<? super ClassNode> verifier) {
+        PersistentCache cache = openCache(source, classLoader, operation, new ProgressReportingInitializer(progressLoggerFactory, new CacheInitializer(source, classLoader, operation, verifier, scriptBaseClass)));
+
+        // This isn't quite right. The cache will be closed at the end of the build, releasing the shared lock on the classes. Instead, the cache for a script should be
+        // closed once we no longer require the script classes. This may be earlier than the end of the current build, or it may used across multiple builds
+        caches.add(cache);
+        return cache;
+    }
+
+    /**
+     * Compiles the given script into the cache, if not already present, without loading the script classes.
+     * Scripts with no content are not compiled, as they are never compiled by {@link ShortCircuitEmptyScriptCompiler} either.
+     * Caches in different directories are initialized concurrently, so this method can be used to compile several scripts in parallel.
+     */
+    public <T extends Script, M> void precompile(ScriptSource source, ClassLoader classLoader, CompileOperation<M> operation, Class<T> scriptBaseClass, Action<? super ClassNode> verifier) {
+        if (scriptSourceHasher.isEmpty(source)) {
+            return;
+        }
+        openCache(source, classLoader, operation, new ProgressReportingInitializer(progressLoggerFactory, new CacheInitializer(source, classLoader, operation, verifier, scriptBaseClass))).close();
+    }
+
+    private <M> PersistentCache openCache(ScriptSource source, ClassLoader classLoader, CompileOperation<M> operation, Action<? super PersistentCache> initializer) {
         Map<String, Object> properties = new HashMap<String, Object>();
         properties.put("source.filename", source.getFileName());
-        properties.put("source.hash", HashUtil.createCompactMD5(source.getResource().getText()));
+        properties.put("source.hash", scriptSourceHasher.hash(source));
+        // The classes of a script depend on the classes it is compiled against, which may differ between the builds that share the cache
+        properties.put("classpath.hash", classPathHash(classLoader));
 
         String dslId = operation.getId();
         String cacheName = String.format("scripts/%s/%s", source.getClassName(), dslId);
-        PersistentCache cache = cacheRepository.cache(cacheName)
+        return cacheRepository.cache(cacheName)
                 .withProperties(properties)
                 .withValidator(validator)
                 .withDisplayName(String.format("%s class cache for %s", dslId, source.getDisplayName()))
-                .withInitializer(new ProgressReportingInitializer(progressLoggerFactory, new CacheInitializer(source, classLoader, operation, verifier, scriptBaseClass)))
+                .withInitializer(initializer)
                 .open();
+    }
 
-        // This isn't quite right. The cache will be closed at the end of the build, releasing the shared lock on the classes. Instead, the cache for a script should be
-        // closed once we no longer require the script classes. This may be earlier than the end of the current build, or it may used across multiple builds
-        caches.add(cache);
-
-        final File classesDir = classesDir(cache);
-        final File metadataDir = metadataDir(cache);
-
-        return scriptCompilationHandler.loadFromDir(source, classLoader, classesDir, metadataDir, operation, scriptBaseClass, classLoaderId);
+    private String classPathHash(ClassLoader classLoader) {
+        String hash = classPathHashes.get(classLoader);
+        if (hash == null) {
+            ClassPathHasher hasher = new ClassPathHasher();
+            hasher.visit(classLoader);
+            hash = hasher.getHash();
+            classPathHashes.put(classLoader, hash);
+        }
+        return hash;
     }
 
     public void close() {
@@ -82,11 +131,19 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
     }
 
     private File classesDir(PersistentCache cache) {
-        return new File(cache.getBaseDir(), "classes");
+        return classesDir(cache.getBaseDir());
+    }
+
+    private File classesDir(File baseDir) {
+        return new File(baseDir, "classes");
     }
 
     private File metadataDir(PersistentCache cache) {
-        return new File(cache.getBaseDir(), "metadata");
+        return metadataDir(cache.getBaseDir());
+    }
+
+    private File metadataDir(File baseDir) {
+        return new File(baseDir, "metadata");
     }
 
     private class CacheInitializer implements Action<PersistentCache> {
@@ -112,6 +169,24 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
         }
     }
 
+    /**
+     * Calculates a hash of the class path of a class loader and its parents, in the order in which they are visited.
+     */
+    private static class ClassPathHasher extends ClassLoaderVisitor {
+        private final StringBuilder classPath = new StringBuilder();
+
+        @Override
+        public void visitClassPath(URL[] urls) {
+            for (URL url : urls) {
+                classPath.append(url).append('\n');
+            }
+        }
+
+        String getHash() {
+            return HashUtil.createCompactMD5(classPath.toString());
+        }
+    }
+
     static class ProgressReportingInitializer implements Action<PersistentCache> {
         private ProgressLoggerFactory progressLoggerFactory;
         private Action<? super PersistentCache> delegate;
@@ -25,16 +25,18 @@ import org.gradle.groovy.scripts.ScriptSource;
 public class ShortCircuitEmptyScriptCompiler implements ScriptClassCompiler {
     private final ScriptClassCompiler compiler;
     private final ClassLoaderCache classLoaderCache;
+    private final ScriptSourceHasher scriptSourceHasher;
 
-    public ShortCircuitEmptyScriptCompiler(ScriptClassCompiler compiler, ClassLoaderCache classLoaderCache) {
+    public ShortCircuitEmptyScriptCompiler(ScriptClassCompiler compiler, ClassLoaderCache classLoaderCache, ScriptSourceHasher scriptSourceHasher) {
         this.compiler = compiler;
         this.classLoaderCache = classLoaderCache;
+        this.scriptSourceHasher = scriptSourceHasher;
     }
 
     @Override
     public <T extends Script, M> CompiledScript<T, M> compile(final ScriptSource source, final ClassLoader classLoader, final ClassLoaderId classLoaderId, final CompileOperation<M> operation,
                                                               final Class<T> scriptBaseClass, Action<? super ClassNode> verifier) {
-        if (source.getResource().getText().matches("\\s*")) {
+        if (scriptSourceHasher.isEmpty(source)) {
             classLoaderCache.remove(classLoaderId);
             return new CompiledScript<T, M>() {
                 @Override
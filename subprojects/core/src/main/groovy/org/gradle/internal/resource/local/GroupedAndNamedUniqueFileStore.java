@@ -19,6 +19,7 @@ import org.gradle.api.Action;
 import org.gradle.api.Transformer;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.hash.HashValue;
 
 import java.io.File;
 import java.util.Set;
@@ -39,11 +40,35 @@ public class GroupedAndNamedUniqueFileStore<K> implements FileStore<K>, FileStor
     }
 
     public LocallyAvailableResource move(K key, File source) {
-        return delegate.move(toPath(key, getChecksum(source)), source);
+        return move(key, getChecksum(source), source);
     }
 
     public LocallyAvailableResource copy(K key, File source) {
-        return delegate.copy(toPath(key, getChecksum(source)), source);
+        HashValue checksum = getChecksum(source);
+        return withChecksum(delegate.copy(toPath(key, checksum.asHexString()), source), checksum);
+    }
+
+    /**
+     * Moves the given file, whose content has the given checksum, into the store.
+     */
+    protected LocallyAvailableResource move(K key, HashValue checksum, File source) {
+        return withChecksum(delegate.move(toPath(key, checksum.asHexString()), source), checksum);
+    }
+
+    /**
+     * Adds an entry with the given checksum to the store, using the given action to create the file. Does nothing if the entry already exists.
+     */
+    protected LocallyAvailableResource add(K key, HashValue checksum, Action<File> addAction) {
+        return withChecksum(delegate.add(toPath(key, checksum.asHexString()), addAction), checksum);
+    }
+
+    private LocallyAvailableResource withChecksum(final LocallyAvailableResource entry, HashValue checksum) {
+        // The checksum is part of the path, so there's no need to calculate it again later
+        return new AbstractLocallyAvailableResource(checksum) {
+            public File getFile() {
+                return entry.getFile();
+            }
+        };
     }
 
     public Set<? extends LocallyAvailableResource> search(K key) {
@@ -57,8 +82,8 @@ public class GroupedAndNamedUniqueFileStore<K> implements FileStore<K>, FileStor
         return String.format("%s/%s/%s", group, checksumPart, name);
     }
 
-    private String getChecksum(File contentFile) {
-        return HashUtil.createHash(contentFile, "SHA1").asHexString();
+    protected HashValue getChecksum(File contentFile) {
+        return HashUtil.createHash(contentFile, "SHA1");
     }
 
     public File getTempFile() {
@@ -74,7 +99,6 @@ public class GroupedAndNamedUniqueFileStore<K> implements FileStore<K>, FileStor
         //and reexecuting the action isn't acceptable
         final File tempFile = getTempFile();
         addAction.execute(tempFile);
-        final String groupedAndNamedKey = toPath(key, getChecksum(tempFile));
-        return delegate.move(groupedAndNamedKey, tempFile);
+        return move(key, getChecksum(tempFile), tempFile);
     }
 }
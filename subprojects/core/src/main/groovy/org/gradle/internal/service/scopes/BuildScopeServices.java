@@ -25,6 +25,9 @@ import org.gradle.api.internal.artifacts.DefaultModule;
 import org.gradle.api.internal.artifacts.DependencyManagementServices;
 import org.gradle.api.internal.artifacts.ModuleInternal;
 import org.gradle.api.internal.artifacts.configurations.DependencyMetaDataProvider;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
+import org.gradle.api.internal.changedetection.state.NoOpDecorator;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.classpath.PluginModuleRegistry;
 import org.gradle.api.internal.component.ComponentTypeRegistry;
@@ -45,6 +48,9 @@ import org.gradle.api.internal.project.taskfactory.ITaskFactory;
 import org.gradle.api.internal.project.taskfactory.TaskFactory;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.CacheValidator;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.CacheDecorator;
+import org.gradle.cache.internal.FileLockManager;
 import org.gradle.configuration.*;
 import org.gradle.configuration.project.*;
 import org.gradle.execution.ProjectConfigurer;
@@ -65,7 +71,10 @@ import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.environment.GradleBuildEnvironment;
 import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.DefaultBuildOperationProcessor;
 import org.gradle.internal.operations.logging.BuildOperationLoggerFactory;
 import org.gradle.internal.operations.logging.DefaultBuildOperationLoggerFactory;
 import org.gradle.internal.progress.BuildOperationExecutor;
@@ -87,6 +96,8 @@ import org.gradle.plugin.use.internal.PluginRequestApplicator;
 import org.gradle.profile.ProfileEventAdapter;
 import org.gradle.profile.ProfileListener;
 
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
 /**
  * Contains the singleton services for a single build invocation.
  */
@@ -94,6 +105,7 @@ public class BuildScopeServices extends DefaultServiceRegistry {
 
     private final BuildSessionScopeServices sessionServices;
     private final boolean singleUseSession;
+    private DefaultBuildOperationProcessor configurationProcessor;
 
     public static BuildScopeServices forSession(BuildSessionScopeServices sessionServices) {
         return new BuildScopeServices(sessionServices, false);
@@ -185,13 +197,25 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         );
     }
 
-    protected ScriptCompilerFactory createScriptCompileFactory(ListenerManager listenerManager, FileCacheBackedScriptClassCompiler scriptCompiler, ClassLoaderCache classLoaderCache) {
+    protected CrossBuildCachingScriptClassCompiler createCrossBuildCachingScriptClassCompiler(FileCacheBackedScriptClassCompiler scriptCompiler, CrossBuildInMemoryScriptClassCache crossBuildCache,
+                                                                                              ScriptSourceHasher scriptSourceHasher, GradleBuildEnvironment environment, StartParameter startParameter) {
+        boolean reuseCompiledScripts = environment.isLongLivingProcess() && Boolean.getBoolean(CrossBuildInMemoryScriptClassCache.TOGGLE_PROPERTY) && !startParameter.isRecompileScripts();
+        return new CrossBuildCachingScriptClassCompiler(
+            scriptCompiler,
+            reuseCompiledScripts ? crossBuildCache : null,
+            scriptSourceHasher
+        );
+    }
+
+    protected ScriptCompilerFactory createScriptCompileFactory(ListenerManager listenerManager, CrossBuildCachingScriptClassCompiler scriptCompiler, ClassLoaderCache classLoaderCache,
+                                                               ScriptSourceHasher scriptSourceHasher) {
         ScriptExecutionListener scriptExecutionListener = listenerManager.getBroadcaster(ScriptExecutionListener.class);
         return new DefaultScriptCompilerFactory(
             new CachingScriptClassCompiler(
                 new ShortCircuitEmptyScriptCompiler(
                     scriptCompiler,
-                    classLoaderCache
+                    classLoaderCache,
+                    scriptSourceHasher
                 )
             ),
             new DefaultScriptRunnerFactory(
@@ -201,9 +225,20 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         );
     }
 
+    protected ScriptSourceHasher createScriptSourceHasher(CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache, GradleBuildEnvironment environment,
+                                                          StringInterner stringInterner) {
+        PersistentCache cache = cacheRepository
+            .cache("scriptHashes")
+            .withDisplayName("script hash cache")
+            .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+            .open();
+        CacheDecorator decorator = environment.isLongLivingProcess() ? inMemoryTaskArtifactCache : new NoOpDecorator();
+        return new CachingScriptSourceHasher(cache, decorator, stringInterner);
+    }
+
     protected FileCacheBackedScriptClassCompiler createFileCacheBackedScriptClassCompiler(
         CacheRepository cacheRepository, final StartParameter startParameter,
-        ProgressLoggerFactory progressLoggerFactory, ClassLoaderCache classLoaderCache, ImportsReader importsReader) {
+        ProgressLoggerFactory progressLoggerFactory, ClassLoaderCache classLoaderCache, ImportsReader importsReader, ScriptSourceHasher scriptSourceHasher) {
         CacheValidator scriptCacheInvalidator = new CacheValidator() {
             public boolean isValid() {
                 return !startParameter.isRecompileScripts();
@@ -213,7 +248,8 @@ public class BuildScopeServices extends DefaultServiceRegistry {
             cacheRepository,
             scriptCacheInvalidator,
             new DefaultScriptCompilationHandler(classLoaderCache, importsReader),
-            progressLoggerFactory
+            progressLoggerFactory,
+            scriptSourceHasher
         );
     }
 
@@ -292,11 +328,29 @@ public class BuildScopeServices extends DefaultServiceRegistry {
     }
 
     protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken) {
-        return new TaskPathProjectEvaluator(cancellationToken);
+        BuildOperationProcessor configurationProcessor = Boolean.getBoolean(TaskPathProjectEvaluator.PARALLEL_CONFIGURATION_TOGGLE) ? getConfigurationProcessor() : null;
+        return new TaskPathProjectEvaluator(cancellationToken, configurationProcessor);
     }
 
-    protected BuildConfigurer createBuildConfigurer(ProjectConfigurer projectConfigurer) {
-        return new DefaultBuildConfigurer(projectConfigurer);
+    protected BuildConfigurer createBuildConfigurer(ProjectConfigurer projectConfigurer, StartParameter startParameter, FileCacheBackedScriptClassCompiler scriptClassCompiler,
+                                                   DocumentationRegistry documentationRegistry) {
+        BuildScriptPrecompiler buildScriptPrecompiler = null;
+        if (Boolean.getBoolean(BuildScriptPrecompiler.PARALLEL_SCRIPT_COMPILATION_TOGGLE) && !startParameter.isRecompileScripts()) {
+            buildScriptPrecompiler = new BuildScriptPrecompiler(scriptClassCompiler, new CompileOperationFactory(documentationRegistry), getConfigurationProcessor());
+            get(ListenerManager.class).addListener(buildScriptPrecompiler);
+        }
+        return new DefaultBuildConfigurer(projectConfigurer, buildScriptPrecompiler);
+    }
+
+    /**
+     * Returns the processor used to compile build scripts and to configure projects in parallel. This is not registered as a service, as a build scoped
+     * {@link BuildOperationProcessor} is contributed by dependency management, which holds the artifact cache lock while its operations run.
+     */
+    private synchronized BuildOperationProcessor getConfigurationProcessor() {
+        if (configurationProcessor == null) {
+            configurationProcessor = new DefaultBuildOperationProcessor(get(ExecutorFactory.class), get(StartParameter.class).getMaxWorkerCount());
+        }
+        return configurationProcessor;
     }
 
     protected ProjectAccessListener createProjectAccessListener() {
@@ -304,7 +358,7 @@ public class BuildScopeServices extends DefaultServiceRegistry {
     }
 
     protected ProfileEventAdapter createProfileEventAdapter() {
-        return new ProfileEventAdapter(get(BuildRequestMetaData.class), get(TimeProvider.class), get(ListenerManager.class).getBroadcaster(ProfileListener.class));
+        return new ProfileEventAdapter(get(BuildRequestMetaData.class), get(TimeProvider.class), get(ListenerManager.class).getBroadcaster(ProfileListener.class), get(InMemoryTaskArtifactCache.class));
     }
 
     protected PluginRegistry createPluginRegistry(ClassLoaderScopeRegistry scopeRegistry, PluginInspector pluginInspector) {
@@ -351,17 +405,13 @@ public class BuildScopeServices extends DefaultServiceRegistry {
 
     @Override
     public void close() {
-        if (singleUseSession) {
-            // This song and dance is to let CompositeStoppable deal with making sure everything
-            // is closed when something errors while stopping
-            CompositeStoppable.stoppable(new Stoppable() {
-                @Override
-                public void stop() {
-                    BuildScopeServices.super.close();
-                }
-            }, sessionServices).stop();
-        } else {
-            super.close();
-        }
+        // This song and dance is to let CompositeStoppable deal with making sure everything
+        // is closed when something errors while stopping
+        CompositeStoppable.stoppable(new Stoppable() {
+            @Override
+            public void stop() {
+                BuildScopeServices.super.close();
+            }
+        }, configurationProcessor, singleUseSession ? sessionServices : null).stop();
     }
 }
@@ -24,7 +24,7 @@ import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter;
 import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
 import org.gradle.api.internal.classpath.*;
 import org.gradle.api.internal.file.*;
-import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.api.internal.hash.HashingStrategy;
 import org.gradle.api.internal.initialization.loadercache.*;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
@@ -38,11 +38,13 @@ import org.gradle.cache.internal.locklistener.FileLockContentionHandler;
 import org.gradle.cli.CommandLineConverter;
 import org.gradle.configuration.DefaultImportsReader;
 import org.gradle.configuration.ImportsReader;
+import org.gradle.groovy.scripts.internal.CrossBuildInMemoryScriptClassCache;
 import org.gradle.initialization.*;
 import org.gradle.internal.Factory;
 import org.gradle.internal.classloader.ClassLoaderFactory;
 import org.gradle.internal.classloader.DefaultClassLoaderFactory;
 import org.gradle.internal.classpath.ClassPath;
+import org.gradle.internal.classpath.ClassPathIndexer;
 import org.gradle.internal.classpath.DefaultClassPath;
 import org.gradle.internal.concurrent.DefaultExecutorFactory;
 import org.gradle.internal.concurrent.ExecutorFactory;
@@ -212,7 +214,7 @@ public class GlobalScopeServices {
     ClassPathSnapshotter createClassPathSnapshotter(GradleBuildEnvironment environment, StringInterner stringInterner) {
         if (environment.isLongLivingProcess()) {
             final MapBackedInMemoryStore inMemoryStore = new MapBackedInMemoryStore();
-            CachingFileSnapshotter fileSnapshotter = new CachingFileSnapshotter(new DefaultHasher(), inMemoryStore, stringInterner);
+            CachingFileSnapshotter fileSnapshotter = new CachingFileSnapshotter(HashingStrategy.fromSystemProperties().createHasher(), inMemoryStore, stringInterner);
             return new HashClassPathSnapshotter(fileSnapshotter, inMemoryStore);
         } else {
             return new FileClassPathSnapshotter();
@@ -220,7 +222,14 @@ public class GlobalScopeServices {
     }
 
     ClassLoaderCache createClassLoaderCache(ClassPathSnapshotter classPathSnapshotter) {
-        return new DefaultClassLoaderCache(classPathSnapshotter);
+        ClassPathIndexer classPathIndexer = Boolean.getBoolean(DefaultClassLoaderCache.CLASSPATH_INDEX_TOGGLE) ? new ClassPathIndexer() : null;
+        return new DefaultClassLoaderCache(classPathSnapshotter, classPathIndexer);
+    }
+
+    CrossBuildInMemoryScriptClassCache createCrossBuildInMemoryScriptClassCache() {
+        return new CrossBuildInMemoryScriptClassCache(
+            Integer.getInteger(CrossBuildInMemoryScriptClassCache.MAX_ENTRIES_PROPERTY, CrossBuildInMemoryScriptClassCache.DEFAULT_MAX_ENTRIES),
+            Integer.getInteger(CrossBuildInMemoryScriptClassCache.RETAINED_BUILDS_PROPERTY, CrossBuildInMemoryScriptClassCache.DEFAULT_RETAINED_BUILDS));
     }
 
     protected ModelSchemaAspectExtractor createModelSchemaAspectExtractor(ServiceRegistry serviceRegistry) {
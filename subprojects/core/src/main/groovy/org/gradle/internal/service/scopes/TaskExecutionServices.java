@@ -23,12 +23,15 @@ import org.gradle.api.internal.changedetection.TaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.changes.DefaultTaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.changes.ShortCircuitTaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.state.*;
-import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.api.internal.hash.Hasher;
+import org.gradle.api.internal.hash.HashingStrategy;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.execution.*;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.internal.CacheDecorator;
+import org.gradle.execution.taskgraph.CacheBackedTaskDurationHistory;
+import org.gradle.execution.taskgraph.TaskDurationHistory;
 import org.gradle.execution.taskgraph.TaskPlanExecutor;
 import org.gradle.execution.taskgraph.TaskPlanExecutorFactory;
 import org.gradle.internal.concurrent.ExecutorFactory;
@@ -78,16 +81,26 @@ public class TaskExecutionServices {
         } else {
             decorator = new NoOpDecorator();
         }
-        return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator);
+        return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator, HashingStrategy.fromSystemProperties());
     }
 
-    FileSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner) {
-        return new CachingFileSnapshotter(new DefaultHasher(), cacheAccess, stringInterner);
+    RecordingFileHasher createRecordingFileHasher(TaskArtifactStateCacheAccess cacheAccess) {
+        HashingStrategy hashingStrategy = HashingStrategy.fromSystemProperties();
+        Hasher hasher = hashingStrategy.createHasher();
+        if (isParallelSnapshotting()) {
+            hasher = new CacheLockReleasingHasher(hasher, cacheAccess);
+        }
+        return new RecordingFileHasher(hasher, hashingStrategy);
+    }
+
+    FileSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, RecordingFileHasher hasher) {
+        return new CachingFileSnapshotter(hasher, cacheAccess, stringInterner);
     }
 
-    TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileSnapshotter fileSnapshotter, StringInterner stringInterner) {
-        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner);
-        FileCollectionSnapshotter discoveredFileCollectionSnapshotter = new MinimalFileSetSnapshotter(fileSnapshotter, cacheAccess, stringInterner);
+    TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileSnapshotter fileSnapshotter, StringInterner stringInterner, BuildOperationProcessor buildOperationProcessor) {
+        BuildOperationProcessor snapshottingProcessor = isParallelSnapshotting() ? buildOperationProcessor : null;
+        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, snapshottingProcessor);
+        FileCollectionSnapshotter discoveredFileCollectionSnapshotter = new MinimalFileSetSnapshotter(fileSnapshotter, cacheAccess, stringInterner, snapshottingProcessor);
 
         FileCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(fileCollectionSnapshotter, new RandomLongIdGenerator(), cacheAccess, stringInterner);
 
@@ -115,6 +128,16 @@ public class TaskExecutionServices {
         );
     }
 
+    private static boolean isParallelSnapshotting() {
+        return Boolean.getBoolean(DefaultFileCollectionSnapshotter.PARALLEL_SNAPSHOTTING_TOGGLE);
+    }
+
+    TaskDurationHistory createTaskDurationHistory(TaskArtifactStateCacheAccess cacheAccess, ListenerManager listenerManager) {
+        CacheBackedTaskDurationHistory durationHistory = new CacheBackedTaskDurationHistory(cacheAccess);
+        listenerManager.addListener(durationHistory);
+        return durationHistory;
+    }
+
     TaskPlanExecutor createTaskExecutorFactory(StartParameter startParameter, ExecutorFactory executorFactory) {
         return new TaskPlanExecutorFactory(startParameter.getParallelThreadCount(), executorFactory).create();
     }
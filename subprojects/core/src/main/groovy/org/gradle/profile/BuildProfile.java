@@ -16,11 +16,13 @@
 package org.gradle.profile;
 
 import org.gradle.StartParameter;
+import org.gradle.api.internal.changedetection.state.InMemoryCacheStatistics;
 import org.gradle.util.CollectionUtils;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +48,7 @@ public class BuildProfile {
 
     private final Map<String, ProjectProfile> projects = new LinkedHashMap<String, ProjectProfile>();
     private final Map<String, ContinuousOperation> dependencySets = new LinkedHashMap<String, ContinuousOperation>();
+    private final List<InMemoryCacheStatistics> inMemoryCacheStatistics = new ArrayList<InMemoryCacheStatistics>();
     private long profilingStarted;
     private long buildStarted;
     private long settingsEvaluated;
@@ -93,10 +96,10 @@ public class BuildProfile {
     }
 
     /**
-     * Get the profiling container for the specified project
+     * Get the profiling container for the specified project. Projects may be configured in parallel, so this may be called concurrently.
      * @param projectPath to look up
      */
-    public ProjectProfile getProjectProfile(String projectPath) {
+    public synchronized ProjectProfile getProjectProfile(String projectPath) {
         ProjectProfile result = projects.get(projectPath);
         if (result == null) {
             result = new ProjectProfile(projectPath);
@@ -122,7 +125,7 @@ public class BuildProfile {
         return new CompositeOperation<Operation>(operations);
     }
 
-    public ContinuousOperation getDependencySetProfile(String dependencySetDescription) {
+    public synchronized ContinuousOperation getDependencySetProfile(String dependencySetDescription) {
         ContinuousOperation profile = dependencySets.get(dependencySetDescription);
         if (profile == null) {
             profile = new ContinuousOperation(dependencySetDescription);
@@ -136,6 +139,18 @@ public class BuildProfile {
         return new CompositeOperation<ContinuousOperation>(profiles);
     }
 
+    /**
+     * Get the usage of the in-memory task artifact caches during this build.
+     */
+    public List<InMemoryCacheStatistics> getInMemoryCacheStatistics() {
+        return inMemoryCacheStatistics;
+    }
+
+    public void setInMemoryCacheStatistics(Collection<InMemoryCacheStatistics> statistics) {
+        inMemoryCacheStatistics.clear();
+        inMemoryCacheStatistics.addAll(statistics);
+    }
+
     /**
      * Should be set with a time as soon as possible after startup.
      * @param profilingStarted
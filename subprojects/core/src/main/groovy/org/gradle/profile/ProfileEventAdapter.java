@@ -23,6 +23,8 @@ import org.gradle.api.ProjectState;
 import org.gradle.api.Task;
 import org.gradle.api.artifacts.DependencyResolutionListener;
 import org.gradle.api.artifacts.ResolvableDependencies;
+import org.gradle.api.internal.changedetection.state.InMemoryCacheStatistics;
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
 import org.gradle.api.execution.TaskExecutionListener;
 import org.gradle.api.initialization.Settings;
 import org.gradle.api.invocation.Gradle;
@@ -31,6 +33,10 @@ import org.gradle.initialization.BuildCompletionListener;
 import org.gradle.initialization.BuildRequestMetaData;
 import org.gradle.internal.TimeProvider;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Adapts various events to build a {@link BuildProfile} model, and then notifies a {@link ReportGeneratingProfileListener} when the model is ready.
  */
@@ -38,12 +44,15 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
     private final BuildRequestMetaData buildMetaData;
     private final TimeProvider timeProvider;
     private final ProfileListener listener;
+    private final InMemoryTaskArtifactCache inMemoryTaskArtifactCache;
     private BuildProfile buildProfile;
+    private Map<String, InMemoryCacheStatistics> cacheStatisticsAtStart;
 
-    public ProfileEventAdapter(BuildRequestMetaData buildMetaData, TimeProvider timeProvider, ProfileListener listener) {
+    public ProfileEventAdapter(BuildRequestMetaData buildMetaData, TimeProvider timeProvider, ProfileListener listener, InMemoryTaskArtifactCache inMemoryTaskArtifactCache) {
         this.buildMetaData = buildMetaData;
         this.timeProvider = timeProvider;
         this.listener = listener;
+        this.inMemoryTaskArtifactCache = inMemoryTaskArtifactCache;
     }
 
     // BuildListener
@@ -52,6 +61,9 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
         buildProfile = new BuildProfile(gradle.getStartParameter());
         buildProfile.setBuildStarted(now);
         buildProfile.setProfilingStarted(buildMetaData.getBuildTimeClock().getStartTime());
+        if (gradle.getStartParameter().isProfile()) {
+            cacheStatisticsAtStart = inMemoryTaskArtifactCache.getStatistics();
+        }
     }
 
     public void settingsEvaluated(Settings settings) {
@@ -72,11 +84,24 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
 
     public void completed() {
         buildProfile.setBuildFinished(timeProvider.getCurrentTime());
+        if (cacheStatisticsAtStart != null) {
+            buildProfile.setInMemoryCacheStatistics(getCacheStatisticsForBuild());
+        }
         try {
             listener.buildFinished(buildProfile);
         } finally {
             buildProfile = null;
+            cacheStatisticsAtStart = null;
+        }
+    }
+
+    private List<InMemoryCacheStatistics> getCacheStatisticsForBuild() {
+        List<InMemoryCacheStatistics> result = new ArrayList<InMemoryCacheStatistics>();
+        for (InMemoryCacheStatistics statistics : inMemoryTaskArtifactCache.getStatistics().values()) {
+            InMemoryCacheStatistics atStart = cacheStatisticsAtStart.get(statistics.getCacheName());
+            result.add(atStart == null ? statistics : statistics.minus(atStart));
         }
+        return result;
     }
 
     // ProjectEvaluationListener
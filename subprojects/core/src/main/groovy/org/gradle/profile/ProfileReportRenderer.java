@@ -15,7 +15,9 @@
  */
 package org.gradle.profile;
 
+import org.gradle.api.internal.changedetection.state.InMemoryCacheStatistics;
 import org.gradle.internal.html.SimpleHtmlWriter;
+import org.gradle.internal.util.NumberUtil;
 import org.gradle.reporting.DurationFormatter;
 import org.gradle.reporting.HtmlReportRenderer;
 import org.gradle.reporting.ReportRenderer;
@@ -71,8 +73,11 @@ public class ProfileReportRenderer {
                             .startElement("li").startElement("a").attribute("href", "#tab0").characters("Summary").endElement().endElement()
                             .startElement("li").startElement("a").attribute("href", "#tab1").characters("Configuration").endElement().endElement()
                             .startElement("li").startElement("a").attribute("href", "#tab2").characters("Dependency Resolution").endElement().endElement()
-                            .startElement("li").startElement("a").attribute("href", "#tab3").characters("Task Execution").endElement().endElement()
-                        .endElement();
+                            .startElement("li").startElement("a").attribute("href", "#tab3").characters("Task Execution").endElement().endElement();
+                            if (!model.getInMemoryCacheStatistics().isEmpty()) {
+                                htmlWriter.startElement("li").startElement("a").attribute("href", "#tab4").characters("In-memory Caches").endElement().endElement();
+                            }
+                        htmlWriter.endElement();
                         htmlWriter.startElement("div").attribute("class", "tab").attribute("id", "tab0");
                             htmlWriter.startElement("h2").characters("Summary").endElement();
                             htmlWriter.startElement("table");
@@ -176,8 +181,37 @@ public class ProfileReportRenderer {
                                     }
                                 }
                             htmlWriter.endElement()
-                        .endElement()
-                    .endElement();
+                        .endElement();
+                        if (!model.getInMemoryCacheStatistics().isEmpty()) {
+                            htmlWriter.startElement("div").attribute("class", "tab").attribute("id", "tab4");
+                                htmlWriter.startElement("h2").characters("In-memory Caches").endElement()
+                                .startElement("table")
+                                    .startElement("thead")
+                                        .startElement("tr")
+                                            .startElement("th").characters("Cache").endElement()
+                                            .startElement("th").attribute("class", "numeric").characters("Hits").endElement()
+                                            .startElement("th").attribute("class", "numeric").characters("Misses").endElement()
+                                            .startElement("th").attribute("class", "numeric").characters("Hit Rate").endElement()
+                                            .startElement("th").attribute("class", "numeric").characters("Evictions").endElement()
+                                            .startElement("th").attribute("class", "numeric").characters("Entries").endElement()
+                                            .startElement("th").attribute("class", "numeric").characters("Estimated Size").endElement()
+                                        .endElement()
+                                    .endElement();
+                                    for (InMemoryCacheStatistics statistics : model.getInMemoryCacheStatistics()) {
+                                        htmlWriter.startElement("tr")
+                                            .startElement("td").characters(statistics.getCacheName()).endElement()
+                                            .startElement("td").attribute("class", "numeric").characters(String.valueOf(statistics.getHitCount())).endElement()
+                                            .startElement("td").attribute("class", "numeric").characters(String.valueOf(statistics.getMissCount())).endElement()
+                                            .startElement("td").attribute("class", "numeric").characters(NumberUtil.percentOf(statistics.getHitCount(), statistics.getHitCount() + statistics.getMissCount()) + "%").endElement()
+                                            .startElement("td").attribute("class", "numeric").characters(String.valueOf(statistics.getEvictionCount())).endElement()
+                                            .startElement("td").attribute("class", "numeric").characters(String.valueOf(statistics.getEntryCount())).endElement()
+                                            .startElement("td").attribute("class", "numeric").characters(NumberUtil.formatBytes(statistics.getRetainedSize())).endElement()
+                                        .endElement();
+                                    }
+                                htmlWriter.endElement()
+                            .endElement();
+                        }
+                    htmlWriter.endElement();
                 }
             };
         }
@@ -33,7 +33,7 @@ public class ProjectProfile extends Operation {
     /**
      * Gets the task profiling container for the specified task.
      */
-    public TaskExecution getTaskProfile(String taskPath) {
+    public synchronized TaskExecution getTaskProfile(String taskPath) {
         TaskExecution result = tasks.get(taskPath);
         if (result == null) {
             result = new TaskExecution(taskPath);
@@ -21,23 +21,23 @@ import spock.lang.Specification
 
 class CacheCapSizerTest extends Specification {
 
-    def "cache cap sizer adjusts caps based on maximum heap size"() {
+    def "cache cap sizer adjusts max weight based on maximum heap size"() {
         given:
         def capSizer = new InMemoryTaskArtifactCache.CacheCapSizer(maxHeapMB)
 
         when:
-        def caps = capSizer.calculateCaps()
+        def maxWeight = capSizer.calculateMaxWeight()
 
         then:
-        caps == expectedCaps
+        maxWeight == expectedMaxWeightMB * 1024 * 1024
 
         where:
-        maxHeapMB | expectedCaps
-        100       | [taskArtifacts:400, outputFileStates:600, compilationState:200, fileHashes:80000, fileSnapshots:2000]
-        200       | [taskArtifacts:400, outputFileStates:600, compilationState:200, fileHashes:80000, fileSnapshots:2000]
-        768       | [taskArtifacts: 1600, outputFileStates: 2400, compilationState: 800, fileHashes: 325200, fileSnapshots: 8100]
-        1024      | [taskArtifacts: 2300, fileHashes: 459900, compilationState: 1100, outputFileStates: 3400, fileSnapshots: 11500]
-        1536      | [taskArtifacts: 3600, fileHashes: 729400, compilationState: 1800, outputFileStates: 5400, fileSnapshots: 18200]
-        2048      | [taskArtifacts: 4900, fileHashes: 998900, compilationState: 2400, outputFileStates: 7400, fileSnapshots: 24900]
+        maxHeapMB | expectedMaxWeightMB
+        100       | 40
+        200       | 40
+        768       | 160
+        1024      | 220
+        1536      | 360
+        2048      | 490
     }
 }
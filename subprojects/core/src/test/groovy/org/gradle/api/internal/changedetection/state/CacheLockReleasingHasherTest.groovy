@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.internal.hash.Hasher
+import org.gradle.cache.CacheAccess
+import org.gradle.internal.Factory
+import spock.lang.Specification
+
+class CacheLockReleasingHasherTest extends Specification {
+    def delegate = Mock(Hasher)
+    def cacheAccess = Mock(CacheAccess)
+    def hasher = new CacheLockReleasingHasher(delegate, cacheAccess)
+    def file = new File("some-file")
+
+    def "hashes file as a long running operation"() {
+        def hash = "hash".bytes
+
+        when:
+        def result = hasher.hash(file)
+
+        then:
+        result == hash
+
+        and:
+        1 * cacheAccess.longRunningOperation({ it.contains("some-file") }, _ as Factory) >> { String description, Factory factory -> factory.create() }
+        1 * delegate.hash(file) >> hash
+        0 * _._
+    }
+}
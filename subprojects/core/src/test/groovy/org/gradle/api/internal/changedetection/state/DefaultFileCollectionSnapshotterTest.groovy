@@ -19,7 +19,10 @@ import org.gradle.api.file.FileCollection
 import org.gradle.api.file.FileTreeElement
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.hash.HashUtil
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.ChangeListener
@@ -48,9 +51,12 @@ public class DefaultFileCollectionSnapshotterTest extends Specification {
                 getHash() >> HashUtil.sha1(file).asByteArray()
             }
         }
-        cacheAccess.useCache(_, _) >> { String name, Runnable action ->
+        cacheAccess.useCache(_, _ as Runnable) >> { String name, Runnable action ->
             action.run()
         }
+        cacheAccess.useCache(_, _ as Factory) >> { String name, Factory factory ->
+            factory.create()
+        }
     }
 
     def getFilesReturnsOnlyTheFilesWhichExisted() {
@@ -371,6 +377,36 @@ public class DefaultFileCollectionSnapshotterTest extends Specification {
         0 * _
     }
 
+    def parallelSnapshotIsTheSameAsSerialSnapshot() {
+        given:
+        TestFile root = tmpDir.createDir('root')
+        root.createFile('file1').write('content1')
+        root.createFile('dir/file2').write('content2')
+        root.createDir('dir/empty')
+        TestFile single = tmpDir.createFile('single')
+        TestFile noExist = tmpDir.file('unknown')
+        def fileCollection = files(root, single, single, noExist)
+        def processor = new DefaultBuildOperationProcessor(new DefaultExecutorFactory(), 4)
+        def parallelSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, new StringInterner(), processor)
+
+        when:
+        def serialSnapshot = snapshotter.snapshot(fileCollection)
+        def parallelSnapshot = parallelSnapshotter.snapshot(fileCollection)
+
+        then:
+        parallelSnapshot.snapshots.keySet() == serialSnapshot.snapshots.keySet()
+        parallelSnapshot.snapshots.every { path, snapshot -> snapshot.isUpToDate(serialSnapshot.snapshots[path]) }
+
+        when:
+        parallelSnapshotter.snapshot(fileCollection).iterateChangesSince(serialSnapshot).next(listener)
+
+        then:
+        0 * listener._
+
+        cleanup:
+        processor?.stop()
+    }
+
     private FileCollection files(File... files) {
         new SimpleFileCollection(files)
     }
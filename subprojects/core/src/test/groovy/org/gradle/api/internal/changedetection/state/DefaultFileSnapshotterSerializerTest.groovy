@@ -36,4 +36,18 @@ class DefaultFileSnapshotterSerializerTest extends SerializerSpec {
         out.snapshots['2'] instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot
         ((DefaultFileCollectionSnapshotter.FileHashSnapshot) out.snapshots['3']).hash == "foo".bytes
     }
+
+    def "reads and writes hashes of different lengths"() {
+        when:
+        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl out = serialize(new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl([
+                "b": new DefaultFileCollectionSnapshotter.FileHashSnapshot("some-longer-hash".bytes),
+                "a": new DefaultFileCollectionSnapshotter.FileHashSnapshot("foo".bytes),
+                "c": DefaultFileCollectionSnapshotter.DirSnapshot.getInstance()]), serializer)
+
+        then:
+        out.paths as List == ["a", "b", "c"]
+        ((DefaultFileCollectionSnapshotter.FileHashSnapshot) out.snapshots['a']).hash == "foo".bytes
+        ((DefaultFileCollectionSnapshotter.FileHashSnapshot) out.snapshots['b']).hash == "some-longer-hash".bytes
+        out.snapshots['c'] instanceof DefaultFileCollectionSnapshotter.DirSnapshot
+    }
 }
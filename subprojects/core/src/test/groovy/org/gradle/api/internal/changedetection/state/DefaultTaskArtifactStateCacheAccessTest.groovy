@@ -16,6 +16,7 @@
 package org.gradle.api.internal.changedetection.state
 
 import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.hash.HashingStrategy
 import org.gradle.cache.CacheBuilder
 import org.gradle.cache.CacheRepository
 import org.gradle.cache.PersistentCache
@@ -36,9 +37,22 @@ class DefaultTaskArtifactStateCacheAccessTest extends Specification {
 
         then:
         1 * cacheRepository.cache(gradle, "taskArtifacts") >> cacheBuilder
+        1 * cacheBuilder.withProperties([hashing: "md5"]) >> cacheBuilder
         1 * cacheBuilder.withDisplayName(_) >> cacheBuilder
         1 * cacheBuilder.withLockOptions(LockOptionsBuilder.mode(FileLockManager.LockMode.None)) >> cacheBuilder
         1 * cacheBuilder.open() >> backingCache
         0 * _._
     }
+
+    def "records hashing strategy with backing cache"() {
+        CacheBuilder cacheBuilder = Mock()
+
+        when:
+        new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, new NoOpDecorator(), HashingStrategy.MURMUR3)
+
+        then:
+        1 * cacheRepository.cache(gradle, "taskArtifacts") >> cacheBuilder
+        1 * cacheBuilder.withProperties([hashing: "murmur3"]) >> cacheBuilder
+        _ * cacheBuilder._ >> cacheBuilder
+    }
 }
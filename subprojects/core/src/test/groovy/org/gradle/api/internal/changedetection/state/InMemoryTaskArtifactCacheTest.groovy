@@ -133,4 +133,114 @@ class InMemoryTaskArtifactCacheTest extends Specification {
         0 * target._
     }
 
+    def "records hits and misses per cache name"() {
+        given:
+        def snapshots = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        def hashes = cacheFactory.decorate("path/fileHashes.bin", "fileHashes", target)
+        target.get(_) >> "result"
+
+        when:
+        snapshots.get("a")
+        snapshots.get("a")
+        snapshots.get("b")
+        hashes.get("a")
+        def statistics = cacheFactory.statistics
+
+        then:
+        statistics.keySet() as List == ["fileHashes", "fileSnapshots"]
+        with(statistics.fileSnapshots) {
+            hitCount == 1
+            missCount == 2
+            entryCount == 2
+            retainedSize > 0
+        }
+        with(statistics.fileHashes) {
+            hitCount == 0
+            missCount == 1
+            entryCount == 1
+        }
+    }
+
+    def "evicts entries once the shared memory budget is used up"() {
+        given:
+        def weigher = new InMemoryTaskArtifactCache.RetainedSizeWeigher()
+        def value = "x" * 1000
+        def entryWeight = weigher.weigh("key-0", value)
+        cacheFactory = new InMemoryTaskArtifactCache(entryWeight * 40)
+        def snapshots = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+        def hashes = cacheFactory.decorate("path/fileHashes.bin", "fileHashes", target)
+
+        when:
+        100.times {
+            snapshots.put("key-${it % 10}".toString(), value)
+            hashes.put("key-$it".toString(), value)
+        }
+        def statistics = cacheFactory.statistics
+
+        then:
+        statistics.fileHashes.evictionCount > 0
+        statistics.fileHashes.entryCount + statistics.fileSnapshots.entryCount <= 40
+        statistics.fileHashes.retainedSize + statistics.fileSnapshots.retainedSize <= cacheFactory.maxWeight
+    }
+
+    def "keeps entry count and retained size up to date as entries are replaced and evicted"() {
+        given:
+        def weigher = new InMemoryTaskArtifactCache.RetainedSizeWeigher()
+        def value = "x" * 1000
+        def entryWeight = weigher.weigh("key-0", value)
+        cacheFactory = new InMemoryTaskArtifactCache(entryWeight * 40)
+        def hashes = cacheFactory.decorate("path/fileHashes.bin", "fileHashes", target)
+
+        when:
+        hashes.put("key-0", value)
+        hashes.put("key-0", "y" * 1000)
+        hashes.put("key-1", value)
+
+        then:
+        with(cacheFactory.statistics.fileHashes) {
+            entryCount == 2
+            retainedSize == 2 * entryWeight
+        }
+
+        when:
+        100.times {
+            hashes.put("key-$it".toString(), value)
+        }
+
+        then:
+        with(cacheFactory.statistics.fileHashes) {
+            evictionCount > 0
+            entryCount == cacheFactory.data.size()
+            retainedSize == entryCount * entryWeight
+        }
+    }
+
+    def "forgets backing caches that are closed and no longer have entries"() {
+        given:
+        def weigher = new InMemoryTaskArtifactCache.RetainedSizeWeigher()
+        def value = "x" * 1000
+        cacheFactory = new InMemoryTaskArtifactCache(weigher.weigh("key-0", value) * 10)
+        def old = cacheFactory.decorate("old/fileHashes.bin", "fileHashes", target)
+        old.put("key", value)
+        old.close()
+        def current = cacheFactory.decorate("current/fileHashes.bin", "fileHashes", target)
+        100.times {
+            current.put("key-$it".toString(), value)
+        }
+
+        when:
+        cacheFactory.decorate("other/fileHashes.bin", "fileHashes", target)
+
+        then:
+        cacheFactory.partitions.keySet() == ["current/fileHashes.bin", "other/fileHashes.bin"] as Set
+    }
+
+    def "estimates retained size of file snapshots from their content"() {
+        def weigher = new InMemoryTaskArtifactCache.RetainedSizeWeigher()
+        def small = new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(["a": new DefaultFileCollectionSnapshotter.FileHashSnapshot(new byte[16])])
+        def large = new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl((0..<100).collectEntries { ["file-$it".toString(), new DefaultFileCollectionSnapshotter.FileHashSnapshot(new byte[16])] })
+
+        expect:
+        weigher.weigh(1L, large) > 10 * weigher.weigh(1L, small)
+    }
 }
@@ -24,7 +24,7 @@ class LoggingEvictionListenerTest extends Specification {
 
     def "test logging eviction listener"() {
         given:
-        InMemoryTaskArtifactCache.LoggingEvictionListener evictionListener = new InMemoryTaskArtifactCache.LoggingEvictionListener("cacheId", 1000)
+        InMemoryTaskArtifactCache.LoggingEvictionListener evictionListener = new InMemoryTaskArtifactCache.LoggingEvictionListener("cacheId", 1000, 100)
         def logger = Mock(Logger)
         if (replaceLogger) {
             evictionListener.logger = logger
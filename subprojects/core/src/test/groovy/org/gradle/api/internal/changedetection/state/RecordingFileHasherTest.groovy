@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.internal.hash.Hasher
+import org.gradle.api.internal.hash.HashingStrategy
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class RecordingFileHasherTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def delegate = Mock(Hasher)
+    def hasher = new RecordingFileHasher(delegate, HashingStrategy.MD5)
+    def file = tmpDir.file("file")
+
+    def "uses hash recorded while writing file"() {
+        given:
+        write(file, "content")
+
+        when:
+        def hash = hasher.hash(file)
+
+        then:
+        hash == HashingStrategy.MD5.createHasher().hash(file)
+        0 * delegate._
+    }
+
+    def "uses recorded hash only once"() {
+        given:
+        write(file, "content")
+        hasher.hash(file)
+
+        when:
+        def hash = hasher.hash(file)
+
+        then:
+        hash == "hash".bytes
+        1 * delegate.hash(file) >> "hash".bytes
+    }
+
+    def "hashes file content when file has changed since it was written"() {
+        given:
+        write(file, "content")
+        file.text = "other content"
+
+        when:
+        def hash = hasher.hash(file)
+
+        then:
+        hash == "hash".bytes
+        1 * delegate.hash(file) >> "hash".bytes
+    }
+
+    def "uses hash recorded after file was written"() {
+        given:
+        file.text = "content"
+        hasher.recordWritten(file)
+
+        when:
+        def hash = hasher.hash(file)
+
+        then:
+        hash == HashingStrategy.MD5.createHasher().hash(file)
+        0 * delegate._
+    }
+
+    def "hashes file content when file was not written through recorder"() {
+        given:
+        file.text = "content"
+
+        when:
+        def hash = hasher.hash(file)
+
+        then:
+        hash == "hash".bytes
+        1 * delegate.hash(file) >> "hash".bytes
+    }
+
+    def write(File file, String text) {
+        def outputStream = hasher.openForWrite(file)
+        try {
+            outputStream.write(text.bytes)
+        } finally {
+            outputStream.close()
+        }
+    }
+}
@@ -36,4 +36,25 @@ class DefaultFileTreeElementTest extends Specification {
         expect:
         e.mode == 0644
     }
+
+    def "copies file content and applies permissions"() {
+        def chmod = Mock(Chmod)
+        def stat = Stub(Stat)
+        def f = tmpDir.file("f")
+        def content = new byte[300 * 1024]
+        new Random(3).nextBytes(content)
+        f.bytes = content
+        def target = tmpDir.file("dir/target")
+        FileTreeElement e = new DefaultFileTreeElement(f, null, chmod, stat)
+
+        given:
+        stat.getUnixMode(f) >> 0644
+
+        when:
+        e.copyTo(target)
+
+        then:
+        target.bytes == content
+        1 * chmod.chmod(target, 0644)
+    }
 }
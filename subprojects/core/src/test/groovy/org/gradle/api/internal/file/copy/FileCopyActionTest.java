@@ -16,9 +16,18 @@
 
 package org.gradle.api.internal.file.copy;
 
+import org.gradle.api.file.DuplicatesStrategy;
 import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.changedetection.state.FileHashRecorder;
+import org.gradle.api.internal.changedetection.state.RecordingFileHasher;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
 import org.gradle.api.internal.file.TestFiles;
+import org.gradle.api.internal.hash.Hasher;
+import org.gradle.api.internal.hash.HashingStrategy;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.test.fixtures.file.TestFile;
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider;
+import org.gradle.util.GUtil;
 import org.jmock.Expectations;
 import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
@@ -29,8 +38,11 @@ import org.junit.runner.RunWith;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
 
 @RunWith(JMock.class)
 public class FileCopyActionTest {
@@ -54,6 +66,78 @@ public class FileCopyActionTest {
         );
     }
 
+    @Test
+    public void copiesFilesThroughHashRecorder() {
+        final FileHashRecorder recorder = context.mock(FileHashRecorder.class);
+        final RelativePath relativePath = new RelativePath(true, "subdir", "file.txt");
+        final File targetFile = new File(destDir, "subdir/file.txt");
+        final FileCopyDetailsInternal details = context.mock(FileCopyDetailsInternal.class);
+        context.checking(new Expectations() {{
+            allowing(details).getRelativePath();
+            will(returnValue(relativePath));
+            one(details).copyTo(targetFile, recorder);
+            will(returnValue(true));
+        }});
+
+        FileCopyAction visitor = new FileCopyAction(TestFiles.resolver(destDir), recorder, null);
+        visit(visitor, details);
+    }
+
+    @Test
+    public void recordsHashOfFilteredFileWhileWritingIt() {
+        final Hasher hasher = context.mock(Hasher.class);
+        final CopySpecResolver specResolver = context.mock(CopySpecResolver.class);
+        RecordingFileHasher recorder = new RecordingFileHasher(hasher, HashingStrategy.MD5);
+        FileSystem fileSystem = TestFiles.fileSystem();
+        TestFile source = tmpDir.createFile("src/file.txt").write("content ${name}");
+        TestFile targetFile = tmpDir.getTestDirectory().file("dest/subdir/file.txt");
+        context.checking(new Expectations() {{
+            allowing(specResolver).getDuplicatesStrategy();
+            will(returnValue(DuplicatesStrategy.INCLUDE));
+            allowing(specResolver).getDestPath();
+            will(returnValue(new RelativePath(false, "subdir")));
+            allowing(specResolver).getFileMode();
+            will(returnValue(null));
+            never(hasher);
+        }});
+        DefaultFileVisitDetails element = new DefaultFileVisitDetails(source, new RelativePath(true, "file.txt"), new AtomicBoolean(), fileSystem, fileSystem);
+        DefaultFileCopyDetails details = new DefaultFileCopyDetails(element, specResolver, fileSystem);
+        details.expand(GUtil.map("name", "value"));
+
+        FileCopyAction visitor = new FileCopyAction(TestFiles.resolver(destDir), recorder, null);
+        visit(visitor, details);
+
+        targetFile.assertContents(equalTo("content value"));
+        assertArrayEquals(HashingStrategy.MD5.createHasher().hash(targetFile), recorder.hash(targetFile));
+    }
+
+    @Test
+    public void recordsHashOfUnfilteredFileAfterCopyingIt() {
+        final Hasher hasher = context.mock(Hasher.class);
+        final CopySpecResolver specResolver = context.mock(CopySpecResolver.class);
+        RecordingFileHasher recorder = new RecordingFileHasher(hasher, HashingStrategy.MD5);
+        FileSystem fileSystem = TestFiles.fileSystem();
+        TestFile source = tmpDir.createFile("src/file.txt").write("content");
+        TestFile targetFile = tmpDir.getTestDirectory().file("dest/subdir/file.txt");
+        context.checking(new Expectations() {{
+            allowing(specResolver).getDuplicatesStrategy();
+            will(returnValue(DuplicatesStrategy.INCLUDE));
+            allowing(specResolver).getDestPath();
+            will(returnValue(new RelativePath(false, "subdir")));
+            allowing(specResolver).getFileMode();
+            will(returnValue(null));
+            never(hasher);
+        }});
+        DefaultFileVisitDetails element = new DefaultFileVisitDetails(source, new RelativePath(true, "file.txt"), new AtomicBoolean(), fileSystem, fileSystem);
+        DefaultFileCopyDetails details = new DefaultFileCopyDetails(element, specResolver, fileSystem);
+
+        FileCopyAction visitor = new FileCopyAction(TestFiles.resolver(destDir), recorder, null);
+        visit(visitor, details);
+
+        targetFile.assertContents(equalTo("content"));
+        assertArrayEquals(HashingStrategy.MD5.createHasher().hash(targetFile), recorder.hash(targetFile));
+    }
+
     private FileCopyDetailsInternal file(final RelativePath relativePath, final File targetFile) {
         final FileCopyDetailsInternal details = context.mock(FileCopyDetailsInternal.class, relativePath.getPathString());
         context.checking(new Expectations() {{
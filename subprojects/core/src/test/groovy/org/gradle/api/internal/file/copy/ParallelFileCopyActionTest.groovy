@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy
+
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
+
+class ParallelFileCopyActionTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def destDir = tmpDir.file("dest")
+    def executorFactory = new DefaultExecutorFactory()
+    def action = new FileCopyAction(TestFiles.resolver(destDir), null, new DefaultBuildOperationProcessor(executorFactory, 4))
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "copies unfiltered regular files on worker threads"() {
+        def threads = Collections.synchronizedSet(new HashSet<Thread>())
+        def files = (1..20).collect { details("dir$it/file.txt", true, "content $it", threads) }
+
+        when:
+        def result = visit(action, files)
+
+        then:
+        result.didWork
+        (1..20).every { destDir.file("dir$it/file.txt").text == "content $it" }
+        !threads.contains(Thread.currentThread())
+    }
+
+    def "copies other files on the visiting thread"() {
+        def threads = Collections.synchronizedSet(new HashSet<Thread>())
+
+        when:
+        visit(action, details("file.txt", false, "content", threads))
+
+        then:
+        destDir.file("file.txt").text == "content"
+        threads == [Thread.currentThread()] as Set
+    }
+
+    def "file visited last wins when a file is written more than once"() {
+        def threads = Collections.synchronizedSet(new HashSet<Thread>())
+
+        when:
+        visit(action, details("file.txt", true, "first", threads), details("file.txt", false, "second", threads), details("file.txt", true, "third", threads))
+
+        then:
+        destDir.file("file.txt").text == "third"
+    }
+
+    def details(String path, boolean unfilteredRegularFile, String content, Set<Thread> threads) {
+        def details = Stub(FileCopyDetailsInternal)
+        details.relativePath >> RelativePath.parse(true, path)
+        details.directory >> false
+        details.unfilteredRegularFile >> unfilteredRegularFile
+        details.copyTo(_ as File) >> { File target ->
+            threads << Thread.currentThread()
+            target.parentFile.mkdirs()
+            target.text = content
+            true
+        }
+        return details
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash
+
+import com.google.common.hash.Hashing
+import org.gradle.api.UncheckedIOException
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class Murmur3HasherTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def hasher = new Murmur3Hasher()
+
+    def "creates 128 bit hash of file content"() {
+        def file = tmpDir.file("file")
+        def content = new byte[size]
+        new Random(size).nextBytes(content)
+        file.bytes = content
+
+        expect:
+        hasher.hash(file) == Hashing.murmur3_128().hashBytes(content).asBytes()
+        hasher.hash(file).length == 16
+
+        where:
+        size << [0, 1, 1024, 64 * 1024, 200 * 1024 + 17]
+    }
+
+    def "hash changes when file content changes"() {
+        def file = tmpDir.file("file")
+        file.text = "content"
+        def original = hasher.hash(file)
+
+        when:
+        file.text = "other content"
+
+        then:
+        hasher.hash(file) != original
+    }
+
+    def "fails when file does not exist"() {
+        def file = tmpDir.file("missing")
+
+        when:
+        hasher.hash(file)
+
+        then:
+        UncheckedIOException e = thrown()
+        e.message.contains(file.absolutePath)
+    }
+
+    def "can select hashing strategy by id"() {
+        expect:
+        HashingStrategy.forId("md5") == HashingStrategy.MD5
+        HashingStrategy.forId("MURMUR3") == HashingStrategy.MURMUR3
+        HashingStrategy.MURMUR3.createHasher() instanceof Murmur3Hasher
+        HashingStrategy.MD5.createHasher() instanceof DefaultHasher
+    }
+
+    def "hashing output stream produces same hash as hasher of strategy"() {
+        def file = tmpDir.file("file")
+        def content = new byte[70 * 1024]
+        new Random(12).nextBytes(content)
+
+        when:
+        def outputStream = strategy.createHashingOutputStream(new FileOutputStream(file))
+        outputStream.write(content, 0, 1000)
+        outputStream.write(content[1000])
+        outputStream.write(content, 1001, content.length - 1001)
+        outputStream.close()
+
+        then:
+        file.bytes == content
+        outputStream.hash == strategy.createHasher().hash(file)
+
+        where:
+        strategy << HashingStrategy.values()
+    }
+}
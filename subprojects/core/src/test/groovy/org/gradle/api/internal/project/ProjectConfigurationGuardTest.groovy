@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project
+
+import org.gradle.api.InvalidUserCodeException
+import spock.lang.Specification
+
+class ProjectConfigurationGuardTest extends Specification {
+    def root = Mock(ProjectInternal)
+    def child = Mock(ProjectInternal) {
+        getParent() >> root
+    }
+    def grandChild = Mock(ProjectInternal) {
+        getParent() >> child
+    }
+    def sibling = Mock(ProjectInternal) {
+        getParent() >> root
+    }
+
+    def "any project can be changed when not configuring a project"() {
+        when:
+        ProjectConfigurationGuard.assertCanChange(root)
+        ProjectConfigurationGuard.assertCanChange(child)
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "project and its children can be changed while configuring the project"() {
+        when:
+        ProjectConfigurationGuard.configure(child) {
+            ProjectConfigurationGuard.assertCanChange(child)
+            ProjectConfigurationGuard.assertCanChange(grandChild)
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "fails when #description is changed while configuring a project"() {
+        when:
+        ProjectConfigurationGuard.configure(child) {
+            ProjectConfigurationGuard.assertCanChange(this."$target")
+        }
+
+        then:
+        def e = thrown(InvalidUserCodeException)
+        e.message.startsWith("Cannot change ")
+
+        where:
+        description      | target
+        "parent project" | "root"
+        "sibling"        | "sibling"
+    }
+
+    def "stops checking changes once project has been configured"() {
+        when:
+        ProjectConfigurationGuard.configure(child) {}
+        ProjectConfigurationGuard.assertCanChange(sibling)
+
+        then:
+        noExceptionThrown()
+    }
+}
@@ -18,15 +18,15 @@ package org.gradle.cache.internal
 import org.gradle.api.Action
 import org.gradle.cache.CacheValidator
 import org.gradle.cache.internal.locklistener.NoOpFileLockContentionHandler
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
-import spock.lang.Specification
 
 import static org.gradle.cache.internal.FileLockManager.LockMode.Exclusive
 import static org.gradle.cache.internal.FileLockManager.LockMode.Shared
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode
 
-class DefaultCacheFactoryTest extends Specification {
+class DefaultCacheFactoryTest extends ConcurrentSpec {
     @Rule
     public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
     final Action<?> opened = Mock()
@@ -232,4 +232,63 @@ class DefaultCacheFactoryTest extends Specification {
         cleanup:
         factory.close()
     }
+
+    public void "initializes caches in different directories concurrently"() {
+        def initializer1 = {
+            instant.init1Started
+            thread.blockUntil.init2Done
+        } as Action
+        def initializer2 = {
+            thread.blockUntil.init1Started
+            instant.init2Done
+        } as Action
+
+        when:
+        async {
+            start {
+                factory.open(tmpDir.file("dir1"), null, null, [prop: 'value'], mode(Shared), initializer1)
+            }
+            start {
+                factory.open(tmpDir.file("dir2"), null, null, [prop: 'value'], mode(Shared), initializer2)
+            }
+        }
+
+        then:
+        instant.init2Done > instant.init1Started
+
+        cleanup:
+        factory.close()
+    }
+
+    public void "waits for cache in same directory to be initialized by another thread"() {
+        def initialized = 0
+        def initializer = {
+            initialized++
+            instant.initStarted
+            thread.block()
+            instant.initDone
+        } as Action
+        def cache1
+        def cache2
+
+        when:
+        async {
+            start {
+                cache1 = factory.open(tmpDir.testDirectory, null, null, [prop: 'value'], mode(Shared), initializer)
+            }
+            start {
+                thread.blockUntil.initStarted
+                cache2 = factory.open(tmpDir.testDirectory, null, null, [prop: 'value'], mode(Shared), initializer)
+                instant.secondOpened
+            }
+        }
+
+        then:
+        instant.secondOpened > instant.initDone
+        initialized == 1
+        cache1.reference == cache2.reference
+
+        cleanup:
+        factory.close()
+    }
 }
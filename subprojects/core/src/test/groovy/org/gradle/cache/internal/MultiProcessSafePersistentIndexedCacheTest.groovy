@@ -128,6 +128,74 @@ class MultiProcessSafePersistentIndexedCacheTest extends Specification {
         0 * _._
     }
 
+    def "buffers puts and removes until closed when writing behind"() {
+        given:
+        def cache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, fileAccess, true)
+
+        when:
+        cache.put("a", "1")
+        cache.put("b", "2")
+        cache.remove("a")
+        cache.put("b", "3")
+
+        then:
+        0 * _._
+
+        when:
+        def b = cache.get("b")
+        def a = cache.get("a")
+
+        then:
+        a == null
+        b == "3"
+        0 * _._
+
+        when:
+        cache.close()
+
+        then:
+        3 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * factory.create() >> backingCache
+        1 * backingCache.remove("a")
+        1 * backingCache.put("b", "3")
+
+        then:
+        1 * backingCache.close()
+        0 * _._
+    }
+
+    def "reads through to backing cache for entries not written when writing behind"() {
+        given:
+        def cache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, fileAccess, true)
+
+        when:
+        def result = cache.get("key")
+
+        then:
+        result == "value"
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * factory.create() >> backingCache
+        1 * fileAccess.readFile(!null) >> { Factory action -> action.create() }
+        1 * backingCache.get("key") >> "value"
+        0 * _._
+    }
+
+    def "flushes buffered writes when buffer is full"() {
+        given:
+        def cache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, fileAccess, true)
+
+        when:
+        DefaultMultiProcessSafePersistentIndexedCache.MAX_PENDING_WRITES.times {
+            cache.put("key$it".toString(), "value")
+        }
+
+        then:
+        1 * factory.create() >> backingCache
+        _ * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        DefaultMultiProcessSafePersistentIndexedCache.MAX_PENDING_WRITES * backingCache.put(_, "value")
+        0 * _._
+    }
+
     def cacheOpened() {
         1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
         1 * factory.create() >> backingCache
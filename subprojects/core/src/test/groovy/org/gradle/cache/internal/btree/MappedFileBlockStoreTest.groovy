@@ -0,0 +1,352 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree
+
+import org.gradle.internal.serialize.DefaultSerializer
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class MappedFileBlockStoreTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheFile = tmpDir.file("cache.bin")
+
+    def mappedCache() {
+        // Use tiny regions so that blocks span region boundaries
+        return new BTreePersistentIndexedCache<String, Integer>(cacheFile, new MappedFileBlockStore(cacheFile, 64), new DefaultSerializer<String>(), new DefaultSerializer<Integer>(), (short) 4, 100)
+    }
+
+    def fileBackedCache() {
+        return new BTreePersistentIndexedCache<String, Integer>(cacheFile, new FileBackedBlockStore(cacheFile), new DefaultSerializer<String>(), new DefaultSerializer<Integer>(), (short) 4, 100)
+    }
+
+    def "persists entries across regions and reopen"() {
+        when:
+        def cache = mappedCache()
+        100.times { cache.put("key_$it".toString(), it) }
+        cache.remove("key_50")
+        cache.reset()
+
+        then:
+        cache.get("key_0") == 0
+        cache.get("key_50") == null
+        cache.get("key_99") == 99
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "trims the unused part of the last region on close"() {
+        def otherFile = tmpDir.file("other.bin")
+        def cache = mappedCache()
+        def fileBacked = new BTreePersistentIndexedCache<String, Integer>(otherFile, new FileBackedBlockStore(otherFile), new DefaultSerializer<String>(), new DefaultSerializer<Integer>(), (short) 4, 100)
+        10.times {
+            cache.put("key_$it".toString(), it)
+            fileBacked.put("key_$it".toString(), it)
+        }
+
+        when:
+        cache.close()
+        fileBacked.close()
+
+        then:
+        cacheFile.length() == otherFile.length()
+    }
+
+    def "releases mapped regions before truncating the file"() {
+        def store = new MappedFileBlockStore(cacheFile, 64)
+        def cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, store, new DefaultSerializer<String>(), new DefaultSerializer<Integer>(), (short) 4, 100)
+        100.times { cache.put("key_$it".toString(), it) }
+        100.times { cache.get("key_$it".toString()) }
+
+        when:
+        store.clear()
+
+        then:
+        cacheFile.length() == 0
+
+        when:
+        store.close()
+        cache = mappedCache()
+        cache.put("key", 12)
+
+        then:
+        cache.get("key") == 12
+        cache.get("key_10") == null
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "uses the same file format as the file backed store"() {
+        when:
+        def mapped = mappedCache()
+        20.times { mapped.put("key_$it".toString(), it) }
+        mapped.close()
+        def fileBacked = fileBackedCache()
+        fileBacked.put("other", 100)
+
+        then:
+        fileBacked.get("key_10") == 10
+        fileBacked.verify()
+
+        when:
+        fileBacked.close()
+        mapped = mappedCache()
+
+        then:
+        mapped.get("key_19") == 19
+        mapped.get("other") == 100
+
+        cleanup:
+        mapped?.close()
+    }
+
+    def "runs initialization action only when the file is empty"() {
+        def action = Mock(Runnable)
+        def store = new MappedFileBlockStore(cacheFile, 64)
+
+        when:
+        store.open(action, factory)
+
+        then:
+        1 * action.run()
+
+        when:
+        store.write(attach(store, new TestBlock(bytes(10))))
+        store.close()
+        store.open(action, factory)
+
+        then:
+        0 * action.run()
+
+        cleanup:
+        store.close()
+    }
+
+    def "reads back blocks that span regions"() {
+        def store = open()
+        def first = attach(store, new TestBlock(bytes(100)))
+        def second = attach(store, new TestBlock(bytes(150, 7)))
+
+        when:
+        store.write(first)
+        store.write(second)
+
+        then:
+        store.readFirst(TestBlock).data == bytes(100)
+        store.read(second.pos, TestBlock).data == bytes(150, 7)
+
+        when:
+        store.close()
+        store = open()
+
+        then:
+        store.readFirst(TestBlock).data == bytes(100)
+        store.read(second.pos, TestBlock).data == bytes(150, 7)
+
+        cleanup:
+        store.close()
+    }
+
+    def "rewrites block in place"() {
+        def store = open()
+        def block = attach(store, new TestBlock(bytes(40)))
+        def next = attach(store, new TestBlock(bytes(20, 3)))
+        store.write(block)
+        store.write(next)
+
+        when:
+        block.data = bytes(40, 9)
+        store.write(block)
+
+        then:
+        store.readFirst(TestBlock).data == bytes(40, 9)
+        store.read(next.pos, TestBlock).data == bytes(20, 3)
+
+        cleanup:
+        store.close()
+    }
+
+    def "grows file in whole regions while open and trims it on close"() {
+        def store = open()
+        def block = attach(store, new TestBlock(bytes(100)))
+
+        when:
+        store.write(block)
+
+        then:
+        cacheFile.length() == 128
+
+        when:
+        store.close()
+
+        then:
+        cacheFile.length() == block.nextPos.pos
+    }
+
+    def "reports corrupted block when block is beyond the end of the file or has a different type"() {
+        def store = open()
+        store.write(attach(store, new TestBlock(bytes(10))))
+
+        when:
+        store.read(new BlockPointer(1000), TestBlock)
+
+        then:
+        thrown(CorruptedCacheException)
+
+        when:
+        store.readFirst(OtherBlock)
+
+        then:
+        thrown(CorruptedCacheException)
+
+        cleanup:
+        store.close()
+    }
+
+    def "discards all blocks on clear"() {
+        def store = open()
+        store.write(attach(store, new TestBlock(bytes(100))))
+
+        when:
+        store.clear()
+
+        then:
+        cacheFile.length() == 0
+
+        when:
+        store.readFirst(TestBlock)
+
+        then:
+        thrown(CorruptedCacheException)
+
+        when:
+        def block = attach(store, new TestBlock(bytes(10, 5)))
+        store.write(block)
+
+        then:
+        block.pos.pos == 0
+        store.readFirst(TestBlock).data == bytes(10, 5)
+
+        cleanup:
+        store.close()
+    }
+
+    def "reads back values after random updates"() {
+        def cache = mappedCache()
+        def expected = [:]
+        def random = new Random(1)
+
+        when:
+        2000.times {
+            def key = "key_${random.nextInt(500)}".toString()
+            if (random.nextBoolean()) {
+                cache.put(key, it)
+                expected[key] = it
+            } else {
+                assert cache.get(key) == expected[key]
+            }
+        }
+        cache.close()
+        cache = mappedCache()
+
+        then:
+        expected.each { key, value -> assert cache.get(key) == value }
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "discards contents of corrupted file"() {
+        given:
+        cacheFile.text = "some junk"
+
+        when:
+        def cache = mappedCache()
+        cache.put("key", 12)
+
+        then:
+        cache.get("key") == 12
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    def open() {
+        def store = new MappedFileBlockStore(cacheFile, 64)
+        store.open({} as Runnable, factory)
+        return store
+    }
+
+    def getFactory() {
+        return { Class type -> type.newInstance() } as BlockStore.Factory
+    }
+
+    static <T extends BlockPayload> T attach(BlockStore store, T block) {
+        store.attach(block)
+        return block
+    }
+
+    static byte[] bytes(int count, int seed = 1) {
+        def result = new byte[count]
+        count.times { result[it] = (byte) (it * seed) }
+        return result
+    }
+
+    static class TestBlock extends BlockPayload {
+        byte[] data
+
+        TestBlock() {
+        }
+
+        TestBlock(byte[] data) {
+            this.data = data
+        }
+
+        @Override
+        protected int getSize() {
+            return Block.INT_SIZE + data.length
+        }
+
+        @Override
+        protected int getType() {
+            return 0x77
+        }
+
+        @Override
+        protected void read(DataInputStream inputStream) throws Exception {
+            data = new byte[inputStream.readInt()]
+            inputStream.readFully(data)
+        }
+
+        @Override
+        protected void write(DataOutputStream outputStream) throws Exception {
+            outputStream.writeInt(data.length)
+            outputStream.write(data)
+        }
+    }
+
+    static class OtherBlock extends TestBlock {
+        @Override
+        protected int getType() {
+            return 0x78
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration
+
+import org.gradle.StartParameter
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.SettingsInternal
+import org.gradle.api.internal.initialization.ClassLoaderScope
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.groovy.scripts.internal.FileCacheBackedScriptClassCompiler
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
+import org.gradle.internal.resource.Resource
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class BuildScriptPrecompilerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir
+    def scriptClassCompiler = Mock(FileCacheBackedScriptClassCompiler)
+    def executorFactory = new DefaultExecutorFactory()
+    def processor = new DefaultBuildOperationProcessor(executorFactory, 2)
+    def precompiler = new BuildScriptPrecompiler(scriptClassCompiler, Stub(CompileOperationFactory), processor)
+    def startParameter = new StartParameter()
+
+    def setup() {
+        startParameter.gradleUserHomeDir = tmpDir.createDir("user-home")
+    }
+
+    def cleanup() {
+        processor.stop()
+        executorFactory.stop()
+    }
+
+    def "compiles build scripts of projects without a buildscript block"() {
+        def rootProject = project("println 'root'", project("println 'child'"))
+
+        when:
+        precompiler.settingsEvaluated(settings("include 'child'"))
+        precompiler.precompile(rootProject)
+
+        then:
+        4 * scriptClassCompiler.precompile(_, _, _, _, _)
+    }
+
+    def "does not compile build scripts of a project with a buildscript block or its children"() {
+        def rootProject = project("println 'root'", project("buildscript { }", project("println 'grandchild'")))
+
+        when:
+        precompiler.precompile(rootProject)
+
+        then:
+        2 * scriptClassCompiler.precompile(rootProject.buildScriptSource, _, _, _, _)
+        0 * scriptClassCompiler._
+    }
+
+    def "does not compile build scripts when the settings script refers to buildscript"() {
+        def rootProject = project("println 'root'")
+
+        when:
+        precompiler.settingsEvaluated(settings("gradle.allprojects { buildscript { dependencies { classpath 'group:plugin:1.0' } } }"))
+        precompiler.precompile(rootProject)
+
+        then:
+        0 * scriptClassCompiler._
+    }
+
+    def "does not compile build scripts when an init script refers to buildscript"() {
+        def initScript = tmpDir.file("init.gradle") << "allprojects { buildscript { dependencies { classpath 'group:plugin:1.0' } } }"
+        startParameter.initScripts = [initScript]
+        def rootProject = project("println 'root'")
+
+        when:
+        precompiler.precompile(rootProject)
+
+        then:
+        0 * scriptClassCompiler._
+    }
+
+    def project(String text, ProjectInternal... children) {
+        def source = script(text)
+        def baseScope = Stub(ClassLoaderScope) {
+            isLocked() >> true
+            getExportClassLoader() >> getClass().classLoader
+        }
+        def gradle = Stub(GradleInternal) {
+            getStartParameter() >> startParameter
+        }
+        return Stub(ProjectInternal) {
+            getBuildScriptSource() >> source
+            getBaseClassLoaderScope() >> baseScope
+            getGradle() >> gradle
+            getChildProjects() >> children.collectEntries { [it.toString(), it] }
+        }
+    }
+
+    def settings(String text) {
+        def source = script(text)
+        return Stub(SettingsInternal) {
+            getSettingsScript() >> source
+        }
+    }
+
+    def script(String text) {
+        def resource = Stub(Resource) {
+            getText() >> text
+        }
+        return Stub(ScriptSource) {
+            getResource() >> resource
+            getDisplayName() >> "script"
+        }
+    }
+}
@@ -49,4 +49,31 @@ class DefaultBuildConfigurerTest extends Specification {
         startParameter.isConfigureOnDemand() >> true
         1 * projectConfigurer.configure(rootProject)
     }
+
+    def "compiles build scripts ahead of configuring build for standard mode"() {
+        def precompiler = Mock(BuildScriptPrecompiler)
+        def configurer = new DefaultBuildConfigurer(projectConfigurer, precompiler)
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        1 * precompiler.precompile(rootProject)
+
+        then:
+        1 * projectConfigurer.configureHierarchy(rootProject)
+    }
+
+    def "does not compile build scripts ahead of configuring build for on demand mode"() {
+        def precompiler = Mock(BuildScriptPrecompiler)
+        def configurer = new DefaultBuildConfigurer(projectConfigurer, precompiler)
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        startParameter.isConfigureOnDemand() >> true
+        1 * projectConfigurer.configure(rootProject)
+        0 * precompiler._
+    }
 }
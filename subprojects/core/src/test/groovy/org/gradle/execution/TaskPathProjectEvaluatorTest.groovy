@@ -19,6 +19,8 @@ package org.gradle.execution
 import org.gradle.api.BuildCancelledException
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
 import spock.lang.Specification
 
 class TaskPathProjectEvaluatorTest extends Specification {
@@ -60,4 +62,56 @@ class TaskPathProjectEvaluatorTest extends Specification {
         1 * child1.evaluate()
         0 * child2._
     }
+
+    def "configures child projects in parallel once their parent has been configured"() {
+        def child1 = Mock(ProjectInternal)
+        def child2 = Mock(ProjectInternal)
+        def grandChild = Mock(ProjectInternal)
+        def processor = new DefaultBuildOperationProcessor(new DefaultExecutorFactory(), 2)
+        def evaluator = new TaskPathProjectEvaluator(cancellationToken, processor)
+
+        given:
+        project.childProjects >> [child1: child1, child2: child2]
+        child1.childProjects >> [grandChild: grandChild]
+        child2.childProjects >> [:]
+        grandChild.childProjects >> [:]
+
+        when:
+        evaluator.configureHierarchy(project)
+
+        then:
+        1 * project.evaluate()
+
+        then:
+        1 * child1.evaluate()
+        1 * child2.evaluate()
+
+        then:
+        1 * grandChild.evaluate()
+        0 * _.evaluate()
+
+        cleanup:
+        processor.stop()
+    }
+
+    def "rethrows failure to configure a project in parallel"() {
+        def child = Mock(ProjectInternal)
+        def failure = new RuntimeException("broken")
+        def processor = new DefaultBuildOperationProcessor(new DefaultExecutorFactory(), 2)
+        def evaluator = new TaskPathProjectEvaluator(cancellationToken, processor)
+
+        given:
+        project.childProjects >> [child: child]
+        child.evaluate() >> { throw failure }
+
+        when:
+        evaluator.configureHierarchy(project)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+
+        cleanup:
+        processor.stop()
+    }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import org.gradle.api.execution.internal.TaskOperationInternal
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.changedetection.state.TaskArtifactStateCacheAccess
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factory
+import org.gradle.internal.progress.OperationResult
+import spock.lang.Specification
+
+class CacheBackedTaskDurationHistoryTest extends Specification {
+    def cacheAccess = Mock(TaskArtifactStateCacheAccess)
+    def cache = Mock(PersistentIndexedCache)
+    CacheBackedTaskDurationHistory history
+
+    def setup() {
+        cacheAccess.createCache("taskDurations", String, _) >> cache
+        history = new CacheBackedTaskDurationHistory(cacheAccess)
+    }
+
+    def "records duration of successfully executed task"() {
+        when:
+        history.afterExecute(operation(":a"), new OperationResult(100, 250, null))
+
+        then:
+        1 * cacheAccess.useCache(_, _ as Runnable) >> { String operationDisplayName, Runnable action -> action.run() }
+        1 * cache.put(":a", 150L)
+    }
+
+    def "does not record duration of task that was skipped or did no work"() {
+        given:
+        def taskOperation = operation(":a")
+        update(taskOperation.task.state)
+
+        when:
+        history.afterExecute(taskOperation, new OperationResult(100, 101, null))
+
+        then:
+        0 * cacheAccess._
+        0 * cache._
+
+        where:
+        update << [
+            { TaskStateInternal state -> state.upToDate() },
+            { TaskStateInternal state -> state.skipped("SKIPPED") },
+            { TaskStateInternal state -> state.didWork = false }
+        ]
+    }
+
+    def "does not record duration of failed task"() {
+        when:
+        history.afterExecute(operation(":a"), new OperationResult(100, 250, new RuntimeException()))
+
+        then:
+        0 * cacheAccess._
+        0 * cache._
+    }
+
+    def "loads previous durations of tasks that have been executed before"() {
+        def a = task(":a")
+        def b = task(":b")
+
+        when:
+        def durations = history.getPreviousDurations([a, b])
+
+        then:
+        durations == [(a): 100L]
+
+        and:
+        1 * cacheAccess.useCache(_, _ as Factory) >> { String operationDisplayName, Factory action -> action.create() }
+        1 * cache.get(":a") >> 100L
+        1 * cache.get(":b") >> null
+    }
+
+    def operation(String path) {
+        return new TaskOperationInternal(path, null, task(path))
+    }
+
+    def task(String path) {
+        def state = new TaskStateInternal(path)
+        state.executed()
+        state.didWork = true
+        return Stub(TaskInternal) {
+            getPath() >> path
+            getState() >> state
+        }
+    }
+}
@@ -277,6 +277,19 @@ class DefaultTaskExecutionPlanParallelTaskHandlingTest extends Specification {
         noMoreTasksCurrentlyAvailableForExecution()
     }
 
+    def "tasks that write into sibling directories sharing a name prefix are executed in parallel"() {
+        given:
+        Task a = taskWithOutputDirectory("a", file("outputDir"))
+        Task b = taskWithOutputFile("b", file("outputDir2").file("output"))
+
+        when:
+        addToGraphAndPopulate(a, b)
+        startTasks(2)
+
+        then:
+        startedTasks*.task as Set == [a, b] as Set
+    }
+
     @Requires(TestPrecondition.SYMLINKS)
     def "a task that writes into a symlink that overlaps with output of currently running task is not started"() {
         given:
@@ -741,6 +741,40 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         executedTasks == []
     }
 
+    def "hands out ready tasks on the longest remaining path first when previous durations are known"() {
+        given:
+        def durationHistory = Stub(TaskDurationHistory)
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, false, durationHistory)
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        Task d = task("d")
+        durationHistory.getPreviousDurations(_) >> [(a): 10L, (b): 20L, (c): 100L, (d): 50L]
+
+        when:
+        addToGraphAndPopulate([a, c, d])
+
+        then:
+        executes(a, b, c, d)
+        executedTasks == [b, c, d, a]
+    }
+
+    def "hands out ready tasks on the longest chain of tasks first when no previous durations are known"() {
+        given:
+        def durationHistory = Stub(TaskDurationHistory)
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, false, durationHistory)
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        durationHistory.getPreviousDurations(_) >> [:]
+
+        when:
+        addToGraphAndPopulate([a, c])
+
+        then:
+        executedTasks == [b, a, c]
+    }
+
     def "can add additional tasks after execution and clear"() {
         given:
         Task a = task("a")
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.groovy.scripts.internal
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.cache.PersistentCache
+import org.gradle.cache.PersistentIndexedCacheParameters
+import org.gradle.cache.internal.CacheDecorator
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.internal.hash.HashUtil
+import org.gradle.internal.resource.Resource
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.testfixtures.internal.InMemoryIndexedCache
+import org.junit.Rule
+import spock.lang.Specification
+
+class CachingScriptSourceHasherTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir
+    def scripts = new InMemoryIndexedCache(new CachingScriptSourceHasher.ScriptDetailsSerializer())
+    def cache = Mock(PersistentCache) {
+        _ * createCache(_ as PersistentIndexedCacheParameters) >> scripts
+    }
+    def resource = Mock(Resource)
+    def source = Stub(ScriptSource) {
+        getResource() >> resource
+        getDisplayName() >> "build file 'build.gradle'"
+    }
+    def hasher = newHasher()
+
+    def "reads script file once and then uses its cached details while the file is unchanged"() {
+        def file = tmpDir.file("build.gradle").createFile()
+        file.text = "content"
+
+        given:
+        resource.file >> file
+
+        when:
+        def empty = hasher.isEmpty(source)
+        def hash = hasher.hash(source)
+
+        then:
+        !empty
+        hash == HashUtil.createCompactMD5("content")
+
+        and:
+        1 * cache.useCache("hash build file 'build.gradle'", _) >> { String displayName, factory -> factory.create() }
+        1 * resource.text >> { file.text }
+
+        when:
+        def nextBuild = newHasher()
+        empty = nextBuild.isEmpty(source)
+        hash = nextBuild.hash(source)
+
+        then:
+        !empty
+        hash == HashUtil.createCompactMD5("content")
+
+        and:
+        1 * cache.useCache("hash build file 'build.gradle'", _) >> { String displayName, factory -> factory.create() }
+        0 * resource.text
+    }
+
+    def "reads script file again when it has changed"() {
+        def file = tmpDir.file("build.gradle").createFile()
+        file.text = "content"
+        _ * resource.file >> file
+        _ * cache.useCache(_, _) >> { String displayName, factory -> factory.create() }
+
+        when:
+        hasher.hash(source)
+
+        then:
+        1 * resource.text >> { file.text }
+
+        when:
+        file.text = "  \n"
+        file.lastModified = file.lastModified() - 2000
+        def empty = hasher.isEmpty(source)
+        def hash = hasher.hash(source)
+
+        then:
+        empty
+        hash == HashUtil.createCompactMD5("  \n")
+
+        and:
+        1 * resource.text >> { file.text }
+    }
+
+    def "uses text of script when script is not backed by a file"() {
+        given:
+        resource.file >> null
+        resource.text >> text
+
+        when:
+        def hash = hasher.hash(source)
+        def isEmpty = hasher.isEmpty(source)
+
+        then:
+        hash == HashUtil.createCompactMD5(text)
+        isEmpty == empty
+        0 * cache.useCache(_, _)
+
+        where:
+        text      | empty
+        "content" | false
+        " \n\t"   | true
+        ""        | true
+    }
+
+    def "uses text of script when script file does not exist"() {
+        given:
+        resource.file >> tmpDir.file("missing.gradle")
+        resource.text >> "content"
+
+        when:
+        def result = hasher.hash(source)
+
+        then:
+        result == HashUtil.createCompactMD5("content")
+        0 * cache.useCache(_, _)
+    }
+
+    def "closes cache when closed"() {
+        when:
+        hasher.close()
+
+        then:
+        1 * cache.close()
+    }
+
+    def newHasher() {
+        return new CachingScriptSourceHasher(cache, Stub(CacheDecorator), new StringInterner())
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal
+
+import org.gradle.api.Action
+import org.gradle.api.internal.initialization.loadercache.ClassLoaderId
+import org.gradle.groovy.scripts.Script
+import org.gradle.groovy.scripts.ScriptSource
+import spock.lang.Specification
+
+class CrossBuildCachingScriptClassCompilerTest extends Specification {
+    final crossBuildCache = new CrossBuildInMemoryScriptClassCache(10, 2)
+    final FileCacheBackedScriptClassCompiler target = Mock()
+    final ScriptSourceHasher hasher = Mock()
+    final verifier = Mock(Action)
+    final classLoaderId = Mock(ClassLoaderId)
+    final ClassLoader classLoader = Mock()
+    final CompileOperation<?> operation = Stub() {
+        getId() >> "dsl"
+    }
+    final ScriptSource source = Stub() {
+        getClassName() >> "script"
+    }
+
+    def "reuses compiled script from earlier build when script source and class loader and dsl are unchanged"() {
+        def compiledScript = Stub(CompiledScript)
+
+        when:
+        def c1 = newCompiler().compile(source, classLoader, classLoaderId, operation, Script, verifier)
+        def c2 = newCompiler().compile(source, classLoader, classLoaderId, operation, Script, verifier)
+
+        then:
+        c1 == compiledScript
+        c2 == compiledScript
+        _ * hasher.hash(source) >> "hash"
+        1 * target.compile(source, classLoader, classLoaderId, operation, Script, verifier) >> compiledScript
+        1 * target.useCompiledScript(source, classLoader, operation, Script, verifier)
+        0 * target._
+    }
+
+    def "keeps compiled scripts that were used by one of the last few builds"() {
+        def compiledScript = Stub(CompiledScript)
+        _ * hasher.hash(source) >> "hash"
+
+        when:
+        newCompiler().compile(source, classLoader, classLoaderId, operation, Script, verifier)
+        crossBuildCache.completed()
+        crossBuildCache.completed()
+        def c = newCompiler().compile(source, classLoader, classLoaderId, operation, Script, verifier)
+
+        then:
+        c == compiledScript
+        1 * target.compile(source, classLoader, classLoaderId, operation, Script, verifier) >> compiledScript
+        1 * target.useCompiledScript(source, classLoader, operation, Script, verifier)
+    }
+
+    def "discards compiled scripts that were not used by the last few builds"() {
+        def compiledScript = Stub(CompiledScript)
+        _ * hasher.hash(source) >> "hash"
+
+        when:
+        newCompiler().compile(source, classLoader, classLoaderId, operation, Script, verifier)
+        crossBuildCache.completed()
+
+        then:
+        1 * target.compile(source, classLoader, classLoaderId, operation, Script, verifier) >> compiledScript
+
+        when:
+        crossBuildCache.completed()
+        crossBuildCache.completed()
+        def c = newCompiler().compile(source, classLoader, classLoaderId, operation, Script, verifier)
+
+        then:
+        c == compiledScript
+        1 * target.compile(source, classLoader, classLoaderId, operation, Script, verifier) >> compiledScript
+        0 * target.useCompiledScript(_, _, _, _, _)
+    }
+
+    def "compiles script again when script source has changed"() {
+        def compiledScript1 = Stub(CompiledScript)
+        def compiledScript2 = Stub(CompiledScript)
+
+        when:
+        def c1 = newCompiler().compile(source, classLoader, classLoaderId, operation, Script, verifier)
+
+        then:
+        c1 == compiledScript1
+        _ * hasher.hash(source) >> "hash1"
+        1 * target.compile(source, classLoader, classLoaderId, operation, Script, verifier) >> compiledScript1
+
+        when:
+        def c2 = newCompiler().compile(source, classLoader, classLoaderId, operation, Script, verifier)
+
+        then:
+        c2 == compiledScript2
+        _ * hasher.hash(source) >> "hash2"
+        1 * target.compile(source, classLoader, classLoaderId, operation, Script, verifier) >> compiledScript2
+    }
+
+    def "compiles script again for different class loader"() {
+        ClassLoader otherClassLoader = Mock()
+
+        when:
+        newCompiler().compile(source, classLoader, classLoaderId, operation, Script, verifier)
+        newCompiler().compile(source, otherClassLoader, classLoaderId, operation, Script, verifier)
+
+        then:
+        _ * hasher.hash(source) >> "hash"
+        1 * target.compile(source, classLoader, classLoaderId, operation, Script, verifier) >> Stub(CompiledScript)
+        1 * target.compile(source, otherClassLoader, classLoaderId, operation, Script, verifier) >> Stub(CompiledScript)
+    }
+
+    def "compiles each script when not reusing compiled scripts"() {
+        def compiler = new CrossBuildCachingScriptClassCompiler(target, null, hasher)
+
+        when:
+        compiler.compile(source, classLoader, classLoaderId, operation, Script, verifier)
+        compiler.compile(source, classLoader, classLoaderId, operation, Script, verifier)
+
+        then:
+        2 * target.compile(source, classLoader, classLoaderId, operation, Script, verifier)
+        0 * hasher._
+    }
+
+    def newCompiler() {
+        return new CrossBuildCachingScriptClassCompiler(target, crossBuildCache, hasher)
+    }
+}
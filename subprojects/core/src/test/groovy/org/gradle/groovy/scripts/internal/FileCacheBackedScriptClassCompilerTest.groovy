@@ -42,7 +42,8 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
     final File cacheDir = new File("base-dir")
     final File classesDir = new File(cacheDir, "classes")
     final File metadataDir = new File(cacheDir, "metadata")
-    final FileCacheBackedScriptClassCompiler compiler = new FileCacheBackedScriptClassCompiler(cacheRepository, validator, scriptCompilationHandler, Stub(ProgressLoggerFactory))
+    final ScriptSourceHasher scriptSourceHasher = Mock()
+    final FileCacheBackedScriptClassCompiler compiler = new FileCacheBackedScriptClassCompiler(cacheRepository, validator, scriptCompilationHandler, Stub(ProgressLoggerFactory), scriptSourceHasher)
     final Action verifier = Stub()
     final CompiledScript compiledScript = Stub() {
         loadClass() >> Script
@@ -55,6 +56,7 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
         _ * resource.text >> 'this is the script'
         _ * source.className >> 'ScriptClassName'
         _ * source.fileName >> 'ScriptFileName'
+        _ * scriptSourceHasher.hash(source) >> 'ScriptHash'
         _ * operation.id >> 'TransformerId'
         _ * operation.transformer >> transformer
         _ * cache.baseDir >> cacheDir
@@ -70,7 +72,7 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
         1 * cacheRepository.cache("scripts/ScriptClassName/TransformerId") >> cacheBuilder
         1 * cacheBuilder.withProperties(!null) >> { args ->
             assert args[0].get('source.filename') == 'ScriptFileName'
-            assert args[0].containsKey('source.hash')
+            assert args[0].get('source.hash') == 'ScriptHash'
             return cacheBuilder
         }
         1 * cacheBuilder.withInitializer(!null) >> cacheBuilder
@@ -118,6 +120,30 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
         0 * scriptCompilationHandler._
     }
 
+    def "keeps cache of script compiled by earlier build open until closed"() {
+        def initializer
+
+        when:
+        compiler.useCompiledScript(source, classLoader, operation, Script, verifier)
+
+        then:
+        1 * cacheRepository.cache("scripts/ScriptClassName/TransformerId") >> cacheBuilder
+        1 * cacheBuilder.withProperties(!null) >> cacheBuilder
+        1 * cacheBuilder.withDisplayName(!null) >> cacheBuilder
+        1 * cacheBuilder.withValidator(!null) >> cacheBuilder
+        1 * cacheBuilder.withInitializer(!null) >> { args -> initializer = args[0]; return cacheBuilder }
+        1 * cacheBuilder.open() >> { initializer.execute(cache); return cache }
+        1 * scriptCompilationHandler.compileToDir(source, classLoader, classesDir, metadataDir, operation, Script, verifier)
+        0 * scriptCompilationHandler._
+        0 * cache.close()
+
+        when:
+        compiler.close()
+
+        then:
+        1 * cache.close()
+    }
+
     def "reports compilation progress even in case of a failure"() {
         def factory = Mock(ProgressLoggerFactory)
         def delegate = Mock(Action)
@@ -142,4 +168,66 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
         then:
         1 * logger.completed()
     }
+
+    def "includes hash of class path in cache properties"() {
+        def loader1 = new URLClassLoader([new File("a.jar").toURI().toURL()] as URL[], (ClassLoader) null)
+        def loader2 = new URLClassLoader([new File("a.jar").toURI().toURL()] as URL[], (ClassLoader) null)
+        def loader3 = new URLClassLoader([new File("b.jar").toURI().toURL()] as URL[], (ClassLoader) null)
+        def hashes = []
+        cacheRepository.cache("scripts/ScriptClassName/TransformerId") >> cacheBuilder
+        cacheBuilder.withDisplayName(!null) >> cacheBuilder
+        cacheBuilder.withValidator(!null) >> cacheBuilder
+        cacheBuilder.withInitializer(!null) >> cacheBuilder
+        cacheBuilder.open() >> cache
+
+        when:
+        [loader1, loader2, loader3].each { loader ->
+            compiler.precompile(source, loader, operation, Script, verifier)
+        }
+
+        then:
+        3 * cacheBuilder.withProperties(!null) >> { args ->
+            hashes << args[0].get('classpath.hash')
+            return cacheBuilder
+        }
+
+        and:
+        hashes[0] != null
+        hashes[0] == hashes[1]
+        hashes[0] != hashes[2]
+    }
+
+    def "precompiles script into the cache when cache is invalid"() {
+        def initializer
+        cacheRepository.cache("scripts/ScriptClassName/TransformerId") >> cacheBuilder
+        cacheBuilder.withProperties(!null) >> cacheBuilder
+        cacheBuilder.withDisplayName(!null) >> cacheBuilder
+        cacheBuilder.withValidator(!null) >> cacheBuilder
+        cacheBuilder.withInitializer(!null) >> { args -> initializer = args[0]; return cacheBuilder }
+
+        when:
+        compiler.precompile(source, classLoader, operation, Script, verifier)
+
+        then:
+        1 * cacheBuilder.open() >> { initializer.execute(cache); return cache }
+        1 * scriptCompilationHandler.compileToDir(source, classLoader, classesDir, metadataDir, operation, Script, verifier)
+        1 * cache.close()
+        0 * scriptCompilationHandler._
+    }
+
+    def "does not precompile script that is already in the cache"() {
+        cacheRepository.cache("scripts/ScriptClassName/TransformerId") >> cacheBuilder
+        cacheBuilder.withProperties(!null) >> cacheBuilder
+        cacheBuilder.withDisplayName(!null) >> cacheBuilder
+        cacheBuilder.withValidator(!null) >> cacheBuilder
+        cacheBuilder.withInitializer(!null) >> cacheBuilder
+
+        when:
+        compiler.precompile(source, classLoader, operation, Script, verifier)
+
+        then:
+        1 * cacheBuilder.open() >> cache
+        1 * cache.close()
+        0 * scriptCompilationHandler._
+    }
 }
@@ -20,28 +20,23 @@ import org.gradle.api.internal.initialization.ClassLoaderIds
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache
 import org.gradle.groovy.scripts.Script
 import org.gradle.groovy.scripts.ScriptSource
-import org.gradle.internal.resource.Resource
 import spock.lang.Specification
 
 class ShortCircuitEmptyScriptCompilerTest extends Specification {
     final ScriptClassCompiler target = Mock()
     final ScriptSource source = Mock()
-    final Resource resource = Mock()
+    final ScriptSourceHasher scriptSourceHasher = Mock()
     final ClassLoader classLoader = Mock()
     final CompileOperation<?> operation = Mock()
     final Action verifier = Mock()
     final classLoaderCache = Mock(ClassLoaderCache)
-    final ShortCircuitEmptyScriptCompiler compiler = new ShortCircuitEmptyScriptCompiler(target, classLoaderCache)
+    final ShortCircuitEmptyScriptCompiler compiler = new ShortCircuitEmptyScriptCompiler(target, classLoaderCache, scriptSourceHasher)
     def loaderId = ClassLoaderIds.buildScript(source.getFileName(), operation.getId())
 
-    def setup() {
-        _ * source.resource >> resource
-    }
-
     def "returns empty script object when script contains only whitespace"() {
         given:
         def metadata = "metadata"
-        _ * resource.text >> '  \n\t'
+        _ * scriptSourceHasher.isEmpty(source) >> true
         _ * operation.extractedData >> metadata
 
 
@@ -59,7 +54,7 @@ class ShortCircuitEmptyScriptCompilerTest extends Specification {
 
     def "compiles script when script contains anything other than whitespace"() {
         given:
-        _ * resource.text >> 'some script'
+        _ * scriptSourceHasher.isEmpty(source) >> false
         CompiledScript<?> compiledScript = Mock()
 
         when:
@@ -15,7 +15,10 @@
  */
 package org.gradle.initialization
 
+import org.gradle.BuildResult
 import org.gradle.StartParameter
+import org.gradle.groovy.scripts.internal.CompiledScript
+import org.gradle.groovy.scripts.internal.CrossBuildInMemoryScriptClassCache
 import org.gradle.internal.classpath.ClassPath
 import org.gradle.internal.service.DefaultServiceRegistry
 import org.gradle.internal.service.ServiceRegistry
@@ -80,4 +83,34 @@ class DefaultGradleLauncherFactoryTest extends Specification {
         launcher.gradle.services.get(BuildCancellationToken) == cancellationToken
         launcher.gradle.services.get(BuildEventConsumer) == eventConsumer
     }
+
+    def "compiled scripts kept across builds are aged by root builds only"() {
+        def crossBuildCache = globalServices.get(CrossBuildInMemoryScriptClassCache)
+        def classLoader = new URLClassLoader(new URL[0])
+        def compiledScript = Stub(CompiledScript)
+
+        when:
+        runRootBuild {
+            crossBuildCache.put("hash", "script", classLoader, "dsl", compiledScript)
+        }
+        runRootBuild {
+            (CrossBuildInMemoryScriptClassCache.DEFAULT_RETAINED_BUILDS + 1).times {
+                factory.newInstance(startParameter).stop()
+            }
+        }
+
+        then:
+        crossBuildCache.get("hash", "script", classLoader, "dsl") == compiledScript
+    }
+
+    private void runRootBuild(Closure action) {
+        def launcher = factory.newInstance(startParameter, Stub(BuildRequestContext), sessionServices)
+        launcher.buildListener.buildStarted(launcher.gradle)
+        try {
+            action.call()
+        } finally {
+            launcher.buildListener.buildFinished(new BuildResult(launcher.gradle, null))
+            launcher.stop()
+        }
+    }
 }
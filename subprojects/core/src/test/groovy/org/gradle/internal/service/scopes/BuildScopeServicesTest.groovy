@@ -19,6 +19,7 @@ package org.gradle.internal.service.scopes
 import org.gradle.StartParameter
 import org.gradle.api.internal.*
 import org.gradle.api.internal.artifacts.DependencyManagementServices
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache
 import org.gradle.api.internal.classpath.DefaultModuleRegistry
 import org.gradle.api.internal.classpath.ModuleRegistry
 import org.gradle.api.internal.classpath.PluginModuleRegistry
@@ -30,16 +31,23 @@ import org.gradle.api.internal.project.antbuilder.DefaultIsolatedAntBuilder
 import org.gradle.cache.CacheRepository
 import org.gradle.cache.internal.CacheFactory
 import org.gradle.configuration.*
+import org.gradle.execution.ProjectConfigurer
+import org.gradle.execution.TaskPathProjectEvaluator
 import org.gradle.groovy.scripts.DefaultScriptCompilerFactory
 import org.gradle.groovy.scripts.ScriptCompilerFactory
 import org.gradle.initialization.*
 import org.gradle.internal.Factory
 import org.gradle.internal.classloader.ClassLoaderFactory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.environment.GradleBuildEnvironment
 import org.gradle.internal.event.DefaultListenerManager
 import org.gradle.internal.event.ListenerManager
+import org.gradle.internal.operations.BuildOperationProcessor
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
 import org.gradle.internal.operations.logging.BuildOperationLoggerFactory
 import org.gradle.internal.operations.logging.DefaultBuildOperationLoggerFactory
 import org.gradle.internal.reflect.Instantiator
+import org.gradle.internal.service.ServiceRegistration
 import org.gradle.logging.LoggingConfiguration
 import org.gradle.logging.LoggingManagerInternal
 import org.gradle.logging.ProgressLoggerFactory
@@ -59,6 +67,8 @@ public class BuildScopeServicesTest extends Specification {
     ClosableCacheFactory cacheFactory = Mock()
     ClassLoaderRegistry classLoaderRegistry = Mock()
 
+    List<PluginServiceRegistry> pluginServiceRegistries = []
+
     BuildScopeServices registry
 
     def setup() {
@@ -80,6 +90,9 @@ public class BuildScopeServicesTest extends Specification {
         sessionServices.get(ClassLoaderCache) >> Mock(ClassLoaderCache)
         sessionServices.get(ImportsReader) >> Mock(ImportsReader)
         sessionServices.get(StartParameter) >> startParameter
+        sessionServices.get(CacheRepository) >> Stub(CacheRepository)
+        sessionServices.get(GradleBuildEnvironment) >> Stub(GradleBuildEnvironment)
+        sessionServices.getAll(PluginServiceRegistry) >> { pluginServiceRegistries }
         sessionServices.getAll(_) >> []
 
         registry = new BuildScopeServices(sessionServices, false)
@@ -167,7 +180,6 @@ public class BuildScopeServicesTest extends Specification {
     def providesAScriptCompilerFactory() {
         setup:
         expectListenerManagerCreated()
-        expectParentServiceLocated(CacheRepository)
 
         expect:
         registry.get(ScriptCompilerFactory) instanceof DefaultScriptCompilerFactory
@@ -178,7 +190,6 @@ public class BuildScopeServicesTest extends Specification {
         setup:
         expectListenerManagerCreated()
         allowGetGradleDistributionLocator()
-        expectParentServiceLocated(CacheRepository)
 
         expect:
         registry.get(InitScriptHandler) instanceof InitScriptHandler
@@ -188,7 +199,6 @@ public class BuildScopeServicesTest extends Specification {
     def providesAScriptObjectConfigurerFactory() {
         setup:
         expectListenerManagerCreated()
-        expectParentServiceLocated(CacheRepository)
 
         expect:
         assertThat(registry.get(ScriptPluginFactory), instanceOf(DefaultScriptPluginFactory))
@@ -198,7 +208,6 @@ public class BuildScopeServicesTest extends Specification {
     def providesASettingsProcessor() {
         setup:
         expectListenerManagerCreated()
-        expectParentServiceLocated(CacheRepository)
 
         expect:
         assertThat(registry.get(SettingsProcessor), instanceOf(NotifyingSettingsProcessor))
@@ -243,6 +252,21 @@ public class BuildScopeServicesTest extends Specification {
         assertThat(registry.get(BuildConfigurer), sameInstance(registry.get(BuildConfigurer)))
     }
 
+    def "provides a build configurer when a plugin contributes a build operation processor"() {
+        given:
+        pluginServiceRegistries << Stub(PluginServiceRegistry) {
+            registerBuildServices(_) >> { ServiceRegistration registration -> registration.addProvider(new BuildOperationProcessorServices()) }
+        }
+        def registry = new BuildScopeServices(sessionServices, false)
+
+        expect:
+        registry.get(BuildConfigurer) instanceof DefaultBuildConfigurer
+        registry.get(ProjectConfigurer) instanceof TaskPathProjectEvaluator
+
+        cleanup:
+        registry.close()
+    }
+
     def providesAPropertiesLoader() {
         expect:
         assertThat(registry.get(IGradlePropertiesLoader), instanceOf(DefaultGradlePropertiesLoader))
@@ -260,6 +284,7 @@ public class BuildScopeServicesTest extends Specification {
     def providesAProfileEventAdapter() {
         setup:
         expectParentServiceLocated(BuildRequestMetaData)
+        expectParentServiceLocated(InMemoryTaskArtifactCache)
         expectListenerManagerCreated()
 
         expect:
@@ -311,6 +336,12 @@ public class BuildScopeServicesTest extends Specification {
         sessionServices.get(GradleDistributionLocator) >> Mock(GradleDistributionLocator)
     }
 
+    static class BuildOperationProcessorServices {
+        BuildOperationProcessor createBuildOperationProcessor() {
+            return new DefaultBuildOperationProcessor(new DefaultExecutorFactory(), 1)
+        }
+    }
+
     public interface ClosableCacheFactory extends CacheFactory {
         void close()
     }
@@ -52,7 +52,9 @@ class TaskExecutionServicesTest extends Specification {
         _ * parent.get(InMemoryTaskArtifactCache) >> Mock(InMemoryTaskArtifactCache)
         _ * parent.get(StartParameter) >> Mock(StartParameter)
         _ * parent.get(StringInterner) >> new StringInterner()
+        _ * parent.get(ExecutorFactory) >> Mock(ExecutorFactory)
         _ * cacheRepository.cache(gradle, 'taskArtifacts') >> cacheBuilder
+        _ * cacheBuilder.withProperties(!null) >> cacheBuilder
         _ * cacheBuilder.withDisplayName(!null) >> cacheBuilder
         _ * cacheBuilder.withLockOptions(!null) >> cacheBuilder
         _ * cacheBuilder.open() >> Mock(PersistentCache)
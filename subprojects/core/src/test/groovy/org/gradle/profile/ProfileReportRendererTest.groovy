@@ -17,6 +17,7 @@
 package org.gradle.profile
 
 import org.gradle.StartParameter
+import org.gradle.api.internal.changedetection.state.InMemoryCacheStatistics
 import org.gradle.api.tasks.TaskState
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
@@ -218,6 +219,30 @@ class ProfileReportRendererTest extends Specification {
 </div>"""))
     }
 
+    def "renders in-memory cache statistics when present"() {
+        def model = new BuildProfile(new StartParameter())
+        def file = temp.file("report.html")
+        model.inMemoryCacheStatistics = [new InMemoryCacheStatistics("fileSnapshots", 3, 1, 2, 10, 900)]
+
+        when:
+        new ProfileReportRenderer().writeTo(model, file)
+
+        then:
+        file.text.contains(toPlatformLineSeparators("""<li>
+<a href="#tab4">In-memory Caches</a>
+</li>
+</ul>"""))
+        file.text.contains(toPlatformLineSeparators("""<tr>
+<td>fileSnapshots</td>
+<td class="numeric">3</td>
+<td class="numeric">1</td>
+<td class="numeric">75%</td>
+<td class="numeric">2</td>
+<td class="numeric">10</td>
+<td class="numeric">900 B</td>
+</tr>"""))
+    }
+
     private long time(int hour, int mins, int secs, int ms = 0) {
         def cal = new GregorianCalendar(2010, 1, 5, hour, mins, secs)
         cal.add(Calendar.MILLISECOND, ms)
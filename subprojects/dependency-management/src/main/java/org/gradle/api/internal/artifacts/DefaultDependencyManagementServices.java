@@ -146,7 +146,8 @@ public class DefaultDependencyManagementServices implements DependencyManagement
                                                        ComponentIdentifierFactory componentIdentifierFactory,
                                                        CacheLockingManager cacheLockingManager,
                                                        ResolutionResultsStoreFactory resolutionResultsStoreFactory,
-                                                       StartParameter startParameter) {
+                                                       StartParameter startParameter,
+                                                       CacheLockingBuildOperationProcessor buildOperationProcessor) {
             return new ErrorHandlingConfigurationResolver(
                     new ShortCircuitEmptyConfigurationResolver(
                             new SelfResolvingDependencyConfigurationResolver(
@@ -156,7 +157,8 @@ public class DefaultDependencyManagementServices implements DependencyManagement
                                             metadataHandler,
                                             cacheLockingManager,
                                             resolutionResultsStoreFactory,
-                                            startParameter.isBuildProjectDependencies())),
+                                            startParameter.isBuildProjectDependencies(),
+                                            Boolean.getBoolean(DefaultLenientConfiguration.PARALLEL_DOWNLOAD_TOGGLE) ? buildOperationProcessor : null)),
                             componentIdentifierFactory)
             );
         }
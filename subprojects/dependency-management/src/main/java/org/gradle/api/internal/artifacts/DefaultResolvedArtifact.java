@@ -85,6 +85,13 @@ public class DefaultResolvedArtifact implements ResolvedArtifact {
         return artifact.getClassifier();
     }
 
+    /**
+     * Returns true when the file of this artifact has been resolved, so that {@link #getFile()} does not need to do any work.
+     */
+    public boolean isFileResolved() {
+        return file != null;
+    }
+
     public File getFile() {
         if (file == null) {
             file = artifactSource.create();
@@ -23,6 +23,7 @@ import org.gradle.api.internal.artifacts.ivyservice.*;
 import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.ModuleVersionsCache;
 import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.SingleFileBackedModuleVersionsCache;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.*;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache.CrossBuildInMemoryRepositoryCaches;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache.InMemoryCachedRepositoryFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.*;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultModuleArtifactsCache;
@@ -35,7 +36,10 @@ import org.gradle.api.internal.artifacts.ivyservice.projectmodule.DefaultProject
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.DefaultProjectPublicationRegistry;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectDependencyResolver;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectPublicationRegistry;
+import org.gradle.api.internal.artifacts.ivyservice.resolutioncache.ResolvedSelectionsCache;
+import org.gradle.api.internal.artifacts.ivyservice.resolutioncache.SingleFileBackedResolvedSelectionsCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultArtifactDependencyResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.mvnsettings.*;
 import org.gradle.api.internal.artifacts.repositories.transport.RepositoryTransportFactory;
@@ -50,9 +54,12 @@ import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.ProjectRegistry;
 import org.gradle.cache.CacheRepository;
 import org.gradle.initialization.ProjectAccessListener;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetaData;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.resource.cached.ByUrlCachedExternalResourceIndex;
+import org.gradle.internal.resource.cached.CachedExternalResourceIndex;
+import org.gradle.internal.resource.cached.DefaultCachedExternalResourceIndex;
 import org.gradle.internal.resource.cached.ivy.ArtifactAtRepositoryCachedArtifactIndex;
 import org.gradle.internal.resource.connector.ResourceConnectorFactory;
 import org.gradle.internal.resource.local.LocallyAvailableResourceFinder;
@@ -66,8 +73,8 @@ import org.gradle.util.BuildCommencedTimeProvider;
  * The set of dependency management services that are created per build.
  */
 class DependencyManagementBuildScopeServices {
-    InMemoryCachedRepositoryFactory createInMemoryDependencyMetadataCache() {
-        return new InMemoryCachedRepositoryFactory();
+    InMemoryCachedRepositoryFactory createInMemoryDependencyMetadataCache(CrossBuildInMemoryRepositoryCaches crossBuildCaches, BuildCommencedTimeProvider timeProvider) {
+        return new InMemoryCachedRepositoryFactory(Boolean.getBoolean(CrossBuildInMemoryRepositoryCaches.TOGGLE_PROPERTY) ? crossBuildCaches : null, timeProvider);
     }
 
     DependencyManagementServices createDependencyManagementServices(ServiceRegistry parent) {
@@ -105,6 +112,13 @@ class DependencyManagementBuildScopeServices {
         );
     }
 
+    ResolvedSelectionsCache createResolvedSelectionsCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
+        return new SingleFileBackedResolvedSelectionsCache(
+            timeProvider,
+            cacheLockingManager
+        );
+    }
+
     ModuleArtifactsCache createModuleArtifactsCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
         return new DefaultModuleArtifactsCache(
             timeProvider,
@@ -116,7 +130,8 @@ class DependencyManagementBuildScopeServices {
         return new DefaultModuleMetaDataCache(
             timeProvider,
             cacheLockingManager,
-            resolverStrategy
+            resolverStrategy,
+            Boolean.getBoolean(DefaultModuleMetaDataCache.BINARY_DESCRIPTORS_TOGGLE)
         );
     }
 
@@ -136,8 +151,12 @@ class DependencyManagementBuildScopeServices {
         );
     }
 
-    ArtifactIdentifierFileStore createArtifactRevisionIdFileStore(CacheLockingManager cacheLockingManager) {
-        return new ArtifactIdentifierFileStore(new UniquePathKeyFileStore(cacheLockingManager.getFileStoreDirectory()), new TmpDirTemporaryFileProvider());
+    ArtifactIdentifierFileStore createArtifactRevisionIdFileStore(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
+        CachedExternalResourceIndex<String> checksumIndex = null;
+        if (Boolean.getBoolean(ArtifactIdentifierFileStore.DEDUPLICATE_TOGGLE)) {
+            checksumIndex = new DefaultCachedExternalResourceIndex<String>("artifact-at-sha1", String.class, timeProvider, cacheLockingManager);
+        }
+        return new ArtifactIdentifierFileStore(new UniquePathKeyFileStore(cacheLockingManager.getFileStoreDirectory()), new TmpDirTemporaryFileProvider(), checksumIndex);
     }
 
     MavenSettingsProvider createMavenSettingsProvider() {
@@ -187,7 +206,8 @@ class DependencyManagementBuildScopeServices {
     ResolveIvyFactory createResolveIvyFactory(StartParameter startParameter, ModuleVersionsCache moduleVersionsCache, ModuleMetaDataCache moduleMetaDataCache, ModuleArtifactsCache moduleArtifactsCache,
                                               ArtifactAtRepositoryCachedArtifactIndex artifactAtRepositoryCachedArtifactIndex, CacheLockingManager cacheLockingManager,
                                               BuildCommencedTimeProvider buildCommencedTimeProvider, InMemoryCachedRepositoryFactory inMemoryCachedRepositoryFactory,
-                                              VersionSelectorScheme versionSelectorScheme, VersionComparator versionComparator) {
+                                              VersionSelectorScheme versionSelectorScheme, VersionComparator versionComparator,
+                                              CacheLockingBuildOperationProcessor buildOperationProcessor) {
         StartParameterResolutionOverride startParameterResolutionOverride = new StartParameterResolutionOverride(startParameter);
         return new ResolveIvyFactory(
             moduleVersionsCache,
@@ -199,7 +219,12 @@ class DependencyManagementBuildScopeServices {
             buildCommencedTimeProvider,
             inMemoryCachedRepositoryFactory,
             versionSelectorScheme,
-            versionComparator);
+            versionComparator,
+            Boolean.getBoolean(DynamicVersionResolver.PARALLEL_VERSION_LISTING_TOGGLE) ? buildOperationProcessor : null);
+    }
+
+    CacheLockingBuildOperationProcessor createCacheLockingBuildOperationProcessor(CacheLockingManager cacheLockingManager, ExecutorFactory executorFactory, StartParameter startParameter) {
+        return new CacheLockingBuildOperationProcessor(cacheLockingManager, executorFactory, startParameter.getMaxWorkerCount());
     }
 
     ArtifactDependencyResolver createArtifactDependencyResolver(ResolveIvyFactory resolveIvyFactory,
@@ -207,14 +232,18 @@ class DependencyManagementBuildScopeServices {
                                                                 CacheLockingManager cacheLockingManager,
                                                                 IvyContextManager ivyContextManager,
                                                                 VersionComparator versionComparator,
-                                                                ServiceRegistry serviceRegistry) {
+                                                                ServiceRegistry serviceRegistry,
+                                                                CacheLockingBuildOperationProcessor buildOperationProcessor,
+                                                                ResolvedSelectionsCache resolvedSelectionsCache) {
         DefaultArtifactDependencyResolver resolver = new DefaultArtifactDependencyResolver(
             serviceRegistry,
             resolveIvyFactory,
             dependencyDescriptorFactory,
             cacheLockingManager,
             ivyContextManager,
-            versionComparator
+            versionComparator,
+            Boolean.getBoolean(DependencyGraphBuilder.PARALLEL_RESOLVE_TOGGLE) ? buildOperationProcessor : null,
+            Boolean.getBoolean(DefaultArtifactDependencyResolver.SELECTIONS_CACHE_TOGGLE) ? resolvedSelectionsCache : null
         );
         return new CacheLockingArtifactDependencyResolver(cacheLockingManager, resolver);
     }
@@ -20,6 +20,7 @@ import org.gradle.api.internal.artifacts.component.ComponentIdentifierFactory;
 import org.gradle.api.internal.artifacts.component.DefaultComponentIdentifierFactory;
 import org.gradle.api.internal.artifacts.ivyservice.DefaultIvyContextManager;
 import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache.CrossBuildInMemoryRepositoryCaches;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.*;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.*;
 import org.gradle.internal.resource.connector.ResourceConnectorFactory;
@@ -61,4 +62,9 @@ class DependencyManagementGlobalScopeServices {
     ResourceConnectorFactory createFileConnectorFactory() {
         return new FileConnectorFactory();
     }
+
+    CrossBuildInMemoryRepositoryCaches createCrossBuildInMemoryRepositoryCaches() {
+        return new CrossBuildInMemoryRepositoryCaches(Integer.getInteger(CrossBuildInMemoryRepositoryCaches.MAX_ENTRIES_PROPERTY, CrossBuildInMemoryRepositoryCaches.DEFAULT_MAX_ENTRIES),
+                Integer.getInteger(CrossBuildInMemoryRepositoryCaches.RETAINED_BUILDS_PROPERTY, CrossBuildInMemoryRepositoryCaches.DEFAULT_RETAINED_BUILDS));
+    }
 }
@@ -26,6 +26,8 @@ import org.gradle.api.internal.artifacts.ConfigurationResolver;
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.ConfigurationComponentMetaDataBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultResolutionStrategy;
+import org.gradle.api.internal.project.ProjectConfigurationGuard;
+import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.event.ListenerManager;
@@ -45,6 +47,7 @@ public class DefaultConfigurationContainer extends AbstractNamedDomainObjectCont
     private final ProjectAccessListener projectAccessListener;
     private final ProjectFinder projectFinder;
     private ConfigurationComponentMetaDataBuilder configurationComponentMetaDataBuilder;
+    private final MutationValidator projectChangeValidator;
 
     private int detachedConfigurationDefaultNameCounter = 1;
 
@@ -61,12 +64,28 @@ public class DefaultConfigurationContainer extends AbstractNamedDomainObjectCont
         this.projectAccessListener = projectAccessListener;
         this.projectFinder = projectFinder;
         this.configurationComponentMetaDataBuilder = configurationComponentMetaDataBuilder;
+        if (context instanceof ProjectInternal) {
+            // Guard the configurations of a project against changes made by other projects configured in parallel
+            final Runnable changeGuard = ProjectConfigurationGuard.changeGuardFor((ProjectInternal) context);
+            beforeChange(changeGuard);
+            projectChangeValidator = new MutationValidator() {
+                public void validateMutation(MutationType type) {
+                    changeGuard.run();
+                }
+            };
+        } else {
+            projectChangeValidator = null;
+        }
     }
 
     @Override
     protected Configuration doCreate(String name) {
-        return instantiator.newInstance(DefaultConfiguration.class, context.absoluteProjectPath(name), name, this, resolver,
+        DefaultConfiguration configuration = instantiator.newInstance(DefaultConfiguration.class, context.absoluteProjectPath(name), name, this, resolver,
                 listenerManager, dependencyMetaDataProvider, instantiator.newInstance(DefaultResolutionStrategy.class), projectAccessListener, projectFinder, configurationComponentMetaDataBuilder);
+        if (projectChangeValidator != null) {
+            configuration.addMutationValidator(projectChangeValidator);
+        }
+        return configuration;
     }
 
     public Set<Configuration> getAll() {
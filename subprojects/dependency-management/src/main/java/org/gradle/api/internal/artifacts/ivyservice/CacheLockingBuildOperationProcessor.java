@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
+import org.gradle.internal.operations.DefaultBuildOperationProcessor;
+import org.gradle.internal.operations.MultipleBuildOperationFailures;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link BuildOperationProcessor} for operations that use the artifact cache. Each operation runs with the cache locked, and the thread waiting for the
+ * operations to complete releases the cache lock while it waits. The operations take turns to use the cache, and run concurrently while they have released
+ * the cache lock to make remote calls.
+ *
+ * <p>An operation may itself queue further operations. These are run by the worker thread as they are added, so that the workers never wait for each other.</p>
+ */
+public class CacheLockingBuildOperationProcessor implements BuildOperationProcessor, Stoppable {
+    private final CacheLockingManager cacheLockingManager;
+    private final DefaultBuildOperationProcessor delegate;
+    private final ThreadLocal<Boolean> runningOperation = new ThreadLocal<Boolean>();
+
+    public CacheLockingBuildOperationProcessor(CacheLockingManager cacheLockingManager, ExecutorFactory executorFactory, int maxWorkerCount) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.delegate = new DefaultBuildOperationProcessor(executorFactory, maxWorkerCount);
+    }
+
+    public <T extends BuildOperation> BuildOperationQueue<T> newQueue(BuildOperationWorker<T> worker, @Nullable String logLocation) {
+        if (runningOperation.get() != null) {
+            return new InlineQueue<T>(worker, logLocation);
+        }
+        return new LockReleasingQueue<T>(delegate.newQueue(new CacheLockingWorker<T>(worker), logLocation), worker.getDisplayName());
+    }
+
+    public void stop() {
+        delegate.stop();
+    }
+
+    private class CacheLockingWorker<T extends BuildOperation> implements BuildOperationWorker<T> {
+        private final BuildOperationWorker<T> delegate;
+
+        CacheLockingWorker(BuildOperationWorker<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        public String getDisplayName() {
+            return delegate.getDisplayName();
+        }
+
+        public void execute(final T operation) {
+            runningOperation.set(Boolean.TRUE);
+            try {
+                cacheLockingManager.useCache(operation.getDescription(), new Runnable() {
+                    public void run() {
+                        delegate.execute(operation);
+                    }
+                });
+            } finally {
+                runningOperation.remove();
+            }
+        }
+    }
+
+    private class LockReleasingQueue<T extends BuildOperation> implements BuildOperationQueue<T> {
+        private final BuildOperationQueue<T> delegate;
+        private final String displayName;
+
+        LockReleasingQueue(BuildOperationQueue<T> delegate, String displayName) {
+            this.delegate = delegate;
+            this.displayName = displayName;
+        }
+
+        public void add(T operation) {
+            delegate.add(operation);
+        }
+
+        public void waitForCompletion() {
+            cacheLockingManager.longRunningOperation(String.format("Wait for %s", displayName), new Runnable() {
+                public void run() {
+                    delegate.waitForCompletion();
+                }
+            });
+        }
+    }
+
+    private static class InlineQueue<T extends BuildOperation> implements BuildOperationQueue<T> {
+        private final BuildOperationWorker<T> worker;
+        private final String logLocation;
+        private final List<Throwable> failures = new ArrayList<Throwable>();
+
+        InlineQueue(BuildOperationWorker<T> worker, @Nullable String logLocation) {
+            this.worker = worker;
+            this.logLocation = logLocation;
+        }
+
+        public void add(T operation) {
+            try {
+                worker.execute(operation);
+            } catch (Throwable t) {
+                failures.add(t);
+            }
+        }
+
+        public void waitForCompletion() {
+            if (!failures.isEmpty()) {
+                throw new MultipleBuildOperationFailures(failures.size() == 1 ? "A build operation failed." : "Multiple build operations failed.", failures, logLocation);
+            }
+        }
+    }
+}
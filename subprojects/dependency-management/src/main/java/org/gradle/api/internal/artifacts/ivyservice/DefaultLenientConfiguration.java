@@ -15,7 +15,9 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.*;
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifacts;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResults;
 import org.gradle.api.specs.Spec;
@@ -23,26 +25,46 @@ import org.gradle.api.specs.Specs;
 import org.gradle.internal.Factory;
 import org.gradle.internal.graph.CachingDirectedGraphWalker;
 import org.gradle.internal.graph.DirectedGraphWithEdgeValues;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
 import org.gradle.internal.resolve.ArtifactResolveException;
 import org.gradle.util.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.*;
 
 public class DefaultLenientConfiguration implements LenientConfiguration {
+    public static final String PARALLEL_DOWNLOAD_TOGGLE = "org.gradle.parallel.download";
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultLenientConfiguration.class);
+
     private CacheLockingManager cacheLockingManager;
     private final Configuration configuration;
     private final Set<UnresolvedDependency> unresolvedDependencies;
     private final ResolvedArtifacts artifactResults;
     private final Factory<TransientConfigurationResults> transientConfigurationResultsFactory;
+    private final BuildOperationProcessor downloadProcessor;
 
     public DefaultLenientConfiguration(Configuration configuration, CacheLockingManager cacheLockingManager, Set<UnresolvedDependency> unresolvedDependencies,
                                        ResolvedArtifacts artifactResults, Factory<TransientConfigurationResults> transientConfigurationResultsLoader) {
+        this(configuration, cacheLockingManager, unresolvedDependencies, artifactResults, transientConfigurationResultsLoader, null);
+    }
+
+    /**
+     * @param downloadProcessor When not null, the files of the artifacts are resolved concurrently using this processor before they are returned.
+     */
+    public DefaultLenientConfiguration(Configuration configuration, CacheLockingManager cacheLockingManager, Set<UnresolvedDependency> unresolvedDependencies,
+                                       ResolvedArtifacts artifactResults, Factory<TransientConfigurationResults> transientConfigurationResultsLoader,
+                                       @Nullable BuildOperationProcessor downloadProcessor) {
         this.configuration = configuration;
         this.cacheLockingManager = cacheLockingManager;
         this.unresolvedDependencies = unresolvedDependencies;
         this.artifactResults = artifactResults;
         this.transientConfigurationResultsFactory = transientConfigurationResultsLoader;
+        this.downloadProcessor = downloadProcessor;
     }
 
     public boolean hasError() {
@@ -100,6 +122,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
         final Set<ResolvedArtifact> allArtifacts = getAllArtifacts(dependencySpec);
         return cacheLockingManager.useCache("retrieve artifacts from " + configuration, new Factory<Set<ResolvedArtifact>>() {
             public Set<ResolvedArtifact> create() {
+                resolveFilesConcurrently(allArtifacts);
                 return CollectionUtils.filter(allArtifacts, new Spec<ResolvedArtifact>() {
                     public boolean isSatisfiedBy(ResolvedArtifact element) {
                         try {
@@ -118,6 +141,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
         final Set<File> files = new LinkedHashSet<File>();
         cacheLockingManager.useCache("resolve files from " + configuration, new Runnable() {
             public void run() {
+                resolveFilesConcurrently(artifacts);
                 for (ResolvedArtifact artifact : artifacts) {
                     File depFile = artifact.getFile();
                     if (depFile != null) {
@@ -129,6 +153,30 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
         return files;
     }
 
+    /**
+     * Resolves the files of the given artifacts ahead of their use, so that missing artifacts are downloaded in parallel. The artifacts cache their file once resolved.
+     * Failures are ignored here, and are reported when the file of the artifact is requested again.
+     */
+    private void resolveFilesConcurrently(Set<ResolvedArtifact> artifacts) {
+        if (downloadProcessor == null) {
+            return;
+        }
+        List<ResolvedArtifact> unresolved = new ArrayList<ResolvedArtifact>();
+        for (ResolvedArtifact artifact : artifacts) {
+            if (!(artifact instanceof DefaultResolvedArtifact) || !((DefaultResolvedArtifact) artifact).isFileResolved()) {
+                unresolved.add(artifact);
+            }
+        }
+        if (unresolved.size() < 2) {
+            return;
+        }
+        BuildOperationQueue<ResolveArtifactFile> queue = downloadProcessor.newQueue(new ResolveArtifactFileWorker(), null);
+        for (ResolvedArtifact artifact : unresolved) {
+            queue.add(new ResolveArtifactFile(artifact));
+        }
+        queue.waitForCompletion();
+    }
+
     /**
      * Recursive, includes unsuccessfully resolved artifacts
      *
@@ -165,6 +213,33 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
         return loadTransientGraphResults().getRoot().getChildren();
     }
 
+    private static class ResolveArtifactFile implements BuildOperation {
+        private final ResolvedArtifact artifact;
+
+        private ResolveArtifactFile(ResolvedArtifact artifact) {
+            this.artifact = artifact;
+        }
+
+        public String getDescription() {
+            return "Resolve " + artifact;
+        }
+    }
+
+    private static class ResolveArtifactFileWorker implements BuildOperationWorker<ResolveArtifactFile> {
+        public String getDisplayName() {
+            return "artifact download";
+        }
+
+        public void execute(ResolveArtifactFile operation) {
+            try {
+                operation.artifact.getFile();
+            } catch (RuntimeException e) {
+                // Reported when the file is requested by the caller
+                LOGGER.debug("Could not resolve {} ahead of use.", operation.artifact, e);
+            }
+        }
+    }
+
     private static class ResolvedDependencyArtifactsGraph implements DirectedGraphWithEdgeValues<ResolvedDependency, ResolvedArtifact> {
         public void getNodeValues(ResolvedDependency node, Collection<? super ResolvedArtifact> values,
                                   Collection<? super ResolvedDependency> connectedNodes) {
@@ -186,7 +186,7 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
             }
 
             LOGGER.debug("Using cached module metadata for module '{}' in '{}'", moduleComponentIdentifier, delegate.getName());
-            metaData.setSource(new CachingModuleSource(cachedMetaData.getDescriptorHash(), metaData.isChanging(), metaData.getSource()));
+            metaData.setSource(new CachingModuleSource(cachedMetaData.getDescriptorHash(), metaData.isChanging(), timeProvider.getCurrentTime() - cachedMetaData.getAgeMillis(), metaData.getSource()));
             result.resolved(metaData);
             // When age == 0, verified since the start of this build, assume the meta-data hasn't changed
             result.setAuthoritative(cachedMetaData.getAgeMillis() == 0);
@@ -304,7 +304,7 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
                     ModuleSource moduleSource = metaData.getSource();
                     ModuleMetaDataCache.CachedMetaData cachedMetaData = moduleMetaDataCache.cacheMetaData(delegate, metaData);
                     metadataProcessor.processMetadata(metaData);
-                    moduleSource = new CachingModuleSource(cachedMetaData.getDescriptorHash(), requestMetaData.isChanging() || metaData.isChanging(), moduleSource);
+                    moduleSource = new CachingModuleSource(cachedMetaData.getDescriptorHash(), requestMetaData.isChanging() || metaData.isChanging(), timeProvider.getCurrentTime(), moduleSource);
                     metaData.setSource(moduleSource);
                     result.resolved(metaData);
                     break;
@@ -365,15 +365,17 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
         return new ArtifactAtRepositoryKey(delegate.getId(), moduleComponentArtifactMetaData.getId());
     }
 
-    static class CachingModuleSource implements ModuleSource {
+    public static class CachingModuleSource implements ModuleSource {
         private final BigInteger descriptorHash;
         private final boolean changingModule;
+        private final long cachedAt;
         private final ModuleSource delegate;
 
-        public CachingModuleSource(BigInteger descriptorHash, boolean changingModule, ModuleSource delegate) {
+        public CachingModuleSource(BigInteger descriptorHash, boolean changingModule, long cachedAt, ModuleSource delegate) {
             this.delegate = delegate;
             this.descriptorHash = descriptorHash;
             this.changingModule = changingModule;
+            this.cachedAt = cachedAt;
         }
 
         public BigInteger getDescriptorHash() {
@@ -384,6 +386,13 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
             return changingModule;
         }
 
+        /**
+         * Returns the time at which the meta-data was fetched from the repository into the module cache.
+         */
+        public long getCachedAt() {
+            return cachedAt;
+        }
+
         public ModuleSource getDelegate() {
             return delegate;
         }
@@ -17,13 +17,19 @@
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
 
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
 import org.gradle.api.artifacts.ModuleVersionSelector;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
 import org.gradle.internal.component.external.model.ModuleComponentResolveMetaData;
 import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
 import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
 import org.gradle.internal.resolve.ModuleVersionNotFoundException;
 import org.gradle.internal.resolve.ModuleVersionResolveException;
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
@@ -37,16 +43,28 @@ import static org.gradle.internal.resolve.result.BuildableModuleComponentMetaDat
 import static org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult.State.Resolved;
 
 public class DynamicVersionResolver implements DependencyToComponentIdResolver {
+    public static final String PARALLEL_VERSION_LISTING_TOGGLE = "org.gradle.parallel.versionlisting";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(DynamicVersionResolver.class);
 
     private final List<ModuleComponentRepository> repositories = new ArrayList<ModuleComponentRepository>();
     private final List<String> repositoryNames = new ArrayList<String>();
     private final VersionedComponentChooser versionedComponentChooser;
     private final Transformer<ModuleComponentResolveMetaData, RepositoryChainModuleResolution> metaDataFactory;
+    private final BuildOperationProcessor listingProcessor;
 
     public DynamicVersionResolver(VersionedComponentChooser versionedComponentChooser, Transformer<ModuleComponentResolveMetaData, RepositoryChainModuleResolution> metaDataFactory) {
+        this(versionedComponentChooser, metaDataFactory, null);
+    }
+
+    /**
+     * @param listingProcessor When not null, the versions of a module are listed in all repositories concurrently using this processor.
+     */
+    public DynamicVersionResolver(VersionedComponentChooser versionedComponentChooser, Transformer<ModuleComponentResolveMetaData, RepositoryChainModuleResolution> metaDataFactory,
+                                  @Nullable BuildOperationProcessor listingProcessor) {
         this.versionedComponentChooser = versionedComponentChooser;
         this.metaDataFactory = metaDataFactory;
+        this.listingProcessor = listingProcessor;
     }
 
     public void add(ModuleComponentRepository repository) {
@@ -109,6 +127,8 @@ public class DynamicVersionResolver implements DependencyToComponentIdResolver {
     }
 
     private RepositoryChainModuleResolution findLatestModule(LinkedList<RepositoryResolveState> queue, Collection<Throwable> failures, Collection<RepositoryResolveState> missing) {
+        listVersionsConcurrently(queue);
+
         RepositoryChainModuleResolution best = null;
         while (!queue.isEmpty()) {
             RepositoryResolveState request = queue.removeFirst();
@@ -141,6 +161,21 @@ public class DynamicVersionResolver implements DependencyToComponentIdResolver {
         return best;
     }
 
+    /**
+     * Lists the versions of the module in each of the given repositories concurrently. Each listing is kept by its repository state, and the
+     * repositories are then visited in the order they are declared, so the result is the same as when each repository is listed in turn.
+     */
+    private void listVersionsConcurrently(Collection<RepositoryResolveState> resolveStates) {
+        if (listingProcessor == null || resolveStates.size() < 2) {
+            return;
+        }
+        BuildOperationQueue<ListVersionsOperation> queue = listingProcessor.newQueue(new ListVersionsWorker(), null);
+        for (RepositoryResolveState resolveState : resolveStates) {
+            queue.add(new ListVersionsOperation(resolveState));
+        }
+        queue.waitForCompletion();
+    }
+
     private RepositoryChainModuleResolution chooseBest(RepositoryChainModuleResolution one, RepositoryChainModuleResolution two) {
         if (one == null || two == null) {
             return two == null ? one : two;
@@ -172,6 +207,8 @@ public class DynamicVersionResolver implements DependencyToComponentIdResolver {
         private final AttemptCollector attemptCollector;
         private final DependencyMetaData dependency;
         private final ModuleVersionSelector selector;
+        private boolean listedAhead;
+        private Throwable listingFailure;
 
         public RepositoryResolveState(DependencyMetaData dependency, ModuleComponentRepository repository) {
             this.dependency = dependency;
@@ -185,8 +222,30 @@ public class DynamicVersionResolver implements DependencyToComponentIdResolver {
             return versionListingResult.canMakeFurtherAttempts();
         }
 
+        /**
+         * Lists the versions of the module ahead of {@link #resolve()}, which then uses this listing instead of taking the next listing step
+         * itself. A failure is kept and thrown by the next call to {@link #resolve()}.
+         */
+        void listVersions() {
+            listedAhead = true;
+            try {
+                versionListingResult.resolve();
+            } catch (Throwable t) {
+                listingFailure = t;
+            }
+        }
+
         void resolve() {
-            versionListingResult.resolve();
+            if (listedAhead) {
+                listedAhead = false;
+                if (listingFailure != null) {
+                    Throwable failure = listingFailure;
+                    listingFailure = null;
+                    throw UncheckedException.throwAsUncheckedException(failure);
+                }
+            } else {
+                versionListingResult.resolve();
+            }
             switch (versionListingResult.result.getState()) {
                 case Failed:
                     resolveResult.failed(versionListingResult.result.getFailure());
@@ -244,6 +303,28 @@ public class DynamicVersionResolver implements DependencyToComponentIdResolver {
         }
     }
 
+    private static class ListVersionsOperation implements BuildOperation {
+        private final RepositoryResolveState resolveState;
+
+        ListVersionsOperation(RepositoryResolveState resolveState) {
+            this.resolveState = resolveState;
+        }
+
+        public String getDescription() {
+            return String.format("List versions of %s in %s", resolveState.selector, resolveState.repository.getName());
+        }
+    }
+
+    private static class ListVersionsWorker implements BuildOperationWorker<ListVersionsOperation> {
+        public String getDisplayName() {
+            return "version listing";
+        }
+
+        public void execute(ListVersionsOperation operation) {
+            operation.resolveState.listVersions();
+        }
+    }
+
     private static class CandidateResult implements ModuleComponentResolveState {
         private final ModuleComponentIdentifier identifier;
         private final ModuleComponentRepository repository;
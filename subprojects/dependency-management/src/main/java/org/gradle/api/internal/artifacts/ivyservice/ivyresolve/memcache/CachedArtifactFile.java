@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache;
+
+import org.gradle.api.Nullable;
+
+import java.io.File;
+import java.math.BigInteger;
+
+class CachedArtifactFile {
+    private final File file;
+    private final long length;
+    private final long lastModified;
+    private final BigInteger descriptorHash;
+    private final boolean changing;
+    private final long buildGeneration;
+    private final long cachedAt;
+
+    CachedArtifactFile(File file, @Nullable BigInteger descriptorHash, boolean changing, long buildGeneration, long cachedAt) {
+        this.file = file;
+        // Only entries that can be reused by a later build need to be checked against the file system
+        boolean reusable = cachedAt != InMemoryCacheExpiry.NOT_REUSABLE;
+        this.length = reusable ? file.length() : 0;
+        this.lastModified = reusable ? file.lastModified() : 0;
+        this.descriptorHash = descriptorHash;
+        this.changing = changing;
+        this.buildGeneration = buildGeneration;
+        this.cachedAt = cachedAt;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Nullable
+    public BigInteger getDescriptorHash() {
+        return descriptorHash;
+    }
+
+    public boolean isChanging() {
+        return changing;
+    }
+
+    public long getBuildGeneration() {
+        return buildGeneration;
+    }
+
+    public long getCachedAt() {
+        return cachedAt;
+    }
+
+    /**
+     * Returns true when the file still exists and has the same length and modification time as when it was cached.
+     */
+    public boolean isUnchangedOnDisk() {
+        return file.exists() && file.length() == length && file.lastModified() == lastModified;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache;
+
+import java.util.Set;
+
+class CachedModuleVersionListing {
+    private final Set<String> versions;
+    private final long buildGeneration;
+    private final long cachedAt;
+
+    CachedModuleVersionListing(Set<String> versions, long buildGeneration, long cachedAt) {
+        this.versions = versions;
+        this.buildGeneration = buildGeneration;
+        this.cachedAt = cachedAt;
+    }
+
+    public Set<String> getVersions() {
+        return versions;
+    }
+
+    public long getBuildGeneration() {
+        return buildGeneration;
+    }
+
+    public long getCachedAt() {
+        return cachedAt;
+    }
+}
@@ -16,7 +16,9 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache;
 
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.CachingModuleComponentRepository;
 import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetaData;
+import org.gradle.internal.component.model.ModuleSource;
 import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
 
 import static org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult.State.Missing;
@@ -26,18 +28,40 @@ class CachedModuleVersionResult {
     private final BuildableModuleComponentMetaDataResolveResult.State state;
     private final boolean authoritative;
     private final MutableModuleComponentResolveMetaData metaData;
+    private final boolean changing;
+    private final long buildGeneration;
+    private final long cachedAt;
 
     public CachedModuleVersionResult(BuildableModuleComponentMetaDataResolveResult result) {
+        this(result, InMemoryCacheExpiry.BUILD_SCOPED);
+    }
+
+    public CachedModuleVersionResult(BuildableModuleComponentMetaDataResolveResult result, InMemoryCacheExpiry expiry) {
         this.state = result.getState();
+        this.buildGeneration = expiry.getBuildGeneration();
         if (state == Resolved) {
             this.metaData = result.getMetaData().copy();
             this.authoritative = result.isAuthoritative();
+            ModuleSource source = metaData.getSource();
+            if (source instanceof CachingModuleComponentRepository.CachingModuleSource) {
+                CachingModuleComponentRepository.CachingModuleSource cachingModuleSource = (CachingModuleComponentRepository.CachingModuleSource) source;
+                this.changing = cachingModuleSource.isChangingModule() || metaData.isChanging();
+                this.cachedAt = cachingModuleSource.getCachedAt();
+            } else {
+                this.changing = metaData.isChanging();
+                this.cachedAt = InMemoryCacheExpiry.NOT_REUSABLE;
+            }
         } else if (state == Missing) {
             this.metaData = null;
             this.authoritative = result.isAuthoritative();
+            this.changing = false;
+            // Only a missing module that was verified during this build has a known age
+            this.cachedAt = authoritative ? expiry.getBuildStartTime() : InMemoryCacheExpiry.NOT_REUSABLE;
         } else {
             this.metaData = null;
             this.authoritative = false;
+            this.changing = false;
+            this.cachedAt = InMemoryCacheExpiry.NOT_REUSABLE;
         }
     }
 
@@ -45,6 +69,22 @@ class CachedModuleVersionResult {
         return state == Missing || state == Resolved;
     }
 
+    public boolean isMissing() {
+        return state == Missing;
+    }
+
+    public boolean isChanging() {
+        return changing;
+    }
+
+    public long getBuildGeneration() {
+        return buildGeneration;
+    }
+
+    public long getCachedAt() {
+        return cachedAt;
+    }
+
     public void supply(BuildableModuleComponentMetaDataResolveResult result) {
         assert isCacheable() : "Results are not cacheable, cannot supply the results.";
         if (state == Resolved) {
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the entries of the in-memory repository caches for the lifetime of the daemon, so that they can be reused by later builds.
+ * The number of entries of each cache is bounded. Each build gets its own views of the entries, which check the entries recorded by
+ * earlier builds against the cache policy of the resolve.
+ *
+ * <p>The entries of a repository are discarded once the repository has not been used by any of the last few builds. Nested builds, such as the
+ * build of buildSrc, count as builds.</p>
+ */
+public class CrossBuildInMemoryRepositoryCaches {
+
+    public final static String TOGGLE_PROPERTY = "org.gradle.resolution.memorycache.crossbuild";
+    public final static String MAX_ENTRIES_PROPERTY = "org.gradle.resolution.memorycache.maxentries";
+    public final static int DEFAULT_MAX_ENTRIES = 5000;
+    public final static String RETAINED_BUILDS_PROPERTY = "org.gradle.resolution.memorycache.retainedbuilds";
+    public final static int DEFAULT_RETAINED_BUILDS = 10;
+
+    private final static Logger LOG = Logging.getLogger(CrossBuildInMemoryRepositoryCaches.class);
+
+    private final int maxEntries;
+    private final int retainedBuilds;
+    private final Map<String, RepositoryEntries> entriesPerRepo = new HashMap<String, RepositoryEntries>();
+    private final AtomicLong lastBuildGeneration = new AtomicLong();
+    private final InMemoryCacheStats totals = new InMemoryCacheStats();
+    private int builds;
+
+    public CrossBuildInMemoryRepositoryCaches(int maxEntries, int retainedBuilds) {
+        this.maxEntries = maxEntries;
+        this.retainedBuilds = retainedBuilds;
+    }
+
+    /**
+     * Returns the generation that identifies the entries recorded by a new build. Generation 0 is never returned, it is used by the build scoped caches.
+     */
+    long nextBuildGeneration() {
+        return lastBuildGeneration.incrementAndGet();
+    }
+
+    InMemoryModuleComponentRepositoryCaches createCaches(String repositoryId, InMemoryCacheExpiry expiry, InMemoryCacheStats stats) {
+        RepositoryEntries entries = getEntries(repositoryId, expiry.getBuildGeneration(), stats);
+        return new InMemoryModuleComponentRepositoryCaches(
+                new InMemoryArtifactsCache(entries.localArtifacts.asMap(), expiry, stats),
+                new InMemoryArtifactsCache(entries.remoteArtifacts.asMap(), expiry, stats),
+                new InMemoryMetaDataCache(entries.localListings.asMap(), entries.localMetaData.asMap(), expiry, stats),
+                new InMemoryMetaDataCache(entries.remoteListings.asMap(), entries.remoteMetaData.asMap(), expiry, stats),
+                stats);
+    }
+
+    private synchronized RepositoryEntries getEntries(String repositoryId, long buildGeneration, InMemoryCacheStats stats) {
+        RepositoryEntries entries = entriesPerRepo.get(repositoryId);
+        if (entries == null) {
+            entries = new RepositoryEntries();
+            entriesPerRepo.put(repositoryId, entries);
+            stats.cacheInstances++;
+        }
+        entries.lastUsedGeneration = Math.max(entries.lastUsedGeneration, buildGeneration);
+        return entries;
+    }
+
+    synchronized void buildFinished(InMemoryCacheStats buildStats) {
+        totals.add(buildStats);
+        builds++;
+        long generation = lastBuildGeneration.get();
+        int discardedRepos = 0;
+        long entryCount = 0;
+        long evictionCount = 0;
+        for (Iterator<RepositoryEntries> iterator = entriesPerRepo.values().iterator(); iterator.hasNext();) {
+            RepositoryEntries entries = iterator.next();
+            if (generation - entries.lastUsedGeneration >= retainedBuilds) {
+                iterator.remove();
+                discardedRepos++;
+                continue;
+            }
+            for (Cache<?, ?> cache : entries.all) {
+                entryCount += cache.size();
+                evictionCount += cache.stats().evictionCount();
+            }
+        }
+        LOG.debug("Cross-build in-memory dependency metadata cache after {} builds: {}, repositories: {}, entries: {}, evicted: {}, repositories discarded: {}.",
+                builds, totals, entriesPerRepo.size(), entryCount, evictionCount, discardedRepos);
+    }
+
+    private class RepositoryEntries {
+        final List<Cache<?, ?>> all = Lists.newArrayList();
+        final Cache<ModuleVersionSelector, CachedModuleVersionListing> localListings = newCache();
+        final Cache<ModuleVersionSelector, CachedModuleVersionListing> remoteListings = newCache();
+        final Cache<ModuleComponentIdentifier, CachedModuleVersionResult> localMetaData = newCache();
+        final Cache<ModuleComponentIdentifier, CachedModuleVersionResult> remoteMetaData = newCache();
+        final Cache<ComponentArtifactIdentifier, CachedArtifactFile> localArtifacts = newCache();
+        final Cache<ComponentArtifactIdentifier, CachedArtifactFile> remoteArtifacts = newCache();
+        long lastUsedGeneration;
+
+        private <K, V> Cache<K, V> newCache() {
+            Cache<K, V> cache = CacheBuilder.newBuilder().maximumSize(maxEntries).recordStats().build();
+            all.add(cache);
+            return cache;
+        }
+    }
+}
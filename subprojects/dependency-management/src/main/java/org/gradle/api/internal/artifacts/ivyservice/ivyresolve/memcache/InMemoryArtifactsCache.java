@@ -17,33 +17,61 @@
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache;
 
 import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.CachingModuleComponentRepository;
+import org.gradle.internal.component.model.ModuleSource;
 import org.gradle.internal.resolve.result.BuildableArtifactResolveResult;
 
-import java.io.File;
+import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.Map;
 
 class InMemoryArtifactsCache {
-    private final Map<ComponentArtifactIdentifier, File> artifacts = new HashMap<ComponentArtifactIdentifier, File>();
+    private final Map<ComponentArtifactIdentifier, CachedArtifactFile> artifacts;
+    private final InMemoryCacheExpiry expiry;
     private InMemoryCacheStats stats;
 
     InMemoryArtifactsCache(InMemoryCacheStats stats) {
+        this(new HashMap<ComponentArtifactIdentifier, CachedArtifactFile>(), InMemoryCacheExpiry.BUILD_SCOPED, stats);
+    }
+
+    InMemoryArtifactsCache(Map<ComponentArtifactIdentifier, CachedArtifactFile> artifacts, InMemoryCacheExpiry expiry, InMemoryCacheStats stats) {
+        this.artifacts = artifacts;
+        this.expiry = expiry;
         this.stats = stats;
     }
 
-    public boolean supplyArtifact(ComponentArtifactIdentifier id, BuildableArtifactResolveResult result) {
-        File fromCache = artifacts.get(id);
-        if (fromCache != null) {
-            result.resolved(fromCache);
-            stats.artifactsServed++;
-            return true;
+    public boolean supplyArtifact(ComponentArtifactIdentifier id, ModuleSource moduleSource, BuildableArtifactResolveResult result) {
+        CachedArtifactFile fromCache = artifacts.get(id);
+        if (fromCache == null) {
+            stats.misses++;
+            return false;
+        }
+        if (!expiry.isRecordedByThisBuild(fromCache.getBuildGeneration())) {
+            if (expiry.mustRefreshArtifact(id, moduleSource, fromCache)) {
+                stats.expired++;
+                stats.misses++;
+                return false;
+            }
+            stats.servedFromEarlierBuilds++;
         }
-        return false;
+        result.resolved(fromCache.getFile());
+        stats.artifactsServed++;
+        return true;
     }
 
-    public void newArtifact(ComponentArtifactIdentifier id, BuildableArtifactResolveResult result) {
+    public void newArtifact(ComponentArtifactIdentifier id, ModuleSource moduleSource, BuildableArtifactResolveResult result) {
         if (result.hasResult() && result.getFailure() == null) {
-            artifacts.put(id, result.getFile());
+            artifacts.put(id, toCachedArtifact(moduleSource, result));
+        }
+    }
+
+    private CachedArtifactFile toCachedArtifact(ModuleSource moduleSource, BuildableArtifactResolveResult result) {
+        if (!expiry.isCrossBuild() || !(moduleSource instanceof CachingModuleComponentRepository.CachingModuleSource)) {
+            return new CachedArtifactFile(result.getFile(), null, false, expiry.getBuildGeneration(), InMemoryCacheExpiry.NOT_REUSABLE);
         }
+        CachingModuleComponentRepository.CachingModuleSource cachingModuleSource = (CachingModuleComponentRepository.CachingModuleSource) moduleSource;
+        BigInteger descriptorHash = cachingModuleSource.getDescriptorHash();
+        // The age of the file is counted from this build, which found it in the module cache or downloaded it
+        return new CachedArtifactFile(result.getFile(), descriptorHash, cachingModuleSource.isChangingModule(), expiry.getBuildGeneration(), expiry.getBuildStartTime());
     }
 }
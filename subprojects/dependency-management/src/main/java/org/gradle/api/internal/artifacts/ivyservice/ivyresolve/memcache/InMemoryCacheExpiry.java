@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.Transformer;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultArtifactIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
+import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.DefaultResolvedModuleVersion;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.CachingModuleComponentRepository;
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.util.CollectionUtils;
+
+import java.util.Set;
+
+/**
+ * Decides whether an entry of the in-memory caches can be served to the current build.
+ *
+ * Entries recorded by the current build are always served. Entries recorded by an earlier build in the same daemon are only
+ * served when the time at which they were fetched from the repository is known, and the cache policy of the resolve does not
+ * require them to be refreshed.
+ */
+class InMemoryCacheExpiry {
+    static final long NOT_REUSABLE = -1;
+    static final InMemoryCacheExpiry BUILD_SCOPED = new InMemoryCacheExpiry(0, 0, null);
+
+    private final long buildGeneration;
+    private final long buildStartTime;
+    private final CachePolicy cachePolicy;
+
+    InMemoryCacheExpiry(long buildGeneration, long buildStartTime, @Nullable CachePolicy cachePolicy) {
+        this.buildGeneration = buildGeneration;
+        this.buildStartTime = buildStartTime;
+        this.cachePolicy = cachePolicy;
+    }
+
+    long getBuildGeneration() {
+        return buildGeneration;
+    }
+
+    long getBuildStartTime() {
+        return buildStartTime;
+    }
+
+    boolean isCrossBuild() {
+        return cachePolicy != null;
+    }
+
+    boolean isRecordedByThisBuild(long generation) {
+        return generation == buildGeneration;
+    }
+
+    boolean mustRefreshVersionList(ModuleVersionSelector requested, CachedModuleVersionListing cached) {
+        if (cachePolicy == null || cached.getCachedAt() == NOT_REUSABLE) {
+            return true;
+        }
+        final ModuleIdentifier moduleId = DefaultModuleIdentifier.newId(requested.getGroup(), requested.getName());
+        Set<ModuleVersionIdentifier> versions = CollectionUtils.collect(cached.getVersions(), new Transformer<ModuleVersionIdentifier, String>() {
+            public ModuleVersionIdentifier transform(String original) {
+                return new DefaultModuleVersionIdentifier(moduleId, original);
+            }
+        });
+        return cachePolicy.mustRefreshVersionList(moduleId, versions, buildStartTime - cached.getCachedAt());
+    }
+
+    boolean mustRefreshModule(ModuleComponentIdentifier id, boolean changingRequested, CachedModuleVersionResult cached) {
+        if (cachePolicy == null || cached.getCachedAt() == NOT_REUSABLE) {
+            return true;
+        }
+        long age = buildStartTime - cached.getCachedAt();
+        if (cached.isMissing()) {
+            return cachePolicy.mustRefreshMissingModule(id, age);
+        }
+        DefaultResolvedModuleVersion version = new DefaultResolvedModuleVersion(DefaultModuleVersionIdentifier.newId(id));
+        if (changingRequested || cached.isChanging()) {
+            return cachePolicy.mustRefreshChangingModule(id, version, age);
+        }
+        return cachePolicy.mustRefreshModule(id, version, age);
+    }
+
+    boolean mustRefreshArtifact(ComponentArtifactIdentifier id, ModuleSource moduleSource, CachedArtifactFile cached) {
+        if (cachePolicy == null || cached.getCachedAt() == NOT_REUSABLE
+                || !(moduleSource instanceof CachingModuleComponentRepository.CachingModuleSource)
+                || !(id instanceof DefaultModuleComponentArtifactIdentifier)) {
+            return true;
+        }
+        CachingModuleComponentRepository.CachingModuleSource cachingModuleSource = (CachingModuleComponentRepository.CachingModuleSource) moduleSource;
+        // The artifacts of changing modules are only reused within a build
+        if (cached.isChanging() || cachingModuleSource.isChangingModule()) {
+            return true;
+        }
+        if (!cachingModuleSource.getDescriptorHash().equals(cached.getDescriptorHash()) || !cached.isUnchangedOnDisk()) {
+            return true;
+        }
+        return cachePolicy.mustRefreshArtifact(new DefaultArtifactIdentifier((DefaultModuleComponentArtifactIdentifier) id), cached.getFile(), buildStartTime - cached.getCachedAt(), false, true);
+    }
+}
@@ -21,9 +21,30 @@ class InMemoryCacheStats {
     int reposWrapped;
     int metadataServed;
     int artifactsServed;
+    int listingsServed;
+    int misses;
+    int servedFromEarlierBuilds;
+    int expired;
+
+    void add(InMemoryCacheStats other) {
+        cacheInstances += other.cacheInstances;
+        reposWrapped += other.reposWrapped;
+        metadataServed += other.metadataServed;
+        artifactsServed += other.artifactsServed;
+        listingsServed += other.listingsServed;
+        misses += other.misses;
+        servedFromEarlierBuilds += other.servedFromEarlierBuilds;
+        expired += other.expired;
+    }
+
+    int getHitRatePercent() {
+        int hits = metadataServed + artifactsServed + listingsServed;
+        return hits + misses == 0 ? 0 : (int) (100L * hits / (hits + misses));
+    }
+
     public String toString() {
         return String.format(
-                "Repos cached: %s, cache instances: %s, modules served from cache: %s, artifacts: %s",
-                reposWrapped, cacheInstances, metadataServed, artifactsServed);
+                "Repos cached: %s, cache instances: %s, modules served from cache: %s, artifacts: %s, version listings: %s, misses: %s, hit rate: %s%%, served from earlier builds: %s, expired: %s",
+                reposWrapped, cacheInstances, metadataServed, artifactsServed, listingsServed, misses, getHitRatePercent(), servedFromEarlierBuilds, expired);
     }
 }
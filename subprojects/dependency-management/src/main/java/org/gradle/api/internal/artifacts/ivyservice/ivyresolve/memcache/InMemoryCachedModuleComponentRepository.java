@@ -71,16 +71,16 @@ class InMemoryCachedModuleComponentRepository extends BaseModuleComponentReposit
         }
 
         public void resolveComponentMetaData(ModuleComponentIdentifier moduleComponentIdentifier, ComponentOverrideMetadata requestMetaData, BuildableModuleComponentMetaDataResolveResult result) {
-            if(!metaDataCache.supplyMetaData(moduleComponentIdentifier, result)) {
+            if(!metaDataCache.supplyMetaData(moduleComponentIdentifier, requestMetaData, result)) {
                 super.resolveComponentMetaData(moduleComponentIdentifier, requestMetaData, result);
                 metaDataCache.newDependencyResult(moduleComponentIdentifier, result);
             }
         }
 
         public void resolveArtifact(ComponentArtifactMetaData artifact, ModuleSource moduleSource, BuildableArtifactResolveResult result) {
-            if (!artifactsCache.supplyArtifact(artifact.getId(), result)) {
+            if (!artifactsCache.supplyArtifact(artifact.getId(), moduleSource, result)) {
                 super.resolveArtifact(artifact, moduleSource, result);
-                artifactsCache.newArtifact(artifact.getId(), result);
+                artifactsCache.newArtifact(artifact.getId(), moduleSource, result);
             }
         }
     }
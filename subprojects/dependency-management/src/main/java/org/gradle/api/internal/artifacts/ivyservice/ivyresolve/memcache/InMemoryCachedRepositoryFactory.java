@@ -17,15 +17,21 @@
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache;
 
 import com.google.common.collect.MapMaker;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.util.BuildCommencedTimeProvider;
 
 import java.util.Map;
 
 /**
  * Caches the dependency metadata (descriptors, artifact files) in memory.
+ *
+ * The caches are discarded at the end of the build, unless cross-build caches are provided. In that case, the caches of repositories that
+ * are backed by the module cache are kept for the following builds in the daemon.
  */
 public class InMemoryCachedRepositoryFactory implements Stoppable {
 
@@ -37,6 +43,38 @@ public class InMemoryCachedRepositoryFactory implements Stoppable {
 
     final InMemoryCacheStats stats = new InMemoryCacheStats();
 
+    private final CrossBuildInMemoryRepositoryCaches crossBuildCaches;
+    private final BuildCommencedTimeProvider timeProvider;
+    private final long buildGeneration;
+
+    public InMemoryCachedRepositoryFactory() {
+        this(null, null);
+    }
+
+    public InMemoryCachedRepositoryFactory(@Nullable CrossBuildInMemoryRepositoryCaches crossBuildCaches, @Nullable BuildCommencedTimeProvider timeProvider) {
+        this.crossBuildCaches = crossBuildCaches;
+        this.timeProvider = timeProvider;
+        this.buildGeneration = crossBuildCaches == null ? 0 : crossBuildCaches.nextBuildGeneration();
+    }
+
+    /**
+     * Wraps a repository whose results are backed by the module cache. The cached results can be reused by later builds, for as long as the given
+     * cache policy does not require them to be refreshed.
+     */
+    public ModuleComponentRepository cached(ModuleComponentRepository input, CachePolicy cachePolicy) {
+        if (crossBuildCaches == null) {
+            return cached(input);
+        }
+        if ("false".equalsIgnoreCase(System.getProperty(TOGGLE_PROPERTY))) {
+            return input;
+        }
+
+        stats.reposWrapped++;
+        LOG.debug("Using cross-build in-memory cache for repo '{}' [{}].", input.getName(), input.getId());
+        InMemoryCacheExpiry expiry = new InMemoryCacheExpiry(buildGeneration, timeProvider.getCurrentTime(), cachePolicy);
+        return new InMemoryCachedModuleComponentRepository(crossBuildCaches.createCaches(input.getId(), expiry, stats), input);
+    }
+
     public ModuleComponentRepository cached(ModuleComponentRepository input) {
         if ("false".equalsIgnoreCase(System.getProperty(TOGGLE_PROPERTY))) {
             return input;
@@ -58,5 +96,8 @@ public class InMemoryCachedRepositoryFactory implements Stoppable {
     public void stop() {
         cachePerRepo.clear();
         LOG.debug("In-memory dependency metadata cache closed. {}", stats);
+        if (crossBuildCaches != null) {
+            crossBuildCaches.buildFinished(stats);
+        }
     }
 }
@@ -18,53 +18,88 @@ package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache;
 
 import org.gradle.api.artifacts.ModuleVersionSelector;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
 import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
 import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 
 import static org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult.State.Listed;
 
 class InMemoryMetaDataCache {
-    private final Map<ModuleVersionSelector, Set<String>> moduleVersionListing = new HashMap<ModuleVersionSelector, Set<String>>();
-    private final Map<ModuleComponentIdentifier, CachedModuleVersionResult> metaData = new HashMap<ModuleComponentIdentifier, CachedModuleVersionResult>();
+    private final Map<ModuleVersionSelector, CachedModuleVersionListing> moduleVersionListing;
+    private final Map<ModuleComponentIdentifier, CachedModuleVersionResult> metaData;
+    private final InMemoryCacheExpiry expiry;
     private InMemoryCacheStats stats;
 
     InMemoryMetaDataCache(InMemoryCacheStats stats) {
+        this(new HashMap<ModuleVersionSelector, CachedModuleVersionListing>(), new HashMap<ModuleComponentIdentifier, CachedModuleVersionResult>(), InMemoryCacheExpiry.BUILD_SCOPED, stats);
+    }
+
+    InMemoryMetaDataCache(Map<ModuleVersionSelector, CachedModuleVersionListing> moduleVersionListing, Map<ModuleComponentIdentifier, CachedModuleVersionResult> metaData,
+                          InMemoryCacheExpiry expiry, InMemoryCacheStats stats) {
+        this.moduleVersionListing = moduleVersionListing;
+        this.metaData = metaData;
+        this.expiry = expiry;
         this.stats = stats;
     }
 
     public boolean supplyModuleVersions(ModuleVersionSelector requested, BuildableModuleVersionListingResolveResult result) {
-        Set<String> versions = moduleVersionListing.get(requested);
-        if (versions == null) {
+        CachedModuleVersionListing fromCache = moduleVersionListing.get(requested);
+        if (fromCache == null) {
+            stats.misses++;
+            return false;
+        }
+        boolean recordedByThisBuild = expiry.isRecordedByThisBuild(fromCache.getBuildGeneration());
+        if (!recordedByThisBuild && expiry.mustRefreshVersionList(requested, fromCache)) {
+            stats.expired++;
+            stats.misses++;
             return false;
         }
-        result.listed(versions);
+        result.listed(fromCache.getVersions());
+        if (!recordedByThisBuild) {
+            // Not verified since the start of this build
+            result.setAuthoritative(false);
+            stats.servedFromEarlierBuilds++;
+        }
+        stats.listingsServed++;
         return true;
     }
 
     public void newModuleVersions(ModuleVersionSelector requested, BuildableModuleVersionListingResolveResult result) {
         if (result.getState() == Listed) {
-            moduleVersionListing.put(requested, result.getVersions());
+            // Only a listing that was verified during this build has a known age
+            long cachedAt = result.isAuthoritative() ? expiry.getBuildStartTime() : InMemoryCacheExpiry.NOT_REUSABLE;
+            moduleVersionListing.put(requested, new CachedModuleVersionListing(result.getVersions(), expiry.getBuildGeneration(), cachedAt));
         }
     }
 
-    boolean supplyMetaData(ModuleComponentIdentifier requested, BuildableModuleComponentMetaDataResolveResult result) {
+    boolean supplyMetaData(ModuleComponentIdentifier requested, ComponentOverrideMetadata requestMetaData, BuildableModuleComponentMetaDataResolveResult result) {
         CachedModuleVersionResult fromCache = metaData.get(requested);
         if (fromCache == null) {
+            stats.misses++;
+            return false;
+        }
+        boolean recordedByThisBuild = expiry.isRecordedByThisBuild(fromCache.getBuildGeneration());
+        if (!recordedByThisBuild && expiry.mustRefreshModule(requested, requestMetaData.isChanging(), fromCache)) {
+            stats.expired++;
+            stats.misses++;
             return false;
         }
         fromCache.supply(result);
+        if (!recordedByThisBuild) {
+            result.setAuthoritative(false);
+            stats.servedFromEarlierBuilds++;
+        }
         stats.metadataServed++;
         return true;
     }
 
     void newDependencyResult(ModuleComponentIdentifier requested, BuildableModuleComponentMetaDataResolveResult result) {
-        CachedModuleVersionResult cachedResult = new CachedModuleVersionResult(result);
+        CachedModuleVersionResult cachedResult = new CachedModuleVersionResult(result, expiry);
         if (cachedResult.isCacheable()) {
             metaData.put(requested, cachedResult);
         }
     }
-}
\ No newline at end of file
+}
@@ -15,10 +15,20 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.component.ArtifactType;
 import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
 
+import java.util.concurrent.ConcurrentMap;
+
 public interface DescriptorParseContext {
     LocallyAvailableExternalResource getMetaDataArtifact(ModuleComponentIdentifier componentIdentifier, ArtifactType artifactType);
+
+    /**
+     * Returns the parent and imported POMs that have already been parsed using this context, so that they can be reused by other POMs that refer to them.
+     * Returns null when parsed POMs should not be reused.
+     */
+    @Nullable
+    ConcurrentMap<ModuleComponentIdentifier, PomReader> getParsedPoms();
 }
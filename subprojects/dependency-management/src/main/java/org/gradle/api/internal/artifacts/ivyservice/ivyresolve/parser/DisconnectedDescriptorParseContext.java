@@ -20,6 +20,8 @@ import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.component.ArtifactType;
 import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
 
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * An implementation of {@link DescriptorParseContext} that is useful for parsing an ivy.xml file without attempting to download
  * other resources from a DependencyResolver.
@@ -30,4 +32,8 @@ public class DisconnectedDescriptorParseContext implements DescriptorParseContex
         throw new UnsupportedOperationException();
     }
 
+    public ConcurrentMap<ModuleComponentIdentifier, PomReader> getParsedPoms() {
+        return null;
+    }
+
 }
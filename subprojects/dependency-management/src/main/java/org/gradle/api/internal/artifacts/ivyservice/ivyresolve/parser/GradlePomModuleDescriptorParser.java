@@ -39,6 +39,7 @@ import java.text.ParseException;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * This based on a copy of org.apache.ivy.plugins.parser.m2.PomModuleDescriptorParser, but now heavily refactored.
@@ -199,7 +200,7 @@ public final class GradlePomModuleDescriptorParser extends AbstractModuleDescrip
     }
 
     /**
-     * Parses other POM.
+     * Parses other POM. A POM that has already been parsed using the given context is reused.
      *
      * @param parseContext Parse context
      * @param parentId Parent module revision ID
@@ -208,10 +209,28 @@ public final class GradlePomModuleDescriptorParser extends AbstractModuleDescrip
      * @throws SAXException
      */
     private PomReader parseOtherPom(DescriptorParseContext parseContext, ModuleComponentIdentifier parentId) throws IOException, SAXException {
+        ConcurrentMap<ModuleComponentIdentifier, PomReader> parsedPoms = parseContext.getParsedPoms();
+        if (parsedPoms != null) {
+            PomReader parsed = parsedPoms.get(parentId);
+            if (parsed != null) {
+                return parsed;
+            }
+        }
+
         LocallyAvailableExternalResource localResource = parseContext.getMetaDataArtifact(parentId, ArtifactType.MAVEN_POM);
         PomReader pomReader = new PomReader(localResource);
         GradlePomModuleDescriptorBuilder mdBuilder = new GradlePomModuleDescriptorBuilder(pomReader, gradleVersionSelectorScheme, mavenVersionSelectorScheme);
         doParsePom(parseContext, mdBuilder, pomReader);
+
+        if (parsedPoms != null) {
+            // Resolve the lazily calculated state up front, so that the reader is not modified once it is shared
+            pomReader.getDependencies();
+            pomReader.getDependencyMgt();
+            PomReader existing = parsedPoms.putIfAbsent(parentId, pomReader);
+            if (existing != null) {
+                return existing;
+            }
+        }
         return pomReader;
     }
 }
@@ -16,39 +16,49 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
 
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
+import org.xml.sax.Attributes;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
+/**
+ * Reads a POM into a tree of {@link PomElement}s. The tree is built while streaming through the POM, and only keeps the element names and their text.
+ */
 public final class PomDomParser {
     private PomDomParser() {}
 
-    public static String getTextContent(Element element) {
-        StringBuilder result = new StringBuilder();
-
-        NodeList childNodes = element.getChildNodes();
-        for (int i = 0; i < childNodes.getLength(); i++) {
-            Node child = childNodes.item(i);
-
-            switch (child.getNodeType()) {
-                case Node.CDATA_SECTION_NODE:
-                case Node.TEXT_NODE:
-                    result.append(child.getNodeValue());
-                    break;
-                default:
-                    break;
-            }
+    public static PomElement parse(InputStream stream, String systemId, EntityResolver entityResolver) throws IOException, SAXException {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setValidating(false);
+        SAXParser parser;
+        try {
+            parser = factory.newSAXParser();
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
         }
+        TreeBuilder treeBuilder = new TreeBuilder(entityResolver);
+        InputSource inputSource = new InputSource(new AddDTDFilterInputStream(stream));
+        inputSource.setSystemId(systemId);
+        parser.parse(inputSource, treeBuilder);
+        return treeBuilder.root;
+    }
 
-        return result.toString();
+    public static String getTextContent(PomElement element) {
+        return element.getText();
     }
 
-    public static String getFirstChildText(Element parentElem, String name) {
-        Element node = getFirstChildElement(parentElem, name);
+    public static String getFirstChildText(PomElement parentElem, String name) {
+        PomElement node = getFirstChildElement(parentElem, name);
         if (node != null) {
             return getTextContent(node);
         } else {
@@ -56,34 +66,113 @@ public final class PomDomParser {
         }
     }
 
-    public static Element getFirstChildElement(Element parentElem, String name) {
+    public static PomElement getFirstChildElement(PomElement parentElem, String name) {
         if (parentElem == null) {
             return null;
         }
-        NodeList childs = parentElem.getChildNodes();
-        for (int i = 0; i < childs.getLength(); i++) {
-            Node node = childs.item(i);
-            if (node instanceof Element && name.equals(node.getNodeName())) {
-                return (Element) node;
+        for (PomElement child : parentElem.getChildren()) {
+            if (name.equals(child.getName())) {
+                return child;
             }
         }
         return null;
     }
 
-    public static List<Element> getAllChilds(Element parent) {
-        List<Element> r = new LinkedList<Element>();
+    public static List<PomElement> getAllChilds(PomElement parent) {
+        List<PomElement> r = new LinkedList<PomElement>();
         if (parent != null) {
-            NodeList childs = parent.getChildNodes();
-            for (int i = 0; i < childs.getLength(); i++) {
-                Node node = childs.item(i);
-                if (node instanceof Element) {
-                    r.add((Element) node);
-                }
-            }
+            r.addAll(parent.getChildren());
         }
         return r;
     }
 
+    /**
+     * An element of a POM, with its text content and its child elements.
+     */
+    public static final class PomElement {
+        private final String name;
+        private String text = "";
+        private List<PomElement> children = Collections.emptyList();
+
+        PomElement(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the concatenated text and CDATA sections directly contained in this element.
+         */
+        public String getText() {
+            return text;
+        }
+
+        public List<PomElement> getChildren() {
+            return children;
+        }
+
+        private void addChild(PomElement child) {
+            if (children.isEmpty()) {
+                children = new ArrayList<PomElement>(4);
+            }
+            children.add(child);
+        }
+    }
+
+    private static class TreeBuilder extends DefaultHandler {
+        private final EntityResolver entityResolver;
+        private final List<PomElement> elements = new ArrayList<PomElement>();
+        private final List<StringBuilder> texts = new ArrayList<StringBuilder>();
+        private PomElement root;
+
+        TreeBuilder(EntityResolver entityResolver) {
+            this.entityResolver = entityResolver;
+        }
+
+        @Override
+        public InputSource resolveEntity(String publicId, String systemId) throws IOException, SAXException {
+            return entityResolver.resolveEntity(publicId, systemId);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            PomElement element = new PomElement(qName);
+            if (elements.isEmpty()) {
+                root = element;
+            } else {
+                elements.get(elements.size() - 1).addChild(element);
+            }
+            elements.add(element);
+            texts.add(null);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            int current = texts.size() - 1;
+            if (current < 0) {
+                return;
+            }
+            StringBuilder text = texts.get(current);
+            if (text == null) {
+                text = new StringBuilder(length);
+                texts.set(current, text);
+            }
+            text.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            int current = elements.size() - 1;
+            PomElement element = elements.remove(current);
+            StringBuilder text = texts.remove(current);
+            if (text != null) {
+                element.text = text.toString();
+            }
+        }
+    }
+
     public static final class AddDTDFilterInputStream extends FilterInputStream {
         private static final int MARK = 10000;
         private static final String DOCTYPE = "<!DOCTYPE project SYSTEM \"m2-entities.ent\">\n";
@@ -18,9 +18,12 @@ package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.DescriptorParseContext;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.PomReader;
 import org.gradle.api.internal.component.ArtifactType;
 import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
 
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * Context used for parsing cached module descriptor files.
  * Will only be used for parsing ivy.xml files, as pom files are converted before caching.
@@ -29,4 +32,8 @@ class CachedModuleDescriptorParseContext implements DescriptorParseContext {
     public LocallyAvailableExternalResource getMetaDataArtifact(ModuleComponentIdentifier componentIdentifier, ArtifactType artifactType) {
         throw new UnsupportedOperationException();
     }
+
+    public ConcurrentMap<ModuleComponentIdentifier, PomReader> getParsedPoms() {
+        return null;
+    }
 }
@@ -36,6 +36,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
+    public static final String BINARY_DESCRIPTORS_TOGGLE = "org.gradle.cache.binarydescriptors";
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultModuleMetaDataCache.class);
 
     private final BuildCommencedTimeProvider timeProvider;
@@ -45,10 +46,15 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
     private PersistentIndexedCache<RevisionKey, ModuleDescriptorCacheEntry> cache;
 
     public DefaultModuleMetaDataCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, ResolverStrategy resolverStrategy) {
+        this(timeProvider, cacheLockingManager, resolverStrategy, false);
+    }
+
+    public DefaultModuleMetaDataCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, ResolverStrategy resolverStrategy, boolean useBinaryDescriptors) {
         this.timeProvider = timeProvider;
         this.cacheLockingManager = cacheLockingManager;
 
-        moduleDescriptorStore = new ModuleDescriptorStore(new PathKeyFileStore(cacheLockingManager.createMetaDataStore()), new IvyXmlModuleDescriptorWriter(), new IvyXmlModuleDescriptorParser(resolverStrategy));
+        ModuleDescriptorSerializer binaryDescriptorSerializer = useBinaryDescriptors ? new ModuleDescriptorSerializer(resolverStrategy) : null;
+        moduleDescriptorStore = new ModuleDescriptorStore(new PathKeyFileStore(cacheLockingManager.createMetaDataStore()), new IvyXmlModuleDescriptorWriter(), new IvyXmlModuleDescriptorParser(resolverStrategy), binaryDescriptorSerializer);
     }
 
     private PersistentIndexedCache<RevisionKey, ModuleDescriptorCacheEntry> getCache() {
@@ -70,7 +76,7 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
         if (entry.isMissing()) {
             return new DefaultCachedMetaData(entry, null, timeProvider);
         }
-        ModuleDescriptor descriptor = moduleDescriptorStore.getModuleDescriptor(repository, componentId);
+        ModuleDescriptor descriptor = moduleDescriptorStore.getModuleDescriptor(repository, componentId, entry.moduleDescriptorHash);
         if (descriptor == null) {
             // Descriptor file has been deleted - ignore the entry
             return null;
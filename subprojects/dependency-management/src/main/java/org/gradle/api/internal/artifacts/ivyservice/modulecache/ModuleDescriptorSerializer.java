@@ -0,0 +1,430 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.apache.ivy.core.module.descriptor.*;
+import org.apache.ivy.core.module.id.ArtifactId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorParser;
+import org.gradle.api.internal.artifacts.ivyservice.IvyUtil;
+import org.gradle.api.internal.artifacts.ivyservice.NamespaceId;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.ResolverStrategy;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * A compact binary form of a cached {@link ModuleDescriptor}, which can be read back without any XML parsing.
+ *
+ * <p>Covers the same information that {@link org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter} persists for a descriptor,
+ * so a descriptor read from this form is equivalent to one parsed from the cached ivy.xml.</p>
+ */
+public class ModuleDescriptorSerializer implements Serializer<ModuleDescriptor> {
+    /**
+     * The version of the serialized form. Must be incremented whenever the serialized form, or the way the ivy.xml parser builds a descriptor, changes.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private final ResolverStrategy resolverStrategy;
+    private final Field dependencyConfigField;
+
+    public ModuleDescriptorSerializer(ResolverStrategy resolverStrategy) {
+        this.resolverStrategy = resolverStrategy;
+        try {
+            dependencyConfigField = DefaultDependencyDescriptor.class.getDeclaredField("confs");
+        } catch (NoSuchFieldException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        dependencyConfigField.setAccessible(true);
+    }
+
+    public void write(Encoder encoder, ModuleDescriptor md) throws Exception {
+        writeStringMap(encoder, md.getExtraAttributesNamespaces());
+        writeModuleRevisionId(encoder, md.getModuleRevisionId());
+        boolean resolvedIdDiffers = !md.getResolvedModuleRevisionId().equals(md.getModuleRevisionId());
+        encoder.writeBoolean(resolvedIdDiffers);
+        if (resolvedIdDiffers) {
+            writeModuleRevisionId(encoder, md.getResolvedModuleRevisionId());
+        }
+        encoder.writeNullableString(md.getStatus());
+        encoder.writeBoolean(md.isDefault());
+        writeNullableDate(encoder, md.getPublicationDate());
+        writeNullableDate(encoder, md.getResolvedPublicationDate());
+        encoder.writeLong(md.getLastModified());
+        encoder.writeNullableString(md.getHomePage());
+        encoder.writeNullableString(md.getDescription());
+
+        License[] licenses = md.getLicenses();
+        encoder.writeSmallInt(licenses.length);
+        for (License license : licenses) {
+            encoder.writeNullableString(license.getName());
+            encoder.writeNullableString(license.getUrl());
+        }
+
+        Map<?, ?> extraInfo = md.getExtraInfo();
+        encoder.writeSmallInt(extraInfo.size());
+        for (Map.Entry<?, ?> entry : extraInfo.entrySet()) {
+            if (entry.getKey() instanceof NamespaceId) {
+                NamespaceId id = (NamespaceId) entry.getKey();
+                encoder.writeBoolean(true);
+                encoder.writeNullableString(id.getNamespace());
+                encoder.writeString(id.getName());
+            } else {
+                encoder.writeBoolean(false);
+                encoder.writeString(entry.getKey().toString());
+            }
+            encoder.writeNullableString(entry.getValue() == null ? null : entry.getValue().toString());
+        }
+
+        Configuration[] configurations = md.getConfigurations();
+        encoder.writeSmallInt(configurations.length);
+        for (Configuration configuration : configurations) {
+            encoder.writeString(configuration.getName());
+            encoder.writeString(configuration.getVisibility().toString());
+            encoder.writeNullableString(configuration.getDescription());
+            writeStrings(encoder, configuration.getExtends());
+            encoder.writeBoolean(configuration.isTransitive());
+            encoder.writeNullableString(configuration.getDeprecated());
+            writeStringMap(encoder, configuration.getQualifiedExtraAttributes());
+        }
+
+        Artifact[] artifacts = md.getAllArtifacts();
+        encoder.writeSmallInt(artifacts.length);
+        for (Artifact artifact : artifacts) {
+            encoder.writeString(artifact.getName());
+            encoder.writeString(artifact.getType());
+            encoder.writeString(artifact.getExt());
+            writeStrings(encoder, artifact.getConfigurations());
+            writeStringMap(encoder, artifact.getQualifiedExtraAttributes());
+        }
+
+        DependencyDescriptor[] dependencies = md.getDependencies();
+        encoder.writeSmallInt(dependencies.length);
+        for (DependencyDescriptor dependency : dependencies) {
+            writeDependency(encoder, dependency);
+        }
+
+        writeExcludeRules(encoder, md.getAllExcludeRules());
+    }
+
+    public ModuleDescriptor read(Decoder decoder) throws Exception {
+        DefaultModuleDescriptor md = new DefaultModuleDescriptor(XmlModuleDescriptorParser.getInstance(), null);
+        for (Map.Entry<String, String> namespace : readStringMap(decoder).entrySet()) {
+            md.addExtraAttributeNamespace(namespace.getKey(), namespace.getValue());
+        }
+        md.setModuleRevisionId(readModuleRevisionId(decoder));
+        if (decoder.readBoolean()) {
+            md.setResolvedModuleRevisionId(readModuleRevisionId(decoder));
+        }
+        md.setStatus(decoder.readNullableString());
+        md.setDefault(decoder.readBoolean());
+        Date publicationDate = readNullableDate(decoder);
+        if (publicationDate != null) {
+            md.setPublicationDate(publicationDate);
+        }
+        Date resolvedPublicationDate = readNullableDate(decoder);
+        if (resolvedPublicationDate != null) {
+            md.setResolvedPublicationDate(resolvedPublicationDate);
+        }
+        md.setLastModified(decoder.readLong());
+        md.setHomePage(decoder.readNullableString());
+        md.setDescription(decoder.readNullableString());
+
+        int licenseCount = decoder.readSmallInt();
+        for (int i = 0; i < licenseCount; i++) {
+            md.addLicense(new License(decoder.readNullableString(), decoder.readNullableString()));
+        }
+
+        Map extraInfo = md.getExtraInfo();
+        int extraInfoCount = decoder.readSmallInt();
+        for (int i = 0; i < extraInfoCount; i++) {
+            Object key = decoder.readBoolean() ? new NamespaceId(decoder.readNullableString(), decoder.readString()) : decoder.readString();
+            extraInfo.put(key, decoder.readNullableString());
+        }
+
+        int configurationCount = decoder.readSmallInt();
+        for (int i = 0; i < configurationCount; i++) {
+            String name = decoder.readString();
+            Configuration.Visibility visibility = Configuration.Visibility.getVisibility(decoder.readString());
+            String description = decoder.readNullableString();
+            String[] extendsFrom = readStrings(decoder);
+            boolean transitive = decoder.readBoolean();
+            String deprecated = decoder.readNullableString();
+            Configuration configuration = new Configuration(name, visibility, description, extendsFrom, transitive, deprecated);
+            for (Map.Entry<String, String> attribute : readStringMap(decoder).entrySet()) {
+                configuration.setExtraAttribute(attribute.getKey(), attribute.getValue());
+            }
+            md.addConfiguration(configuration);
+        }
+
+        int artifactCount = decoder.readSmallInt();
+        for (int i = 0; i < artifactCount; i++) {
+            String name = decoder.readString();
+            String type = decoder.readString();
+            String ext = decoder.readString();
+            String[] configurations = readStrings(decoder);
+            MDArtifact artifact = new MDArtifact(md, name, type, ext, null, readStringMap(decoder));
+            for (String configuration : configurations) {
+                artifact.addConfiguration(configuration);
+                md.addArtifact(configuration, artifact);
+            }
+        }
+
+        int dependencyCount = decoder.readSmallInt();
+        for (int i = 0; i < dependencyCount; i++) {
+            md.addDependency(readDependency(decoder, md));
+        }
+
+        int excludeRuleCount = decoder.readSmallInt();
+        for (int i = 0; i < excludeRuleCount; i++) {
+            md.addExcludeRule(readExcludeRule(decoder));
+        }
+        return md;
+    }
+
+    private void writeDependency(Encoder encoder, DependencyDescriptor dependency) throws Exception {
+        ModuleRevisionId revisionId = dependency.getDependencyRevisionId();
+        writeModuleRevisionId(encoder, revisionId);
+        ModuleRevisionId dynamicId = dependency.getDynamicConstraintDependencyRevisionId();
+        boolean hasConstraint = !dynamicId.equals(revisionId);
+        encoder.writeBoolean(hasConstraint);
+        if (hasConstraint) {
+            encoder.writeNullableString(dynamicId.getBranch());
+            encoder.writeNullableString(dynamicId.getRevision());
+        }
+        encoder.writeBoolean(dependency.isForce());
+        encoder.writeBoolean(dependency.isChanging());
+        encoder.writeBoolean(dependency.isTransitive());
+
+        String[] moduleConfigurations = dependency.getModuleConfigurations();
+        Map<String, List<String>> configMappings = getConfigMappings(dependency);
+        encoder.writeSmallInt(moduleConfigurations.length);
+        for (String moduleConfiguration : moduleConfigurations) {
+            encoder.writeString(moduleConfiguration);
+            List<String> dependencyConfigurations = configMappings.get(moduleConfiguration);
+            writeStrings(encoder, dependencyConfigurations.toArray(new String[dependencyConfigurations.size()]));
+        }
+
+        DependencyArtifactDescriptor[] dependencyArtifacts = dependency.getAllDependencyArtifacts();
+        encoder.writeSmallInt(dependencyArtifacts.length);
+        for (DependencyArtifactDescriptor dependencyArtifact : dependencyArtifacts) {
+            encoder.writeString(dependencyArtifact.getName());
+            encoder.writeString(dependencyArtifact.getType());
+            encoder.writeString(dependencyArtifact.getExt());
+            writeStrings(encoder, dependencyArtifact.getConfigurations());
+            writeStringMap(encoder, dependencyArtifact.getQualifiedExtraAttributes());
+        }
+
+        IncludeRule[] includeRules = dependency.getAllIncludeRules();
+        encoder.writeSmallInt(includeRules.length);
+        for (IncludeRule includeRule : includeRules) {
+            writeRule(encoder, includeRule.getId(), includeRule.getMatcher(), includeRule.getConfigurations(), includeRule.getQualifiedExtraAttributes());
+        }
+
+        writeExcludeRules(encoder, dependency.getAllExcludeRules());
+    }
+
+    private DependencyDescriptor readDependency(Decoder decoder, ModuleDescriptor md) throws Exception {
+        ModuleRevisionId revisionId = readModuleRevisionId(decoder);
+        ModuleRevisionId dynamicId;
+        if (decoder.readBoolean()) {
+            String branchConstraint = decoder.readNullableString();
+            String revisionConstraint = decoder.readNullableString();
+            if (branchConstraint == null) {
+                dynamicId = IvyUtil.createModuleRevisionId(revisionId.getOrganisation(), revisionId.getName(), null, revisionConstraint, revisionId.getQualifiedExtraAttributes(), false);
+            } else {
+                dynamicId = IvyUtil.createModuleRevisionId(revisionId.getOrganisation(), revisionId.getName(), branchConstraint, revisionConstraint, revisionId.getQualifiedExtraAttributes());
+            }
+        } else {
+            dynamicId = IvyUtil.createModuleRevisionId(revisionId.getOrganisation(), revisionId.getName(), revisionId.getBranch(), revisionId.getRevision(), revisionId.getQualifiedExtraAttributes(), false);
+        }
+        boolean force = decoder.readBoolean();
+        boolean changing = decoder.readBoolean();
+        boolean transitive = decoder.readBoolean();
+        DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(md, revisionId, dynamicId, force, changing, transitive);
+
+        int moduleConfigurationCount = decoder.readSmallInt();
+        for (int i = 0; i < moduleConfigurationCount; i++) {
+            String moduleConfiguration = decoder.readString();
+            for (String dependencyConfiguration : readStrings(decoder)) {
+                dd.addDependencyConfiguration(moduleConfiguration, dependencyConfiguration);
+            }
+        }
+
+        int dependencyArtifactCount = decoder.readSmallInt();
+        for (int i = 0; i < dependencyArtifactCount; i++) {
+            String name = decoder.readString();
+            String type = decoder.readString();
+            String ext = decoder.readString();
+            String[] configurations = readStrings(decoder);
+            DefaultDependencyArtifactDescriptor dependencyArtifact = new DefaultDependencyArtifactDescriptor(dd, name, type, ext, null, readStringMap(decoder));
+            for (String configuration : configurations) {
+                dependencyArtifact.addConfiguration(configuration);
+                dd.addDependencyArtifact(configuration, dependencyArtifact);
+            }
+        }
+
+        int includeRuleCount = decoder.readSmallInt();
+        for (int i = 0; i < includeRuleCount; i++) {
+            ArtifactId artifactId = readArtifactId(decoder);
+            PatternMatcher matcher = readMatcher(decoder);
+            String[] configurations = readStrings(decoder);
+            DefaultIncludeRule includeRule = new DefaultIncludeRule(artifactId, matcher, readStringMap(decoder));
+            for (String configuration : configurations) {
+                includeRule.addConfiguration(configuration);
+                dd.addIncludeRule(configuration, includeRule);
+            }
+        }
+
+        int excludeRuleCount = decoder.readSmallInt();
+        for (int i = 0; i < excludeRuleCount; i++) {
+            ExcludeRule excludeRule = readExcludeRule(decoder);
+            for (String configuration : excludeRule.getConfigurations()) {
+                dd.addExcludeRule(configuration, excludeRule);
+            }
+        }
+        return dd;
+    }
+
+    private Map<String, List<String>> getConfigMappings(DependencyDescriptor dependency) {
+        if (dependency instanceof DefaultDependencyDescriptor) {
+            // Use the raw mappings, as IvyXmlModuleDescriptorWriter does
+            try {
+                return (Map<String, List<String>>) dependencyConfigField.get(dependency);
+            } catch (IllegalAccessException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        Map<String, List<String>> configMappings = new HashMap<String, List<String>>();
+        String[] moduleConfigurations = dependency.getModuleConfigurations();
+        for (String moduleConfiguration : moduleConfigurations) {
+            configMappings.put(moduleConfiguration, Arrays.asList(dependency.getDependencyConfigurations(moduleConfigurations)));
+        }
+        return configMappings;
+    }
+
+    private void writeExcludeRules(Encoder encoder, ExcludeRule[] excludeRules) throws Exception {
+        encoder.writeSmallInt(excludeRules.length);
+        for (ExcludeRule excludeRule : excludeRules) {
+            writeRule(encoder, excludeRule.getId(), excludeRule.getMatcher(), excludeRule.getConfigurations(), excludeRule.getQualifiedExtraAttributes());
+        }
+    }
+
+    private ExcludeRule readExcludeRule(Decoder decoder) throws Exception {
+        ArtifactId artifactId = readArtifactId(decoder);
+        PatternMatcher matcher = readMatcher(decoder);
+        String[] configurations = readStrings(decoder);
+        DefaultExcludeRule excludeRule = new DefaultExcludeRule(artifactId, matcher, readStringMap(decoder));
+        for (String configuration : configurations) {
+            excludeRule.addConfiguration(configuration);
+        }
+        return excludeRule;
+    }
+
+    private void writeRule(Encoder encoder, ArtifactId artifactId, PatternMatcher matcher, String[] configurations, Map<?, ?> extraAttributes) throws Exception {
+        encoder.writeString(artifactId.getModuleId().getOrganisation());
+        encoder.writeString(artifactId.getModuleId().getName());
+        encoder.writeString(artifactId.getName());
+        encoder.writeString(artifactId.getType());
+        encoder.writeString(artifactId.getExt());
+        encoder.writeString(matcher.getName());
+        writeStrings(encoder, configurations);
+        writeStringMap(encoder, extraAttributes);
+    }
+
+    private ArtifactId readArtifactId(Decoder decoder) throws Exception {
+        String org = decoder.readString();
+        String module = decoder.readString();
+        String name = decoder.readString();
+        String type = decoder.readString();
+        String ext = decoder.readString();
+        return IvyUtil.createArtifactId(org, module, name, type, ext);
+    }
+
+    private PatternMatcher readMatcher(Decoder decoder) throws Exception {
+        String matcherName = decoder.readString();
+        PatternMatcher matcher = resolverStrategy.getPatternMatcher(matcherName);
+        if (matcher == null) {
+            throw new IllegalArgumentException("unknown matcher " + matcherName);
+        }
+        return matcher;
+    }
+
+    private void writeModuleRevisionId(Encoder encoder, ModuleRevisionId id) throws Exception {
+        encoder.writeString(id.getOrganisation());
+        encoder.writeString(id.getName());
+        encoder.writeNullableString(id.getBranch());
+        encoder.writeNullableString(id.getRevision());
+        writeStringMap(encoder, id.getQualifiedExtraAttributes());
+    }
+
+    private ModuleRevisionId readModuleRevisionId(Decoder decoder) throws Exception {
+        String org = decoder.readString();
+        String name = decoder.readString();
+        String branch = decoder.readNullableString();
+        String revision = decoder.readNullableString();
+        return IvyUtil.createModuleRevisionId(org, name, branch, revision, readStringMap(decoder));
+    }
+
+    private void writeNullableDate(Encoder encoder, Date date) throws Exception {
+        encoder.writeBoolean(date != null);
+        if (date != null) {
+            encoder.writeLong(date.getTime());
+        }
+    }
+
+    private Date readNullableDate(Decoder decoder) throws Exception {
+        return decoder.readBoolean() ? new Date(decoder.readLong()) : null;
+    }
+
+    private void writeStrings(Encoder encoder, String[] values) throws Exception {
+        encoder.writeSmallInt(values.length);
+        for (String value : values) {
+            encoder.writeString(value);
+        }
+    }
+
+    private String[] readStrings(Decoder decoder) throws Exception {
+        String[] values = new String[decoder.readSmallInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = decoder.readString();
+        }
+        return values;
+    }
+
+    private void writeStringMap(Encoder encoder, Map<?, ?> values) throws Exception {
+        encoder.writeSmallInt(values.size());
+        for (Map.Entry<?, ?> entry : values.entrySet()) {
+            encoder.writeString(entry.getKey().toString());
+            encoder.writeString(entry.getValue().toString());
+        }
+    }
+
+    private Map<String, String> readStringMap(Decoder decoder) throws Exception {
+        int size = decoder.readSmallInt();
+        Map<String, String> values = new LinkedHashMap<String, String>(size);
+        for (int i = 0; i < size; i++) {
+            values.put(decoder.readString(), decoder.readString());
+        }
+        return values;
+    }
+}
@@ -17,6 +17,7 @@ package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.IvyModuleDescriptorWriter;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
@@ -25,29 +26,71 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModu
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.resource.local.LocallyAvailableResource;
 import org.gradle.internal.resource.local.PathKeyFileStore;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.math.BigInteger;
 
 public class ModuleDescriptorStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModuleDescriptorStore.class);
 
     public static final String FILE_PATH_PATTERN = "%s/%s/%s/%s/ivy.xml";
+    public static final String BINARY_FILE_PATH_PATTERN = "%s/%s/%s/%s/descriptor.bin";
     private final IvyXmlModuleDescriptorParser descriptorParser;
     private final PathKeyFileStore metaDataStore;
     private final IvyModuleDescriptorWriter descriptorWriter;
+    private final ModuleDescriptorSerializer binaryDescriptorSerializer;
 
     public ModuleDescriptorStore(PathKeyFileStore metaDataStore, IvyModuleDescriptorWriter descriptorWriter, IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser) {
+        this(metaDataStore, descriptorWriter, ivyXmlModuleDescriptorParser, null);
+    }
+
+    /**
+     * @param binaryDescriptorSerializer When not null, a binary copy of each descriptor is kept next to its ivy.xml and used in place of parsing the ivy.xml.
+     */
+    public ModuleDescriptorStore(PathKeyFileStore metaDataStore, IvyModuleDescriptorWriter descriptorWriter, IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser, @Nullable ModuleDescriptorSerializer binaryDescriptorSerializer) {
         this.metaDataStore = metaDataStore;
         this.descriptorWriter = descriptorWriter;
         this.descriptorParser = ivyXmlModuleDescriptorParser;
+        this.binaryDescriptorSerializer = binaryDescriptorSerializer;
     }
 
     public ModuleDescriptor getModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier) {
+        return getModuleDescriptor(repository, moduleComponentIdentifier, null);
+    }
+
+    /**
+     * Returns the cached descriptor, or null when there is none.
+     *
+     * @param descriptorHash The SHA1 of the ivy.xml that was recorded when the descriptor was cached. When given, the binary copy of the descriptor
+     * is used if it was created from that ivy.xml, and is (re)created from the ivy.xml otherwise.
+     */
+    public ModuleDescriptor getModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier, @Nullable BigInteger descriptorHash) {
         String filePath = getFilePath(repository, moduleComponentIdentifier);
         final LocallyAvailableResource resource = metaDataStore.get(filePath);
-        if (resource != null) {
+        if (resource == null) {
+            return null;
+        }
+        if (binaryDescriptorSerializer == null || descriptorHash == null) {
             return parseModuleDescriptorFile(resource.getFile());
         }
-        return null;
+        String binaryFilePath = getBinaryFilePath(repository, moduleComponentIdentifier);
+        LocallyAvailableResource binaryResource = metaDataStore.get(binaryFilePath);
+        if (binaryResource != null) {
+            ModuleDescriptor moduleDescriptor = readBinaryDescriptorFile(binaryResource.getFile(), descriptorHash);
+            if (moduleDescriptor != null) {
+                return moduleDescriptor;
+            }
+        }
+        ModuleDescriptor moduleDescriptor = parseModuleDescriptorFile(resource.getFile());
+        putBinaryDescriptor(binaryFilePath, moduleDescriptor, descriptorHash);
+        return moduleDescriptor;
     }
 
     public LocallyAvailableResource putModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier, final ModuleDescriptor moduleDescriptor) {
@@ -68,7 +111,51 @@ public class ModuleDescriptorStore {
         return descriptorParser.parseMetaData(parserSettings, moduleDescriptorFile, false).getDescriptor();
     }
 
+    /**
+     * The binary copy is always created from a parsed ivy.xml, rather than from the descriptor that was originally cached, so that it holds exactly what parsing the ivy.xml would produce.
+     */
+    private void putBinaryDescriptor(String binaryFilePath, final ModuleDescriptor moduleDescriptor, final BigInteger descriptorHash) {
+        metaDataStore.add(binaryFilePath, new Action<File>() {
+            public void execute(File binaryDescriptorFile) {
+                try {
+                    KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(binaryDescriptorFile));
+                    try {
+                        encoder.writeSmallInt(ModuleDescriptorSerializer.FORMAT_VERSION);
+                        encoder.writeBinary(descriptorHash.toByteArray());
+                        binaryDescriptorSerializer.write(encoder, moduleDescriptor);
+                    } finally {
+                        encoder.close();
+                    }
+                } catch (Exception e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        });
+    }
+
+    @Nullable
+    private ModuleDescriptor readBinaryDescriptorFile(File binaryDescriptorFile, BigInteger descriptorHash) {
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new BufferedInputStream(new FileInputStream(binaryDescriptorFile)));
+            try {
+                if (decoder.readSmallInt() != ModuleDescriptorSerializer.FORMAT_VERSION || !descriptorHash.equals(new BigInteger(decoder.readBinary()))) {
+                    return null;
+                }
+                return binaryDescriptorSerializer.read(decoder);
+            } finally {
+                decoder.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not read binary module descriptor " + binaryDescriptorFile + ", parsing the ivy.xml instead.", e);
+            return null;
+        }
+    }
+
     private String getFilePath(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier) {
         return String.format(FILE_PATH_PATTERN, moduleComponentIdentifier.getGroup(), moduleComponentIdentifier.getModule(), moduleComponentIdentifier.getVersion(), repository.getId());
     }
+
+    private String getBinaryFilePath(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier) {
+        return String.format(BINARY_FILE_PATH_PATTERN, moduleComponentIdentifier.getGroup(), moduleComponentIdentifier.getModule(), moduleComponentIdentifier.getVersion(), repository.getId());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache;
+
+import com.google.common.base.Objects;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.DefaultResolvedModuleVersion;
+import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
+import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves each requested module version to the component it selected in an earlier resolution with the same inputs, without consulting the repositories,
+ * the dependency substitution rules or the conflict resolution. Dependencies that were not part of the earlier resolution are passed to the given resolver.
+ */
+public class PinnedSelectionsResolver implements DependencyToComponentIdResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PinnedSelectionsResolver.class);
+
+    private final DependencyToComponentIdResolver resolver;
+    private final Map<ModuleVersionSelector, ResolvedSelection> selections = new HashMap<ModuleVersionSelector, ResolvedSelection>();
+
+    public PinnedSelectionsResolver(DependencyToComponentIdResolver resolver, Collection<ResolvedSelection> selections) {
+        this.resolver = resolver;
+        for (ResolvedSelection selection : selections) {
+            this.selections.put(selection.getRequested(), selection);
+        }
+    }
+
+    public void resolve(DependencyMetaData dependency, BuildableComponentIdResolveResult result) {
+        ResolvedSelection selection = dependency.getSelector() instanceof ModuleComponentSelector ? selections.get(dependency.getRequested()) : null;
+        if (selection == null) {
+            resolver.resolve(dependency, result);
+            return;
+        }
+        ModuleComponentIdentifier selected = selection.getSelected();
+        result.resolved(selected, DefaultModuleVersionIdentifier.newId(selected));
+        result.setSelectionReason(selection.getReason());
+    }
+
+    /**
+     * Returns true when none of the given selections needs to be checked against the repositories again, according to the given cache policy,
+     * and the module replacements they were made with are still in place.
+     */
+    public static boolean isUpToDate(ResolvedSelectionsCache.CachedSelections cachedSelections, CachePolicy cachePolicy, ModuleReplacementsData moduleReplacements) {
+        long ageMillis = cachedSelections.getAgeMillis();
+        for (ResolvedSelection selection : cachedSelections.getSelections()) {
+            ModuleComponentIdentifier selected = selection.getSelected();
+            ModuleVersionIdentifier selectedId = DefaultModuleVersionIdentifier.newId(selected);
+            ModuleVersionSelector requested = selection.getRequested();
+            ModuleIdentifier requestedModule = DefaultModuleIdentifier.newId(requested.getGroup(), requested.getName());
+            if (!Objects.equal(selection.getReplacedBy(), moduleReplacements.getReplacementFor(requestedModule))) {
+                LOGGER.debug("Module replacement for {} has changed. Not using cached selections.", requestedModule);
+                return false;
+            }
+            if (selection.isDynamic() && cachePolicy.mustRefreshVersionList(requestedModule, Collections.singleton(selectedId), ageMillis)) {
+                LOGGER.debug("Cached selection {} for a dynamic version has expired.", selection);
+                return false;
+            }
+            boolean mustRefresh = selection.isChanging()
+                ? cachePolicy.mustRefreshChangingModule(selected, new DefaultResolvedModuleVersion(selectedId), ageMillis)
+                : cachePolicy.mustRefreshModule(selected, new DefaultResolvedModuleVersion(selectedId), ageMillis);
+            if (mustRefresh) {
+                LOGGER.debug("Cached selection {} has expired.", selection);
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.ivy.core.module.descriptor.ExcludeRule;
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ClientModule;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetaData;
+import org.gradle.internal.component.model.ComponentResolveMetaData;
+import org.gradle.internal.component.model.ConfigurationMetaData;
+import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.hash.HashValue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Calculates a hash of everything that the selection of module versions for a configuration depends on, apart from the contents of the repositories.
+ *
+ * <p>Returns null when the selections depend on something that cannot be hashed, such as a project dependency, a client module or a rule implemented by build logic.
+ * Component metadata rules are such rules, as they can change the status of a module and so which version a dynamic selector selects.</p>
+ */
+public class ResolutionInputsHasher {
+    private static final char FIELD_SEPARATOR = ':';
+    private static final char RECORD_SEPARATOR = '\n';
+
+    @Nullable
+    public HashValue hash(ComponentResolveMetaData rootComponent, String configurationName, ResolutionStrategyInternal resolutionStrategy,
+                          ComponentMetadataProcessor componentMetadataProcessor, List<? extends ResolutionAwareRepository> repositories) {
+        if (resolutionStrategy.getDependencySubstitution().hasDependencySubstitutionRules() || !resolutionStrategy.getComponentSelection().getRules().isEmpty()
+            || componentMetadataProcessor.hasRules()) {
+            return null;
+        }
+        ConfigurationMetaData configuration = rootComponent.getConfiguration(configurationName);
+        if (configuration == null) {
+            return null;
+        }
+
+        Hasher hasher = Hashing.md5().newHasher();
+        putRecord(hasher, "component", rootComponent.getId().toString());
+        putRecord(hasher, "configuration", configurationName, new TreeSet<String>(configuration.getHierarchy()).toString(), String.valueOf(configuration.isTransitive()));
+        for (ExcludeRule excludeRule : configuration.getExcludeRules()) {
+            putExcludeRule(hasher, excludeRule);
+        }
+        for (DependencyMetaData dependency : configuration.getDependencies()) {
+            if (!hashDependency(hasher, dependency, configuration.getHierarchy())) {
+                return null;
+            }
+        }
+
+        putRecord(hasher, "conflicts", resolutionStrategy.getConflictResolution().getClass().getName());
+        Set<String> forcedModules = new TreeSet<String>();
+        for (ModuleVersionSelector forcedModule : resolutionStrategy.getForcedModules()) {
+            forcedModules.add(forcedModule.getGroup() + FIELD_SEPARATOR + forcedModule.getName() + FIELD_SEPARATOR + forcedModule.getVersion());
+        }
+        putRecord(hasher, "forced", forcedModules.toString());
+
+        for (ResolutionAwareRepository repository : repositories) {
+            putRecord(hasher, "repository", repository.createResolver().getId());
+        }
+        return new HashValue(hasher.hash().asBytes());
+    }
+
+    private boolean hashDependency(Hasher hasher, DependencyMetaData dependency, Set<String> hierarchy) {
+        if (!(dependency.getSelector() instanceof ModuleComponentSelector)) {
+            return false;
+        }
+        if (dependency instanceof DslOriginDependencyMetaData && ((DslOriginDependencyMetaData) dependency).getSource() instanceof ClientModule) {
+            return false;
+        }
+        ModuleVersionSelector requested = dependency.getRequested();
+        putRecord(hasher, "dependency", requested.getGroup(), requested.getName(), String.valueOf(requested.getVersion()),
+            String.valueOf(dependency.isForce()), String.valueOf(dependency.isChanging()), String.valueOf(dependency.isTransitive()));
+        for (String moduleConfiguration : dependency.getModuleConfigurations()) {
+            for (String dependencyConfiguration : dependency.getDependencyConfigurations(moduleConfiguration, moduleConfiguration)) {
+                putRecord(hasher, "target", moduleConfiguration, dependencyConfiguration);
+            }
+        }
+        for (ExcludeRule excludeRule : dependency.getExcludeRules(hierarchy)) {
+            putExcludeRule(hasher, excludeRule);
+        }
+        for (IvyArtifactName artifact : dependency.getArtifacts()) {
+            putRecord(hasher, "artifact", artifact.getName(), artifact.getType(), String.valueOf(artifact.getExtension()), String.valueOf(artifact.getClassifier()));
+        }
+        return true;
+    }
+
+    private void putExcludeRule(Hasher hasher, ExcludeRule excludeRule) {
+        putRecord(hasher, "exclude", excludeRule.getId().toString(), excludeRule.getMatcher().getName());
+    }
+
+    private void putRecord(Hasher hasher, String type, String... fields) {
+        hasher.putUnencodedChars(type);
+        for (String field : fields) {
+            hasher.putChar(FIELD_SEPARATOR);
+            hasher.putUnencodedChars(field);
+        }
+        hasher.putChar(RECORD_SEPARATOR);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+
+/**
+ * The module version that a requested module version selector ended up selecting in a successful resolution of a configuration.
+ */
+public class ResolvedSelection {
+    private final ModuleVersionSelector requested;
+    private final ModuleComponentIdentifier selected;
+    private final ComponentSelectionReason reason;
+    private final boolean dynamic;
+    private final boolean changing;
+    private final ModuleIdentifier replacedBy;
+
+    public ResolvedSelection(ModuleVersionSelector requested, ModuleComponentIdentifier selected, ComponentSelectionReason reason,
+                             boolean dynamic, boolean changing, @Nullable ModuleIdentifier replacedBy) {
+        this.requested = requested;
+        this.selected = selected;
+        this.reason = reason;
+        this.dynamic = dynamic;
+        this.changing = changing;
+        this.replacedBy = replacedBy;
+    }
+
+    public ModuleVersionSelector getRequested() {
+        return requested;
+    }
+
+    public ModuleComponentIdentifier getSelected() {
+        return selected;
+    }
+
+    public ComponentSelectionReason getReason() {
+        return reason;
+    }
+
+    /**
+     * Returns true when the requested version is a dynamic version, so that the selection depends on the version listing of the module.
+     */
+    public boolean isDynamic() {
+        return dynamic;
+    }
+
+    /**
+     * Returns true when the selected component is a changing module.
+     */
+    public boolean isChanging() {
+        return changing;
+    }
+
+    /**
+     * Returns the module declared to replace the requested module at the time of the resolution, if any.
+     */
+    @Nullable
+    public ModuleIdentifier getReplacedBy() {
+        return replacedBy;
+    }
+
+    @Override
+    public String toString() {
+        return requested + " -> " + selected;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache;
+
+import org.gradle.internal.hash.HashValue;
+
+import java.util.List;
+
+/**
+ * Remembers, across builds, the module versions selected when resolving a configuration, keyed by a hash of the inputs of that resolution.
+ */
+public interface ResolvedSelectionsCache {
+
+    void cacheSelections(HashValue inputsHash, List<ResolvedSelection> selections);
+
+    CachedSelections getCachedSelections(HashValue inputsHash);
+
+    interface CachedSelections {
+        List<ResolvedSelection> getSelections();
+
+        long getAgeMillis();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache;
+
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.internal.hash.HashValue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the module versions selected by a resolution, and stores them in a {@link ResolvedSelectionsCache} when the resolution succeeded.
+ */
+public class ResolvedSelectionsRecorder implements DependencyGraphVisitor {
+    private final ResolvedSelectionsCache cache;
+    private final HashValue inputsHash;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final ModuleReplacementsData moduleReplacements;
+    private final Map<ModuleVersionSelector, ResolvedSelection> selections = new LinkedHashMap<ModuleVersionSelector, ResolvedSelection>();
+    private boolean complete = true;
+
+    public ResolvedSelectionsRecorder(ResolvedSelectionsCache cache, HashValue inputsHash, VersionSelectorScheme versionSelectorScheme, ModuleReplacementsData moduleReplacements) {
+        this.cache = cache;
+        this.inputsHash = inputsHash;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.moduleReplacements = moduleReplacements;
+    }
+
+    public void start(DependencyGraphNode root) {
+    }
+
+    public void visitNode(DependencyGraphNode resolvedConfiguration) {
+        for (DependencyGraphEdge dependency : resolvedConfiguration.getOutgoingEdges()) {
+            if (dependency.getFailure() != null) {
+                complete = false;
+            }
+        }
+    }
+
+    public void visitEdge(DependencyGraphNode resolvedConfiguration) {
+        if (resolvedConfiguration.getIncomingEdges().isEmpty()) {
+            return;
+        }
+        ComponentIdentifier componentId = resolvedConfiguration.getComponentId();
+        if (!(componentId instanceof ModuleComponentIdentifier)) {
+            complete = false;
+            return;
+        }
+        boolean changing = resolvedConfiguration.getMetaData().getComponent().isChanging();
+        for (DependencyGraphEdge dependency : resolvedConfiguration.getIncomingEdges()) {
+            ModuleVersionSelector requested = dependency.getRequestedModuleVersion();
+            if (!selections.containsKey(requested)) {
+                boolean dynamic = requested.getVersion() != null && versionSelectorScheme.parseSelector(requested.getVersion()).isDynamic();
+                selections.put(requested, new ResolvedSelection(requested, (ModuleComponentIdentifier) componentId, dependency.getReason(), dynamic, changing,
+                    moduleReplacements.getReplacementFor(DefaultModuleIdentifier.newId(requested.getGroup(), requested.getName()))));
+            }
+        }
+    }
+
+    public void finish(DependencyGraphNode root) {
+        if (complete) {
+            cache.cacheSelections(inputsHash, new ArrayList<ResolvedSelection>(selections.values()));
+        }
+        selections.clear();
+    }
+}
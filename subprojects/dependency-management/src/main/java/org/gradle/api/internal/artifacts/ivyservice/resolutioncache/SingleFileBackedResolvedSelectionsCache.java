@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionReasonSerializer;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.util.BuildCommencedTimeProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SingleFileBackedResolvedSelectionsCache implements ResolvedSelectionsCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SingleFileBackedResolvedSelectionsCache.class);
+
+    private final BuildCommencedTimeProvider timeProvider;
+    private final CacheLockingManager cacheLockingManager;
+    private PersistentIndexedCache<HashValue, ResolvedSelectionsCacheEntry> cache;
+
+    public SingleFileBackedResolvedSelectionsCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
+        this.timeProvider = timeProvider;
+        this.cacheLockingManager = cacheLockingManager;
+    }
+
+    private PersistentIndexedCache<HashValue, ResolvedSelectionsCacheEntry> getCache() {
+        if (cache == null) {
+            cache = initCache();
+        }
+        return cache;
+    }
+
+    private PersistentIndexedCache<HashValue, ResolvedSelectionsCacheEntry> initCache() {
+        return cacheLockingManager.createCache("resolved-selections", new HashValueSerializer(), new ResolvedSelectionsCacheEntrySerializer());
+    }
+
+    public void cacheSelections(HashValue inputsHash, List<ResolvedSelection> selections) {
+        LOGGER.debug("Caching {} resolved selections for resolution inputs {}", selections.size(), inputsHash.asCompactString());
+        getCache().put(inputsHash, new ResolvedSelectionsCacheEntry(selections, timeProvider.getCurrentTime()));
+    }
+
+    public CachedSelections getCachedSelections(HashValue inputsHash) {
+        final ResolvedSelectionsCacheEntry entry = getCache().get(inputsHash);
+        if (entry == null) {
+            return null;
+        }
+        final long ageMillis = timeProvider.getCurrentTime() - entry.createTimestamp;
+        return new CachedSelections() {
+            public List<ResolvedSelection> getSelections() {
+                return entry.selections;
+            }
+
+            public long getAgeMillis() {
+                return ageMillis;
+            }
+        };
+    }
+
+    static class ResolvedSelectionsCacheEntry {
+        final List<ResolvedSelection> selections;
+        final long createTimestamp;
+
+        ResolvedSelectionsCacheEntry(List<ResolvedSelection> selections, long createTimestamp) {
+            this.selections = selections;
+            this.createTimestamp = createTimestamp;
+        }
+    }
+
+    private static class HashValueSerializer implements Serializer<HashValue> {
+        public void write(Encoder encoder, HashValue value) throws Exception {
+            encoder.writeBinary(value.asByteArray());
+        }
+
+        public HashValue read(Decoder decoder) throws Exception {
+            return new HashValue(decoder.readBinary());
+        }
+    }
+
+    static class ResolvedSelectionsCacheEntrySerializer implements Serializer<ResolvedSelectionsCacheEntry> {
+        private final ComponentSelectionReasonSerializer reasonSerializer = new ComponentSelectionReasonSerializer();
+
+        public void write(Encoder encoder, ResolvedSelectionsCacheEntry value) throws Exception {
+            encoder.writeSmallInt(value.selections.size());
+            for (ResolvedSelection selection : value.selections) {
+                ModuleVersionSelector requested = selection.getRequested();
+                encoder.writeString(requested.getGroup());
+                encoder.writeString(requested.getName());
+                encoder.writeNullableString(requested.getVersion());
+                ModuleComponentIdentifier selected = selection.getSelected();
+                encoder.writeString(selected.getGroup());
+                encoder.writeString(selected.getModule());
+                encoder.writeString(selected.getVersion());
+                reasonSerializer.write(encoder, selection.getReason());
+                encoder.writeBoolean(selection.isDynamic());
+                encoder.writeBoolean(selection.isChanging());
+                ModuleIdentifier replacedBy = selection.getReplacedBy();
+                encoder.writeBoolean(replacedBy != null);
+                if (replacedBy != null) {
+                    encoder.writeString(replacedBy.getGroup());
+                    encoder.writeString(replacedBy.getName());
+                }
+            }
+            encoder.writeLong(value.createTimestamp);
+        }
+
+        public ResolvedSelectionsCacheEntry read(Decoder decoder) throws Exception {
+            int size = decoder.readSmallInt();
+            List<ResolvedSelection> selections = new ArrayList<ResolvedSelection>(size);
+            for (int i = 0; i < size; i++) {
+                ModuleVersionSelector requested = DefaultModuleVersionSelector.newSelector(decoder.readString(), decoder.readString(), decoder.readNullableString());
+                ModuleComponentIdentifier selected = new DefaultModuleComponentIdentifier(decoder.readString(), decoder.readString(), decoder.readString());
+                ComponentSelectionReason reason = reasonSerializer.read(decoder);
+                boolean dynamic = decoder.readBoolean();
+                boolean changing = decoder.readBoolean();
+                ModuleIdentifier replacedBy = decoder.readBoolean() ? new DefaultModuleIdentifier(decoder.readString(), decoder.readString()) : null;
+                selections.add(new ResolvedSelection(requested, selected, reason, dynamic, changing, replacedBy));
+            }
+            long createTimestamp = decoder.readLong();
+            return new ResolvedSelectionsCacheEntry(selections, createTimestamp);
+        }
+    }
+}
@@ -18,21 +18,30 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
 import com.google.common.collect.Lists;
 import org.apache.ivy.Ivy;
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.artifacts.ArtifactDependencyResolver;
 import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
 import org.gradle.api.internal.artifacts.ResolveContext;
 import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
 import org.gradle.api.internal.artifacts.ivyservice.ContextualArtifactResolver;
 import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager;
 import org.gradle.api.internal.artifacts.ivyservice.clientmodule.ClientModuleResolver;
 import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionResolver;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ComponentResolvers;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ErrorHandlingArtifactResolver;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolverProviderFactory;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionComparator;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.DependencyDescriptorFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolutioncache.PinnedSelectionsResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolutioncache.ResolutionInputsHasher;
+import org.gradle.api.internal.artifacts.ivyservice.resolutioncache.ResolvedSelection;
+import org.gradle.api.internal.artifacts.ivyservice.resolutioncache.ResolvedSelectionsCache;
+import org.gradle.api.internal.artifacts.ivyservice.resolutioncache.ResolvedSelectionsRecorder;
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.StrictConflictResolution;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactsGraphVisitor;
@@ -42,6 +51,9 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.Dependen
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.ConflictHandler;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.DefaultConflictHandler;
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.internal.component.model.ComponentResolveMetaData;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.internal.resolve.resolver.ArtifactResolver;
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
@@ -51,9 +63,12 @@ import org.gradle.internal.service.ServiceRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.List;
 
 public class DefaultArtifactDependencyResolver implements ArtifactDependencyResolver {
+    public static final String SELECTIONS_CACHE_TOGGLE = "org.gradle.resolution.cache";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultArtifactDependencyResolver.class);
     private final ServiceRegistry serviceRegistry;
     private final DependencyDescriptorFactory dependencyDescriptorFactory;
@@ -61,15 +76,26 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
     private final CacheLockingManager cacheLockingManager;
     private final IvyContextManager ivyContextManager;
     private final VersionComparator versionComparator;
+    private final BuildOperationProcessor prefetchProcessor;
+    private final ResolvedSelectionsCache selectionsCache;
+    private final ResolutionInputsHasher inputsHasher = new ResolutionInputsHasher();
 
     public DefaultArtifactDependencyResolver(ServiceRegistry serviceRegistry, ResolveIvyFactory ivyFactory, DependencyDescriptorFactory dependencyDescriptorFactory,
                                              CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager, VersionComparator versionComparator) {
+        this(serviceRegistry, ivyFactory, dependencyDescriptorFactory, cacheLockingManager, ivyContextManager, versionComparator, null, null);
+    }
+
+    public DefaultArtifactDependencyResolver(ServiceRegistry serviceRegistry, ResolveIvyFactory ivyFactory, DependencyDescriptorFactory dependencyDescriptorFactory,
+                                             CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager, VersionComparator versionComparator,
+                                             @Nullable BuildOperationProcessor prefetchProcessor, @Nullable ResolvedSelectionsCache selectionsCache) {
         this.serviceRegistry = serviceRegistry;
         this.ivyFactory = ivyFactory;
         this.dependencyDescriptorFactory = dependencyDescriptorFactory;
         this.cacheLockingManager = cacheLockingManager;
         this.ivyContextManager = ivyContextManager;
         this.versionComparator = versionComparator;
+        this.prefetchProcessor = prefetchProcessor;
+        this.selectionsCache = selectionsCache;
     }
 
     @Override
@@ -78,28 +104,71 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
        ivyContextManager.withIvy(new Action<Ivy>() {
             public void execute(Ivy ivy) {
                 LOGGER.debug("Resolving {}", resolveContext);
+                if (selectionsCache != null) {
+                    resolveUsingSelectionsCache(resolveContext, repositories, metadataHandler, graphVisitor, artifactsVisitor);
+                    return;
+                }
                 ComponentResolvers componentSource = createComponentSource(resolveContext, repositories, metadataHandler);
-                DependencyGraphBuilder builder = createDependencyGraphBuilder(componentSource, resolveContext.getResolutionStrategy(), metadataHandler);
-
-                ArtifactResolver artifactResolver = new ErrorHandlingArtifactResolver(new ContextualArtifactResolver(cacheLockingManager, ivyContextManager, componentSource.getArtifactResolver()));
-                DependencyGraphVisitor artifactsGraphVisitor = new ResolvedArtifactsGraphVisitor(artifactsVisitor, artifactResolver);
-
-                // Resolve the dependency graph
-                builder.resolve(resolveContext, new CompositeDependencyGraphVisitor(graphVisitor, artifactsGraphVisitor));
+                DependencyGraphBuilder builder = createDependencyGraphBuilder(componentSource, resolveContext.getResolutionStrategy(), metadataHandler, null, createResolveContextConverter());
+                resolve(builder, resolveContext, componentSource, graphVisitor, artifactsVisitor);
             }
         });
     }
 
-    private DependencyGraphBuilder createDependencyGraphBuilder(ComponentResolvers componentSource, ResolutionStrategyInternal resolutionStrategy, GlobalDependencyResolutionRules metadataHandler) {
+    private void resolveUsingSelectionsCache(ResolveContext resolveContext, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler,
+                                             DependencyGraphVisitor graphVisitor, DependencyArtifactsVisitor artifactsVisitor) {
+        // Create each repository resolver once only, for both the inputs hash and the resolution
+        List<ResolutionAwareRepository> resolverCachingRepositories = Lists.newArrayList();
+        for (ResolutionAwareRepository repository : repositories) {
+            resolverCachingRepositories.add(new ResolverCachingRepository(repository));
+        }
+        ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
+        ComponentResolveMetaData rootComponent = resolveContext.toRootComponentMetaData();
+        HashValue inputsHash = inputsHasher.hash(rootComponent, resolveContext.getName(), resolutionStrategy, metadataHandler.getComponentMetadataProcessor(), resolverCachingRepositories);
+
+        ComponentResolvers componentSource = createComponentSource(resolveContext, resolverCachingRepositories, metadataHandler);
+        ResolveContextToComponentResolver requestResolver = new FixedRootComponentResolver(rootComponent);
+        if (inputsHash == null) {
+            LOGGER.debug("Selections for {} depend on inputs that cannot be cached.", resolveContext);
+            resolve(createDependencyGraphBuilder(componentSource, resolutionStrategy, metadataHandler, null, requestResolver), resolveContext, componentSource, graphVisitor, artifactsVisitor);
+            return;
+        }
+
+        ModuleReplacementsData moduleReplacements = metadataHandler.getModuleMetadataProcessor().getModuleReplacements();
+        ResolvedSelectionsCache.CachedSelections cachedSelections = selectionsCache.getCachedSelections(inputsHash);
+        if (cachedSelections != null && PinnedSelectionsResolver.isUpToDate(cachedSelections, resolutionStrategy.getCachePolicy(), moduleReplacements)) {
+            LOGGER.debug("Using {} cached selections for {}", cachedSelections.getSelections().size(), resolveContext);
+            DependencyGraphBuilder builder = createDependencyGraphBuilder(componentSource, resolutionStrategy, metadataHandler, cachedSelections.getSelections(), requestResolver);
+            resolve(builder, resolveContext, componentSource, graphVisitor, artifactsVisitor);
+            return;
+        }
+
+        DependencyGraphVisitor recorder = new ResolvedSelectionsRecorder(selectionsCache, inputsHash, new DefaultVersionSelectorScheme(versionComparator), moduleReplacements);
+        DependencyGraphBuilder builder = createDependencyGraphBuilder(componentSource, resolutionStrategy, metadataHandler, null, requestResolver);
+        resolve(builder, resolveContext, componentSource, new CompositeDependencyGraphVisitor(graphVisitor, recorder), artifactsVisitor);
+    }
+
+    private void resolve(DependencyGraphBuilder builder, ResolveContext resolveContext, ComponentResolvers componentSource, DependencyGraphVisitor graphVisitor, DependencyArtifactsVisitor artifactsVisitor) {
+        ArtifactResolver artifactResolver = new ErrorHandlingArtifactResolver(new ContextualArtifactResolver(cacheLockingManager, ivyContextManager, componentSource.getArtifactResolver()));
+        DependencyGraphVisitor artifactsGraphVisitor = new ResolvedArtifactsGraphVisitor(artifactsVisitor, artifactResolver);
+
+        // Resolve the dependency graph
+        builder.resolve(resolveContext, new CompositeDependencyGraphVisitor(graphVisitor, artifactsGraphVisitor));
+    }
+
+    private DependencyGraphBuilder createDependencyGraphBuilder(ComponentResolvers componentSource, ResolutionStrategyInternal resolutionStrategy, GlobalDependencyResolutionRules metadataHandler,
+                                                                @Nullable Collection<ResolvedSelection> pinnedSelections, ResolveContextToComponentResolver requestResolver) {
 
         DependencyToComponentIdResolver componentIdResolver = new DependencySubstitutionResolver(componentSource.getComponentIdResolver(), resolutionStrategy.getDependencySubstitutionRule());
+        if (pinnedSelections != null) {
+            componentIdResolver = new PinnedSelectionsResolver(componentIdResolver, pinnedSelections);
+        }
         ComponentMetaDataResolver componentMetaDataResolver = new ClientModuleResolver(componentSource.getComponentResolver(), dependencyDescriptorFactory);
 
         DependencyToConfigurationResolver dependencyToConfigurationResolver = new DefaultDependencyToConfigurationResolver();
-        ResolveContextToComponentResolver requestResolver = createResolveContextConverter();
         ConflictHandler conflictHandler = createConflictHandler(resolutionStrategy, metadataHandler);
 
-        return new DependencyGraphBuilder(componentIdResolver, componentMetaDataResolver, requestResolver, dependencyToConfigurationResolver, conflictHandler);
+        return new DependencyGraphBuilder(componentIdResolver, componentMetaDataResolver, requestResolver, dependencyToConfigurationResolver, conflictHandler, prefetchProcessor);
     }
 
     private ComponentResolversChain createComponentSource(ResolveContext resolveContext, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler) {
@@ -141,4 +210,37 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
         }
     }
 
+    /**
+     * Resolves to root component meta-data that has already been created for the resolve context.
+     */
+    private static class FixedRootComponentResolver implements ResolveContextToComponentResolver {
+        private final ComponentResolveMetaData rootComponent;
+
+        private FixedRootComponentResolver(ComponentResolveMetaData rootComponent) {
+            this.rootComponent = rootComponent;
+        }
+
+        @Override
+        public void resolve(ResolveContext resolveContext, BuildableComponentResolveResult result) {
+            result.resolved(rootComponent);
+        }
+    }
+
+    private static class ResolverCachingRepository implements ResolutionAwareRepository {
+        private final ResolutionAwareRepository repository;
+        private ConfiguredModuleComponentRepository resolver;
+
+        private ResolverCachingRepository(ResolutionAwareRepository repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public ConfiguredModuleComponentRepository createResolver() {
+            if (resolver == null) {
+                resolver = repository.createResolver();
+            }
+            return resolver;
+        }
+    }
+
 }
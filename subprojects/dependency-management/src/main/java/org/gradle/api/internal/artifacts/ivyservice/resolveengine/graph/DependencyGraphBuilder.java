@@ -17,6 +17,7 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
 
 import com.google.common.base.Joiner;
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ModuleDependency;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
@@ -37,6 +38,10 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.Version
 import org.gradle.internal.Cast;
 import org.gradle.internal.component.local.model.DslOriginDependencyMetaData;
 import org.gradle.internal.component.model.*;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
 import org.gradle.internal.resolve.ModuleVersionResolveException;
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
@@ -48,21 +53,34 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 
 public class DependencyGraphBuilder {
+    public static final String PARALLEL_RESOLVE_TOGGLE = "org.gradle.parallel.resolve";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(DependencyGraphBuilder.class);
     private final DependencyToConfigurationResolver dependencyToConfigurationResolver;
     private final ConflictHandler conflictHandler;
     private final ResolveContextToComponentResolver moduleResolver;
     private final DependencyToComponentIdResolver idResolver;
     private final ComponentMetaDataResolver metaDataResolver;
+    private final BuildOperationProcessor prefetchProcessor;
 
     public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
                                   ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
                                   ConflictHandler conflictHandler) {
+        this(componentIdResolver, componentMetaDataResolver, resolveContextToComponentResolver, dependencyToConfigurationResolver, conflictHandler, null);
+    }
+
+    /**
+     * @param prefetchProcessor When not null, the ids and meta-data of newly discovered dependencies are resolved concurrently using this processor.
+     */
+    public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
+                                  ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
+                                  ConflictHandler conflictHandler, @Nullable BuildOperationProcessor prefetchProcessor) {
         this.idResolver = componentIdResolver;
         this.metaDataResolver = componentMetaDataResolver;
         this.moduleResolver = resolveContextToComponentResolver;
         this.conflictHandler = conflictHandler;
         this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
+        this.prefetchProcessor = prefetchProcessor;
     }
 
     public void resolve(ResolveContext resolveContext, DependencyGraphVisitor modelVisitor) {
@@ -92,6 +110,9 @@ public class DependencyGraphBuilder {
                 // Calculate the outgoing edges of this configuration
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
+                if (prefetchProcessor != null) {
+                    prefetch(resolveState, dependencies);
+                }
 
                 for (DependencyEdge dependency : dependencies) {
                     LOGGER.debug("Visiting dependency {}", dependency);
@@ -125,7 +146,7 @@ public class DependencyGraphBuilder {
                                 public void execute(ModuleIdentifier module) {
                                     ModuleVersionResolveState previouslySelected = resolveState.getModule(module).clearSelection();
                                     if (previouslySelected != null) {
-                                        for (ConfigurationNode configuration : previouslySelected.configurations) {
+                                        for (ConfigurationNode configuration : previouslySelected.configurations.values()) {
                                             configuration.deselect();
                                         }
                                     }
@@ -154,6 +175,54 @@ public class DependencyGraphBuilder {
         }
     }
 
+    /**
+     * Resolves the ids of the selectors of the given edges that have not been seen before, followed by the meta-data of the new module versions
+     * they select, running the lookups of each step concurrently. The results are stashed on the selectors and used when the edges are visited,
+     * so that the graph is traversed in the same order and produces the same result as when each lookup is made as its edge is visited.
+     */
+    private void prefetch(ResolveState resolveState, List<DependencyEdge> dependencies) {
+        Set<ModuleVersionSelectorResolveState> selectors = new LinkedHashSet<ModuleVersionSelectorResolveState>();
+        for (DependencyEdge dependency : dependencies) {
+            if (dependency.selector.isUnresolved()) {
+                selectors.add(dependency.selector);
+            }
+        }
+        if (selectors.size() < 2) {
+            return;
+        }
+
+        List<PrefetchOperation> idLookups = new ArrayList<PrefetchOperation>(selectors.size());
+        for (ModuleVersionSelectorResolveState selector : selectors) {
+            idLookups.add(new PrefetchIdOperation(selector, idResolver));
+        }
+        runConcurrently(idLookups);
+
+        // Only fetch the meta-data of module versions that will be created by these selectors, so that the meta-data is requested with the
+        // overrides of the selector that the module version will use for the serial lookup
+        Map<ModuleVersionIdentifier, PrefetchOperation> metaDataLookups = new LinkedHashMap<ModuleVersionIdentifier, PrefetchOperation>();
+        for (ModuleVersionSelectorResolveState selector : selectors) {
+            ComponentIdResolveResult idResult = selector.prefetchedIdResult;
+            if (idResult == null || idResult.getFailure() != null || idResult.getMetaData() != null) {
+                continue;
+            }
+            ModuleVersionIdentifier id = idResult.getModuleVersionId();
+            if (!metaDataLookups.containsKey(id) && !resolveState.hasRevision(id)) {
+                metaDataLookups.put(id, new PrefetchMetaDataOperation(selector, idResult, metaDataResolver));
+            }
+        }
+        if (metaDataLookups.size() > 1) {
+            runConcurrently(metaDataLookups.values());
+        }
+    }
+
+    private void runConcurrently(Collection<PrefetchOperation> operations) {
+        BuildOperationQueue<PrefetchOperation> queue = prefetchProcessor.newQueue(new PrefetchWorker(), null);
+        for (PrefetchOperation operation : operations) {
+            queue.add(operation);
+        }
+        queue.waitForCompletion();
+    }
+
     /**
      * Populates the result from the graph traversal state.
      */
@@ -187,7 +256,7 @@ public class DependencyGraphBuilder {
         private final DependencyMetaData dependencyMetaData;
         private final ResolveState resolveState;
         private final ModuleResolutionFilter resolutionFilter;
-        private final Set<ConfigurationNode> targetConfigurations = new LinkedHashSet<ConfigurationNode>();
+        private final List<ConfigurationNode> targetConfigurations = new ArrayList<ConfigurationNode>(1);
         private ModuleVersionResolveState targetModuleRevision;
 
         public DependencyEdge(ConfigurationNode from, DependencyMetaData dependencyMetaData, ModuleResolutionFilter resolutionFilter, ResolveState resolveState) {
@@ -305,18 +374,18 @@ public class DependencyGraphBuilder {
     }
 
     /**
-     * Global resolution state.
+     * Global resolution state. Configuration nodes are numbered in the order they are created, and are stored and tracked by that number.
      */
     private static class ResolveState {
         private final Map<ModuleIdentifier, ModuleResolveState> modules = new LinkedHashMap<ModuleIdentifier, ModuleResolveState>();
-        private final Map<ResolvedConfigurationIdentifier, ConfigurationNode> nodes = new LinkedHashMap<ResolvedConfigurationIdentifier, ConfigurationNode>();
+        private final List<ConfigurationNode> nodes = new ArrayList<ConfigurationNode>();
         private final Map<ModuleVersionSelector, ModuleVersionSelectorResolveState> selectors = new LinkedHashMap<ModuleVersionSelector, ModuleVersionSelectorResolveState>();
         private final RootConfigurationNode root;
         private final DependencyToComponentIdResolver idResolver;
         private final ComponentMetaDataResolver metaDataResolver;
         private final DependencyToConfigurationResolver dependencyToConfigurationResolver;
-        private final Set<ConfigurationNode> queued = new HashSet<ConfigurationNode>();
-        private final LinkedList<ConfigurationNode> queue = new LinkedList<ConfigurationNode>();
+        private final BitSet queued = new BitSet();
+        private final ArrayDeque<ConfigurationNode> queue = new ArrayDeque<ConfigurationNode>();
 
         public ResolveState(ComponentResolveResult rootResult, String rootConfigurationName, DependencyToComponentIdResolver idResolver,
                             ComponentMetaDataResolver metaDataResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver) {
@@ -325,8 +394,8 @@ public class DependencyGraphBuilder {
             this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
             ModuleVersionResolveState rootVersion = getRevision(rootResult.getId());
             rootVersion.setMetaData(rootResult.getMetaData());
-            root = new RootConfigurationNode(rootVersion, new ResolvedConfigurationIdentifier(rootVersion.id, rootConfigurationName), this);
-            nodes.put(root.id, root);
+            root = new RootConfigurationNode(nodes.size(), rootVersion, new ResolvedConfigurationIdentifier(rootVersion.id, rootConfigurationName), this);
+            nodes.add(root);
             root.moduleRevision.module.select(root.moduleRevision);
         }
 
@@ -343,16 +412,20 @@ public class DependencyGraphBuilder {
             return getModule(id.getModule()).getVersion(id);
         }
 
+        public boolean hasRevision(ModuleVersionIdentifier id) {
+            ModuleResolveState module = modules.get(id.getModule());
+            return module != null && module.versions.containsKey(id);
+        }
+
         public Collection<ConfigurationNode> getConfigurationNodes() {
-            return nodes.values();
+            return nodes;
         }
 
         public ConfigurationNode getConfigurationNode(ModuleVersionResolveState module, String configurationName) {
-            ResolvedConfigurationIdentifier id = new ResolvedConfigurationIdentifier(module.id, configurationName);
-            ConfigurationNode configuration = nodes.get(id);
+            ConfigurationNode configuration = module.configurations.get(configurationName);
             if (configuration == null) {
-                configuration = new ConfigurationNode(id, module, this);
-                nodes.put(id, configuration);
+                configuration = new ConfigurationNode(nodes.size(), new ResolvedConfigurationIdentifier(module.id, configurationName), module, this);
+                nodes.add(configuration);
             }
             return configuration;
         }
@@ -368,12 +441,12 @@ public class DependencyGraphBuilder {
         }
 
         public ConfigurationNode peek() {
-            return queue.isEmpty() ? null : queue.getFirst();
+            return queue.peekFirst();
         }
 
         public ConfigurationNode pop() {
             ConfigurationNode next = queue.removeFirst();
-            queued.remove(next);
+            queued.clear(next.nodeId);
             return next;
         }
 
@@ -383,7 +456,7 @@ public class DependencyGraphBuilder {
         public void onMoreSelected(ConfigurationNode configuration) {
             // Add to the end of the queue, so that we traverse the graph in breadth-wise order to pick up as many conflicts as
             // possible before attempting to resolve them
-            if (queued.add(configuration)) {
+            if (markQueued(configuration)) {
                 queue.addLast(configuration);
             }
         }
@@ -393,10 +466,18 @@ public class DependencyGraphBuilder {
          */
         public void onFewerSelected(ConfigurationNode configuration) {
             // Add to the front of the queue, to flush out configurations that are no longer required.
-            if (queued.add(configuration)) {
+            if (markQueued(configuration)) {
                 queue.addFirst(configuration);
             }
         }
+
+        private boolean markQueued(ConfigurationNode configuration) {
+            if (queued.get(configuration.nodeId)) {
+                return false;
+            }
+            queued.set(configuration.nodeId);
+            return true;
+        }
     }
 
     enum ModuleState {
@@ -498,7 +579,7 @@ public class DependencyGraphBuilder {
     public static class ModuleVersionResolveState implements ComponentResolutionState, ModuleVersionSelection {
         public final ModuleVersionIdentifier id;
         private final ComponentMetaDataResolver resolver;
-        private final Set<ConfigurationNode> configurations = new LinkedHashSet<ConfigurationNode>();
+        private final Map<String, ConfigurationNode> configurations = new LinkedHashMap<String, ConfigurationNode>();
         private final ModuleResolveState module;
         private ComponentResolveMetaData metaData;
         private ModuleState state = ModuleState.New;
@@ -530,7 +611,7 @@ public class DependencyGraphBuilder {
         }
 
         public void restart(ModuleVersionResolveState selected) {
-            for (ConfigurationNode configuration : configurations) {
+            for (ConfigurationNode configuration : configurations.values()) {
                 configuration.restart(selected);
             }
         }
@@ -556,8 +637,11 @@ public class DependencyGraphBuilder {
                 return;
             }
 
-            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
-            resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetaData), result);
+            BuildableComponentResolveResult result = firstReference.takePrefetchedMetaData();
+            if (result == null) {
+                result = new DefaultBuildableComponentResolveResult();
+                resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetaData), result);
+            }
             if (result.getFailure() != null) {
                 failure = result.getFailure();
                 return;
@@ -578,7 +662,7 @@ public class DependencyGraphBuilder {
         }
 
         public void addConfiguration(ConfigurationNode configurationNode) {
-            configurations.add(configurationNode);
+            configurations.put(configurationNode.id.getConfiguration(), configurationNode);
         }
 
         public ComponentSelectionReason getSelectionReason() {
@@ -595,7 +679,7 @@ public class DependencyGraphBuilder {
 
         public List<ModuleVersionResolveState> getIncoming() {
             List<ModuleVersionResolveState> incoming = new ArrayList<ModuleVersionResolveState>();
-            for (DependencyGraphBuilder.ConfigurationNode configuration : configurations) {
+            for (DependencyGraphBuilder.ConfigurationNode configuration : configurations.values()) {
                 for (DependencyGraphBuilder.DependencyEdge dependencyEdge : configuration.incomingEdges) {
                     incoming.add(dependencyEdge.from.moduleRevision);
                 }
@@ -612,12 +696,14 @@ public class DependencyGraphBuilder {
         public final Set<DependencyEdge> incomingEdges = new LinkedHashSet<DependencyEdge>();
         public final Set<DependencyEdge> outgoingEdges = new LinkedHashSet<DependencyEdge>();
         public final ResolvedConfigurationIdentifier id;
+        public final int nodeId;
 
         private final ConfigurationMetaData metaData;
         private final ResolveState resolveState;
         private ModuleResolutionFilter previousTraversal;
 
-        private ConfigurationNode(ResolvedConfigurationIdentifier id, ModuleVersionResolveState moduleRevision, ResolveState resolveState) {
+        private ConfigurationNode(int nodeId, ResolvedConfigurationIdentifier id, ModuleVersionResolveState moduleRevision, ResolveState resolveState) {
+            this.nodeId = nodeId;
             this.id = id;
             this.moduleRevision = moduleRevision;
             this.resolveState = resolveState;
@@ -799,8 +885,8 @@ public class DependencyGraphBuilder {
     }
 
     private static class RootConfigurationNode extends ConfigurationNode {
-        private RootConfigurationNode(ModuleVersionResolveState moduleRevision, ResolvedConfigurationIdentifier id, ResolveState resolveState) {
-            super(id, moduleRevision, resolveState);
+        private RootConfigurationNode(int nodeId, ModuleVersionResolveState moduleRevision, ResolvedConfigurationIdentifier id, ResolveState resolveState) {
+            super(nodeId, id, moduleRevision, resolveState);
         }
 
         @Override
@@ -824,6 +910,8 @@ public class DependencyGraphBuilder {
         ModuleResolveState targetModule;
         ModuleVersionResolveState targetModuleRevision;
         BuildableComponentIdResolveResult idResolveResult;
+        BuildableComponentIdResolveResult prefetchedIdResult;
+        BuildableComponentResolveResult prefetchedMetaData;
 
         private ModuleVersionSelectorResolveState(DependencyMetaData dependencyMetaData, DependencyToComponentIdResolver resolver, ResolveState resolveState) {
             this.dependencyMetaData = dependencyMetaData;
@@ -864,8 +952,13 @@ public class DependencyGraphBuilder {
                 return null;
             }
 
-            idResolveResult = new DefaultBuildableComponentIdResolveResult();
-            resolver.resolve(dependencyMetaData, idResolveResult);
+            if (prefetchedIdResult != null) {
+                idResolveResult = prefetchedIdResult;
+                prefetchedIdResult = null;
+            } else {
+                idResolveResult = new DefaultBuildableComponentIdResolveResult();
+                resolver.resolve(dependencyMetaData, idResolveResult);
+            }
             if (idResolveResult.getFailure() != null) {
                 failure = idResolveResult.getFailure();
                 return null;
@@ -880,12 +973,91 @@ public class DependencyGraphBuilder {
             return targetModuleRevision;
         }
 
+        public boolean isUnresolved() {
+            return targetModuleRevision == null && failure == null && prefetchedIdResult == null;
+        }
+
+        @Nullable
+        public BuildableComponentResolveResult takePrefetchedMetaData() {
+            BuildableComponentResolveResult result = prefetchedMetaData;
+            prefetchedMetaData = null;
+            return result;
+        }
+
         public void restart(ModuleVersionResolveState moduleRevision) {
             this.targetModuleRevision = moduleRevision;
             this.targetModule = moduleRevision.module;
         }
     }
 
+    /**
+     * A lookup that is made ahead of the graph traversal. Only touches the selector it is made for when it completes successfully.
+     */
+    private abstract static class PrefetchOperation implements BuildOperation {
+        final ModuleVersionSelectorResolveState selector;
+
+        PrefetchOperation(ModuleVersionSelectorResolveState selector) {
+            this.selector = selector;
+        }
+
+        abstract void run();
+    }
+
+    private static class PrefetchIdOperation extends PrefetchOperation {
+        private final DependencyToComponentIdResolver resolver;
+
+        PrefetchIdOperation(ModuleVersionSelectorResolveState selector, DependencyToComponentIdResolver resolver) {
+            super(selector);
+            this.resolver = resolver;
+        }
+
+        public String getDescription() {
+            return "Resolve " + selector.dependencyMetaData.getRequested();
+        }
+
+        void run() {
+            BuildableComponentIdResolveResult result = new DefaultBuildableComponentIdResolveResult();
+            resolver.resolve(selector.dependencyMetaData, result);
+            selector.prefetchedIdResult = result;
+        }
+    }
+
+    private static class PrefetchMetaDataOperation extends PrefetchOperation {
+        private final ComponentIdResolveResult idResult;
+        private final ComponentMetaDataResolver resolver;
+
+        PrefetchMetaDataOperation(ModuleVersionSelectorResolveState selector, ComponentIdResolveResult idResult, ComponentMetaDataResolver resolver) {
+            super(selector);
+            this.idResult = idResult;
+            this.resolver = resolver;
+        }
+
+        public String getDescription() {
+            return "Resolve meta-data for " + idResult.getId();
+        }
+
+        void run() {
+            BuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+            resolver.resolve(idResult.getId(), DefaultComponentOverrideMetadata.forDependency(selector.dependencyMetaData), result);
+            selector.prefetchedMetaData = result;
+        }
+    }
+
+    private static class PrefetchWorker implements BuildOperationWorker<PrefetchOperation> {
+        public String getDisplayName() {
+            return "dependency meta-data prefetch";
+        }
+
+        public void execute(PrefetchOperation operation) {
+            try {
+                operation.run();
+            } catch (RuntimeException e) {
+                // Leave it to the graph traversal to repeat the lookup and report the failure
+                LOGGER.debug("Could not prefetch {}.", operation.getDescription(), e);
+            }
+        }
+    }
+
     private static class DirectDependencyForcingResolver implements ModuleConflictResolver {
         private final ModuleVersionResolveState root;
 
@@ -894,7 +1066,7 @@ public class DependencyGraphBuilder {
         }
 
         public <T extends ComponentResolutionState> T select(Collection<? extends T> candidates) {
-            for (ConfigurationNode configuration : root.configurations) {
+            for (ConfigurationNode configuration : root.configurations.values()) {
                 for (DependencyEdge outgoingEdge : configuration.outgoingEdges) {
                     if (outgoingEdge.dependencyMetaData.isForce() && candidates.contains(outgoingEdge.targetModuleRevision)) {
                         outgoingEdge.targetModuleRevision.selectionReason = VersionSelectionReasons.FORCED;
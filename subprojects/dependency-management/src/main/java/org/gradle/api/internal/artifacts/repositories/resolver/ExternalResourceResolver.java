@@ -31,6 +31,7 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.DependencyResolve
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepositoryAccess;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.DescriptorParseContext;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.MetaDataParseException;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.PomReader;
 import org.gradle.api.internal.component.ArtifactType;
 import org.gradle.internal.SystemProperties;
 import org.gradle.internal.UncheckedException;
@@ -52,6 +53,8 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public abstract class ExternalResourceResolver implements ModuleVersionPublisher, ConfiguredModuleComponentRepository {
     private static final Logger LOGGER = LoggerFactory.getLogger(ExternalResourceResolver.class);
@@ -60,6 +63,7 @@ public abstract class ExternalResourceResolver implements ModuleVersionPublisher
     private List<ResourcePattern> artifactPatterns = new ArrayList<ResourcePattern>();
     private String name;
     private ComponentResolvers componentResolvers;
+    private ConcurrentMap<ModuleComponentIdentifier, PomReader> parsedPoms;
 
     private final ExternalResourceRepository repository;
     private final boolean local;
@@ -103,6 +107,8 @@ public abstract class ExternalResourceResolver implements ModuleVersionPublisher
 
     public void setComponentResolvers(ComponentResolvers resolver) {
         this.componentResolvers = resolver;
+        // Parent and imported POMs are only reused within a single resolve, as a later resolve may see different versions of them
+        this.parsedPoms = new ConcurrentHashMap<ModuleComponentIdentifier, PomReader>();
     }
 
     protected ExternalResourceRepository getRepository() {
@@ -166,7 +172,7 @@ public abstract class ExternalResourceResolver implements ModuleVersionPublisher
             return null;
         }
 
-        ExternalResourceResolverDescriptorParseContext context = new ExternalResourceResolverDescriptorParseContext(componentResolvers);
+        ExternalResourceResolverDescriptorParseContext context = new ExternalResourceResolverDescriptorParseContext(componentResolvers, parsedPoms);
         return parseMetaDataFromResource(moduleComponentIdentifier, metaDataResource, context);
     }
 
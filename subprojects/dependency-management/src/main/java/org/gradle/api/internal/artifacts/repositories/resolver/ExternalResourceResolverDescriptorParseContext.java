@@ -18,6 +18,7 @@ package org.gradle.api.internal.artifacts.repositories.resolver;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ComponentResolvers;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.DescriptorParseContext;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.PomReader;
 import org.gradle.api.internal.component.ArtifactType;
 import org.gradle.internal.component.model.ComponentArtifactMetaData;
 import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
@@ -30,6 +31,7 @@ import org.gradle.internal.resource.local.LocallyAvailableExternalResource;
 import org.gradle.internal.resource.local.LocallyAvailableResource;
 
 import java.io.File;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * ParserSettings that control the scope of searches carried out during parsing.
@@ -38,9 +40,15 @@ import java.io.File;
  */
 public class ExternalResourceResolverDescriptorParseContext implements DescriptorParseContext {
     private final ComponentResolvers mainResolvers;
+    private final ConcurrentMap<ModuleComponentIdentifier, PomReader> parsedPoms;
 
-    public ExternalResourceResolverDescriptorParseContext(ComponentResolvers mainResolvers) {
+    public ExternalResourceResolverDescriptorParseContext(ComponentResolvers mainResolvers, ConcurrentMap<ModuleComponentIdentifier, PomReader> parsedPoms) {
         this.mainResolvers = mainResolvers;
+        this.parsedPoms = parsedPoms;
+    }
+
+    public ConcurrentMap<ModuleComponentIdentifier, PomReader> getParsedPoms() {
+        return parsedPoms;
     }
 
     public LocallyAvailableExternalResource getMetaDataArtifact(ModuleComponentIdentifier moduleComponentIdentifier, ArtifactType artifactType) {
@@ -16,21 +16,118 @@
 
 package org.gradle.api.internal.filestore.ivy;
 
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.Action;
+import org.gradle.api.JavaVersion;
+import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
+import org.gradle.internal.Cast;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetaData;
 import org.gradle.api.internal.artifacts.repositories.resolver.IvyResourcePattern;
 import org.gradle.api.internal.artifacts.repositories.resolver.ResourcePattern;
 import org.gradle.api.internal.file.TemporaryFileProvider;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.reflect.DirectInstantiator;
+import org.gradle.internal.resource.cached.CachedExternalResource;
+import org.gradle.internal.resource.cached.CachedExternalResourceIndex;
+import org.gradle.internal.resource.local.DefaultLocallyAvailableResource;
 import org.gradle.internal.resource.local.GroupedAndNamedUniqueFileStore;
+import org.gradle.internal.resource.local.LocallyAvailableResource;
 import org.gradle.internal.resource.local.PathKeyFileStore;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
 
 public class ArtifactIdentifierFileStore extends GroupedAndNamedUniqueFileStore<ModuleComponentArtifactMetaData> {
+    public static final String DEDUPLICATE_TOGGLE = "org.gradle.filestore.deduplicate";
 
     private static final String GROUP_PATTERN = "[organisation]/[module](/[branch])/[revision]";
     private static final String NAME_PATTERN = "[artifact]-[revision](-[classifier])(.[ext])";
 
+    private final CachedExternalResourceIndex<String> checksumIndex;
+    private final HardLinker hardLinker;
+
     public ArtifactIdentifierFileStore(PathKeyFileStore pathKeyFileStore, TemporaryFileProvider temporaryFileProvider) {
+        this(pathKeyFileStore, temporaryFileProvider, null);
+    }
+
+    /**
+     * @param checksumIndex Index of the entries of this store by SHA-1, used to share content between entries with different keys. Entries are not shared when null.
+     */
+    public ArtifactIdentifierFileStore(PathKeyFileStore pathKeyFileStore, TemporaryFileProvider temporaryFileProvider, @Nullable CachedExternalResourceIndex<String> checksumIndex) {
+        this(pathKeyFileStore, temporaryFileProvider, checksumIndex, createHardLinker());
+    }
+
+    ArtifactIdentifierFileStore(PathKeyFileStore pathKeyFileStore, TemporaryFileProvider temporaryFileProvider, @Nullable CachedExternalResourceIndex<String> checksumIndex, HardLinker hardLinker) {
         super(pathKeyFileStore, temporaryFileProvider, toTransformer(GROUP_PATTERN), toTransformer(NAME_PATTERN));
+        this.checksumIndex = checksumIndex;
+        this.hardLinker = hardLinker;
+    }
+
+    public boolean isIndexedByChecksum() {
+        return checksumIndex != null;
+    }
+
+    /**
+     * Locates an entry with the given content, regardless of the key it was stored with.
+     *
+     * @return the entry, or null if there is no such entry or this store is not indexed by checksum.
+     */
+    @Nullable
+    public LocallyAvailableResource findByChecksum(HashValue checksum) {
+        if (checksumIndex == null) {
+            return null;
+        }
+        CachedExternalResource cached = checksumIndex.lookup(checksum.asHexString());
+        if (cached == null || cached.isMissing()) {
+            return null;
+        }
+        return new DefaultLocallyAvailableResource(cached.getCachedFile(), checksum);
+    }
+
+    @Override
+    public LocallyAvailableResource move(ModuleComponentArtifactMetaData key, final File source) {
+        if (checksumIndex == null) {
+            return super.move(key, source);
+        }
+
+        HashValue checksum = getChecksum(source);
+        final LocallyAvailableResource existing = findByChecksum(checksum);
+        if (existing == null) {
+            LocallyAvailableResource entry = move(key, checksum, source);
+            checksumIndex.store(checksum.asHexString(), entry.getFile(), null);
+            return entry;
+        }
+
+        // Same content is already in the store under another key: share it rather than keep another copy
+        LocallyAvailableResource entry = add(key, checksum, new Action<File>() {
+            public void execute(File file) {
+                if (!hardLinker.link(existing.getFile(), file)) {
+                    GFileUtils.moveFile(source, file);
+                }
+            }
+        });
+        if (source.exists()) {
+            FileUtils.deleteQuietly(source);
+        }
+        return entry;
+    }
+
+    private static HardLinker createHardLinker() {
+        if (JavaVersion.current().isJava7Compatible()) {
+            try {
+                Class<?> clazz = ArtifactIdentifierFileStore.class.getClassLoader().loadClass("org.gradle.api.internal.filestore.ivy.jdk7.Jdk7HardLinker");
+                return Cast.uncheckedCast(DirectInstantiator.instantiate(clazz));
+            } catch (ClassNotFoundException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        return new HardLinker() {
+            public boolean link(File existing, File link) {
+                return false;
+            }
+        };
     }
 
     private static Transformer<String, ModuleComponentArtifactMetaData> toTransformer(final String pattern) {
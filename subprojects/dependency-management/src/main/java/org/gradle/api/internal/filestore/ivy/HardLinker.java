@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.filestore.ivy;
+
+import java.io.File;
+
+/**
+ * Creates hard links, so that the same file content can be shared by several entries of a file store.
+ */
+public interface HardLinker {
+    /**
+     * Creates a hard link at the given location to the given existing file.
+     *
+     * @return true if the link was created, false if hard links are not supported by the platform or the file system.
+     */
+    boolean link(File existing, File link);
+}
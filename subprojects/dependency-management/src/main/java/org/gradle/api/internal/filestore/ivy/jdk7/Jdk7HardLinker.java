@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.filestore.ivy.jdk7;
+
+import org.gradle.api.internal.filestore.ivy.HardLinker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class Jdk7HardLinker implements HardLinker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Jdk7HardLinker.class);
+
+    public boolean link(File existing, File link) {
+        try {
+            Files.createLink(link.toPath(), existing.toPath());
+            return true;
+        } catch (IOException e) {
+            LOGGER.debug("Could not create hard link from {} to {}.", link, existing, e);
+            return false;
+        } catch (UnsupportedOperationException e) {
+            LOGGER.debug("Could not create hard link from {} to {}.", link, existing, e);
+            return false;
+        }
+    }
+}
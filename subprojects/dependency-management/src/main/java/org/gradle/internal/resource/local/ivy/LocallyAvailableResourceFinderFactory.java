@@ -16,6 +16,7 @@
 package org.gradle.internal.resource.local.ivy;
 
 import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheMetaData;
+import org.gradle.api.internal.filestore.ivy.ArtifactIdentifierFileStore;
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetaData;
 import org.gradle.api.internal.artifacts.mvnsettings.CannotLocateLocalMavenRepositoryException;
 import org.gradle.api.internal.artifacts.mvnsettings.LocalMavenRepositoryLocator;
@@ -27,7 +28,6 @@ import org.gradle.internal.resource.local.LocallyAvailableResourceCandidates;
 import org.gradle.internal.resource.local.LocallyAvailableResourceFinder;
 import org.gradle.internal.resource.local.LocallyAvailableResourceFinderSearchableFileStoreAdapter;
 import org.gradle.internal.Factory;
-import org.gradle.internal.resource.local.FileStoreSearcher;
 import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.resource.local.LocallyAvailableResource;
 import org.slf4j.Logger;
@@ -42,10 +42,10 @@ public class LocallyAvailableResourceFinderFactory implements Factory<LocallyAva
 
     private final File rootCachesDirectory;
     private final LocalMavenRepositoryLocator localMavenRepositoryLocator;
-    private final FileStoreSearcher<ModuleComponentArtifactMetaData> fileStore;
+    private final ArtifactIdentifierFileStore fileStore;
 
     public LocallyAvailableResourceFinderFactory(
-            ArtifactCacheMetaData artifactCacheMetaData, LocalMavenRepositoryLocator localMavenRepositoryLocator, FileStoreSearcher<ModuleComponentArtifactMetaData> fileStore) {
+            ArtifactCacheMetaData artifactCacheMetaData, LocalMavenRepositoryLocator localMavenRepositoryLocator, ArtifactIdentifierFileStore fileStore) {
         this.rootCachesDirectory = artifactCacheMetaData.getCacheDir().getParentFile();
         this.localMavenRepositoryLocator = localMavenRepositoryLocator;
         this.fileStore = fileStore;
@@ -59,6 +59,11 @@ public class LocallyAvailableResourceFinderFactory implements Factory<LocallyAva
         // The current filestore
         finders.add(new LocallyAvailableResourceFinderSearchableFileStoreAdapter<ModuleComponentArtifactMetaData>(fileStore));
 
+        // The current filestore, by content stored for any other artifact
+        if (fileStore.isIndexedByChecksum()) {
+            finders.add(new ChecksumIndexedFileStoreResourceFinder());
+        }
+
         // 1.8
         addForPattern(finders, "artifacts-26/filestore/[organisation]/[module](/[branch])/[revision]/[type]/*/[artifact]-[revision](-[classifier])(.[ext])");
 
@@ -127,6 +132,23 @@ public class LocallyAvailableResourceFinderFactory implements Factory<LocallyAva
         }
     }
 
+    private class ChecksumIndexedFileStoreResourceFinder implements LocallyAvailableResourceFinder<ModuleComponentArtifactMetaData> {
+        // Never 'none', so that the checksum of every resource is fetched and looked up before the resource is downloaded
+        private final LocallyAvailableResourceCandidates candidates = new LocallyAvailableResourceCandidates() {
+            public boolean isNone() {
+                return false;
+            }
+
+            public LocallyAvailableResource findByHashValue(HashValue hashValue) {
+                return fileStore.findByChecksum(hashValue);
+            }
+        };
+
+        public LocallyAvailableResourceCandidates findCandidates(ModuleComponentArtifactMetaData criterion) {
+            return candidates;
+        }
+    }
+
     private class NoMavenLocalRepositoryResourceFinder implements LocallyAvailableResourceFinder<ModuleComponentArtifactMetaData> {
         private final CannotLocateLocalMavenRepositoryException ex;
         private boolean logged;
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.configurations
+
+import org.gradle.api.InvalidUserCodeException
+import org.gradle.api.internal.project.ProjectConfigurationGuard
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.internal.progress.BuildOperationExecutor
+import org.gradle.util.TestUtil
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class ConcurrentProjectConfigurationTest extends Specification {
+    def root = TestUtil.createRootProject()
+    def child1 = TestUtil.createChildProject(root, "child1")
+    def child2 = TestUtil.createChildProject(root, "child2")
+    def executor = Executors.newFixedThreadPool(2)
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "projects configured concurrently can change their own tasks, configurations, dependencies and extensions"() {
+        def change = { ProjectInternal project ->
+            project.tasks.create("compile")
+            project.configurations.create("conf")
+            project.dependencies.add("conf", "group:${project.name}:1.0")
+            project.ext.value = project.name
+            project.extensions.create("custom", CustomExtension)
+            project.extensions.configure(CustomExtension) { it.value = project.name }
+        }
+
+        when:
+        def failures = configureConcurrently((child1): change, (child2): change)
+
+        then:
+        failures.empty
+        [child1, child2].each { project ->
+            assert project.tasks.findByName("compile") != null
+            assert project.configurations.conf.dependencies*.name == [project.name]
+            assert project.ext.value == project.name
+            assert project.extensions.getByType(CustomExtension).value == project.name
+        }
+    }
+
+    def "projects configured concurrently can register build and task graph listeners"() {
+        def notifications = new AtomicInteger()
+        def register = { ProjectInternal project ->
+            1000.times {
+                project.gradle.taskGraph.whenReady { notifications.incrementAndGet() }
+                project.gradle.projectsEvaluated { notifications.incrementAndGet() }
+            }
+        }
+
+        when:
+        def failures = configureConcurrently((child1): register, (child2): register)
+        root.gradle.buildListenerBroadcaster.projectsEvaluated(root.gradle)
+        root.services.get(BuildOperationExecutor).run("Run tasks", { root.gradle.taskGraph.execute() } as Runnable)
+
+        then:
+        failures.empty
+        notifications.get() == 4000
+    }
+
+    def "fails when #description of another project while projects are configured concurrently"() {
+        child2.configurations.create("conf")
+        child2.extensions.create("custom", CustomExtension)
+
+        when:
+        def failures = configureConcurrently((child1): { change.call(child2) }, (child2): {})
+
+        then:
+        failures.size() == 1
+        failures[0] instanceof InvalidUserCodeException
+        failures[0].message.startsWith("Cannot change project ':child2' while configuring project ':child1'")
+
+        where:
+        description                   | change
+        "creating a task"             | { ProjectInternal project -> project.tasks.create("other") }
+        "adding a configuration"      | { ProjectInternal project -> project.configurations.create("other") }
+        "adding a dependency"         | { ProjectInternal project -> project.dependencies.add("conf", "group:module:1.0") }
+        "setting an extra property"   | { ProjectInternal project -> project.ext.other = "value" }
+        "adding an extension"         | { ProjectInternal project -> project.extensions.add("other", "value") }
+        "configuring an extension"    | { ProjectInternal project -> project.extensions.configure(CustomExtension) { it.value = "other" } }
+    }
+
+    /**
+     * Configures each of the given projects on its own thread, the same way as projects are configured in parallel, and returns the failures.
+     */
+    private List<Throwable> configureConcurrently(Map<ProjectInternal, Closure> actions) {
+        def started = new CountDownLatch(actions.size())
+        def results = actions.collect { project, action ->
+            executor.submit({
+                ProjectConfigurationGuard.configure(project) {
+                    started.countDown()
+                    assert started.await(20, TimeUnit.SECONDS)
+                    action.call(project)
+                }
+            } as Callable)
+        }
+        def failures = []
+        results.each { result ->
+            try {
+                result.get()
+            } catch (ExecutionException e) {
+                failures << e.cause
+            }
+        }
+        return failures
+    }
+
+    static class CustomExtension {
+        String value
+    }
+}
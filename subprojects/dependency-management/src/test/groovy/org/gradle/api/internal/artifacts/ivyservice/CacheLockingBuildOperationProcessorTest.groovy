@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.cache.internal.CacheInitializationAction
+import org.gradle.cache.internal.DefaultCacheAccess
+import org.gradle.cache.internal.DefaultFileLockManagerTestHelper
+import org.gradle.cache.internal.FileLockManager
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.BuildOperation
+import org.gradle.internal.operations.BuildOperationWorker
+import org.gradle.internal.operations.MultipleBuildOperationFailures
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicInteger
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode
+
+@Timeout(60)
+class CacheLockingBuildOperationProcessorTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheAccess = new DefaultCacheAccess("artifact cache", tmpDir.file("cache"), tmpDir.file("cache"), DefaultFileLockManagerTestHelper.createDefaultFileLockManager(), Stub(CacheInitializationAction))
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        useCache(_, _ as Runnable) >> { String description, Runnable action -> cacheAccess.useCache(description, action) }
+        longRunningOperation(_, _ as Runnable) >> { String description, Runnable action -> cacheAccess.longRunningOperation(description, action) }
+    }
+    def processor = new CacheLockingBuildOperationProcessor(cacheLockingManager, new DefaultExecutorFactory(), 4)
+
+    def setup() {
+        cacheAccess.open(mode(FileLockManager.LockMode.None))
+    }
+
+    def cleanup() {
+        processor.stop()
+        cacheAccess.close()
+    }
+
+    def "releases the cache lock while waiting for operations and reacquires it afterwards"() {
+        def worker = new RecordingWorker()
+
+        when:
+        cacheAccess.useCache("resolve", {
+            def queue = processor.newQueue(worker, null)
+            4.times { queue.add(new TestOperation()) }
+            queue.waitForCompletion()
+            assertOwnsCacheLock()
+        } as Runnable)
+
+        then:
+        worker.threads.size() == 4
+        !worker.threads.contains(Thread.currentThread())
+        worker.maxConcurrent.get() == 1
+    }
+
+    def "reacquires the cache lock when an operation fails"() {
+        def worker = new RecordingWorker()
+        worker.failure = new RuntimeException("broken")
+
+        when:
+        cacheAccess.useCache("resolve", {
+            def queue = processor.newQueue(worker, null)
+            queue.add(new TestOperation())
+            try {
+                queue.waitForCompletion()
+            } finally {
+                assertOwnsCacheLock()
+            }
+        } as Runnable)
+
+        then:
+        def e = thrown(MultipleBuildOperationFailures)
+        e.causes*.message == ["broken"]
+    }
+
+    def "runs operations queued by an operation on the same worker thread"() {
+        def nestedWorker = new RecordingWorker()
+        def parentThreads = new CopyOnWriteArrayList<Thread>()
+        def worker = new BuildOperationWorker<TestOperation>() {
+            String getDisplayName() {
+                return "parent"
+            }
+
+            void execute(TestOperation operation) {
+                parentThreads << Thread.currentThread()
+                def queue = processor.newQueue(nestedWorker, null)
+                2.times { queue.add(new TestOperation()) }
+                queue.waitForCompletion()
+            }
+        }
+
+        when:
+        cacheAccess.useCache("resolve", {
+            def queue = processor.newQueue(worker, null)
+            queue.add(new TestOperation())
+            queue.waitForCompletion()
+        } as Runnable)
+
+        then:
+        parentThreads.size() == 1
+        parentThreads[0] != Thread.currentThread()
+        nestedWorker.threads == [parentThreads[0], parentThreads[0]]
+    }
+
+    def assertOwnsCacheLock() {
+        // Fails when the current thread does not own the cache lock
+        cacheAccess.longRunningOperation("check lock", {} as Runnable)
+    }
+
+    static class TestOperation implements BuildOperation {
+        String getDescription() {
+            return "test operation"
+        }
+    }
+
+    class RecordingWorker implements BuildOperationWorker<TestOperation> {
+        final threads = new CopyOnWriteArrayList<Thread>()
+        final concurrent = new AtomicInteger()
+        final maxConcurrent = new AtomicInteger()
+        RuntimeException failure
+
+        String getDisplayName() {
+            return "recording worker"
+        }
+
+        void execute(TestOperation operation) {
+            threads << Thread.currentThread()
+            assertOwnsCacheLock()
+            int current = concurrent.incrementAndGet()
+            maxConcurrent.set(Math.max(maxConcurrent.get(), current))
+            try {
+                Thread.sleep(20)
+                if (failure != null) {
+                    throw failure
+                }
+            } finally {
+                concurrent.decrementAndGet()
+            }
+        }
+    }
+}
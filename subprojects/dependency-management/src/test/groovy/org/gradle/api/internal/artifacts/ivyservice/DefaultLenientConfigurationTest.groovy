@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.ResolvedArtifact
+import org.gradle.api.artifacts.ResolvedModuleVersion
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifacts
+import org.gradle.api.specs.Specs
+import org.gradle.cache.internal.CacheInitializationAction
+import org.gradle.cache.internal.DefaultCacheAccess
+import org.gradle.cache.internal.DefaultFileLockManagerTestHelper
+import org.gradle.cache.internal.FileLockManager
+import org.gradle.internal.Factory
+import org.gradle.internal.component.model.IvyArtifactName
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.resolve.ArtifactResolveException
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import java.util.concurrent.CopyOnWriteArraySet
+import java.util.concurrent.atomic.AtomicInteger
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode
+
+@Timeout(60)
+class DefaultLenientConfigurationTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheAccess = new DefaultCacheAccess("artifact cache", tmpDir.file("cache"), tmpDir.file("cache"), DefaultFileLockManagerTestHelper.createDefaultFileLockManager(), Stub(CacheInitializationAction))
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        useCache(_, _ as Factory) >> { String description, Factory action -> cacheAccess.useCache(description, action) }
+        useCache(_, _ as Runnable) >> { String description, Runnable action -> cacheAccess.useCache(description, action) }
+        longRunningOperation(_, _ as Runnable) >> { String description, Runnable action -> cacheAccess.longRunningOperation(description, action) }
+    }
+    def processor = new CacheLockingBuildOperationProcessor(cacheLockingManager, new DefaultExecutorFactory(), 4)
+    def downloadThreads = new CopyOnWriteArraySet<Thread>()
+    def concurrentDownloads = new AtomicInteger()
+    def maxConcurrentDownloads = new AtomicInteger()
+
+    def setup() {
+        cacheAccess.open(mode(FileLockManager.LockMode.None))
+    }
+
+    def cleanup() {
+        processor.stop()
+        cacheAccess.close()
+    }
+
+    def "resolves the files of the artifacts concurrently when a download processor is provided"() {
+        def artifacts = (1..4).collect { artifact(new File("file${it}.jar")) } as LinkedHashSet
+        def configuration = lenientConfiguration(artifacts)
+
+        when:
+        def files = configuration.getFiles(Specs.satisfyAll())
+
+        then:
+        files as List == (1..4).collect { new File("file${it}.jar") }
+        !downloadThreads.contains(Thread.currentThread())
+        artifacts.every { it.fileResolved }
+    }
+
+    def "downloads run concurrently while the resolving thread has released the cache lock"() {
+        def artifacts = (1..4).collect { artifact(new File("file${it}.jar")) } as LinkedHashSet
+        def configuration = lenientConfiguration(artifacts)
+
+        when:
+        def result = configuration.getArtifacts(Specs.satisfyAll())
+
+        then:
+        result == artifacts
+        downloadThreads.size() > 1
+        !downloadThreads.contains(Thread.currentThread())
+        maxConcurrentDownloads.get() > 1
+    }
+
+    def "excludes artifacts that cannot be resolved"() {
+        def resolved = artifact(new File("file.jar"))
+        def broken = artifact(null)
+        def configuration = lenientConfiguration([resolved, broken] as LinkedHashSet)
+
+        when:
+        def result = configuration.getArtifacts(Specs.satisfyAll())
+
+        then:
+        result == [resolved] as Set
+    }
+
+    def lenientConfiguration(Set<ResolvedArtifact> artifacts) {
+        def results = Stub(ResolvedArtifacts) {
+            getArtifacts() >> artifacts
+        }
+        new DefaultLenientConfiguration(Stub(Configuration), cacheLockingManager, [] as Set, results, Stub(Factory), processor)
+    }
+
+    def artifact(File file) {
+        def source = new Factory<File>() {
+            File create() {
+                downloadThreads << Thread.currentThread()
+                assertOwnsCacheLock()
+                // Like a remote download, release the cache lock while waiting
+                cacheAccess.longRunningOperation("download", {
+                    int current = concurrentDownloads.incrementAndGet()
+                    maxConcurrentDownloads.set(Math.max(maxConcurrentDownloads.get(), current))
+                    Thread.sleep(100)
+                    concurrentDownloads.decrementAndGet()
+                } as Runnable)
+                if (file == null) {
+                    throw new ArtifactResolveException("broken")
+                }
+                return file
+            }
+        }
+        new DefaultResolvedArtifact(Stub(ResolvedModuleVersion), Stub(IvyArtifactName), Stub(ComponentArtifactIdentifier), source)
+    }
+
+    def assertOwnsCacheLock() {
+        // Fails when the current thread does not own the cache lock
+        cacheAccess.longRunningOperation("check lock", {} as Runnable)
+    }
+}
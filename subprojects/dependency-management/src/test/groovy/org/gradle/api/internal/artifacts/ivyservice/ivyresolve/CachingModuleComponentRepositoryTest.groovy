@@ -115,7 +115,7 @@ class CachingModuleComponentRepositoryTest extends Specification {
     def "does not use cache when artifacts for type can be determined locally"() {
         def component = Mock(ComponentResolveMetaData)
         def source = Mock(ModuleSource)
-        def cachingSource = new CachingModuleComponentRepository.CachingModuleSource(BigInteger.ONE, false, source)
+        def cachingSource = new CachingModuleComponentRepository.CachingModuleSource(BigInteger.ONE, false, 0, source)
         def artifactType = ArtifactType.JAVADOC
         def result = new DefaultBuildableArtifactSetResolveResult()
 
@@ -134,7 +134,7 @@ class CachingModuleComponentRepositoryTest extends Specification {
     def "does not use cache when artifacts for usage can be determined locally"() {
         def component = Mock(ComponentResolveMetaData)
         def source = Mock(ModuleSource)
-        def cachingSource = new CachingModuleComponentRepository.CachingModuleSource(BigInteger.ONE, false, source)
+        def cachingSource = new CachingModuleComponentRepository.CachingModuleSource(BigInteger.ONE, false, 0, source)
         def componentUsage = Mock(ComponentUsage)
         def result = new DefaultBuildableArtifactSetResolveResult()
 
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve
+
+import org.gradle.api.Transformer
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultComponentSelectionRules
+import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetaData
+import org.gradle.internal.component.model.DependencyMetaData
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
+import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult
+import org.gradle.internal.resolve.result.DefaultBuildableComponentIdResolveResult
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class DynamicVersionResolverTest extends Specification {
+    def versionComparator = new DefaultVersionComparator()
+    def chooser = new DefaultVersionedComponentChooser(versionComparator, new DefaultVersionSelectorScheme(versionComparator), new DefaultComponentSelectionRules())
+    def metaDataFactory = Stub(Transformer) {
+        transform(_) >> { RepositoryChainModuleResolution resolution -> resolution.module }
+    }
+    def executorFactory = new DefaultExecutorFactory()
+    def processor = new DefaultBuildOperationProcessor(executorFactory, 4)
+    def dependency = Stub(DependencyMetaData)
+    def result = new DefaultBuildableComponentIdResolveResult()
+    def resolvedFrom = [:]
+
+    def setup() {
+        dependency.requested >> new DefaultModuleVersionSelector("group", "name", "1.+")
+        dependency.withRequestedVersion(_) >> dependency
+    }
+
+    def cleanup() {
+        processor.stop()
+        executorFactory.stop()
+    }
+
+    def "lists versions in all repositories concurrently"() {
+        def listing = new CountDownLatch(2)
+        def listedConcurrently = [].asSynchronized()
+        def resolver = new DynamicVersionResolver(chooser, metaDataFactory, processor)
+        resolver.add(repository("repo1", ["1.1", "1.2"]) {
+            listing.countDown()
+            listedConcurrently << listing.await(20, TimeUnit.SECONDS)
+        })
+        resolver.add(repository("repo2", ["1.3"]) {
+            listing.countDown()
+            listedConcurrently << listing.await(20, TimeUnit.SECONDS)
+        })
+
+        when:
+        resolver.resolve(dependency, result)
+
+        then:
+        listedConcurrently == [true, true]
+        result.moduleVersionId == DefaultModuleVersionIdentifier.newId("group", "name", "1.3")
+    }
+
+    def "selects version from first declared repository when repositories contain the same version"() {
+        def resolver = new DynamicVersionResolver(chooser, metaDataFactory, processor)
+        resolver.add(repository("repo1", ["1.1", "1.2"]) {})
+        resolver.add(repository("repo2", ["1.2"]) {})
+
+        when:
+        resolver.resolve(dependency, result)
+
+        then:
+        result.moduleVersionId == DefaultModuleVersionIdentifier.newId("group", "name", "1.2")
+        resolvedFrom[result.metaData] == "repo1"
+    }
+
+    def "reports listing failure when versions are listed concurrently"() {
+        def failure = new RuntimeException("broken")
+        def resolver = new DynamicVersionResolver(chooser, metaDataFactory, processor)
+        resolver.add(repository("repo1", ["1.1"]) { throw failure })
+        resolver.add(repository("repo2", ["1.2"]) { throw failure })
+
+        when:
+        resolver.resolve(dependency, result)
+
+        then:
+        result.failure.causes == [failure, failure]
+    }
+
+    def "does not list versions remotely when versions listed concurrently from the local cache are not authoritative"() {
+        def remoteAccess1 = Mock(ModuleComponentRepositoryAccess)
+        def remoteAccess2 = Mock(ModuleComponentRepositoryAccess)
+        def resolver = new DynamicVersionResolver(chooser, metaDataFactory, processor)
+        resolver.add(cachedRepository("repo1", ["1.1"], remoteAccess1))
+        resolver.add(cachedRepository("repo2", ["1.2"], remoteAccess2))
+
+        when:
+        resolver.resolve(dependency, result)
+
+        then:
+        result.moduleVersionId == DefaultModuleVersionIdentifier.newId("group", "name", "1.2")
+        0 * remoteAccess1._
+        0 * remoteAccess2._
+    }
+
+    def repository(String name, List<String> versions, Closure onList) {
+        def localAccess = Stub(ModuleComponentRepositoryAccess)
+        def remoteAccess = Stub(ModuleComponentRepositoryAccess) {
+            listModuleVersions(_, _) >> { DependencyMetaData dependency, BuildableModuleVersionListingResolveResult result ->
+                onList.call()
+                result.listed(versions)
+            }
+            resolveComponentMetaData(_, _, _) >> { ModuleComponentIdentifier id, def overrides, BuildableModuleComponentMetaDataResolveResult result ->
+                def metaData = metaData(id)
+                resolvedFrom[metaData] = name
+                result.resolved(metaData)
+            }
+        }
+        return Stub(ModuleComponentRepository) {
+            getId() >> name
+            getName() >> name
+            getLocalAccess() >> localAccess
+            getRemoteAccess() >> remoteAccess
+        }
+    }
+
+    def metaData(ModuleComponentIdentifier id) {
+        return Stub(MutableModuleComponentResolveMetaData) {
+            getComponentId() >> id
+            getId() >> DefaultModuleVersionIdentifier.newId(id.group, id.module, id.version)
+        }
+    }
+
+    def cachedRepository(String name, List<String> versions, ModuleComponentRepositoryAccess remoteAccess) {
+        def localAccess = Stub(ModuleComponentRepositoryAccess) {
+            listModuleVersions(_, _) >> { DependencyMetaData dependency, BuildableModuleVersionListingResolveResult result ->
+                result.listed(versions)
+                result.authoritative = false
+            }
+            resolveComponentMetaData(_, _, _) >> { ModuleComponentIdentifier id, def overrides, BuildableModuleComponentMetaDataResolveResult result ->
+                result.resolved(metaData(id))
+            }
+        }
+        return Stub(ModuleComponentRepository) {
+            getId() >> name
+            getName() >> name
+            getLocalAccess() >> localAccess
+            getRemoteAccess() >> remoteAccess
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache
+
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.CachingModuleComponentRepository
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetaData
+import org.gradle.internal.component.model.ComponentOverrideMetadata
+import org.gradle.internal.component.model.DefaultIvyArtifactName
+import org.gradle.internal.resolve.result.BuildableArtifactResolveResult
+import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult
+import org.gradle.internal.resolve.result.DefaultBuildableArtifactResolveResult
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.BuildCommencedTimeProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionSelector.newSelector
+
+class CrossBuildInMemoryRepositoryCachesTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def crossBuildCaches = new CrossBuildInMemoryRepositoryCaches(100, 2)
+    def cachePolicy = Mock(CachePolicy)
+    def requestMetaData = Stub(ComponentOverrideMetadata)
+    def componentId = DefaultModuleComponentIdentifier.newId("org", "foo", "1.0")
+    def descriptorHash = BigInteger.TEN
+
+    def "keeps caches of repository across builds"() {
+        def repo = Stub(ModuleComponentRepository) { getId() >> "mavenCentral" }
+        def firstBuild = new InMemoryCachedRepositoryFactory(crossBuildCaches, new BuildCommencedTimeProvider())
+        def secondBuild = new InMemoryCachedRepositoryFactory(crossBuildCaches, new BuildCommencedTimeProvider())
+
+        when:
+        def c1 = firstBuild.cached(repo, cachePolicy)
+        firstBuild.stop()
+        def c2 = secondBuild.cached(repo, cachePolicy)
+
+        then:
+        c1.delegate == repo
+        c2.delegate == repo
+        firstBuild.stats.cacheInstances == 1
+        secondBuild.stats.cacheInstances == 0
+        secondBuild.stats.reposWrapped == 1
+    }
+
+    def "keeps caches of repository that was used by one of the last few builds"() {
+        def repoA = Stub(ModuleComponentRepository) { getId() >> "repoA" }
+        def repoB = Stub(ModuleComponentRepository) { getId() >> "repoB" }
+
+        when:
+        runBuild(repoA, repoB)
+        runBuild(repoA)
+        def build = runBuild(repoA, repoB)
+
+        then:
+        build.stats.cacheInstances == 0
+    }
+
+    def "discards caches of repository that was not used by the last few builds"() {
+        def repoA = Stub(ModuleComponentRepository) { getId() >> "repoA" }
+        def repoB = Stub(ModuleComponentRepository) { getId() >> "repoB" }
+
+        when:
+        runBuild(repoA, repoB)
+        runBuild(repoA)
+        runBuild(repoA)
+        def build = runBuild(repoA, repoB)
+
+        then:
+        build.stats.cacheInstances == 1
+    }
+
+    def "serves meta-data recorded by an earlier build while the cache policy allows it"() {
+        def metaData = metaData(1000)
+        def firstBuild = caches(1, 5000)
+        def secondBuild = caches(2, 8000)
+        def result = Mock(BuildableModuleComponentMetaDataResolveResult)
+
+        given:
+        firstBuild.remoteMetaDataCache.newDependencyResult(componentId, resolved(metaData))
+
+        when:
+        def served = secondBuild.remoteMetaDataCache.supplyMetaData(componentId, requestMetaData, result)
+
+        then:
+        served
+        1 * cachePolicy.mustRefreshModule(componentId, _, 7000) >> false
+        1 * result.resolved(metaData)
+        1 * result.setAuthoritative(false)
+        secondBuild.stats.servedFromEarlierBuilds == 1
+
+        when:
+        served = secondBuild.remoteMetaDataCache.supplyMetaData(componentId, requestMetaData, result)
+
+        then:
+        !served
+        1 * cachePolicy.mustRefreshModule(componentId, _, 7000) >> true
+        0 * result._
+        secondBuild.stats.expired == 1
+    }
+
+    def "serves meta-data recorded by the current build without consulting the cache policy"() {
+        def metaData = metaData(1000)
+        def build = caches(1, 5000)
+        def result = Mock(BuildableModuleComponentMetaDataResolveResult)
+
+        given:
+        build.localMetaDataCache.newDependencyResult(componentId, resolved(metaData))
+
+        when:
+        def served = build.localMetaDataCache.supplyMetaData(componentId, requestMetaData, result)
+
+        then:
+        served
+        1 * result.resolved(metaData)
+        1 * result.setAuthoritative(true)
+        0 * cachePolicy._
+    }
+
+    def "does not reuse version listing across builds when it was not verified by the recording build"() {
+        def selector = newSelector("org", "foo", "1.+")
+        def firstBuild = caches(1, 5000)
+        def secondBuild = caches(2, 8000)
+        def result = Mock(BuildableModuleVersionListingResolveResult)
+
+        given:
+        firstBuild.localMetaDataCache.newModuleVersions(selector, Stub(BuildableModuleVersionListingResolveResult) {
+            getState() >> BuildableModuleVersionListingResolveResult.State.Listed
+            getVersions() >> (['1.0', '1.1'] as Set)
+            isAuthoritative() >> false
+        })
+
+        when:
+        def served = secondBuild.localMetaDataCache.supplyModuleVersions(selector, result)
+
+        then:
+        !served
+        0 * result._
+        0 * cachePolicy._
+    }
+
+    def "serves artifact recorded by an earlier build while the file is unchanged"() {
+        def file = tmpDir.createFile("foo-1.0.jar")
+        file.text = "content"
+        def artifactId = new DefaultModuleComponentArtifactIdentifier(componentId, new DefaultIvyArtifactName("foo", "jar", "jar"))
+        def moduleSource = new CachingModuleComponentRepository.CachingModuleSource(descriptorHash, false, 1000, null)
+        def firstBuild = caches(1, 5000)
+        def secondBuild = caches(2, 8000)
+        def downloaded = new DefaultBuildableArtifactResolveResult()
+        downloaded.resolved(file)
+        def result = Mock(BuildableArtifactResolveResult)
+
+        given:
+        firstBuild.remoteArtifactsCache.newArtifact(artifactId, moduleSource, downloaded)
+
+        when:
+        def served = secondBuild.remoteArtifactsCache.supplyArtifact(artifactId, moduleSource, result)
+
+        then:
+        served
+        1 * cachePolicy.mustRefreshArtifact(_, file, 3000, false, true) >> false
+        1 * result.resolved(file)
+
+        when:
+        file.text = "changed content"
+        served = secondBuild.remoteArtifactsCache.supplyArtifact(artifactId, moduleSource, result)
+
+        then:
+        !served
+        0 * cachePolicy._
+        0 * result._
+    }
+
+    private InMemoryCachedRepositoryFactory runBuild(ModuleComponentRepository... repos) {
+        def build = new InMemoryCachedRepositoryFactory(crossBuildCaches, new BuildCommencedTimeProvider())
+        repos.each { build.cached(it, cachePolicy) }
+        build.stop()
+        return build
+    }
+
+    private InMemoryModuleComponentRepositoryCaches caches(long buildGeneration, long buildStartTime) {
+        return crossBuildCaches.createCaches("repo", new InMemoryCacheExpiry(buildGeneration, buildStartTime, cachePolicy), new InMemoryCacheStats())
+    }
+
+    private MutableModuleComponentResolveMetaData metaData(long cachedAt) {
+        def metaData = Stub(MutableModuleComponentResolveMetaData)
+        metaData.copy() >> metaData
+        metaData.source >> new CachingModuleComponentRepository.CachingModuleSource(descriptorHash, false, cachedAt, null)
+        return metaData
+    }
+
+    private BuildableModuleComponentMetaDataResolveResult resolved(MutableModuleComponentResolveMetaData metaData) {
+        return Stub(BuildableModuleComponentMetaDataResolveResult) {
+            getState() >> BuildableModuleComponentMetaDataResolveResult.State.Resolved
+            getMetaData() >> metaData
+            isAuthoritative() >> true
+        }
+    }
+}
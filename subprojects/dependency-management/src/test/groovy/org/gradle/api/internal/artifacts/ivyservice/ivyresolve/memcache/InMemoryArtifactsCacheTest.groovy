@@ -20,12 +20,14 @@ import org.gradle.internal.resolve.result.BuildableArtifactResolveResult
 import org.gradle.internal.resolve.result.DefaultBuildableArtifactResolveResult
 import org.gradle.internal.resolve.ArtifactResolveException
 import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier
+import org.gradle.internal.component.model.ModuleSource
 import spock.lang.Specification
 
 class InMemoryArtifactsCacheTest extends Specification {
 
     def stats = new InMemoryCacheStats()
     def cache = new InMemoryArtifactsCache(stats)
+    def moduleSource = Stub(ModuleSource)
 
     static componentId(String group, String module, String version) {
         return DefaultModuleComponentIdentifier.newId(group, module, version)
@@ -38,21 +40,21 @@ class InMemoryArtifactsCacheTest extends Specification {
         given:
         def originalResult = new DefaultBuildableArtifactResolveResult()
         originalResult.resolved(artifactFile)
-        cache.newArtifact(artifactId, originalResult)
+        cache.newArtifact(artifactId, moduleSource, originalResult)
 
         def differentIdResult = Mock(BuildableArtifactResolveResult)
         def sameIdResult = Mock(BuildableArtifactResolveResult)
 
         when:
         def differentId = Stub(ModuleComponentArtifactIdentifier)
-        def differentIdFound = cache.supplyArtifact(differentId, differentIdResult)
+        def differentIdFound = cache.supplyArtifact(differentId, moduleSource, differentIdResult)
 
         then:
         !differentIdFound
         0 * differentIdResult._
 
         when:
-        def sameIdFound = cache.supplyArtifact(artifactId, sameIdResult)
+        def sameIdFound = cache.supplyArtifact(artifactId, moduleSource, sameIdResult)
 
         then:
         sameIdFound
@@ -62,12 +64,12 @@ class InMemoryArtifactsCacheTest extends Specification {
     def "does not cache failed artifact resolves"() {
         def artifactId = Stub(ModuleComponentArtifactIdentifier)
         def failedResult = Stub(BuildableArtifactResolveResult) { getFailure() >> new ArtifactResolveException("bad") }
-        cache.newArtifact(artifactId, failedResult)
+        cache.newArtifact(artifactId, moduleSource, failedResult)
 
         def result = Mock(BuildableArtifactResolveResult)
 
         when:
-        def fromCache = cache.supplyArtifact(artifactId, result)
+        def fromCache = cache.supplyArtifact(artifactId, moduleSource, result)
 
         then:
         !fromCache
@@ -110,7 +110,7 @@ class   InMemoryCachedModuleComponentRepositoryTest extends Specification {
         repo.localAccess.resolveComponentMetaData(lib, componentRequestMetaData, metaDataResult)
 
         then:
-        1 * localMetaDataCache.supplyMetaData(lib, metaDataResult) >> false
+        1 * localMetaDataCache.supplyMetaData(lib, componentRequestMetaData, metaDataResult) >> false
         1 * localDelegate.resolveComponentMetaData(lib, componentRequestMetaData, metaDataResult)
         1 * localMetaDataCache.newDependencyResult(lib, metaDataResult)
         0 * _
@@ -121,7 +121,7 @@ class   InMemoryCachedModuleComponentRepositoryTest extends Specification {
         repo.localAccess.resolveComponentMetaData(lib, componentRequestMetaData, metaDataResult)
 
         then:
-        1 * localMetaDataCache.supplyMetaData(lib, metaDataResult) >> true
+        1 * localMetaDataCache.supplyMetaData(lib, componentRequestMetaData, metaDataResult) >> true
         0 * _
     }
 
@@ -130,7 +130,7 @@ class   InMemoryCachedModuleComponentRepositoryTest extends Specification {
         repo.remoteAccess.resolveComponentMetaData(lib, componentRequestMetaData, metaDataResult)
 
         then:
-        1 * remoteMetaDataCache.supplyMetaData(lib, metaDataResult) >> false
+        1 * remoteMetaDataCache.supplyMetaData(lib, componentRequestMetaData, metaDataResult) >> false
         1 * remoteDelegate.resolveComponentMetaData(lib, componentRequestMetaData, metaDataResult)
         1 * remoteMetaDataCache.newDependencyResult(lib, metaDataResult)
         0 * _
@@ -141,7 +141,7 @@ class   InMemoryCachedModuleComponentRepositoryTest extends Specification {
         repo.remoteAccess.resolveComponentMetaData(lib, componentRequestMetaData, metaDataResult)
 
         then:
-        1 * remoteMetaDataCache.supplyMetaData(lib, metaDataResult) >> true
+        1 * remoteMetaDataCache.supplyMetaData(lib, componentRequestMetaData, metaDataResult) >> true
         0 * _
     }
 
@@ -197,18 +197,18 @@ class   InMemoryCachedModuleComponentRepositoryTest extends Specification {
         repo.localAccess.resolveArtifact(artifact, moduleSource, result)
 
         then:
-        1 * localArtifactsCache.supplyArtifact(artifactId, result) >> false
+        1 * localArtifactsCache.supplyArtifact(artifactId, moduleSource, result) >> false
         1 * localDelegate.resolveArtifact(artifact, moduleSource, result)
-        1 * localArtifactsCache.newArtifact(artifactId, result)
+        1 * localArtifactsCache.newArtifact(artifactId, moduleSource, result)
         0 * _
 
         when:
         repo.remoteAccess.resolveArtifact(artifact, moduleSource, result)
 
         then:
-        1 * remoteArtifactsCache.supplyArtifact(artifactId, result) >> false
+        1 * remoteArtifactsCache.supplyArtifact(artifactId, moduleSource, result) >> false
         1 * remoteDelegate.resolveArtifact(artifact, moduleSource, result)
-        1 * remoteArtifactsCache.newArtifact(artifactId, result)
+        1 * remoteArtifactsCache.newArtifact(artifactId, moduleSource, result)
         0 * _
     }
 
@@ -224,14 +224,14 @@ class   InMemoryCachedModuleComponentRepositoryTest extends Specification {
         repo.localAccess.resolveArtifact(artifact, moduleSource, result)
 
         then:
-        1 * localArtifactsCache.supplyArtifact(artifactId, result) >> true
+        1 * localArtifactsCache.supplyArtifact(artifactId, moduleSource, result) >> true
         0 * _
 
         when:
         repo.remoteAccess.resolveArtifact(artifact, moduleSource, result)
 
         then:
-        1 * remoteArtifactsCache.supplyArtifact(artifactId, result) >> true
+        1 * remoteArtifactsCache.supplyArtifact(artifactId, moduleSource, result) >> true
         0 * _
     }
 }
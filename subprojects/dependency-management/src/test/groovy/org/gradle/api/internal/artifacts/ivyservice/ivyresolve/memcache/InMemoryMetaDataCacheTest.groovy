@@ -18,6 +18,7 @@ package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache
 
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetaData
+import org.gradle.internal.component.model.ComponentOverrideMetadata
 import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult
 import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult
 import spock.lang.Specification
@@ -28,6 +29,7 @@ class InMemoryMetaDataCacheTest extends Specification {
 
     def stats = new InMemoryCacheStats()
     def cache = new InMemoryMetaDataCache(stats)
+    def requestMetaData = Stub(ComponentOverrideMetadata)
 
     static componentId(String group, String module, String version) {
         return DefaultModuleComponentIdentifier.newId(group, module, version)
@@ -88,7 +90,7 @@ class InMemoryMetaDataCacheTest extends Specification {
         cache.newDependencyResult(componentId("org", "foo", "1.0"), resolvedResult)
 
         when:
-        def differentSelector = cache.supplyMetaData(componentId("org", "XXX", "1.0"), result)
+        def differentSelector = cache.supplyMetaData(componentId("org", "XXX", "1.0"), requestMetaData, result)
 
         then:
         !differentSelector
@@ -96,7 +98,7 @@ class InMemoryMetaDataCacheTest extends Specification {
         0 * result._
 
         when:
-        def match = cache.supplyMetaData(componentId("org", "foo", "1.0"), result)
+        def match = cache.supplyMetaData(componentId("org", "foo", "1.0"), requestMetaData, result)
 
         then:
         match
@@ -118,7 +120,7 @@ class InMemoryMetaDataCacheTest extends Specification {
         cache.newDependencyResult(componentId("org", "remote", "1.0"), resolvedResult)
 
         when:
-        def found = cache.supplyMetaData(componentId("org", "remote", "1.0"), result)
+        def found = cache.supplyMetaData(componentId("org", "remote", "1.0"), requestMetaData, result)
 
         then:
         found
@@ -133,7 +135,7 @@ class InMemoryMetaDataCacheTest extends Specification {
         def result = Mock(BuildableModuleComponentMetaDataResolveResult.class)
 
         when:
-        def fromCache = cache.supplyMetaData(componentId("org", "lib", "1.0"), result)
+        def fromCache = cache.supplyMetaData(componentId("org", "lib", "1.0"), requestMetaData, result)
 
         then:
         !fromCache
@@ -21,6 +21,8 @@ import org.gradle.internal.resource.local.DefaultLocallyAvailableResource
 import spock.lang.Issue
 import spock.lang.Unroll
 
+import java.util.concurrent.ConcurrentHashMap
+
 import static org.gradle.api.internal.artifacts.ivyservice.IvyUtil.createModuleId
 import static org.gradle.api.internal.component.ArtifactType.MAVEN_POM
 
@@ -2297,4 +2299,57 @@ class GradlePomModuleDescriptorParserTest extends AbstractGradlePomModuleDescrip
         depGroupOne.moduleConfigurations as List == ['compile', 'runtime']
         hasDefaultDependencyArtifact(depGroupOne)
     }
+
+    def "reuses parent pom that has already been parsed using the same context"() {
+        given:
+        def parent = tmpDir.file("parent.xml") << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>parent</artifactId>
+    <version>version-one</version>
+
+    <dependencies>
+        <dependency>
+            <groupId>group-two</groupId>
+            <artifactId>artifact-two</artifactId>
+            <version>1.2</version>
+        </dependency>
+    </dependencies>
+</project>
+"""
+        def otherPomFile = tmpDir.file("other.xml")
+        [pomFile, otherPomFile].eachWithIndex { file, i ->
+            file << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <artifactId>artifact-${i}</artifactId>
+
+    <parent>
+        <groupId>group-one</groupId>
+        <artifactId>parent</artifactId>
+        <version>version-one</version>
+    </parent>
+</project>
+"""
+        }
+
+        and:
+        parseContext.getParsedPoms() >> new ConcurrentHashMap()
+
+        when:
+        def descriptor = parsePom()
+        def otherDescriptor = parser.parseMetaData(parseContext, otherPomFile, true).descriptor
+
+        then:
+        1 * parseContext.getMetaDataArtifact(_, MAVEN_POM) >> { new DefaultLocallyAvailableExternalResource(parent.toURI(), new DefaultLocallyAvailableResource(parent)) }
+
+        and:
+        descriptor.moduleRevisionId == moduleId('group-one', 'artifact-0', 'version-one')
+        otherDescriptor.moduleRevisionId == moduleId('group-one', 'artifact-1', 'version-one')
+        [descriptor, otherDescriptor].each {
+            assert it.dependencies.length == 1
+            assert it.dependencies[0].dependencyRevisionId == moduleId('group-two', 'artifact-two', '1.2')
+        }
+    }
 }
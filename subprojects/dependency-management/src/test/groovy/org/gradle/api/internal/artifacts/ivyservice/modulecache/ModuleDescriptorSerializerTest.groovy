@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor
+import org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.ResolverStrategy
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ModuleDescriptorSerializerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder
+    def resolverStrategy = new ResolverStrategy()
+    def parser = new IvyXmlModuleDescriptorParser(resolverStrategy)
+    def writer = new IvyXmlModuleDescriptorWriter()
+    def serializer = new ModuleDescriptorSerializer(resolverStrategy)
+
+    def "descriptor read back from binary form is equivalent to parsed descriptor"() {
+        def ivyFile = temporaryFolder.file("ivy.xml")
+        ivyFile.text = """<?xml version="1.0" encoding="UTF-8"?>
+<ivy-module version="2.0" xmlns:e="http://ant.apache.org/ivy/extra">
+    <info organisation="org.test" module="projectA" branch="trunk" revision="1.2" status="release" publication="20160120131415" e:buildNr="815">
+        <license name="Apache" url="http://www.apache.org/licenses/LICENSE-2.0"/>
+        <description homepage="http://gradle.org">A test module</description>
+        <e:notes>some notes</e:notes>
+    </info>
+    <configurations>
+        <conf name="compile" description="compile classpath"/>
+        <conf name="runtime" extends="compile" e:custom="value"/>
+        <conf name="test" visibility="private" extends="runtime" transitive="false" deprecated="use runtime"/>
+    </configurations>
+    <publications>
+        <artifact name="projectA" type="jar" ext="jar" conf="compile,runtime"/>
+        <artifact name="projectA" type="source" ext="jar" conf="test" e:classifier="sources"/>
+    </publications>
+    <dependencies>
+        <dependency org="org.test" name="dep1" rev="1.0" conf="compile->default"/>
+        <dependency org="org.test" name="dep2" rev="2.0" revConstraint="2.+" force="true" changing="true" transitive="false" conf="runtime->*,!sources;test->@" e:flavour="chocolate">
+            <artifact name="dep2" type="jar" ext="jar" conf="runtime"/>
+            <include name="dep2-api" type="jar" matcher="glob"/>
+            <exclude org="org.other" module="unwanted" conf="runtime"/>
+        </dependency>
+    </dependencies>
+</ivy-module>
+"""
+
+        when:
+        def parsed = parse(ivyFile)
+        def decoded = roundTrip(parsed)
+
+        then:
+        decoded.moduleRevisionId == parsed.moduleRevisionId
+        decoded.publicationDate == parsed.publicationDate
+        decoded.configurationsNames as List == parsed.configurationsNames as List
+        decoded.dependencies*.dependencyRevisionId == parsed.dependencies*.dependencyRevisionId
+        decoded.dependencies*.dynamicConstraintDependencyRevisionId == parsed.dependencies*.dynamicConstraintDependencyRevisionId
+        decoded.dependencies[1].getDependencyConfigurations("runtime") as List == parsed.dependencies[1].getDependencyConfigurations("runtime") as List
+        decoded.dependencies[1].allExcludeRules*.matcher == parsed.dependencies[1].allExcludeRules*.matcher
+        decoded.extraInfo == parsed.extraInfo
+        write(decoded) == write(parsed)
+    }
+
+    def "can round trip descriptor with module level excludes and no dependency configurations"() {
+        def ivyFile = temporaryFolder.file("ivy.xml")
+        ivyFile.text = """<?xml version="1.0" encoding="UTF-8"?>
+<ivy-module version="1.0">
+    <info organisation="org.test" module="projectB"/>
+    <dependencies>
+        <dependency name="dep1" rev="1.0"/>
+        <exclude module="excluded" matcher="regexp"/>
+    </dependencies>
+</ivy-module>
+"""
+
+        when:
+        def parsed = parse(ivyFile)
+        def decoded = roundTrip(parsed)
+
+        then:
+        decoded.allExcludeRules*.id == parsed.allExcludeRules*.id
+        decoded.allExcludeRules*.matcher == parsed.allExcludeRules*.matcher
+        write(decoded) == write(parsed)
+    }
+
+    private ModuleDescriptor parse(File ivyFile) {
+        parser.parseMetaData(new CachedModuleDescriptorParseContext(), ivyFile, false).descriptor
+    }
+
+    private ModuleDescriptor roundTrip(ModuleDescriptor descriptor) {
+        def bytes = new ByteArrayOutputStream()
+        def encoder = new KryoBackedEncoder(bytes)
+        serializer.write(encoder, descriptor)
+        encoder.flush()
+        return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(bytes.toByteArray())))
+    }
+
+    private String write(ModuleDescriptor descriptor) {
+        def file = temporaryFolder.createDir("written").file("ivy-${System.nanoTime()}.xml")
+        writer.write(descriptor, file)
+        return file.text
+    }
+}
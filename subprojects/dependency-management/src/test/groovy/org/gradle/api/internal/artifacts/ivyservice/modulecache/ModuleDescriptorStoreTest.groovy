@@ -21,7 +21,7 @@ import org.gradle.api.artifacts.component.ModuleComponentIdentifier
 import org.gradle.api.internal.artifacts.ivyservice.IvyModuleDescriptorWriter
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser
-
+import org.gradle.internal.component.external.model.DefaultIvyModuleResolveMetaData
 import org.gradle.internal.resource.local.LocallyAvailableResource
 import org.gradle.internal.resource.local.PathKeyFileStore
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -73,4 +73,67 @@ class ModuleDescriptorStoreTest extends Specification {
         };
         1 * ivyModuleDescriptorWriter.write(moduleDescriptor, descriptorFile)
     }
-}
\ No newline at end of file
+
+    def "uses binary descriptor created from the cached ivy.xml in place of parsing it"() {
+        setup:
+        ModuleDescriptorSerializer serializer = Mock()
+        DefaultIvyModuleResolveMetaData parsedMetaData = Mock()
+        ModuleDescriptor decoded = Mock()
+        store = new ModuleDescriptorStore(new PathKeyFileStore(temporaryFolder.testDirectory), ivyModuleDescriptorWriter, ivyXmlModuleDescriptorParser, serializer)
+        temporaryFolder.createFile("org.test/testArtifact/1.0/repositoryId/ivy.xml")
+
+        when:
+        def first = store.getModuleDescriptor(repository, moduleComponentIdentifier, BigInteger.TEN)
+
+        then:
+        first == moduleDescriptor
+        1 * ivyXmlModuleDescriptorParser.parseMetaData(_, _, false) >> parsedMetaData
+        1 * parsedMetaData.descriptor >> moduleDescriptor
+        1 * serializer.write(_, moduleDescriptor)
+        temporaryFolder.file("org.test/testArtifact/1.0/repositoryId/descriptor.bin").assertIsFile()
+
+        when:
+        def second = store.getModuleDescriptor(repository, moduleComponentIdentifier, BigInteger.TEN)
+
+        then:
+        second == decoded
+        1 * serializer.read(_) >> decoded
+        0 * ivyXmlModuleDescriptorParser._
+    }
+
+    def "recreates binary descriptor when ivy.xml has changed since it was created"() {
+        setup:
+        ModuleDescriptorSerializer serializer = Mock()
+        DefaultIvyModuleResolveMetaData parsedMetaData = Mock()
+        store = new ModuleDescriptorStore(new PathKeyFileStore(temporaryFolder.testDirectory), ivyModuleDescriptorWriter, ivyXmlModuleDescriptorParser, serializer)
+        temporaryFolder.createFile("org.test/testArtifact/1.0/repositoryId/ivy.xml")
+        _ * ivyXmlModuleDescriptorParser.parseMetaData(_, _, false) >> parsedMetaData
+        _ * parsedMetaData.descriptor >> moduleDescriptor
+        store.getModuleDescriptor(repository, moduleComponentIdentifier, BigInteger.TEN)
+
+        when:
+        def result = store.getModuleDescriptor(repository, moduleComponentIdentifier, BigInteger.ONE)
+
+        then:
+        result == moduleDescriptor
+        0 * serializer.read(_)
+        1 * serializer.write(_, moduleDescriptor)
+    }
+
+    def "parses ivy.xml when no descriptor hash is provided"() {
+        setup:
+        ModuleDescriptorSerializer serializer = Mock()
+        DefaultIvyModuleResolveMetaData parsedMetaData = Mock()
+        store = new ModuleDescriptorStore(new PathKeyFileStore(temporaryFolder.testDirectory), ivyModuleDescriptorWriter, ivyXmlModuleDescriptorParser, serializer)
+        temporaryFolder.createFile("org.test/testArtifact/1.0/repositoryId/ivy.xml")
+
+        when:
+        def result = store.getModuleDescriptor(repository, moduleComponentIdentifier)
+
+        then:
+        result == moduleDescriptor
+        1 * ivyXmlModuleDescriptorParser.parseMetaData(_, _, false) >> parsedMetaData
+        1 * parsedMetaData.descriptor >> moduleDescriptor
+        0 * serializer._
+    }
+}
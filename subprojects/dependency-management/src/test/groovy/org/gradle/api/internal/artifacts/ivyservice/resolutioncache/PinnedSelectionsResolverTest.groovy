@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultCachePolicy
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.local.model.DefaultProjectComponentSelector
+import org.gradle.internal.component.model.DependencyMetaData
+import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver
+import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class PinnedSelectionsResolverTest extends Specification {
+    def requested = new DefaultModuleVersionSelector("group", "module", "1.+")
+    def selected = new DefaultModuleComponentIdentifier("group", "module", "1.2")
+    def selection = new ResolvedSelection(requested, selected, VersionSelectionReasons.CONFLICT_RESOLUTION, true, false, null)
+    def target = Mock(DependencyToComponentIdResolver)
+    def result = Mock(BuildableComponentIdResolveResult)
+    def resolver = new PinnedSelectionsResolver(target, [selection])
+    def cachePolicy = new DefaultCachePolicy()
+    def moduleReplacements = Stub(ModuleReplacementsData)
+
+    def "resolves a requested module version to the cached selection"() {
+        def dependency = Stub(DependencyMetaData) {
+            getRequested() >> new DefaultModuleVersionSelector("group", "module", "1.+")
+            getSelector() >> new DefaultModuleComponentSelector("group", "module", "1.+")
+        }
+
+        when:
+        resolver.resolve(dependency, result)
+
+        then:
+        1 * result.resolved(selected, DefaultModuleVersionIdentifier.newId("group", "module", "1.2"))
+        1 * result.setSelectionReason(VersionSelectionReasons.CONFLICT_RESOLUTION)
+        0 * target._
+    }
+
+    def "passes dependencies without a cached selection to the target resolver"() {
+        def dependency = Stub(DependencyMetaData) {
+            getRequested() >> requestedSelector
+            getSelector() >> componentSelector
+        }
+
+        when:
+        resolver.resolve(dependency, result)
+
+        then:
+        1 * target.resolve(dependency, result)
+        0 * result._
+
+        where:
+        requestedSelector                                          | componentSelector
+        new DefaultModuleVersionSelector("group", "module", "1.0") | new DefaultModuleComponentSelector("group", "module", "1.0")
+        new DefaultModuleVersionSelector("group", "module", "1.+") | new DefaultProjectComponentSelector(":module")
+    }
+
+    def "cached selections are up-to-date until a dynamic version expires"() {
+        given:
+        cachePolicy.cacheDynamicVersionsFor(10, TimeUnit.SECONDS)
+
+        expect:
+        PinnedSelectionsResolver.isUpToDate(cached([selection], 5000), cachePolicy, moduleReplacements)
+        !PinnedSelectionsResolver.isUpToDate(cached([selection], 20000), cachePolicy, moduleReplacements)
+    }
+
+    def "cached selections are up-to-date until a changing module expires"() {
+        def changing = new ResolvedSelection(new DefaultModuleVersionSelector("group", "other", "1.0"), new DefaultModuleComponentIdentifier("group", "other", "1.0"),
+            VersionSelectionReasons.REQUESTED, false, true, null)
+
+        given:
+        cachePolicy.cacheChangingModulesFor(10, TimeUnit.SECONDS)
+
+        expect:
+        PinnedSelectionsResolver.isUpToDate(cached([changing], 5000), cachePolicy, moduleReplacements)
+        !PinnedSelectionsResolver.isUpToDate(cached([changing], 20000), cachePolicy, moduleReplacements)
+    }
+
+    def "cached selections are not up-to-date when module replacements have changed"() {
+        given:
+        moduleReplacements.getReplacementFor(DefaultModuleIdentifier.newId("group", "module")) >> DefaultModuleIdentifier.newId("group", "replacement")
+
+        expect:
+        !PinnedSelectionsResolver.isUpToDate(cached([selection], 0), cachePolicy, moduleReplacements)
+    }
+
+    def cached(List<ResolvedSelection> selections, long ageMillis) {
+        return Stub(ResolvedSelectionsCache.CachedSelections) {
+            getSelections() >> selections
+            getAgeMillis() >> ageMillis
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache
+
+import org.gradle.api.artifacts.ConflictResolution
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor
+import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal
+import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionsInternal
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.local.model.DefaultProjectComponentSelector
+import org.gradle.internal.component.model.ComponentResolveMetaData
+import org.gradle.internal.component.model.ConfigurationMetaData
+import org.gradle.internal.component.model.DependencyMetaData
+import org.gradle.internal.rules.SpecRuleAction
+import spock.lang.Specification
+
+class ResolutionInputsHasherTest extends Specification {
+    def hasher = new ResolutionInputsHasher()
+    def dependencies = [moduleDependency("group", "module", "1.+")]
+    def configuration = Stub(ConfigurationMetaData) {
+        getHierarchy() >> (["compile"] as Set)
+        isTransitive() >> true
+        getDependencies() >> { dependencies }
+    }
+    def rootComponent = Stub(ComponentResolveMetaData) {
+        getId() >> DefaultModuleVersionIdentifier.newId("org", "root", "1.0")
+        getConfiguration("compile") >> configuration
+    }
+    def substitutionRules = false
+    def selectionRules = []
+    def conflictResolution = Stub(ConflictResolution)
+    def resolutionStrategy = Stub(ResolutionStrategyInternal) {
+        getDependencySubstitution() >> Stub(DependencySubstitutionsInternal) {
+            hasDependencySubstitutionRules() >> { substitutionRules }
+        }
+        getComponentSelection() >> Stub(ComponentSelectionRulesInternal) {
+            getRules() >> { selectionRules }
+        }
+        getConflictResolution() >> conflictResolution
+        getForcedModules() >> ([] as Set)
+    }
+    def metadataRules = false
+    def componentMetadataProcessor = Stub(ComponentMetadataProcessor) {
+        hasRules() >> { metadataRules }
+    }
+    def repositories = [repository("repo1")]
+
+    def "hash is the same for the same inputs"() {
+        expect:
+        hash() != null
+        hash() == hash()
+    }
+
+    def "hash changes when declared dependencies change"() {
+        def original = hash()
+
+        when:
+        dependencies = [moduleDependency("group", "module", "2.+")]
+
+        then:
+        hash() != original
+
+        when:
+        dependencies = [moduleDependency("group", "module", "1.+"), moduleDependency("group", "other", "1.0")]
+
+        then:
+        hash() != original
+    }
+
+    def "hash changes when repositories change"() {
+        def original = hash()
+
+        when:
+        repositories = [repository("repo1"), repository("repo2")]
+
+        then:
+        hash() != original
+    }
+
+    def "does not hash inputs of configuration that uses dependency substitution rules"() {
+        when:
+        substitutionRules = true
+
+        then:
+        hash() == null
+    }
+
+    def "does not hash inputs of configuration that uses component selection rules"() {
+        when:
+        selectionRules = [new SpecRuleAction(null, null)]
+
+        then:
+        hash() == null
+    }
+
+    def "does not hash inputs of configuration when there are component metadata rules"() {
+        when:
+        metadataRules = true
+
+        then:
+        hash() == null
+    }
+
+    def "does not hash inputs of configuration with project dependencies"() {
+        when:
+        dependencies = [moduleDependency("group", "module", "1.+"), Stub(DependencyMetaData) {
+            getSelector() >> new DefaultProjectComponentSelector(":other")
+        }]
+
+        then:
+        hash() == null
+    }
+
+    def hash() {
+        return hasher.hash(rootComponent, "compile", resolutionStrategy, componentMetadataProcessor, repositories)
+    }
+
+    def moduleDependency(String group, String module, String version) {
+        return Stub(DependencyMetaData) {
+            getSelector() >> new DefaultModuleComponentSelector(group, module, version)
+            getRequested() >> new DefaultModuleVersionSelector(group, module, version)
+            isTransitive() >> true
+        }
+    }
+
+    def repository(String id) {
+        return Stub(ResolutionAwareRepository) {
+            createResolver() >> Stub(ConfiguredModuleComponentRepository) {
+                getId() >> id
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.serialize.SerializerSpec
+
+class ResolvedSelectionsCacheEntrySerializerTest extends SerializerSpec {
+    def serializer = new SingleFileBackedResolvedSelectionsCache.ResolvedSelectionsCacheEntrySerializer()
+
+    def "serializes cached selections"() {
+        def selections = [
+            new ResolvedSelection(DefaultModuleVersionSelector.newSelector("group", "a", "1.+"), new DefaultModuleComponentIdentifier("group", "a", "1.2"),
+                VersionSelectionReasons.CONFLICT_RESOLUTION, true, false, null),
+            new ResolvedSelection(DefaultModuleVersionSelector.newSelector("group", "b", null), new DefaultModuleComponentIdentifier("group", "b", "1.0-SNAPSHOT"),
+                VersionSelectionReasons.FORCED, false, true, DefaultModuleIdentifier.newId("other", "c"))
+        ]
+
+        when:
+        def result = serialize(new SingleFileBackedResolvedSelectionsCache.ResolvedSelectionsCacheEntry(selections, 1234L), serializer)
+
+        then:
+        result.createTimestamp == 1234L
+        result.selections.size() == 2
+        with(result.selections[0]) {
+            requested == DefaultModuleVersionSelector.newSelector("group", "a", "1.+")
+            selected == new DefaultModuleComponentIdentifier("group", "a", "1.2")
+            reason == VersionSelectionReasons.CONFLICT_RESOLUTION
+            dynamic
+            !changing
+            replacedBy == null
+        }
+        with(result.selections[1]) {
+            requested == DefaultModuleVersionSelector.newSelector("group", "b", null)
+            requested.version == null
+            selected == new DefaultModuleComponentIdentifier("group", "b", "1.0-SNAPSHOT")
+            reason == VersionSelectionReasons.FORCED
+            !dynamic
+            changing
+            replacedBy == DefaultModuleIdentifier.newId("other", "c")
+        }
+    }
+
+    def "serializes empty selections"() {
+        when:
+        def result = serialize(new SingleFileBackedResolvedSelectionsCache.ResolvedSelectionsCacheEntry([], 0L), serializer)
+
+        then:
+        result.selections.empty
+        result.createTimestamp == 0L
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache
+
+import org.gradle.api.artifacts.component.ComponentIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier
+import org.gradle.internal.component.model.ComponentResolveMetaData
+import org.gradle.internal.component.model.ConfigurationMetaData
+import org.gradle.internal.hash.HashValue
+import org.gradle.internal.resolve.ModuleVersionResolveException
+import spock.lang.Specification
+
+class ResolvedSelectionsRecorderTest extends Specification {
+    def cache = Mock(ResolvedSelectionsCache)
+    def inputsHash = new HashValue("1234")
+    def moduleReplacements = Mock(ModuleReplacementsData)
+    def recorder = new ResolvedSelectionsRecorder(cache, inputsHash, new DefaultVersionSelectorScheme(new DefaultVersionComparator()), moduleReplacements)
+    def root = node(new DefaultProjectComponentIdentifier(":"), false)
+
+    def "records the selection made for each requested module version when resolution succeeds"() {
+        def a = node(new DefaultModuleComponentIdentifier("group", "a", "1.2"), false,
+            edge("group", "a", "1.+"), edge("group", "a", "1.2"), edge("group", "a", "1.+"))
+        def b = node(new DefaultModuleComponentIdentifier("group", "b", "1.0-SNAPSHOT"), true, edge("group", "b", "1.0-SNAPSHOT"))
+        moduleReplacements.getReplacementFor(DefaultModuleIdentifier.newId("group", "b")) >> DefaultModuleIdentifier.newId("group", "c")
+        List<ResolvedSelection> selections = null
+
+        when:
+        visit(root, a, b)
+
+        then:
+        1 * cache.cacheSelections(inputsHash, _) >> { selections = it[1] }
+        selections*.toString() == ["group:a:1.+ -> group:a:1.2", "group:a:1.2 -> group:a:1.2", "group:b:1.0-SNAPSHOT -> group:b:1.0-SNAPSHOT"]
+        selections[0].dynamic
+        !selections[0].changing
+        selections[0].replacedBy == null
+        !selections[1].dynamic
+        !selections[2].dynamic
+        selections[2].changing
+        selections[2].replacedBy == DefaultModuleIdentifier.newId("group", "c")
+    }
+
+    def "does not record selections when a dependency could not be resolved"() {
+        def failed = Stub(DependencyGraphEdge) {
+            getFailure() >> new ModuleVersionResolveException(DefaultModuleVersionSelector.newSelector("group", "missing", "1.0"), "broken")
+        }
+        def a = node(new DefaultModuleComponentIdentifier("group", "a", "1.2"), false, edge("group", "a", "1.2"))
+        a.getOutgoingEdges() >> ([failed] as Set)
+
+        when:
+        visit(root, a)
+
+        then:
+        0 * cache._
+    }
+
+    def "does not record selections when a dependency selects a component that is not a module"() {
+        def project = node(new DefaultProjectComponentIdentifier(":other"), false, edge("group", "other", "1.0"))
+
+        when:
+        visit(root, project)
+
+        then:
+        0 * cache._
+    }
+
+    def visit(DependencyGraphNode root, DependencyGraphNode... nodes) {
+        recorder.start(root)
+        recorder.visitNode(root)
+        nodes.each { recorder.visitNode(it) }
+        nodes.each { recorder.visitEdge(it) }
+        recorder.finish(root)
+    }
+
+    def node(ComponentIdentifier componentId, boolean changing, DependencyGraphEdge... incoming) {
+        def component = Stub(ComponentResolveMetaData) {
+            isChanging() >> changing
+        }
+        return Stub(DependencyGraphNode) {
+            getComponentId() >> componentId
+            getIncomingEdges() >> (incoming as LinkedHashSet)
+            getMetaData() >> Stub(ConfigurationMetaData) {
+                getComponent() >> component
+            }
+        }
+    }
+
+    def edge(String group, String module, String version) {
+        return Stub(DependencyGraphEdge) {
+            getRequestedModuleVersion() >> DefaultModuleVersionSelector.newSelector(group, module, version)
+            getReason() >> VersionSelectionReasons.REQUESTED
+        }
+    }
+}
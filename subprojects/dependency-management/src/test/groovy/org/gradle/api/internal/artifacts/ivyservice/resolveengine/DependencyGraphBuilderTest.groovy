@@ -51,6 +51,8 @@ import org.gradle.internal.component.local.model.DefaultLocalComponentMetaData
 import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier
 import org.gradle.internal.component.local.model.DslOriginDependencyMetaDataWrapper
 import org.gradle.internal.component.model.*
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
 import org.gradle.internal.resolve.ModuleVersionNotFoundException
 import org.gradle.internal.resolve.ModuleVersionResolveException
 import org.gradle.internal.resolve.resolver.ArtifactResolver
@@ -62,6 +64,8 @@ import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult
 import org.gradle.internal.resolve.result.BuildableComponentResolveResult
 import spock.lang.Specification
 
+import java.util.concurrent.ConcurrentLinkedQueue
+
 import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
 import static org.gradle.api.internal.artifacts.DefaultModuleVersionSelector.newSelector
 
@@ -226,6 +230,63 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(a, b, c, d)
     }
 
+    def "prefetches the ids and meta-data of new dependencies on worker threads when a build operation processor is provided"() {
+        given:
+        def processor = new DefaultBuildOperationProcessor(new DefaultExecutorFactory(), 4)
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), processor)
+        def lookups = new ConcurrentLinkedQueue<String>()
+        def lookupThreads = new ConcurrentLinkedQueue<Thread>()
+
+        and:
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        def d = revision("d")
+        def e = revision("e")
+        prefetches root, a, lookups, lookupThreads
+        prefetches root, b, lookups, lookupThreads
+        prefetches root, c, lookups, lookupThreads
+        prefetches a, d, lookups, lookupThreads
+        prefetches a, e, lookups, lookupThreads
+        doesNotResolve b, d
+        doesNotResolve c, e
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        modules(result) == ids(a, b, c, d, e)
+        lookups.sort() == ["id a", "id b", "id c", "id d", "id e", "meta-data a", "meta-data b", "meta-data c", "meta-data d", "meta-data e"]
+        lookupThreads.size() == 10
+        !lookupThreads.contains(Thread.currentThread())
+
+        cleanup:
+        processor.stop()
+    }
+
+    def "reports failures of prefetched dependencies"() {
+        given:
+        def processor = new DefaultBuildOperationProcessor(new DefaultExecutorFactory(), 4)
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), processor)
+
+        and:
+        def a = revision('a')
+        def c = revision('c')
+        traverses root, a
+        brokenSelector root, 'unknown'
+        traversesBroken root, c
+
+        when:
+        def result = resolve()
+
+        then:
+        result.unresolvedModuleDependencies*.selector as Set == [new DefaultModuleVersionSelector('group', 'unknown', '1.0'), new DefaultModuleVersionSelector('group', 'c', '1.0')] as Set
+
+        cleanup:
+        processor.stop()
+    }
+
     def "does not include evicted module when selected module already traversed before conflict detected"() {
         given:
         def selected = revision('a', '1.2')
@@ -972,6 +1033,20 @@ class DependencyGraphBuilderTest extends Specification {
         }
     }
 
+    def prefetches(def from, ComponentResolveMetaData to, Collection<String> lookups, Collection<Thread> lookupThreads) {
+        def dependencyMetaData = dependsOn(from, to.id)
+        1 * idResolver.resolve(dependencyMetaData, _) >> { DependencyMetaData dep, BuildableComponentIdResolveResult result ->
+            lookups << "id ${to.id.name}".toString()
+            lookupThreads << Thread.currentThread()
+            result.resolved(to.componentId, to.id)
+        }
+        1 * metaDataResolver.resolve(to.componentId, _, _) >> { ComponentIdentifier id, ComponentOverrideMetadata requestMetaData, BuildableComponentResolveResult result ->
+            lookups << "meta-data ${to.id.name}".toString()
+            lookupThreads << Thread.currentThread()
+            result.resolved(to)
+        }
+    }
+
     def doesNotTraverse(Map<String, ?> args = [:], def from, ComponentResolveMetaData to) {
         def dependencyMetaData = dependsOn(args, from, to.id)
         selectorResolvesTo(dependencyMetaData, to.componentId, to.id)
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.filestore.ivy
+
+import org.gradle.api.internal.file.TemporaryFileProvider
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactMetaData
+import org.gradle.internal.hash.HashUtil
+import org.gradle.internal.resource.cached.CachedExternalResourceIndex
+import org.gradle.internal.resource.cached.DefaultCachedExternalResource
+import org.gradle.internal.resource.local.UniquePathKeyFileStore
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier.newId
+
+class ArtifactIdentifierFileStoreTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def index = [:]
+    def checksumIndex = Stub(CachedExternalResourceIndex) {
+        lookup(_) >> { String key -> index[key] }
+        store(_, _, _) >> { String key, File file, metaData -> index[key] = new DefaultCachedExternalResource(file, 0, null) }
+    }
+    def hardLinker = Mock(HardLinker)
+    def store = new ArtifactIdentifierFileStore(new UniquePathKeyFileStore(tmpDir.createDir("filestore")), Stub(TemporaryFileProvider), checksumIndex, hardLinker)
+
+    def "indexes moved entries by checksum"() {
+        def source = tmpDir.file("download").createFile()
+        source.text = "content"
+
+        when:
+        def entry = store.move(artifact("a"), source)
+
+        then:
+        !source.exists()
+        entry.file.text == "content"
+        store.findByChecksum(HashUtil.sha1(entry.file)).file == entry.file
+        0 * hardLinker._
+    }
+
+    def "links entry with same content as an existing entry"() {
+        def first = tmpDir.file("download1").createFile()
+        first.text = "content"
+        def second = tmpDir.file("download2").createFile()
+        second.text = "content"
+
+        when:
+        def existing = store.move(artifact("a"), first)
+        def entry = store.move(artifact("b"), second)
+
+        then:
+        1 * hardLinker.link(existing.file, _) >> { File target, File link ->
+            link.text = target.text
+            true
+        }
+        !second.exists()
+        entry.file != existing.file
+        entry.file.text == "content"
+        entry.sha1 == existing.sha1
+    }
+
+    def "moves entry with same content as an existing entry when it cannot be linked"() {
+        def first = tmpDir.file("download1").createFile()
+        first.text = "content"
+        def second = tmpDir.file("download2").createFile()
+        second.text = "content"
+
+        when:
+        def existing = store.move(artifact("a"), first)
+        def entry = store.move(artifact("b"), second)
+
+        then:
+        1 * hardLinker.link(existing.file, _) >> false
+        !second.exists()
+        entry.file != existing.file
+        entry.file.text == "content"
+    }
+
+    def "does not share content when not indexed by checksum"() {
+        def store = new ArtifactIdentifierFileStore(new UniquePathKeyFileStore(tmpDir.createDir("other")), Stub(TemporaryFileProvider))
+        def source = tmpDir.file("download").createFile()
+        source.text = "content"
+
+        when:
+        def entry = store.move(artifact("a"), source)
+
+        then:
+        !store.indexedByChecksum
+        store.findByChecksum(HashUtil.sha1(entry.file)) == null
+    }
+
+    def artifact(String module) {
+        return new DefaultModuleComponentArtifactMetaData(new DefaultModuleComponentArtifactIdentifier(newId("group", module, "1.0"), module, "jar", "jar"))
+    }
+}
@@ -25,8 +25,13 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Dispatches to a set of handlers. Handlers can be added and removed from any thread, for example by projects that are configured in parallel.
+ * Each dispatch delivers to the handlers registered when the dispatch started, without holding a lock while the handlers run.
+ */
 public class BroadcastDispatch<T> extends AbstractBroadcastDispatch<T> {
     private final Map<Object, Dispatch<MethodInvocation>> handlers = new LinkedHashMap<Object, Dispatch<MethodInvocation>>();
 
@@ -38,19 +43,19 @@ public class BroadcastDispatch<T> extends AbstractBroadcastDispatch<T> {
         return type;
     }
 
-    public boolean isEmpty() {
+    public synchronized boolean isEmpty() {
         return handlers.isEmpty();
     }
 
-    public void add(Dispatch<MethodInvocation> dispatch) {
+    public synchronized void add(Dispatch<MethodInvocation> dispatch) {
         handlers.put(dispatch, dispatch);
     }
 
-    public void add(T listener) {
+    public synchronized void add(T listener) {
         handlers.put(listener, new ReflectionDispatch(listener));
     }
 
-    public void add(String methodName, Action<?> action) {
+    public synchronized void add(String methodName, Action<?> action) {
         assertIsMethod(methodName);
         handlers.put(action, new ActionInvocationHandler(methodName, action));
     }
@@ -65,20 +70,24 @@ public class BroadcastDispatch<T> extends AbstractBroadcastDispatch<T> {
                 type.getSimpleName()));
     }
 
-    public void remove(Object listener) {
+    public synchronized void remove(Object listener) {
         handlers.remove(listener);
     }
 
-    public void removeAll() {
+    public synchronized void removeAll() {
         handlers.clear();
     }
 
     @Override
     public void dispatch(MethodInvocation message) {
-        Iterator<Dispatch<MethodInvocation>> iterator = new ArrayList<Dispatch<MethodInvocation>>(handlers.values()).iterator();
+        Iterator<Dispatch<MethodInvocation>> iterator = snapshot().iterator();
         dispatch(message, iterator);
     }
 
+    private synchronized List<Dispatch<MethodInvocation>> snapshot() {
+        return new ArrayList<Dispatch<MethodInvocation>>(handlers.values());
+    }
+
     private class ActionInvocationHandler implements Dispatch<MethodInvocation> {
         private final String methodName;
         private final Action action;
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.performance
+
+import org.gradle.performance.categories.BasicPerformanceTest
+import org.junit.experimental.categories.Category
+
+@Category(BasicPerformanceTest)
+class MappedCacheFilesPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    def "up-to-date build with memory mapped cache files"() {
+        when:
+        runner.testId = "up-to-date build with memory mapped cache files"
+        runner.testGroup = "cache files"
+        runner.buildSpec {
+            projectName("bigOldJava").displayName("mapped").invocation {
+                tasksToRun("build").gradleOpts("-Dorg.gradle.cache.mappedfiles=true").useDaemon()
+            }
+        }
+        runner.baseline {
+            projectName("bigOldJava").displayName("random access file").invocation {
+                tasksToRun("build").useDaemon()
+            }
+        }
+
+        then:
+        runner.run()
+    }
+
+}
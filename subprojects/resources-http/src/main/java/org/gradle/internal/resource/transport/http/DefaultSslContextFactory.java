@@ -19,6 +19,7 @@ package org.gradle.internal.resource.transport.http;
 import org.apache.http.ssl.SSLInitializationException;
 import org.gradle.internal.Factory;
 import org.gradle.internal.SystemProperties;
+import org.gradle.internal.hash.HashUtil;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
@@ -28,6 +29,9 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /*
  * This implementation is borrowed from the Apache HttpClient project
@@ -35,9 +39,57 @@ import java.security.KeyStore;
  */
 public class DefaultSslContextFactory implements Factory<SSLContext> {
     private static final char[] EMPTY_PASSWORD = "".toCharArray();
+    private static final List<String> SSL_SYSTEM_PROPERTIES = Arrays.asList(
+        "ssl.TrustManagerFactory.algorithm", "javax.net.ssl.trustStoreType", "javax.net.ssl.trustStore", "javax.net.ssl.trustStoreProvider",
+        "ssl.KeyManagerFactory.algorithm", "javax.net.ssl.keyStoreType", "javax.net.ssl.keyStore", "javax.net.ssl.keyStoreProvider", "java.home");
+    private static final List<String> SSL_PASSWORD_PROPERTIES = Arrays.asList("javax.net.ssl.trustStorePassword", "javax.net.ssl.keyStorePassword");
+
+    // The last context is shared for as long as the SSL system properties and the key and trust store files are unchanged, so that TLS sessions can be resumed
+    // across connections and builds
+    private static CachedContext cachedContext;
 
     @Override
     public SSLContext create() {
+        List<String> key = contextKey();
+        synchronized (DefaultSslContextFactory.class) {
+            if (cachedContext == null || !cachedContext.key.equals(key)) {
+                cachedContext = new CachedContext(key, createSslContext());
+            }
+            return cachedContext.context;
+        }
+    }
+
+    private static List<String> contextKey() {
+        List<String> key = new ArrayList<String>();
+        for (String property : SSL_SYSTEM_PROPERTIES) {
+            key.add(System.getProperty(property));
+        }
+        // Only keep a digest of the passwords
+        for (String property : SSL_PASSWORD_PROPERTIES) {
+            String password = System.getProperty(property);
+            key.add(password == null ? null : HashUtil.createHash(password, "SHA-256").asHexString());
+        }
+        String trustStore = System.getProperty("javax.net.ssl.trustStore");
+        key.add(fileIdentity(trustStore != null ? new File(trustStore) : defaultTrustStoreFile()));
+        String keyStore = System.getProperty("javax.net.ssl.keyStore");
+        key.add(keyStore != null ? fileIdentity(new File(keyStore)) : null);
+        return key;
+    }
+
+    private static String fileIdentity(File file) {
+        return file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+    }
+
+    private static File defaultTrustStoreFile() {
+        File javaHome = SystemProperties.getInstance().getJavaHomeDir();
+        File file = new File(javaHome, "lib/security/jssecacerts");
+        if (!file.exists()) {
+            file = new File(javaHome, "lib/security/cacerts");
+        }
+        return file;
+    }
+
+    private SSLContext createSslContext() {
         try {
             TrustManagerFactory tmFactory;
 
@@ -73,14 +125,7 @@ public class DefaultSslContextFactory implements Factory<SSLContext> {
                     }
                     tmFactory.init(trustStore);
                 } else {
-                    File javaHome = SystemProperties.getInstance().getJavaHomeDir();
-                    File file = new File(javaHome, "lib/security/jssecacerts");
-                    if (!file.exists()) {
-                        file = new File(javaHome, "lib/security/cacerts");
-                        trustStoreFile = file;
-                    } else {
-                        trustStoreFile = file;
-                    }
+                    trustStoreFile = defaultTrustStoreFile();
                     tmFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
                     KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
                     String trustStorePassword = System.getProperty("javax.net.ssl.trustStorePassword");
@@ -144,4 +189,14 @@ public class DefaultSslContextFactory implements Factory<SSLContext> {
             throw new SSLInitializationException(e.getMessage(), e);
         }
     }
+
+    private static class CachedContext {
+        private final List<String> key;
+        private final SSLContext context;
+
+        private CachedContext(List<String> key, SSLContext context) {
+            this.key = key;
+            this.context = context;
+        }
+    }
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpConnectionMetrics;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.DefaultHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.ConnectionShutdownException;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.gradle.internal.concurrent.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pools the HTTP connections of all {@link HttpClientHelper} instances that use it, so that connections and TLS sessions are reused across repositories and, in the daemon,
+ * across builds. There is a connection manager for each distinct {@link SSLContext}, as the socket factories belong to the connection manager. The SSL context
+ * factory replaces its context when the SSL system properties or key stores change, so when a new context is used the connection managers of the earlier
+ * contexts are discarded and their connections closed.
+ *
+ * <p>The pool is tuned with the {@value #MAX_CONNECTIONS_PER_ROUTE_PROPERTY}, {@value #MAX_CONNECTIONS_PROPERTY} and {@value #KEEP_ALIVE_PROPERTY} system properties.</p>
+ */
+public class HttpConnectionPool implements Stoppable {
+    public static final String MAX_CONNECTIONS_PER_ROUTE_PROPERTY = "org.gradle.internal.http.maxConnectionsPerRoute";
+    public static final String MAX_CONNECTIONS_PROPERTY = "org.gradle.internal.http.maxConnections";
+    public static final String KEEP_ALIVE_PROPERTY = "org.gradle.internal.http.keepAlive";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpConnectionPool.class);
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    private final int maxConnectionsPerRoute;
+    private final int maxConnections;
+    private final long keepAliveMillis;
+    private final Map<SSLContext, CountingConnectionManager> connectionManagers = new HashMap<SSLContext, CountingConnectionManager>();
+    private final AtomicLong connectionsLeased = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong leaseWaitTimeNanos = new AtomicLong();
+
+    public HttpConnectionPool() {
+        this(Integer.getInteger(MAX_CONNECTIONS_PER_ROUTE_PROPERTY, 10), Integer.getInteger(MAX_CONNECTIONS_PROPERTY, 50), Long.getLong(KEEP_ALIVE_PROPERTY, 60000));
+    }
+
+    public HttpConnectionPool(int maxConnectionsPerRoute, int maxConnections, long keepAliveMillis) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.maxConnections = maxConnections;
+        this.keepAliveMillis = keepAliveMillis;
+    }
+
+    /**
+     * Configures the given builder to lease its connections from this pool.
+     */
+    public void configure(HttpClientBuilder builder, SSLContext sslContext) {
+        HttpClientConnectionManager connectionManager = getConnectionManager(sslContext);
+        // Connections kept from an earlier build may have been idle for a long time
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS);
+        builder.setConnectionManager(connectionManager);
+        builder.setConnectionManagerShared(true);
+        builder.setKeepAliveStrategy(new BoundedKeepAliveStrategy(keepAliveMillis));
+    }
+
+    public HttpConnectionStatistics getStatistics() {
+        return new HttpConnectionStatistics(connectionsLeased.get(), connectionsOpened.get(), bytesSent.get(), bytesReceived.get(), TimeUnit.NANOSECONDS.toMillis(leaseWaitTimeNanos.get()));
+    }
+
+    private synchronized HttpClientConnectionManager getConnectionManager(SSLContext sslContext) {
+        CountingConnectionManager connectionManager = connectionManagers.get(sslContext);
+        if (connectionManager == null) {
+            for (CountingConnectionManager superseded : connectionManagers.values()) {
+                superseded.retire();
+            }
+            connectionManagers.clear();
+            connectionManager = createConnectionManager(sslContext);
+            connectionManagers.put(sslContext, connectionManager);
+        }
+        return connectionManager;
+    }
+
+    private CountingConnectionManager createConnectionManager(SSLContext sslContext) {
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", new SSLConnectionSocketFactory(sslContext, new DefaultHostnameVerifier(null)))
+            .build();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactories);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+        return new CountingConnectionManager(connectionManager);
+    }
+
+    public synchronized void stop() {
+        LOGGER.debug("HTTP connection pool statistics: {}", getStatistics());
+        for (HttpClientConnectionManager connectionManager : connectionManagers.values()) {
+            connectionManager.shutdown();
+        }
+        connectionManagers.clear();
+    }
+
+    private static class BoundedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+        private final long maxKeepAliveMillis;
+
+        BoundedKeepAliveStrategy(long maxKeepAliveMillis) {
+            this.maxKeepAliveMillis = maxKeepAliveMillis;
+        }
+
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAlive > 0 ? Math.min(keepAlive, maxKeepAliveMillis) : maxKeepAliveMillis;
+        }
+    }
+
+    private class CountingConnectionManager implements HttpClientConnectionManager {
+        private final HttpClientConnectionManager delegate;
+        private volatile boolean retired;
+
+        CountingConnectionManager(HttpClientConnectionManager delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Stops pooling connections. Clients that still use this manager can lease new connections, but connections are closed once released.
+         */
+        void retire() {
+            retired = true;
+            delegate.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+        }
+
+        public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            final ConnectionRequest request = delegate.requestConnection(route, state);
+            return new ConnectionRequest() {
+                public HttpClientConnection get(long timeout, TimeUnit tunit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        HttpClientConnection connection = request.get(timeout, tunit);
+                        connectionsLeased.incrementAndGet();
+                        return connection;
+                    } finally {
+                        leaseWaitTimeNanos.addAndGet(System.nanoTime() - start);
+                    }
+                }
+
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+
+        public void releaseConnection(HttpClientConnection conn, Object newState, long validDuration, TimeUnit timeUnit) {
+            try {
+                HttpConnectionMetrics metrics = conn.getMetrics();
+                bytesSent.addAndGet(metrics.getSentBytesCount());
+                bytesReceived.addAndGet(metrics.getReceivedBytesCount());
+                metrics.reset();
+            } catch (ConnectionShutdownException e) {
+                // Connection has already been discarded
+            }
+            delegate.releaseConnection(conn, newState, validDuration, timeUnit);
+            if (retired) {
+                delegate.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        public void connect(HttpClientConnection conn, HttpRoute route, int connectTimeout, HttpContext context) throws IOException {
+            connectionsOpened.incrementAndGet();
+            delegate.connect(conn, route, connectTimeout, context);
+        }
+
+        public void upgrade(HttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+            delegate.upgrade(conn, route, context);
+        }
+
+        public void routeComplete(HttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+            delegate.routeComplete(conn, route, context);
+        }
+
+        public void closeIdleConnections(long idletime, TimeUnit tunit) {
+            delegate.closeIdleConnections(idletime, tunit);
+        }
+
+        public void closeExpiredConnections() {
+            delegate.closeExpiredConnections();
+        }
+
+        public void shutdown() {
+            delegate.shutdown();
+        }
+    }
+}
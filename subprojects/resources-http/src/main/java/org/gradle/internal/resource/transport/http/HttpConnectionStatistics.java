@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+/**
+ * A point-in-time view of the usage of a {@link HttpConnectionPool}.
+ */
+public class HttpConnectionStatistics {
+    private final long connectionsLeased;
+    private final long connectionsOpened;
+    private final long bytesSent;
+    private final long bytesReceived;
+    private final long leaseWaitTimeMillis;
+
+    public HttpConnectionStatistics(long connectionsLeased, long connectionsOpened, long bytesSent, long bytesReceived, long leaseWaitTimeMillis) {
+        this.connectionsLeased = connectionsLeased;
+        this.connectionsOpened = connectionsOpened;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.leaseWaitTimeMillis = leaseWaitTimeMillis;
+    }
+
+    /**
+     * Returns the number of times a connection was handed out for a request.
+     */
+    public long getConnectionsLeased() {
+        return connectionsLeased;
+    }
+
+    /**
+     * Returns the number of new connections that were opened to a server.
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened;
+    }
+
+    /**
+     * Returns the fraction of the requests that were served over an already open connection.
+     */
+    public double getConnectionReuseRate() {
+        return connectionsLeased == 0 ? 0 : (double) (connectionsLeased - connectionsOpened) / connectionsLeased;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Returns the total time that requests spent waiting for a connection to become available.
+     */
+    public long getLeaseWaitTimeMillis() {
+        return leaseWaitTimeMillis;
+    }
+
+    /**
+     * Returns the activity that happened since the given earlier statistics were taken.
+     */
+    public HttpConnectionStatistics minus(HttpConnectionStatistics earlier) {
+        return new HttpConnectionStatistics(connectionsLeased - earlier.connectionsLeased, connectionsOpened - earlier.connectionsOpened,
+            bytesSent - earlier.bytesSent, bytesReceived - earlier.bytesReceived, leaseWaitTimeMillis - earlier.leaseWaitTimeMillis);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{connectionsLeased=%d, connectionsOpened=%d, reuseRate=%.2f, bytesSent=%d, bytesReceived=%d, leaseWaitTime=%dms}",
+            connectionsLeased, connectionsOpened, getConnectionReuseRate(), bytesSent, bytesReceived, leaseWaitTimeMillis);
+    }
+}
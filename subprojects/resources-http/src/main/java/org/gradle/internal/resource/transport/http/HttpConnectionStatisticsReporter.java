@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.gradle.initialization.BuildCompletionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs the usage of the shared {@link HttpConnectionPool} by a single build, once the build has completed. The pool itself lives as long as the process, so its
+ * statistics also cover earlier builds.
+ */
+public class HttpConnectionStatisticsReporter implements BuildCompletionListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpConnectionStatisticsReporter.class);
+
+    private final HttpConnectionPool connectionPool;
+    private final HttpConnectionStatistics atStart;
+
+    public HttpConnectionStatisticsReporter(HttpConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+        this.atStart = connectionPool.getStatistics();
+    }
+
+    public HttpConnectionStatistics getStatisticsForBuild() {
+        return connectionPool.getStatistics().minus(atStart);
+    }
+
+    public void completed() {
+        HttpConnectionStatistics statistics = getStatisticsForBuild();
+        if (statistics.getConnectionsLeased() > 0) {
+            LOGGER.info("HTTP connection statistics for this build: {}", statistics);
+        }
+    }
+}
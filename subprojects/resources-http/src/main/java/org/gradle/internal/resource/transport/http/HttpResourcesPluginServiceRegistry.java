@@ -21,6 +21,7 @@ import org.gradle.authentication.http.DigestAuthentication;
 import org.gradle.internal.authentication.DefaultBasicAuthentication;
 import org.gradle.internal.authentication.DefaultDigestAuthentication;
 import org.gradle.internal.authentication.AuthenticationSchemeRegistry;
+import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.resource.connector.ResourceConnectorFactory;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
@@ -35,6 +36,7 @@ public class HttpResourcesPluginServiceRegistry implements PluginServiceRegistry
 
     public void registerBuildServices(ServiceRegistration registration) {
         registration.addProvider(new AuthenticationSchemeAction());
+        registration.addProvider(new BuildScopeServices());
     }
 
     public void registerGradleServices(ServiceRegistration registration) {
@@ -44,8 +46,18 @@ public class HttpResourcesPluginServiceRegistry implements PluginServiceRegistry
     }
 
     private static class GlobalScopeServices {
-        ResourceConnectorFactory createHttpConnectorFactory() {
-            return new HttpConnectorFactory();
+        HttpConnectionPool createHttpConnectionPool() {
+            return new HttpConnectionPool();
+        }
+
+        ResourceConnectorFactory createHttpConnectorFactory(HttpConnectionPool connectionPool) {
+            return new HttpConnectorFactory(connectionPool);
+        }
+    }
+
+    private static class BuildScopeServices {
+        public void configure(ServiceRegistration registration, ListenerManager listenerManager, HttpConnectionPool connectionPool) {
+            listenerManager.addListener(new HttpConnectionStatisticsReporter(connectionPool));
         }
     }
 
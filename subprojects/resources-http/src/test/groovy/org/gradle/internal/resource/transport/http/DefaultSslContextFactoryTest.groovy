@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.security.KeyStore
+
+class DefaultSslContextFactoryTest extends Specification {
+    @Rule SetSystemProperties sysProp = new SetSystemProperties()
+    @Rule TestNameTestDirectoryProvider tmpDir
+    def factory = new DefaultSslContextFactory()
+
+    def "reuses context while trust store is unchanged"() {
+        given:
+        def trustStore = trustStore("trust.jks", "password")
+        System.setProperty("javax.net.ssl.trustStore", trustStore.absolutePath)
+        System.setProperty("javax.net.ssl.trustStorePassword", "password")
+
+        expect:
+        factory.create().is(factory.create())
+        factory.create().is(new DefaultSslContextFactory().create())
+    }
+
+    def "creates new context when trust store file changes"() {
+        given:
+        def trustStore = trustStore("trust.jks", "password")
+        System.setProperty("javax.net.ssl.trustStore", trustStore.absolutePath)
+        System.setProperty("javax.net.ssl.trustStorePassword", "password")
+        def original = factory.create()
+
+        when:
+        trustStore.setLastModified(trustStore.lastModified() - 10000)
+
+        then:
+        !factory.create().is(original)
+    }
+
+    def "creates new context when trust store properties change"() {
+        given:
+        System.setProperty("javax.net.ssl.trustStore", trustStore("trust.jks", "password").absolutePath)
+        System.setProperty("javax.net.ssl.trustStorePassword", "password")
+        def original = factory.create()
+
+        when:
+        System.setProperty("javax.net.ssl.trustStore", trustStore("other.jks", "other").absolutePath)
+        System.setProperty("javax.net.ssl.trustStorePassword", "other")
+
+        then:
+        !factory.create().is(original)
+    }
+
+    File trustStore(String name, String password) {
+        def keyStore = KeyStore.getInstance("JKS")
+        keyStore.load(null, null)
+        def file = tmpDir.file(name)
+        file.withOutputStream { keyStore.store(it, password.toCharArray()) }
+        return file
+    }
+}
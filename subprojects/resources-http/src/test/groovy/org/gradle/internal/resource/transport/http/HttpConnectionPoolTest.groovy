@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import org.apache.http.client.methods.HttpGet
+import org.apache.http.impl.client.CloseableHttpClient
+import org.apache.http.impl.client.HttpClientBuilder
+import org.apache.http.util.EntityUtils
+import org.gradle.authentication.Authentication
+import spock.lang.Specification
+
+import javax.net.ssl.SSLContext
+
+class HttpConnectionPoolTest extends Specification {
+    def pool = new HttpConnectionPool(4, 10, 60000)
+    HttpServer server
+    String url
+
+    def setup() {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/", new HttpHandler() {
+            void handle(HttpExchange exchange) {
+                def content = "content".bytes
+                exchange.sendResponseHeaders(200, content.length)
+                exchange.responseBody.write(content)
+                exchange.close()
+            }
+        })
+        server.start()
+        url = "http://127.0.0.1:${server.address.port}/resource"
+    }
+
+    def cleanup() {
+        pool.stop()
+        server.stop(0)
+    }
+
+    def "reuses connections across clients that share the pool"() {
+        when:
+        3.times {
+            def client = new HttpClientHelper(new DefaultHttpSettings([] as Set<Authentication>), pool)
+            2.times {
+                assert EntityUtils.toString(client.performGet(url).entity) == "content"
+            }
+            client.close()
+        }
+
+        then:
+        def statistics = pool.statistics
+        statistics.connectionsLeased == 6
+        statistics.connectionsOpened == 1
+        statistics.connectionReuseRate > 0.8
+        statistics.bytesSent > 0
+        statistics.bytesReceived > 6 * "content".length()
+    }
+
+    def "statistics can be taken relative to an earlier point"() {
+        def client = new HttpClientHelper(new DefaultHttpSettings([] as Set<Authentication>), pool)
+        EntityUtils.consume(client.performGet(url).entity)
+        def before = pool.statistics
+
+        when:
+        EntityUtils.consume(client.performGet(url).entity)
+        def delta = pool.statistics.minus(before)
+
+        then:
+        delta.connectionsLeased == 1
+        delta.connectionsOpened == 0
+        delta.connectionReuseRate == 1
+    }
+
+    def "reports usage of the pool by a single build"() {
+        def client = new HttpClientHelper(new DefaultHttpSettings([] as Set<Authentication>), pool)
+        EntityUtils.consume(client.performGet(url).entity)
+
+        when:
+        def reporter = new HttpConnectionStatisticsReporter(pool)
+        2.times {
+            EntityUtils.consume(client.performGet(url).entity)
+        }
+        reporter.completed()
+
+        then:
+        reporter.statisticsForBuild.connectionsLeased == 2
+        reporter.statisticsForBuild.connectionsOpened == 0
+        pool.statistics.connectionsLeased == 3
+    }
+
+    def "closes connections of the connection manager for a superseded SSL context"() {
+        def client1 = client(newSslContext())
+
+        when:
+        2.times { get(client1) }
+
+        then:
+        pool.statistics.connectionsOpened == 1
+
+        when:
+        def client2 = client(newSslContext())
+        2.times { get(client1) }
+        2.times { get(client2) }
+
+        then:
+        // The connections of the superseded manager are closed on release, the connections of the current manager are reused
+        pool.statistics.connectionsOpened == 4
+        pool.statistics.connectionsLeased == 6
+
+        cleanup:
+        client1?.close()
+        client2?.close()
+    }
+
+    def get(CloseableHttpClient client) {
+        EntityUtils.consume(client.execute(new HttpGet(url)).entity)
+    }
+
+    def client(SSLContext sslContext) {
+        def builder = HttpClientBuilder.create()
+        pool.configure(builder, sslContext)
+        return builder.build()
+    }
+
+    static SSLContext newSslContext() {
+        def sslContext = SSLContext.getInstance("TLS")
+        sslContext.init(null, null, null)
+        return sslContext
+    }
+}